@@ -1,15 +1,30 @@
 package co.com.bancolombia.config;
 
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import co.com.bancolombia.usecase.franchise.AddBranchUseCase;
 import co.com.bancolombia.usecase.franchise.AddProductUseCase;
+import co.com.bancolombia.usecase.franchise.AdjustProductStockUseCase;
+import co.com.bancolombia.usecase.franchise.BulkUpdateProductStockUseCase;
 import co.com.bancolombia.usecase.franchise.CreateFranchiseUseCase;
+import co.com.bancolombia.usecase.franchise.DeleteBranchUseCase;
+import co.com.bancolombia.usecase.franchise.DeleteFranchiseUseCase;
 import co.com.bancolombia.usecase.franchise.DeleteProductUseCase;
+import co.com.bancolombia.usecase.franchise.ImportFranchiseUseCase;
+import co.com.bancolombia.usecase.franchise.ListBranchesUseCase;
+import co.com.bancolombia.usecase.franchise.ListFranchisesUseCase;
+import co.com.bancolombia.usecase.franchise.ListProductsUseCase;
 import co.com.bancolombia.usecase.franchise.TopProductByBranchUseCase;
+import co.com.bancolombia.usecase.franchise.TopProductsByFranchiseUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateBranchNameUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateFranchiseNameUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateProductNameUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateProductStockUseCase;
+import co.com.bancolombia.usecase.franchise.WatchStockEventsUseCase;
+import co.com.bancolombia.usecase.idempotency.IdempotentRequestUseCase;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -22,28 +37,58 @@ public class UseCasesConfig {
         }
 
         @Bean
-        AddBranchUseCase addBranchUseCase(FranchiseGateway gateway) {
-                return new AddBranchUseCase(gateway);
+        ImportFranchiseUseCase importFranchiseUseCase(FranchiseGateway gateway) {
+                return new ImportFranchiseUseCase(gateway);
         }
 
         @Bean
-        AddProductUseCase addProductUseCase(FranchiseGateway gateway) {
-                return new AddProductUseCase(gateway);
+        AddBranchUseCase addBranchUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new AddBranchUseCase(gateway, cache);
         }
 
         @Bean
-        DeleteProductUseCase deleteProductUseCase(FranchiseGateway gateway) {
-                return new DeleteProductUseCase(gateway);
+        AddProductUseCase addProductUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new AddProductUseCase(gateway, cache);
         }
 
         @Bean
-        UpdateProductStockUseCase updateProductStockUseCase(FranchiseGateway gateway) {
-                return new UpdateProductStockUseCase(gateway);
+        DeleteProductUseCase deleteProductUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new DeleteProductUseCase(gateway, cache);
         }
 
         @Bean
-        TopProductByBranchUseCase topProductByBranchUseCase(FranchiseGateway gateway) {
-                return new TopProductByBranchUseCase(gateway);
+        DeleteBranchUseCase deleteBranchUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new DeleteBranchUseCase(gateway, cache);
+        }
+
+        @Bean
+        DeleteFranchiseUseCase deleteFranchiseUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new DeleteFranchiseUseCase(gateway, cache);
+        }
+
+        @Bean
+        UpdateProductStockUseCase updateProductStockUseCase(StockWriteGateway writer, TopProductCacheGateway cache) {
+                return new UpdateProductStockUseCase(writer, cache);
+        }
+
+        @Bean
+        AdjustProductStockUseCase adjustProductStockUseCase(StockWriteGateway writer, TopProductCacheGateway cache) {
+                return new AdjustProductStockUseCase(writer, cache);
+        }
+
+        @Bean
+        BulkUpdateProductStockUseCase bulkUpdateProductStockUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new BulkUpdateProductStockUseCase(gateway, cache);
+        }
+
+        @Bean
+        TopProductByBranchUseCase topProductByBranchUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new TopProductByBranchUseCase(gateway, cache);
+        }
+
+        @Bean
+        TopProductsByFranchiseUseCase topProductsByFranchiseUseCase(FranchiseGateway gateway) {
+                return new TopProductsByFranchiseUseCase(gateway);
         }
 
         @Bean
@@ -52,12 +97,37 @@ public class UseCasesConfig {
         }
 
         @Bean
-        UpdateBranchNameUseCase updateBranchNameUseCase(FranchiseGateway gateway) {
-                return new UpdateBranchNameUseCase(gateway);
+        UpdateBranchNameUseCase updateBranchNameUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new UpdateBranchNameUseCase(gateway, cache);
+        }
+
+        @Bean
+        UpdateProductNameUseCase updateProductNameUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+                return new UpdateProductNameUseCase(gateway, cache);
+        }
+
+        @Bean
+        ListFranchisesUseCase listFranchisesUseCase(FranchiseGateway gateway) {
+                return new ListFranchisesUseCase(gateway);
+        }
+
+        @Bean
+        ListBranchesUseCase listBranchesUseCase(FranchiseGateway gateway) {
+                return new ListBranchesUseCase(gateway);
+        }
+
+        @Bean
+        ListProductsUseCase listProductsUseCase(FranchiseGateway gateway) {
+                return new ListProductsUseCase(gateway);
+        }
+
+        @Bean
+        WatchStockEventsUseCase watchStockEventsUseCase(StockEventGateway events) {
+                return new WatchStockEventsUseCase(events);
         }
 
         @Bean
-        UpdateProductNameUseCase updateProductNameUseCase(FranchiseGateway gateway) {
-                return new UpdateProductNameUseCase(gateway);
+        IdempotentRequestUseCase idempotentRequestUseCase(IdempotencyGateway gateway) {
+                return new IdempotentRequestUseCase(gateway);
         }
-}
\ No newline at end of file
+}
@@ -1,6 +1,10 @@
 package co.com.bancolombia.config;
 
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.context.annotation.*;
@@ -36,5 +40,25 @@ class UseCasesConfigTest {
         public FranchiseGateway franchiseGateway() {
             return Mockito.mock(FranchiseGateway.class);
         }
+
+        @Bean
+        public TopProductCacheGateway topProductCacheGateway() {
+            return Mockito.mock(TopProductCacheGateway.class);
+        }
+
+        @Bean
+        public StockEventGateway stockEventGateway() {
+            return Mockito.mock(StockEventGateway.class);
+        }
+
+        @Bean
+        public StockWriteGateway stockWriteGateway() {
+            return Mockito.mock(StockWriteGateway.class);
+        }
+
+        @Bean
+        public IdempotencyGateway idempotencyGateway() {
+            return Mockito.mock(IdempotencyGateway.class);
+        }
     }
 }
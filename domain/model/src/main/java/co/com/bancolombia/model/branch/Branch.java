@@ -13,4 +13,9 @@ public class Branch {
     private final String name;
     private final Instant createdAt;
     private final Instant updatedAt;
-}
\ No newline at end of file
+    private final long version;
+
+    public Branch(String id, String franchiseId, String name, Instant createdAt, Instant updatedAt) {
+        this(id, franchiseId, name, createdAt, updatedAt, 0);
+    }
+}
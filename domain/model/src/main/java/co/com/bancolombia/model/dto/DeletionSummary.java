@@ -0,0 +1,16 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class DeletionSummary {
+    private final long franchises;
+    private final long branches;
+    private final long products;
+
+    public DeletionSummary plus(DeletionSummary other) {
+        return new DeletionSummary(franchises + other.franchises, branches + other.branches, products + other.products);
+    }
+}
@@ -0,0 +1,21 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IdempotentResponse {
+    private final int status;
+    private final String etag;
+    private final String body;
+    private final String requestHash;
+
+    public IdempotentResponse(int status, String etag, String body) {
+        this(status, etag, body, null);
+    }
+
+    public IdempotentResponse withRequestHash(String requestHash) {
+        return new IdempotentResponse(status, etag, body, requestHash);
+    }
+}
@@ -0,0 +1,25 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImportRecord {
+    private final long line;
+    private final Type type;
+    private final String name;
+    private final String branch;
+    private final Integer stock;
+    private final String error;
+
+    public static ImportRecord invalid(long line, String error) {
+        return new ImportRecord(line, null, null, null, null, error);
+    }
+
+    public enum Type {
+        FRANCHISE,
+        BRANCH,
+        PRODUCT
+    }
+}
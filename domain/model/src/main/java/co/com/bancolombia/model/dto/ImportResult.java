@@ -0,0 +1,27 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ImportResult {
+    private final long line;
+    private final ImportRecord.Type type;
+    private final Status status;
+    private final String id;
+    private final String message;
+
+    public static ImportResult created(ImportRecord record, String id) {
+        return new ImportResult(record.getLine(), record.getType(), Status.CREATED, id, null);
+    }
+
+    public static ImportResult failed(ImportRecord record, String message) {
+        return new ImportResult(record.getLine(), record.getType(), Status.FAILED, null, message);
+    }
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+}
@@ -0,0 +1,60 @@
+package co.com.bancolombia.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class PageCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private PageCursor() {
+    }
+
+    public static String ofId(String id) {
+        return encode(id);
+    }
+
+    public static String ofStockAndId(int stock, String id) {
+        return encode(stock + SEPARATOR + id);
+    }
+
+    public static String id(String cursor) {
+        return decode(cursor);
+    }
+
+    public static StockKey stockAndId(String cursor) {
+        String key = decode(cursor);
+        int separator = key.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == key.length() - 1) {
+            throw invalid();
+        }
+        try {
+            return new StockKey(Integer.parseInt(key.substring(0, separator)), key.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw invalid();
+        }
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (key.isBlank()) {
+                throw invalid();
+            }
+            return key;
+        } catch (IllegalArgumentException e) {
+            throw invalid();
+        }
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Invalid cursor");
+    }
+
+    public record StockKey(int stock, String id) {
+    }
+}
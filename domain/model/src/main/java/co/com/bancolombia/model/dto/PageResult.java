@@ -0,0 +1,13 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class PageResult<T> {
+    private final List<T> items;
+    private final String nextCursor;
+}
@@ -0,0 +1,11 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StockUpdate {
+    private final String productId;
+    private final Integer stock;
+}
@@ -0,0 +1,19 @@
+package co.com.bancolombia.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class StockUpdateResult {
+    private final String productId;
+    private final Status status;
+    private final String message;
+
+    public enum Status {
+        UPDATED,
+        NOT_FOUND,
+        INVALID,
+        SUPERSEDED
+    }
+}
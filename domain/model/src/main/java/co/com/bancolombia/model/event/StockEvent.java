@@ -0,0 +1,22 @@
+package co.com.bancolombia.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class StockEvent {
+    private final StockEventType type;
+    private final String franchiseId;
+    private final String branchId;
+    private final String productId;
+    private final String productName;
+    private final int stock;
+    private final Instant occurredAt;
+
+    public String conflationKey() {
+        return type == StockEventType.TOP_PRODUCT_CHANGED ? "top:" + branchId : "product:" + productId;
+    }
+}
@@ -0,0 +1,7 @@
+package co.com.bancolombia.model.event;
+
+public enum StockEventType {
+    STOCK_CHANGED,
+    PRODUCT_REMOVED,
+    TOP_PRODUCT_CHANGED
+}
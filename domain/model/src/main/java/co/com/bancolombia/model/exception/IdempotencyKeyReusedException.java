@@ -0,0 +1,8 @@
+package co.com.bancolombia.model.exception;
+
+public class IdempotencyKeyReusedException extends IllegalStateException {
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency key was already used with a different request");
+    }
+}
@@ -12,4 +12,9 @@ public class Franchise {
     private final String name;
     private final Instant createdAt;
     private final Instant updatedAt;
-}
\ No newline at end of file
+    private final long version;
+
+    public Franchise(String id, String name, Instant createdAt, Instant updatedAt) {
+        this(id, name, createdAt, updatedAt, 0);
+    }
+}
@@ -1,6 +1,12 @@
 package co.com.bancolombia.model.gateways;
 
 import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
 import co.com.bancolombia.model.dto.TopProductByBranch;
 import co.com.bancolombia.model.franchise.Franchise;
 import co.com.bancolombia.model.product.Product;
@@ -10,13 +16,24 @@ import reactor.core.publisher.Mono;
 public interface FranchiseGateway {
 
     Mono<Franchise> createFranchise(String name);
+    Flux<ImportResult> importFranchise(Flux<ImportRecord> records);
     Mono<Branch> addBranch(String franchiseId, String branchName);
     Mono<Product> addProduct(String branchId, String productName, int stock);
     Mono<Void> deleteProduct(String productId);
-    Mono<Product> updateProductStock(String productId, int newStock);
+    Mono<DeletionSummary> deleteBranch(String branchId);
+    Mono<DeletionSummary> deleteFranchise(String franchiseId);
+    Mono<Product> findProduct(String productId);
+    Mono<Product> updateProductStock(String productId, int newStock, Long expectedVersion);
+    Mono<Product> adjustProductStock(String productId, int delta);
+    Flux<StockUpdateResult> updateProductStocks(String branchId, Flux<StockUpdate> updates);
     Flux<TopProductByBranch> topProductByBranch(String franchiseId);
+    Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k);
 
-    Mono<Franchise> updateFranchiseName(String franchiseId, String newName);
-    Mono<Branch> updateBranchName(String branchId, String newName);
-    Mono<Product> updateProductName(String productId, String newName);
+    Mono<Franchise> updateFranchiseName(String franchiseId, String newName, Long expectedVersion);
+    Mono<Branch> updateBranchName(String branchId, String newName, Long expectedVersion);
+    Mono<Product> updateProductName(String productId, String newName, Long expectedVersion);
+
+    Mono<PageResult<Franchise>> listFranchises(String cursor, int limit);
+    Mono<PageResult<Branch>> listBranches(String franchiseId, String cursor, int limit);
+    Mono<PageResult<Product>> listProducts(String branchId, String cursor, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package co.com.bancolombia.model.gateways;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import reactor.core.publisher.Mono;
+
+public interface IdempotencyGateway {
+
+    Mono<IdempotentResponse> find(String key);
+    Mono<IdempotentResponse> saveIfAbsent(String key, IdempotentResponse response);
+}
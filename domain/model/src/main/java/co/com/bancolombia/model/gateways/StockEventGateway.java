@@ -0,0 +1,11 @@
+package co.com.bancolombia.model.gateways;
+
+import co.com.bancolombia.model.event.StockEvent;
+import reactor.core.publisher.Flux;
+
+public interface StockEventGateway {
+
+    void publish(StockEvent event);
+
+    Flux<StockEvent> subscribe(String franchiseId);
+}
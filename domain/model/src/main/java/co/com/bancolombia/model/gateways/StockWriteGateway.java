@@ -0,0 +1,10 @@
+package co.com.bancolombia.model.gateways;
+
+import co.com.bancolombia.model.product.Product;
+import reactor.core.publisher.Mono;
+
+public interface StockWriteGateway {
+
+    Mono<Product> setStock(String productId, int stock, Long expectedVersion);
+    Mono<Product> adjustStock(String productId, int delta);
+}
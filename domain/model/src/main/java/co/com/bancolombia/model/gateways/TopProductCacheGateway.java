@@ -0,0 +1,16 @@
+package co.com.bancolombia.model.gateways;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+public interface TopProductCacheGateway {
+
+    Flux<TopProductByBranch> get(String franchiseId, Function<String, Flux<TopProductByBranch>> loader);
+
+    Mono<Void> invalidateFranchise(String franchiseId);
+    Mono<Void> invalidateBranch(String branchId);
+    Mono<Void> invalidateProduct(String productId);
+}
@@ -14,4 +14,9 @@ public class Product {
     private final int stock;
     private final Instant createdAt;
     private final Instant updatedAt;
-}
\ No newline at end of file
+    private final long version;
+
+    public Product(String id, String branchId, String name, int stock, Instant createdAt, Instant updatedAt) {
+        this(id, branchId, name, stock, createdAt, updatedAt, 0);
+    }
+}
@@ -2,16 +2,20 @@ package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.branch.Branch;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import reactor.core.publisher.Mono;
 
 public class AddBranchUseCase {
     private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
 
-    public AddBranchUseCase(FranchiseGateway gateway) {
+    public AddBranchUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
         this.gateway = gateway;
+        this.cache = cache;
     }
 
     public Mono<Branch> execute(String franchiseId, String branchName) {
-        return gateway.addBranch(franchiseId, branchName);
+        return gateway.addBranch(franchiseId, branchName)
+                .flatMap(result -> cache.invalidateFranchise(result.getFranchiseId()).thenReturn(result));
     }
 }
\ No newline at end of file
@@ -2,16 +2,20 @@ package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.product.Product;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import reactor.core.publisher.Mono;
 
 public class AddProductUseCase {
     private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
 
-    public AddProductUseCase(FranchiseGateway gateway) {
+    public AddProductUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
         this.gateway = gateway;
+        this.cache = cache;
     }
 
     public Mono<Product> execute(String branchId, String productName, int stock) {
-        return gateway.addProduct(branchId, productName, stock);
+        return gateway.addProduct(branchId, productName, stock)
+                .flatMap(result -> cache.invalidateBranch(result.getBranchId()).thenReturn(result));
     }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import co.com.bancolombia.model.product.Product;
+import reactor.core.publisher.Mono;
+
+public class AdjustProductStockUseCase {
+    private final StockWriteGateway writer;
+    private final TopProductCacheGateway cache;
+
+    public AdjustProductStockUseCase(StockWriteGateway writer, TopProductCacheGateway cache) {
+        this.writer = writer;
+        this.cache = cache;
+    }
+
+    public Mono<Product> execute(String productId, int delta) {
+        if (delta == Integer.MIN_VALUE) {
+            return Mono.error(new IllegalArgumentException("Delta is out of range"));
+        }
+        return writer.adjustStock(productId, delta)
+                .flatMap(result -> cache.invalidateBranch(result.getBranchId()).thenReturn(result));
+    }
+}
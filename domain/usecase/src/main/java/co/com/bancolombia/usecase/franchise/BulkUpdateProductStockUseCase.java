@@ -0,0 +1,26 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class BulkUpdateProductStockUseCase {
+    private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
+
+    public BulkUpdateProductStockUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+        this.gateway = gateway;
+        this.cache = cache;
+    }
+
+    public Flux<StockUpdateResult> execute(String branchId, Flux<StockUpdate> updates) {
+        return Flux.usingWhen(Mono.just(branchId),
+                id -> gateway.updateProductStocks(id, updates),
+                cache::invalidateBranch,
+                (id, error) -> cache.invalidateBranch(id),
+                cache::invalidateBranch);
+    }
+}
@@ -0,0 +1,21 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import reactor.core.publisher.Mono;
+
+public class DeleteBranchUseCase {
+    private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
+
+    public DeleteBranchUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
+        this.gateway = gateway;
+        this.cache = cache;
+    }
+
+    public Mono<DeletionSummary> execute(String branchId) {
+        return gateway.deleteBranch(branchId)
+                .flatMap(summary -> cache.invalidateBranch(branchId).thenReturn(summary));
+    }
+}
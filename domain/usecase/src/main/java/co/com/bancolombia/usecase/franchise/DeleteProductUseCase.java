@@ -1,16 +1,20 @@
 package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import reactor.core.publisher.Mono;
 
 public class DeleteProductUseCase {
     private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
 
-    public DeleteProductUseCase(FranchiseGateway gateway) {
+    public DeleteProductUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
         this.gateway = gateway;
+        this.cache = cache;
     }
 
     public Mono<Void> execute(String productId) {
-        return gateway.deleteProduct(productId);
+        return gateway.deleteProduct(productId)
+                .then(Mono.defer(() -> cache.invalidateProduct(productId)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import reactor.core.publisher.Flux;
+
+public class ImportFranchiseUseCase {
+    private final FranchiseGateway gateway;
+
+    public ImportFranchiseUseCase(FranchiseGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    public Flux<ImportResult> execute(Flux<ImportRecord> records) {
+        return gateway.importFranchise(records);
+    }
+}
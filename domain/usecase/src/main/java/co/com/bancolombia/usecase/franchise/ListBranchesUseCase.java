@@ -0,0 +1,21 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import reactor.core.publisher.Mono;
+
+public class ListBranchesUseCase {
+    private final FranchiseGateway gateway;
+
+    public ListBranchesUseCase(FranchiseGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    public Mono<PageResult<Branch>> execute(String franchiseId, String cursor, int limit) {
+        if (limit < 1 || limit > ListFranchisesUseCase.MAX_LIMIT) {
+            return Mono.error(new IllegalArgumentException("Limit must be between 1 and " + ListFranchisesUseCase.MAX_LIMIT));
+        }
+        return gateway.listBranches(franchiseId, cursor == null || cursor.isBlank() ? null : cursor, limit);
+    }
+}
@@ -0,0 +1,23 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import reactor.core.publisher.Mono;
+
+public class ListFranchisesUseCase {
+    static final int MAX_LIMIT = 100;
+
+    private final FranchiseGateway gateway;
+
+    public ListFranchisesUseCase(FranchiseGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    public Mono<PageResult<Franchise>> execute(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return Mono.error(new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT));
+        }
+        return gateway.listFranchises(cursor == null || cursor.isBlank() ? null : cursor, limit);
+    }
+}
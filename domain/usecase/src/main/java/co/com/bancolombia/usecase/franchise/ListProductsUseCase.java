@@ -0,0 +1,21 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.product.Product;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import reactor.core.publisher.Mono;
+
+public class ListProductsUseCase {
+    private final FranchiseGateway gateway;
+
+    public ListProductsUseCase(FranchiseGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    public Mono<PageResult<Product>> execute(String branchId, String cursor, int limit) {
+        if (limit < 1 || limit > ListFranchisesUseCase.MAX_LIMIT) {
+            return Mono.error(new IllegalArgumentException("Limit must be between 1 and " + ListFranchisesUseCase.MAX_LIMIT));
+        }
+        return gateway.listProducts(branchId, cursor == null || cursor.isBlank() ? null : cursor, limit);
+    }
+}
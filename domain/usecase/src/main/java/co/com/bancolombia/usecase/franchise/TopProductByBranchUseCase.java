@@ -2,16 +2,28 @@ package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.dto.TopProductByBranch;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import reactor.core.publisher.Flux;
 
 public class TopProductByBranchUseCase {
+    static final int MAX_K = 100;
+
     private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
 
-    public TopProductByBranchUseCase(FranchiseGateway gateway) {
+    public TopProductByBranchUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
         this.gateway = gateway;
+        this.cache = cache;
     }
 
     public Flux<TopProductByBranch> execute(String franchiseId) {
-        return gateway.topProductByBranch(franchiseId);
+        return cache.get(franchiseId, gateway::topProductByBranch);
+    }
+
+    public Flux<TopProductByBranch> execute(String franchiseId, int k) {
+        if (k < 1 || k > MAX_K) {
+            return Flux.error(new IllegalArgumentException("k must be between 1 and " + MAX_K));
+        }
+        return k == 1 ? execute(franchiseId) : gateway.topProductsByBranch(franchiseId, k);
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class TopProductsByFranchiseUseCase {
+    private static final Comparator<TopProductByBranch> BY_STOCK =
+            Comparator.comparingInt(TopProductByBranch::getStock)
+                    .thenComparing(TopProductByBranch::getProductId, Comparator.reverseOrder());
+
+    private final FranchiseGateway gateway;
+
+    public TopProductsByFranchiseUseCase(FranchiseGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    public Flux<TopProductByBranch> execute(String franchiseId, int k) {
+        if (k < 1 || k > TopProductByBranchUseCase.MAX_K) {
+            return Flux.error(new IllegalArgumentException("k must be between 1 and " + TopProductByBranchUseCase.MAX_K));
+        }
+
+        return gateway.topProductsByBranch(franchiseId, k)
+                .filter(top -> top.getProductId() != null)
+                .collect(() -> new PriorityQueue<>(k + 1, BY_STOCK), (heap, top) -> offer(heap, top, k))
+                .flatMapIterable(TopProductsByFranchiseUseCase::drainDescending);
+    }
+
+    private static void offer(PriorityQueue<TopProductByBranch> heap, TopProductByBranch top, int k) {
+        if (heap.size() < k) {
+            heap.offer(top);
+        } else if (BY_STOCK.compare(top, heap.peek()) > 0) {
+            heap.poll();
+            heap.offer(top);
+        }
+    }
+
+    private static List<TopProductByBranch> drainDescending(PriorityQueue<TopProductByBranch> heap) {
+        List<TopProductByBranch> ranking = new ArrayList<>(heap);
+        ranking.sort(BY_STOCK.reversed());
+        return ranking;
+    }
+}
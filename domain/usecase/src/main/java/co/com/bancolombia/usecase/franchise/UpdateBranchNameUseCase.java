@@ -2,16 +2,20 @@ package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.branch.Branch;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import reactor.core.publisher.Mono;
 
 public class UpdateBranchNameUseCase {
     private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
 
-    public UpdateBranchNameUseCase(FranchiseGateway gateway) {
+    public UpdateBranchNameUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
         this.gateway = gateway;
+        this.cache = cache;
     }
 
-    public Mono<Branch> execute(String branchId, String newName) {
-        return gateway.updateBranchName(branchId, newName);
+    public Mono<Branch> execute(String branchId, String newName, Long expectedVersion) {
+        return gateway.updateBranchName(branchId, newName, expectedVersion)
+                .flatMap(result -> cache.invalidateBranch(result.getId()).thenReturn(result));
     }
 }
\ No newline at end of file
@@ -11,7 +11,7 @@ public class UpdateFranchiseNameUseCase {
         this.gateway = gateway;
     }
 
-    public Mono<Franchise> execute(String franchiseId, String newName) {
-        return gateway.updateFranchiseName(franchiseId, newName);
+    public Mono<Franchise> execute(String franchiseId, String newName, Long expectedVersion) {
+        return gateway.updateFranchiseName(franchiseId, newName, expectedVersion);
     }
 }
\ No newline at end of file
@@ -1,17 +1,21 @@
 package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import co.com.bancolombia.model.product.Product;
 import reactor.core.publisher.Mono;
 
 public class UpdateProductNameUseCase {
     private final FranchiseGateway gateway;
+    private final TopProductCacheGateway cache;
 
-    public UpdateProductNameUseCase(FranchiseGateway gateway) {
+    public UpdateProductNameUseCase(FranchiseGateway gateway, TopProductCacheGateway cache) {
         this.gateway = gateway;
+        this.cache = cache;
     }
 
-    public Mono<Product> execute(String productId, String newName) {
-        return gateway.updateProductName(productId, newName);
+    public Mono<Product> execute(String productId, String newName, Long expectedVersion) {
+        return gateway.updateProductName(productId, newName, expectedVersion)
+                .flatMap(result -> cache.invalidateProduct(result.getId()).thenReturn(result));
     }
 }
\ No newline at end of file
@@ -1,17 +1,21 @@
 package co.com.bancolombia.usecase.franchise;
 
-import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import co.com.bancolombia.model.product.Product;
 import reactor.core.publisher.Mono;
 
 public class UpdateProductStockUseCase {
-    private final FranchiseGateway gateway;
+    private final StockWriteGateway writer;
+    private final TopProductCacheGateway cache;
 
-    public UpdateProductStockUseCase(FranchiseGateway gateway) {
-        this.gateway = gateway;
+    public UpdateProductStockUseCase(StockWriteGateway writer, TopProductCacheGateway cache) {
+        this.writer = writer;
+        this.cache = cache;
     }
 
-    public Mono<Product> execute(String productId, int newStock) {
-        return gateway.updateProductStock(productId, newStock);
+    public Mono<Product> execute(String productId, int newStock, Long expectedVersion) {
+        return writer.setStock(productId, newStock, expectedVersion)
+                .flatMap(result -> cache.invalidateBranch(result.getBranchId()).thenReturn(result));
     }
 }
\ No newline at end of file
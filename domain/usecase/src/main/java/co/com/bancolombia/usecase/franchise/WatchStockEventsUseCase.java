@@ -0,0 +1,20 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import reactor.core.publisher.Flux;
+
+public class WatchStockEventsUseCase {
+    private final StockEventGateway events;
+
+    public WatchStockEventsUseCase(StockEventGateway events) {
+        this.events = events;
+    }
+
+    public Flux<StockEvent> execute(String franchiseId) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        return events.subscribe(franchiseId);
+    }
+}
@@ -0,0 +1,57 @@
+package co.com.bancolombia.usecase.idempotency;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.exception.IdempotencyKeyReusedException;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class IdempotentRequestUseCase {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyGateway gateway;
+    private final Map<String, Mono<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentRequestUseCase(IdempotencyGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    /**
+     * Replays the response stored for the key when the request hash matches the one stored with it, and
+     * fails with {@link IdempotencyKeyReusedException} when the same key comes back with a different request.
+     */
+    public Mono<IdempotentResponse> execute(String scope, String key, String requestHash,
+                                            Mono<IdempotentResponse> action) {
+        if (key == null || key.isBlank()) {
+            return action;
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException("Idempotency key must be at most 255 characters"));
+        }
+
+        String id = scope + "|" + key.trim();
+        return gateway.find(id)
+                .switchIfEmpty(Mono.defer(() -> inFlight.computeIfAbsent(id, k -> firstExecution(k, requestHash, action))))
+                .flatMap(response -> sameRequest(response, requestHash)
+                        ? Mono.just(response)
+                        : Mono.error(new IdempotencyKeyReusedException()));
+    }
+
+    private Mono<IdempotentResponse> firstExecution(String id, String requestHash, Mono<IdempotentResponse> action) {
+        return action
+                .map(response -> response.withRequestHash(requestHash))
+                .flatMap(response -> response.getStatus() >= 500
+                        ? Mono.just(response)
+                        : gateway.saveIfAbsent(id, response))
+                .doFinally(signal -> inFlight.remove(id))
+                .cache();
+    }
+
+    private static boolean sameRequest(IdempotentResponse response, String requestHash) {
+        // Keys stored before request hashes were recorded have none to compare against.
+        return response.getRequestHash() == null || Objects.equals(response.getRequestHash(), requestHash);
+    }
+}
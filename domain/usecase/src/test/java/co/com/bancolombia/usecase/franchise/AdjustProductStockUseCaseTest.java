@@ -0,0 +1,63 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import co.com.bancolombia.model.product.Product;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AdjustProductStockUseCaseTest {
+
+    @Test
+    void shouldAdjustStock_andInvalidateBranch() {
+        StockWriteGateway writer = mock(StockWriteGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateBranch(anyString())).thenReturn(Mono.empty());
+        AdjustProductStockUseCase useCase = new AdjustProductStockUseCase(writer, cache);
+
+        Product expected = new Product("prod-1", "branch-1", "Burger", 7, Instant.now(), Instant.now());
+        when(writer.adjustStock("prod-1", -3)).thenReturn(Mono.just(expected));
+
+        StepVerifier.create(useCase.execute("prod-1", -3))
+                .expectNext(expected)
+                .verifyComplete();
+
+        verify(cache).invalidateBranch("branch-1");
+    }
+
+    @Test
+    void shouldNotInvalidate_whenStockIsInsufficient() {
+        StockWriteGateway writer = mock(StockWriteGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        AdjustProductStockUseCase useCase = new AdjustProductStockUseCase(writer, cache);
+
+        when(writer.adjustStock("prod-1", -30))
+                .thenReturn(Mono.error(new IllegalStateException("Insufficient stock")));
+
+        StepVerifier.create(useCase.execute("prod-1", -30))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void shouldRejectMinValueDelta_beforeWriting() {
+        StockWriteGateway writer = mock(StockWriteGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        AdjustProductStockUseCase useCase = new AdjustProductStockUseCase(writer, cache);
+
+        StepVerifier.create(useCase.execute("prod-1", Integer.MIN_VALUE))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Delta is out of range"))
+                .verify();
+
+        verifyNoInteractions(writer, cache);
+    }
+}
@@ -0,0 +1,71 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkUpdateProductStockUseCaseTest {
+
+    private FranchiseGateway gateway;
+    private TopProductCacheGateway cache;
+    private BulkUpdateProductStockUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        gateway = Mockito.mock(FranchiseGateway.class);
+        cache = Mockito.mock(TopProductCacheGateway.class);
+        useCase = new BulkUpdateProductStockUseCase(gateway, cache);
+    }
+
+    @Test
+    void shouldReturnResults_andInvalidateBranchOnceAtTheEnd() {
+        StockUpdateResult updated = new StockUpdateResult("p-1", StockUpdateResult.Status.UPDATED, null);
+        StockUpdateResult missing = new StockUpdateResult("p-2", StockUpdateResult.Status.NOT_FOUND, "Product not found");
+        when(gateway.updateProductStocks(eq("br-1"), any())).thenReturn(Flux.just(updated, missing));
+        when(cache.invalidateBranch("br-1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute("br-1", Flux.just(new StockUpdate("p-1", 5), new StockUpdate("p-2", 1))))
+                .expectNext(updated, missing)
+                .verifyComplete();
+
+        verify(cache, times(1)).invalidateBranch("br-1");
+    }
+
+    @Test
+    void shouldInvalidate_whenGatewayFails() {
+        when(gateway.updateProductStocks(eq("br-1"), any()))
+                .thenReturn(Flux.error(new IllegalStateException("connection reset")));
+        when(cache.invalidateBranch("br-1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute("br-1", Flux.empty()))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        verify(cache, times(1)).invalidateBranch("br-1");
+    }
+
+    @Test
+    void shouldInvalidate_whenClientCancels() {
+        StockUpdateResult updated = new StockUpdateResult("p-1", StockUpdateResult.Status.UPDATED, null);
+        when(gateway.updateProductStocks(eq("br-1"), any())).thenReturn(Flux.just(updated).concatWith(Flux.never()));
+        when(cache.invalidateBranch("br-1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute("br-1", Flux.just(new StockUpdate("p-1", 5))))
+                .expectNext(updated)
+                .thenCancel()
+                .verify();
+
+        verify(cache, times(1)).invalidateBranch("br-1");
+    }
+}
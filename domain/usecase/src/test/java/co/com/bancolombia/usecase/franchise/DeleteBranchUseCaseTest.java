@@ -0,0 +1,46 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.*;
+
+class DeleteBranchUseCaseTest {
+
+    @Test
+    void shouldDeleteBranch_andInvalidateCache() {
+        FranchiseGateway gateway = mock(FranchiseGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateBranch("id-1")).thenReturn(Mono.empty());
+        DeleteBranchUseCase useCase = new DeleteBranchUseCase(gateway, cache);
+
+        DeletionSummary summary = new DeletionSummary(0, 1, 25);
+        when(gateway.deleteBranch("id-1")).thenReturn(Mono.just(summary));
+
+        StepVerifier.create(useCase.execute("id-1"))
+                .expectNext(summary)
+                .verifyComplete();
+
+        verify(cache).invalidateBranch("id-1");
+    }
+
+    @Test
+    void shouldNotInvalidate_whenGatewayFails() {
+        FranchiseGateway gateway = mock(FranchiseGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        DeleteBranchUseCase useCase = new DeleteBranchUseCase(gateway, cache);
+
+        when(gateway.deleteBranch("id-404"))
+                .thenReturn(Mono.error(new IllegalArgumentException("Branch not found")));
+
+        StepVerifier.create(useCase.execute("id-404"))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(cache);
+    }
+}
@@ -0,0 +1,46 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.*;
+
+class DeleteFranchiseUseCaseTest {
+
+    @Test
+    void shouldDeleteFranchise_andInvalidateCache() {
+        FranchiseGateway gateway = mock(FranchiseGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateFranchise("id-1")).thenReturn(Mono.empty());
+        DeleteFranchiseUseCase useCase = new DeleteFranchiseUseCase(gateway, cache);
+
+        DeletionSummary summary = new DeletionSummary(0, 1, 25);
+        when(gateway.deleteFranchise("id-1")).thenReturn(Mono.just(summary));
+
+        StepVerifier.create(useCase.execute("id-1"))
+                .expectNext(summary)
+                .verifyComplete();
+
+        verify(cache).invalidateFranchise("id-1");
+    }
+
+    @Test
+    void shouldNotInvalidate_whenGatewayFails() {
+        FranchiseGateway gateway = mock(FranchiseGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        DeleteFranchiseUseCase useCase = new DeleteFranchiseUseCase(gateway, cache);
+
+        when(gateway.deleteFranchise("id-404"))
+                .thenReturn(Mono.error(new IllegalArgumentException("Franchise not found")));
+
+        StepVerifier.create(useCase.execute("id-404"))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(cache);
+    }
+}
@@ -1,10 +1,12 @@
 package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -13,7 +15,9 @@ class DeleteProductUseCaseTest {
     @Test
     void shouldDeleteProduct() {
         FranchiseGateway gateway = mock(FranchiseGateway.class);
-        DeleteProductUseCase useCase = new DeleteProductUseCase(gateway);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateProduct(anyString())).thenReturn(Mono.empty());
+        DeleteProductUseCase useCase = new DeleteProductUseCase(gateway, cache);
 
         String productId = "prod-1";
         when(gateway.deleteProduct(eq(productId))).thenReturn(Mono.empty());
@@ -22,13 +26,16 @@ class DeleteProductUseCaseTest {
                 .verifyComplete();
 
         verify(gateway, times(1)).deleteProduct(productId);
+        verify(cache, times(1)).invalidateProduct(productId);
         verifyNoMoreInteractions(gateway);
     }
 
     @Test
     void shouldPropagateErrorWhenGatewayFails() {
         FranchiseGateway gateway = mock(FranchiseGateway.class);
-        DeleteProductUseCase useCase = new DeleteProductUseCase(gateway);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateProduct(anyString())).thenReturn(Mono.empty());
+        DeleteProductUseCase useCase = new DeleteProductUseCase(gateway, cache);
 
         String productId = "prod-1";
         RuntimeException error = new RuntimeException("boom");
@@ -40,5 +47,6 @@ class DeleteProductUseCaseTest {
 
         verify(gateway, times(1)).deleteProduct(productId);
         verifyNoMoreInteractions(gateway);
+        verify(cache, never()).invalidateProduct(anyString());
     }
 }
@@ -0,0 +1,29 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.*;
+
+class ImportFranchiseUseCaseTest {
+
+    @Test
+    void shouldDelegateRecordsToGateway() {
+        FranchiseGateway gateway = Mockito.mock(FranchiseGateway.class);
+        ImportFranchiseUseCase useCase = new ImportFranchiseUseCase(gateway);
+
+        ImportRecord franchise = new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Acme", null, null, null);
+        ImportResult created = ImportResult.created(franchise, "f-1");
+        Flux<ImportRecord> records = Flux.just(franchise);
+        when(gateway.importFranchise(records)).thenReturn(Flux.just(created));
+
+        StepVerifier.create(useCase.execute(records))
+                .expectNext(created)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,47 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class ListBranchesUseCaseTest {
+
+    private FranchiseGateway gateway;
+    private ListBranchesUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        gateway = Mockito.mock(FranchiseGateway.class);
+        useCase = new ListBranchesUseCase(gateway);
+    }
+
+    @Test
+    void shouldReturnGatewayPage() {
+        PageResult<Branch> page = new PageResult<>(
+                List.of(new Branch("br-1", "fr-1", "Centro", Instant.now(), Instant.now())), null);
+        when(gateway.listBranches("fr-1", null, 20)).thenReturn(Mono.just(page));
+
+        StepVerifier.create(useCase.execute("fr-1", null, 20))
+                .expectNext(page)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectLimitOutOfRange() {
+        StepVerifier.create(useCase.execute("fr-1", null, 500))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(gateway);
+    }
+}
@@ -0,0 +1,63 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class ListFranchisesUseCaseTest {
+
+    private FranchiseGateway gateway;
+    private ListFranchisesUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        gateway = Mockito.mock(FranchiseGateway.class);
+        useCase = new ListFranchisesUseCase(gateway);
+    }
+
+    @Test
+    void shouldReturnGatewayPage() {
+        PageResult<Franchise> page = new PageResult<>(
+                List.of(new Franchise("fr-1", "Franquicia", Instant.now(), Instant.now())), "next");
+        when(gateway.listFranchises("c-1", 10)).thenReturn(Mono.just(page));
+
+        StepVerifier.create(useCase.execute("c-1", 10))
+                .expectNext(page)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldTreatBlankCursorAsFirstPage() {
+        PageResult<Franchise> page = new PageResult<>(List.of(), null);
+        when(gateway.listFranchises(isNull(), eq(10))).thenReturn(Mono.just(page));
+
+        StepVerifier.create(useCase.execute("  ", 10))
+                .expectNext(page)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectLimitOutOfRange() {
+        StepVerifier.create(useCase.execute(null, 0))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("between 1 and 100"))
+                .verify();
+
+        StepVerifier.create(useCase.execute(null, 101))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(gateway);
+    }
+}
@@ -0,0 +1,47 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class ListProductsUseCaseTest {
+
+    private FranchiseGateway gateway;
+    private ListProductsUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        gateway = Mockito.mock(FranchiseGateway.class);
+        useCase = new ListProductsUseCase(gateway);
+    }
+
+    @Test
+    void shouldReturnGatewayPage() {
+        PageResult<Product> page = new PageResult<>(
+                List.of(new Product("p-1", "br-1", "Burger", 50, Instant.now(), Instant.now())), "next");
+        when(gateway.listProducts("br-1", "c-1", 1)).thenReturn(Mono.just(page));
+
+        StepVerifier.create(useCase.execute("br-1", "c-1", 1))
+                .expectNext(page)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectLimitOutOfRange() {
+        StepVerifier.create(useCase.execute("br-1", null, -1))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(gateway);
+    }
+}
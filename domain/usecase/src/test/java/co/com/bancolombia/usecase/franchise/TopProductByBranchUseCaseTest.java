@@ -2,24 +2,35 @@ package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.dto.TopProductByBranch;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class TopProductByBranchUseCaseTest {
 
     private FranchiseGateway gateway;
+    private TopProductCacheGateway cache;
     private TopProductByBranchUseCase useCase;
 
     @BeforeEach
     void setUp() {
         gateway = Mockito.mock(FranchiseGateway.class);
-        useCase = new TopProductByBranchUseCase(gateway);
+        cache = Mockito.mock(TopProductCacheGateway.class);
+        when(cache.get(anyString(), any()))
+                .thenAnswer(inv -> inv.<Function<String, Flux<TopProductByBranch>>>getArgument(1)
+                        .apply(inv.getArgument(0)));
+        useCase = new TopProductByBranchUseCase(gateway, cache);
     }
 
     @Test
@@ -40,10 +51,25 @@ class TopProductByBranchUseCaseTest {
                 .expectNext(item2)
                 .verifyComplete();
 
+        verify(cache, times(1)).get(eq(franchiseId), any());
         verify(gateway, times(1)).topProductByBranch(franchiseId);
         verifyNoMoreInteractions(gateway);
     }
 
+    @Test
+    void shouldServeFromCacheWithoutHittingGateway() {
+        String franchiseId = "fr-cached";
+        TopProductByBranch cached = new TopProductByBranch("br-1", "Branch 1", "prod-1", "Burger", 50);
+
+        when(cache.get(eq(franchiseId), any())).thenReturn(Flux.just(cached));
+
+        StepVerifier.create(useCase.execute(franchiseId))
+                .expectNext(cached)
+                .verifyComplete();
+
+        verifyNoInteractions(gateway);
+    }
+
     @Test
     void shouldPropagateErrorWhenGatewayFails() {
         String franchiseId = "fr-err";
@@ -59,4 +85,44 @@ class TopProductByBranchUseCaseTest {
         verify(gateway, times(1)).topProductByBranch(franchiseId);
         verifyNoMoreInteractions(gateway);
     }
+
+    @Test
+    void shouldUseCachedPath_whenKIsOne() {
+        TopProductByBranch item = new TopProductByBranch("br-1", "Branch 1", "prod-1", "Burger", 50);
+        when(gateway.topProductByBranch(eq("fr-1"))).thenReturn(Flux.just(item));
+
+        StepVerifier.create(useCase.execute("fr-1", 1))
+                .expectNext(item)
+                .verifyComplete();
+
+        verify(cache, times(1)).get(eq("fr-1"), any());
+        verify(gateway, never()).topProductsByBranch(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldAskGatewayForTopK_whenKIsGreaterThanOne() {
+        TopProductByBranch first = new TopProductByBranch("br-1", "Branch 1", "prod-1", "Burger", 50);
+        TopProductByBranch second = new TopProductByBranch("br-1", "Branch 1", "prod-2", "Fries", 30);
+        when(gateway.topProductsByBranch("fr-1", 2)).thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(useCase.execute("fr-1", 2))
+                .expectNext(first, second)
+                .verifyComplete();
+
+        verify(cache, never()).get(anyString(), any());
+    }
+
+    @Test
+    void shouldRejectKOutOfRange() {
+        StepVerifier.create(useCase.execute("fr-1", 0))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("between 1 and 100"))
+                .verify();
+
+        StepVerifier.create(useCase.execute("fr-1", 101))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(gateway);
+    }
 }
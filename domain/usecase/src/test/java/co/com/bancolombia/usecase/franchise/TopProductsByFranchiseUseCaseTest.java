@@ -0,0 +1,89 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class TopProductsByFranchiseUseCaseTest {
+
+    private FranchiseGateway gateway;
+    private TopProductsByFranchiseUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        gateway = Mockito.mock(FranchiseGateway.class);
+        useCase = new TopProductsByFranchiseUseCase(gateway);
+    }
+
+    @Test
+    void shouldKeepOnlyTheKHighestStocksAcrossBranches() {
+        when(gateway.topProductsByBranch("fr-1", 3)).thenReturn(Flux.just(
+                new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50),
+                new TopProductByBranch("br-1", "Centro", "p-2", "Fries", 10),
+                new TopProductByBranch("br-2", "Norte", "p-3", "Pizza", 80),
+                new TopProductByBranch("br-2", "Norte", "p-4", "Soda", 40),
+                new TopProductByBranch("br-3", "Sur", null, null, 0),
+                new TopProductByBranch("br-4", "Este", "p-5", "Salad", 5)
+        ));
+
+        StepVerifier.create(useCase.execute("fr-1", 3))
+                .assertNext(t -> assertEquals("p-3", t.getProductId()))
+                .assertNext(t -> assertEquals("p-1", t.getProductId()))
+                .assertNext(t -> {
+                    assertEquals("p-4", t.getProductId());
+                    assertEquals("br-2", t.getBranchId());
+                })
+                .verifyComplete();
+
+        verify(gateway).topProductsByBranch("fr-1", 3);
+    }
+
+    @Test
+    void shouldBreakTiesByProductId() {
+        when(gateway.topProductsByBranch("fr-1", 1)).thenReturn(Flux.just(
+                new TopProductByBranch("br-2", "Norte", "p-2", "Soda", 30),
+                new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 30)
+        ));
+
+        StepVerifier.create(useCase.execute("fr-1", 1))
+                .assertNext(t -> assertEquals("p-1", t.getProductId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCompleteEmpty_whenNoBranchHasProducts() {
+        when(gateway.topProductsByBranch("fr-1", 5)).thenReturn(Flux.just(
+                new TopProductByBranch("br-1", "Centro", null, null, 0)
+        ));
+
+        StepVerifier.create(useCase.execute("fr-1", 5))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectKOutOfRange() {
+        StepVerifier.create(useCase.execute("fr-1", 0))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(gateway);
+    }
+
+    @Test
+    void shouldPropagateGatewayErrors() {
+        when(gateway.topProductsByBranch("fr-404", 10))
+                .thenReturn(Flux.error(new IllegalArgumentException("Franchise not found")));
+
+        StepVerifier.create(useCase.execute("fr-404", 10))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+    }
+}
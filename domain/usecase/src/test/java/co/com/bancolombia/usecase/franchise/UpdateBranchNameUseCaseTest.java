@@ -2,6 +2,7 @@ package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.branch.Branch;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
@@ -9,18 +10,22 @@ import reactor.test.StepVerifier;
 
 import java.time.Instant;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class UpdateBranchNameUseCaseTest {
 
     private FranchiseGateway gateway;
+    private TopProductCacheGateway cache;
     private UpdateBranchNameUseCase useCase;
 
     @BeforeEach
     void setUp() {
         gateway = mock(FranchiseGateway.class);
-        useCase = new UpdateBranchNameUseCase(gateway);
+        cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateBranch(anyString())).thenReturn(Mono.empty());
+        useCase = new UpdateBranchNameUseCase(gateway, cache);
     }
 
     @Test
@@ -30,14 +35,15 @@ class UpdateBranchNameUseCaseTest {
 
         Branch expected = new Branch(branchId, "fr-1", newName, Instant.now(), Instant.now());
 
-        when(gateway.updateBranchName(eq(branchId), eq(newName)))
+        when(gateway.updateBranchName(eq(branchId), eq(newName), eq(3L)))
                 .thenReturn(Mono.just(expected));
 
-        StepVerifier.create(useCase.execute(branchId, newName))
+        StepVerifier.create(useCase.execute(branchId, newName, 3L))
                 .expectNext(expected)
                 .verifyComplete();
 
-        verify(gateway, times(1)).updateBranchName(branchId, newName);
+        verify(gateway, times(1)).updateBranchName(branchId, newName, 3L);
+        verify(cache, times(1)).invalidateBranch(branchId);
         verifyNoMoreInteractions(gateway);
     }
 
@@ -47,14 +53,15 @@ class UpdateBranchNameUseCaseTest {
         String newName = "X";
         RuntimeException error = new RuntimeException("boom");
 
-        when(gateway.updateBranchName(eq(branchId), eq(newName)))
+        when(gateway.updateBranchName(eq(branchId), eq(newName), eq(3L)))
                 .thenReturn(Mono.error(error));
 
-        StepVerifier.create(useCase.execute(branchId, newName))
+        StepVerifier.create(useCase.execute(branchId, newName, 3L))
                 .expectErrorMatches(e -> e == error)
                 .verify();
 
-        verify(gateway, times(1)).updateBranchName(branchId, newName);
+        verify(gateway, times(1)).updateBranchName(branchId, newName, 3L);
         verifyNoMoreInteractions(gateway);
+        verify(cache, never()).invalidateBranch(anyString());
     }
 }
@@ -30,14 +30,14 @@ class UpdateFranchiseNameUseCaseTest {
 
         Franchise expected = new Franchise(franchiseId, newName, Instant.now(), Instant.now());
 
-        when(gateway.updateFranchiseName(eq(franchiseId), eq(newName)))
+        when(gateway.updateFranchiseName(eq(franchiseId), eq(newName), eq(3L)))
                 .thenReturn(Mono.just(expected));
 
-        StepVerifier.create(useCase.execute(franchiseId, newName))
+        StepVerifier.create(useCase.execute(franchiseId, newName, 3L))
                 .expectNext(expected)
                 .verifyComplete();
 
-        verify(gateway, times(1)).updateFranchiseName(franchiseId, newName);
+        verify(gateway, times(1)).updateFranchiseName(franchiseId, newName, 3L);
         verifyNoMoreInteractions(gateway);
     }
 
@@ -47,14 +47,14 @@ class UpdateFranchiseNameUseCaseTest {
         String newName = "X";
         RuntimeException error = new RuntimeException("boom");
 
-        when(gateway.updateFranchiseName(eq(franchiseId), eq(newName)))
+        when(gateway.updateFranchiseName(eq(franchiseId), eq(newName), eq(3L)))
                 .thenReturn(Mono.error(error));
 
-        StepVerifier.create(useCase.execute(franchiseId, newName))
+        StepVerifier.create(useCase.execute(franchiseId, newName, 3L))
                 .expectErrorMatches(e -> e == error)
                 .verify();
 
-        verify(gateway, times(1)).updateFranchiseName(franchiseId, newName);
+        verify(gateway, times(1)).updateFranchiseName(franchiseId, newName, 3L);
         verifyNoMoreInteractions(gateway);
     }
 }
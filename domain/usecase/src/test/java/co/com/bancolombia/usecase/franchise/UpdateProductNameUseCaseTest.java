@@ -1,6 +1,7 @@
 package co.com.bancolombia.usecase.franchise;
 
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import co.com.bancolombia.model.product.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,18 +10,22 @@ import reactor.test.StepVerifier;
 
 import java.time.Instant;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class UpdateProductNameUseCaseTest {
 
     private FranchiseGateway gateway;
+    private TopProductCacheGateway cache;
     private UpdateProductNameUseCase useCase;
 
     @BeforeEach
     void setUp() {
         gateway = mock(FranchiseGateway.class);
-        useCase = new UpdateProductNameUseCase(gateway);
+        cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateProduct(anyString())).thenReturn(Mono.empty());
+        useCase = new UpdateProductNameUseCase(gateway, cache);
     }
 
     @Test
@@ -30,14 +35,15 @@ class UpdateProductNameUseCaseTest {
 
         Product expected = new Product(productId, "br-1", newName, 10, Instant.now(), Instant.now());
 
-        when(gateway.updateProductName(eq(productId), eq(newName)))
+        when(gateway.updateProductName(eq(productId), eq(newName), eq(3L)))
                 .thenReturn(Mono.just(expected));
 
-        StepVerifier.create(useCase.execute(productId, newName))
+        StepVerifier.create(useCase.execute(productId, newName, 3L))
                 .expectNext(expected)
                 .verifyComplete();
 
-        verify(gateway, times(1)).updateProductName(productId, newName);
+        verify(gateway, times(1)).updateProductName(productId, newName, 3L);
+        verify(cache, times(1)).invalidateProduct(productId);
         verifyNoMoreInteractions(gateway);
     }
 
@@ -47,14 +53,15 @@ class UpdateProductNameUseCaseTest {
         String newName = "X";
         RuntimeException error = new RuntimeException("boom");
 
-        when(gateway.updateProductName(eq(productId), eq(newName)))
+        when(gateway.updateProductName(eq(productId), eq(newName), eq(3L)))
                 .thenReturn(Mono.error(error));
 
-        StepVerifier.create(useCase.execute(productId, newName))
+        StepVerifier.create(useCase.execute(productId, newName, 3L))
                 .expectErrorMatches(e -> e == error)
                 .verify();
 
-        verify(gateway, times(1)).updateProductName(productId, newName);
+        verify(gateway, times(1)).updateProductName(productId, newName, 3L);
         verifyNoMoreInteractions(gateway);
+        verify(cache, never()).invalidateProduct(anyString());
     }
 }
@@ -1,6 +1,7 @@
 package co.com.bancolombia.usecase.franchise;
 
-import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
 import co.com.bancolombia.model.product.Product;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
@@ -8,6 +9,7 @@ import reactor.test.StepVerifier;
 
 import java.time.Instant;
 
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -15,8 +17,10 @@ class UpdateProductStockUseCaseTest {
 
     @Test
     void shouldUpdateProductStock() {
-        FranchiseGateway gateway = mock(FranchiseGateway.class);
-        UpdateProductStockUseCase useCase = new UpdateProductStockUseCase(gateway);
+        StockWriteGateway writer = mock(StockWriteGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateBranch(anyString())).thenReturn(Mono.empty());
+        UpdateProductStockUseCase useCase = new UpdateProductStockUseCase(writer, cache);
 
         String productId = "prod-1";
         int newStock = 25;
@@ -30,34 +34,38 @@ class UpdateProductStockUseCaseTest {
                 Instant.parse("2025-01-02T00:00:00Z")
         );
 
-        when(gateway.updateProductStock(eq(productId), eq(newStock)))
+        when(writer.setStock(eq(productId), eq(newStock), eq(3L)))
                 .thenReturn(Mono.just(expected));
 
-        StepVerifier.create(useCase.execute(productId, newStock))
+        StepVerifier.create(useCase.execute(productId, newStock, 3L))
                 .expectNext(expected)
                 .verifyComplete();
 
-        verify(gateway, times(1)).updateProductStock(productId, newStock);
-        verifyNoMoreInteractions(gateway);
+        verify(writer, times(1)).setStock(productId, newStock, 3L);
+        verify(cache, times(1)).invalidateBranch("branch-1");
+        verifyNoMoreInteractions(writer);
     }
 
     @Test
     void shouldPropagateErrorWhenGatewayFails() {
-        FranchiseGateway gateway = mock(FranchiseGateway.class);
-        UpdateProductStockUseCase useCase = new UpdateProductStockUseCase(gateway);
+        StockWriteGateway writer = mock(StockWriteGateway.class);
+        TopProductCacheGateway cache = mock(TopProductCacheGateway.class);
+        when(cache.invalidateBranch(anyString())).thenReturn(Mono.empty());
+        UpdateProductStockUseCase useCase = new UpdateProductStockUseCase(writer, cache);
 
         String productId = "prod-1";
         int newStock = 25;
 
         RuntimeException error = new RuntimeException("boom");
-        when(gateway.updateProductStock(eq(productId), eq(newStock)))
+        when(writer.setStock(eq(productId), eq(newStock), eq(3L)))
                 .thenReturn(Mono.error(error));
 
-        StepVerifier.create(useCase.execute(productId, newStock))
+        StepVerifier.create(useCase.execute(productId, newStock, 3L))
                 .expectErrorMatches(e -> e == error)
                 .verify();
 
-        verify(gateway, times(1)).updateProductStock(productId, newStock);
-        verifyNoMoreInteractions(gateway);
+        verify(writer, times(1)).setStock(productId, newStock, 3L);
+        verifyNoMoreInteractions(writer);
+        verify(cache, never()).invalidateBranch(anyString());
     }
 }
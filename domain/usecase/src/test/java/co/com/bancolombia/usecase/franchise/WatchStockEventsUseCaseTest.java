@@ -0,0 +1,45 @@
+package co.com.bancolombia.usecase.franchise;
+
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.*;
+
+class WatchStockEventsUseCaseTest {
+
+    private StockEventGateway events;
+    private WatchStockEventsUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        events = Mockito.mock(StockEventGateway.class);
+        useCase = new WatchStockEventsUseCase(events);
+    }
+
+    @Test
+    void shouldSubscribeToFranchiseEvents() {
+        StockEvent event = new StockEvent(StockEventType.STOCK_CHANGED, "fr-1", "br-1", "p-1", "Burger", 5, Instant.now());
+        when(events.subscribe("fr-1")).thenReturn(Flux.just(event));
+
+        StepVerifier.create(useCase.execute("fr-1"))
+                .expectNext(event)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectBlankFranchiseId() {
+        StepVerifier.create(useCase.execute(" "))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(events);
+    }
+}
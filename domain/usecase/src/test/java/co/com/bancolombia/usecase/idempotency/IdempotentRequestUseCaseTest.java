@@ -0,0 +1,165 @@
+package co.com.bancolombia.usecase.idempotency;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.exception.IdempotencyKeyReusedException;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotentRequestUseCaseTest {
+
+    private static final String SCOPE = "POST /franchises";
+    private static final String HASH = "hash-1";
+
+    private IdempotencyGateway gateway;
+    private IdempotentRequestUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        gateway = mock(IdempotencyGateway.class);
+        useCase = new IdempotentRequestUseCase(gateway);
+    }
+
+    @Test
+    void shouldRunAction_whenNoKeyIsGiven() {
+        IdempotentResponse created = new IdempotentResponse(200, "0", "{}");
+
+        StepVerifier.create(useCase.execute(SCOPE, null, HASH, Mono.just(created)))
+                .expectNext(created)
+                .verifyComplete();
+
+        verifyNoInteractions(gateway);
+    }
+
+    @Test
+    void shouldReplayStoredResponse_withoutRunningAction() {
+        IdempotentResponse stored = new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}", HASH);
+        AtomicInteger executions = new AtomicInteger();
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(useCase.execute(SCOPE, "key-1", HASH, Mono.fromSupplier(() -> {
+                    executions.incrementAndGet();
+                    return new IdempotentResponse(200, "0", "{}");
+                })))
+                .expectNext(stored)
+                .verifyComplete();
+
+        assertEquals(0, executions.get());
+        verify(gateway, never()).saveIfAbsent(anyString(), any());
+    }
+
+    @Test
+    void shouldStoreFirstResponse() {
+        IdempotentResponse created = new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}");
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.empty());
+        when(gateway.saveIfAbsent(eq(SCOPE + "|key-1"), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+        StepVerifier.create(useCase.execute(SCOPE, " key-1 ", HASH, Mono.just(created)))
+                .assertNext(response -> {
+                    assertEquals(created.getBody(), response.getBody());
+                    assertEquals(HASH, response.getRequestHash());
+                })
+                .verifyComplete();
+
+        verify(gateway).saveIfAbsent(eq(SCOPE + "|key-1"), argThat(response -> HASH.equals(response.getRequestHash())));
+    }
+
+    @Test
+    void shouldJoinInFlightDuplicate() {
+        Sinks.One<IdempotentResponse> pending = Sinks.one();
+        AtomicInteger executions = new AtomicInteger();
+        Mono<IdempotentResponse> action = Mono.defer(() -> {
+            executions.incrementAndGet();
+            return pending.asMono();
+        });
+        IdempotentResponse created = new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}");
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.empty());
+        when(gateway.saveIfAbsent(eq(SCOPE + "|key-1"), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+        StepVerifier.create(Mono.zip(useCase.execute(SCOPE, "key-1", HASH, action), useCase.execute(SCOPE, "key-1", HASH, action)))
+                .then(() -> pending.tryEmitValue(created))
+                .assertNext(results -> {
+                    assertEquals(created.getBody(), results.getT1().getBody());
+                    assertSame(results.getT1(), results.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, executions.get());
+        verify(gateway, times(1)).saveIfAbsent(anyString(), any());
+    }
+
+    @Test
+    void shouldNotStoreServerErrors() {
+        IdempotentResponse failed = new IdempotentResponse(500, null, "{\"status\":500}");
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(useCase.execute(SCOPE, "key-1", HASH, Mono.just(failed)))
+                .assertNext(response -> assertEquals(500, response.getStatus()))
+                .verifyComplete();
+
+        verify(gateway, never()).saveIfAbsent(anyString(), any());
+    }
+
+    @Test
+    void shouldRejectTooLongKey() {
+        StepVerifier.create(useCase.execute(SCOPE, "k".repeat(256), HASH, Mono.empty()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        verifyNoInteractions(gateway);
+    }
+
+    @Test
+    void shouldRejectStoredKey_whenRequestDiffers() {
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.just(new IdempotentResponse(200, "0", "{}", "other-hash")));
+
+        StepVerifier.create(useCase.execute(SCOPE, "key-1", HASH, Mono.just(new IdempotentResponse(200, "0", "{}"))))
+                .expectError(IdempotencyKeyReusedException.class)
+                .verify();
+
+        verify(gateway, never()).saveIfAbsent(anyString(), any());
+    }
+
+    @Test
+    void shouldReplayStoredResponse_whenItHasNoRequestHash() {
+        IdempotentResponse legacy = new IdempotentResponse(200, "0", "{}");
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.just(legacy));
+
+        StepVerifier.create(useCase.execute(SCOPE, "key-1", HASH, Mono.empty()))
+                .expectNext(legacy)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectInFlightDuplicate_whenRequestDiffers() {
+        Sinks.One<IdempotentResponse> pending = Sinks.one();
+        Mono<IdempotentResponse> action = pending.asMono();
+        when(gateway.find(SCOPE + "|key-1")).thenReturn(Mono.empty());
+        when(gateway.saveIfAbsent(eq(SCOPE + "|key-1"), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+
+        Mono<IdempotentResponse> first = useCase.execute(SCOPE, "key-1", HASH, action);
+        Mono<IdempotentResponse> second = useCase.execute(SCOPE, "key-1", "other-hash", action);
+
+        StepVerifier.create(Mono.zip(first, second.onErrorResume(IdempotencyKeyReusedException.class,
+                        e -> Mono.just(new IdempotentResponse(422, null, "{}")))))
+                .then(() -> pending.tryEmitValue(new IdempotentResponse(200, "0", "{}")))
+                .assertNext(results -> {
+                    assertEquals(200, results.getT1().getStatus());
+                    assertEquals(422, results.getT2().getStatus());
+                })
+                .verifyComplete();
+    }
+}
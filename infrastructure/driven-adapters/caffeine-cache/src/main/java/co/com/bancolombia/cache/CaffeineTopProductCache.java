@@ -0,0 +1,207 @@
+package co.com.bancolombia.cache;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.gateways.TopProductCacheGateway;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class CaffeineTopProductCache implements TopProductCacheGateway {
+
+    static final String CACHE_NAME = "top-products";
+
+    private final AsyncCache<String, List<TopProductByBranch>> cache;
+    private final Map<String, String> franchiseByBranch = new ConcurrentHashMap<>();
+    private final Map<String, String> franchiseByProduct = new ConcurrentHashMap<>();
+    private final Map<String, List<TopProductByBranch>> indexedRows = new ConcurrentHashMap<>();
+    private final Set<Load> loading = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public CaffeineTopProductCache(MeterRegistry registry,
+                                   @Value("${cache.top-products.max-size:10000}") long maxSize,
+                                   @Value("${cache.top-products.ttl:PT30S}") Duration ttl) {
+        this(registry, maxSize, ttl, ForkJoinPool.commonPool());
+    }
+
+    CaffeineTopProductCache(MeterRegistry registry, long maxSize, Duration ttl, Executor executor) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                .recordStats()
+                .<String, List<TopProductByBranch>>removalListener((franchiseId, rows, cause) -> unindex(franchiseId, rows))
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Streams the loader's rows to the first caller as they arrive and caches the full list once it
+     * completes; concurrent callers for the same franchise wait for that list instead of loading again.
+     * A load that sees an invalidation before it completes is not cached, and its waiters load again.
+     */
+    @Override
+    public Flux<TopProductByBranch> get(String franchiseId, Function<String, Flux<TopProductByBranch>> loader) {
+        return Flux.defer(() -> {
+            CompletableFuture<List<TopProductByBranch>> pending = new CompletableFuture<>();
+            CompletableFuture<List<TopProductByBranch>> cached = cache.get(franchiseId, (key, executor) -> pending);
+            if (cached == pending) {
+                return load(franchiseId, loader, pending);
+            }
+            return Mono.fromFuture(cached, true)
+                    .flatMapMany(Flux::fromIterable)
+                    .onErrorResume(CancellationException.class, e -> get(franchiseId, loader));
+        });
+    }
+
+    private Flux<TopProductByBranch> load(String franchiseId, Function<String, Flux<TopProductByBranch>> loader,
+                                          CompletableFuture<List<TopProductByBranch>> pending) {
+        Load load = new Load(franchiseId);
+        List<TopProductByBranch> rows = new ArrayList<>();
+        return Flux.defer(() -> {
+                    loading.add(load);
+                    return loader.apply(franchiseId);
+                })
+                .doOnNext(rows::add)
+                .doOnComplete(() -> {
+                    loading.remove(load);
+                    List<TopProductByBranch> loaded = List.copyOf(rows);
+                    if (load.stale) {
+                        cache.asMap().remove(franchiseId, pending);
+                        pending.cancel(false);
+                        return;
+                    }
+                    index(franchiseId, loaded);
+                    pending.complete(loaded);
+                    if (load.stale) {
+                        cache.asMap().remove(franchiseId, pending);
+                        unindex(franchiseId, loaded);
+                    }
+                })
+                .doOnError(e -> {
+                    loading.remove(load);
+                    pending.completeExceptionally(e);
+                })
+                .doOnCancel(() -> {
+                    loading.remove(load);
+                    pending.cancel(false);
+                });
+    }
+
+    @Override
+    public Mono<Void> invalidateFranchise(String franchiseId) {
+        return Mono.fromRunnable(() -> {
+            markStale(franchiseId);
+            cache.synchronous().invalidate(franchiseId);
+        });
+    }
+
+    @Override
+    public Mono<Void> invalidateBranch(String branchId) {
+        return Mono.fromRunnable(() -> invalidateIndexed(franchiseByBranch.get(branchId)));
+    }
+
+    @Override
+    public Mono<Void> invalidateProduct(String productId) {
+        return Mono.fromRunnable(() -> invalidateIndexed(franchiseByProduct.get(productId)));
+    }
+
+    int indexSize() {
+        return franchiseByBranch.size() + franchiseByProduct.size();
+    }
+
+    int loadingSize() {
+        return loading.size();
+    }
+
+    /**
+     * Loads still running may already have read the row being changed, and a first load has no index entries
+     * yet to find its franchise by, so an unindexed branch or product marks every running load stale.
+     */
+    private void invalidateIndexed(String franchiseId) {
+        markStale(franchiseId);
+        if (franchiseId != null) {
+            cache.synchronous().invalidate(franchiseId);
+        }
+    }
+
+    private void markStale(String franchiseId) {
+        for (Load load : loading) {
+            if (franchiseId == null || load.franchiseId.equals(franchiseId)) {
+                load.stale = true;
+            }
+        }
+    }
+
+    private void index(String franchiseId, List<TopProductByBranch> rows) {
+        indexedRows.compute(franchiseId, (key, previous) -> {
+            put(key, rows);
+            if (previous != null) {
+                Set<String> branches = rows.stream().map(TopProductByBranch::getBranchId).collect(Collectors.toSet());
+                Set<String> products = rows.stream().map(TopProductByBranch::getProductId).collect(Collectors.toSet());
+                previous.forEach(row -> remove(key, row, branches, products));
+            }
+            return rows;
+        });
+    }
+
+    private void unindex(String franchiseId, List<TopProductByBranch> rows) {
+        if (franchiseId == null || rows == null) {
+            return;
+        }
+        indexedRows.computeIfPresent(franchiseId, (key, current) -> {
+            if (current != rows) {
+                return current;
+            }
+            rows.forEach(row -> remove(key, row, Set.of(), Set.of()));
+            return null;
+        });
+    }
+
+    private void put(String franchiseId, List<TopProductByBranch> rows) {
+        for (TopProductByBranch row : rows) {
+            franchiseByBranch.put(row.getBranchId(), franchiseId);
+            if (row.getProductId() != null) {
+                franchiseByProduct.put(row.getProductId(), franchiseId);
+            }
+        }
+    }
+
+    private void remove(String franchiseId, TopProductByBranch row, Set<String> keptBranches, Set<String> keptProducts) {
+        if (!keptBranches.contains(row.getBranchId())) {
+            franchiseByBranch.remove(row.getBranchId(), franchiseId);
+        }
+        if (row.getProductId() != null && !keptProducts.contains(row.getProductId())) {
+            franchiseByProduct.remove(row.getProductId(), franchiseId);
+        }
+    }
+
+    private static final class Load {
+
+        private final String franchiseId;
+        private volatile boolean stale;
+
+        private Load(String franchiseId) {
+            this.franchiseId = franchiseId;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package co.com.bancolombia.cache;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CaffeineTopProductCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private CaffeineTopProductCache cache;
+    private AtomicInteger loads;
+    private Function<String, Flux<TopProductByBranch>> loader;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new CaffeineTopProductCache(registry, 100, Duration.ofMinutes(1), Runnable::run);
+        loads = new AtomicInteger();
+        loader = franchiseId -> Flux.defer(() -> {
+            loads.incrementAndGet();
+            return Flux.just(
+                    new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50),
+                    new TopProductByBranch("br-2", "Norte", null, null, 0));
+        });
+    }
+
+    @Test
+    void shouldLoadOnce_andServeFollowingReadsFromCache() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateBranch_shouldEvictOwningFranchise() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        StepVerifier.create(cache.invalidateBranch("br-2")).verifyComplete();
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateProduct_shouldOnlyEvict_whenProductIsATopProduct() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        StepVerifier.create(cache.invalidateProduct("p-other")).verifyComplete();
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(1, loads.get());
+
+        StepVerifier.create(cache.invalidateProduct("p-1")).verifyComplete();
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateFranchise_shouldEvictEntry() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        StepVerifier.create(cache.invalidateFranchise("f-1")).verifyComplete();
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheErrors() {
+        Function<String, Flux<TopProductByBranch>> failing =
+                id -> Flux.error(new IllegalArgumentException("Franchise not found"));
+
+        StepVerifier.create(cache.get("f-404", failing))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+
+        StepVerifier.create(cache.get("f-404", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldPublishHitAndMissCounts() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", CaffeineTopProductCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void invalidateFranchise_shouldDropItsIndexEntries() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(3, cache.indexSize());
+
+        StepVerifier.create(cache.invalidateFranchise("f-1")).verifyComplete();
+
+        assertEquals(0, cache.indexSize());
+    }
+
+    @Test
+    void reload_shouldOnlyIndexTheCurrentTopProducts() {
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        StepVerifier.create(cache.invalidateBranch("br-1")).verifyComplete();
+        Function<String, Flux<TopProductByBranch>> changed = franchiseId -> Flux.defer(() -> {
+            loads.incrementAndGet();
+            return Flux.just(
+                    new TopProductByBranch("br-1", "Centro", "p-3", "Fries", 60),
+                    new TopProductByBranch("br-2", "Norte", null, null, 0));
+        });
+        StepVerifier.create(cache.get("f-1", changed)).expectNextCount(2).verifyComplete();
+
+        StepVerifier.create(cache.invalidateProduct("p-1")).verifyComplete();
+        StepVerifier.create(cache.get("f-1", changed)).expectNextCount(2).verifyComplete();
+
+        assertEquals(2, loads.get());
+        assertEquals(3, cache.indexSize());
+    }
+
+    @Test
+    void get_shouldStreamRowsBeforeTheLoaderCompletes() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().unicast().onBackpressureBuffer();
+        TopProductByBranch first = new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50);
+        TopProductByBranch second = new TopProductByBranch("br-2", "Norte", null, null, 0);
+
+        StepVerifier.create(cache.get("f-1", franchiseId -> rows.asFlux()))
+                .then(() -> rows.tryEmitNext(first))
+                .expectNext(first)
+                .then(() -> {
+                    rows.tryEmitNext(second);
+                    rows.tryEmitComplete();
+                })
+                .expectNext(second)
+                .verifyComplete();
+
+        StepVerifier.create(cache.get("f-1", loader)).expectNext(first, second).verifyComplete();
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void get_shouldShareAnInFlightLoad() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().replay().all();
+        Function<String, Flux<TopProductByBranch>> slow = franchiseId -> Flux.defer(() -> {
+            loads.incrementAndGet();
+            return rows.asFlux();
+        });
+        List<TopProductByBranch> waiter = new ArrayList<>();
+
+        StepVerifier.create(cache.get("f-1", slow))
+                .then(() -> cache.get("f-1", slow).subscribe(waiter::add))
+                .then(() -> {
+                    rows.tryEmitNext(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50));
+                    rows.tryEmitComplete();
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(1, waiter.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_shouldLoadAgain_whenTheFirstCallerCancels() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(cache.get("f-1", franchiseId -> rows.asFlux()))
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateBranch_duringTheFirstLoad_shouldNotCacheTheLoadedRows() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(cache.get("f-1", franchiseId -> rows.asFlux()))
+                .then(() -> rows.tryEmitNext(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50)))
+                .expectNextCount(1)
+                .then(() -> cache.invalidateBranch("br-1").block())
+                .then(rows::tryEmitComplete)
+                .verifyComplete();
+
+        assertEquals(0, cache.indexSize());
+        assertEquals(0, cache.loadingSize());
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateFranchise_duringALoad_shouldNotIndexTheLoadedRows() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(cache.get("f-1", franchiseId -> rows.asFlux()))
+                .then(() -> cache.invalidateFranchise("f-1").block())
+                .then(() -> {
+                    rows.tryEmitNext(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50));
+                    rows.tryEmitComplete();
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(0, cache.indexSize());
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(2).verifyComplete();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void staleLoad_shouldSendItsWaitersToLoadAgain() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().unicast().onBackpressureBuffer();
+        List<TopProductByBranch> waiter = new ArrayList<>();
+
+        StepVerifier.create(cache.get("f-1", franchiseId -> rows.asFlux()))
+                .then(() -> cache.get("f-1", loader).subscribe(waiter::add))
+                .then(() -> cache.invalidateProduct("p-9").block())
+                .then(rows::tryEmitComplete)
+                .verifyComplete();
+
+        assertEquals(2, waiter.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateFranchise_shouldLeaveLoadsOfOtherFranchisesCacheable() {
+        Sinks.Many<TopProductByBranch> rows = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(cache.get("f-1", franchiseId -> rows.asFlux()))
+                .then(() -> cache.invalidateFranchise("f-2").block())
+                .then(() -> {
+                    rows.tryEmitNext(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50));
+                    rows.tryEmitComplete();
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(cache.get("f-1", loader)).expectNextCount(1).verifyComplete();
+        assertEquals(0, loads.get());
+    }
+}
@@ -0,0 +1,70 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.InMemoryFranchiseAdapter;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Temporary store directories and a catalog to fill them with. Events are dropped, so only the store is measured.
+ */
+final class BenchmarkStores {
+
+    static final int SEGMENT_SIZE = 64 << 20;
+
+    private static final StockEventGateway NO_EVENTS = new StockEventGateway() {
+        @Override
+        public void publish(StockEvent event) {
+            // not measured
+        }
+
+        @Override
+        public Flux<StockEvent> subscribe(String franchiseId) {
+            return Flux.empty();
+        }
+    };
+
+    private BenchmarkStores() {
+    }
+
+    static Path newDirectory() throws IOException {
+        return Files.createTempDirectory("local-store-bench");
+    }
+
+    static LocalStore open(Path directory) throws IOException {
+        return LocalStore.open(directory, SEGMENT_SIZE, NO_EVENTS);
+    }
+
+    /**
+     * One franchise with {@code branches} branches of {@code productsPerBranch} products each.
+     */
+    static Franchise fill(InMemoryFranchiseAdapter adapter, int branches, int productsPerBranch) {
+        Franchise franchise = adapter.createFranchise("Bench").block();
+        Flux.range(0, branches)
+                .concatMap(b -> adapter.addBranch(franchise.getId(), "Sucursal " + b))
+                .concatMap(branch -> Flux.range(0, productsPerBranch)
+                        .concatMap(p -> adapter.addProduct(branch.getId(), "Producto " + p, p)))
+                .blockLast();
+        return franchise;
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package co.com.bancolombia.local;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to open a store: replaying the whole log, or loading the snapshot when the catalog was compacted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LocalStoreRecoveryBenchmark {
+
+    @Param({"10000", "100000"})
+    int products;
+
+    @Param({"false", "true"})
+    boolean compacted;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkStores.newDirectory();
+        try (LocalStore store = BenchmarkStores.open(directory)) {
+            BenchmarkStores.fill(store.adapter(), products / 100, 100);
+            if (compacted) {
+                store.compact();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkStores.delete(directory);
+    }
+
+    @Benchmark
+    public LocalStore recover() throws IOException {
+        try (LocalStore store = BenchmarkStores.open(directory)) {
+            return store;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.InMemoryFranchiseAdapter;
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes per second through the segment log; each one is appended before it becomes visible.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LocalStoreWriteBenchmark {
+
+    private Path directory;
+    private LocalStore store;
+    private InMemoryFranchiseAdapter adapter;
+    private String branchId;
+    private String productId;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = BenchmarkStores.newDirectory();
+        store = BenchmarkStores.open(directory);
+        adapter = store.adapter();
+        Branch branch = adapter.addBranch(adapter.createFranchise("Bench").block().getId(), "Centro").block();
+        branchId = branch.getId();
+        productId = adapter.addProduct(branchId, "Tarjeta", 0).block().getId();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        BenchmarkStores.delete(directory);
+    }
+
+    @Benchmark
+    public Product updateStock() {
+        return adapter.updateProductStock(productId, next++ & 1023, null).block();
+    }
+
+    @Benchmark
+    public Product addProduct() {
+        return adapter.addProduct(branchId, "Producto " + next++, 1).block();
+    }
+}
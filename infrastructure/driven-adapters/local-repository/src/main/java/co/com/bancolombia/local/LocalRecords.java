@@ -0,0 +1,134 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.StoreJournal;
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.product.Product;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Binary encoding of {@link StoreJournal} changes, shared by the segment log and the snapshot.
+ */
+final class LocalRecords {
+
+    private static final byte FRANCHISE_SAVED = 1;
+    private static final byte BRANCH_SAVED = 2;
+    private static final byte PRODUCT_SAVED = 3;
+    private static final byte FRANCHISE_REMOVED = 4;
+    private static final byte BRANCH_REMOVED = 5;
+    private static final byte PRODUCT_REMOVED = 6;
+
+    private LocalRecords() {
+    }
+
+    static StoreJournal encoder(Consumer<byte[]> sink) {
+        return new StoreJournal() {
+            @Override
+            public void franchiseSaved(Franchise franchise) {
+                sink.accept(encode(FRANCHISE_SAVED, out -> {
+                    out.writeUTF(franchise.getId());
+                    out.writeUTF(franchise.getName());
+                    writeInstant(out, franchise.getCreatedAt());
+                    writeInstant(out, franchise.getUpdatedAt());
+                    out.writeLong(franchise.getVersion());
+                }));
+            }
+
+            @Override
+            public void branchSaved(Branch branch) {
+                sink.accept(encode(BRANCH_SAVED, out -> {
+                    out.writeUTF(branch.getId());
+                    out.writeUTF(branch.getFranchiseId());
+                    out.writeUTF(branch.getName());
+                    writeInstant(out, branch.getCreatedAt());
+                    writeInstant(out, branch.getUpdatedAt());
+                    out.writeLong(branch.getVersion());
+                }));
+            }
+
+            @Override
+            public void productSaved(Product product) {
+                sink.accept(encode(PRODUCT_SAVED, out -> {
+                    out.writeUTF(product.getId());
+                    out.writeUTF(product.getBranchId());
+                    out.writeUTF(product.getName());
+                    out.writeInt(product.getStock());
+                    writeInstant(out, product.getCreatedAt());
+                    writeInstant(out, product.getUpdatedAt());
+                    out.writeLong(product.getVersion());
+                }));
+            }
+
+            @Override
+            public void franchiseRemoved(String franchiseId) {
+                sink.accept(encode(FRANCHISE_REMOVED, out -> out.writeUTF(franchiseId)));
+            }
+
+            @Override
+            public void branchRemoved(String branchId) {
+                sink.accept(encode(BRANCH_REMOVED, out -> out.writeUTF(branchId)));
+            }
+
+            @Override
+            public void productRemoved(String productId) {
+                sink.accept(encode(PRODUCT_REMOVED, out -> out.writeUTF(productId)));
+            }
+        };
+    }
+
+    static void decode(byte[] payload, StoreJournal target) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            switch (type) {
+                case FRANCHISE_SAVED -> target.franchiseSaved(new Franchise(in.readUTF(), in.readUTF(),
+                        readInstant(in), readInstant(in), in.readLong()));
+                case BRANCH_SAVED -> target.branchSaved(new Branch(in.readUTF(), in.readUTF(), in.readUTF(),
+                        readInstant(in), readInstant(in), in.readLong()));
+                case PRODUCT_SAVED -> target.productSaved(new Product(in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readInt(), readInstant(in), readInstant(in), in.readLong()));
+                case FRANCHISE_REMOVED -> target.franchiseRemoved(in.readUTF());
+                case BRANCH_REMOVED -> target.branchRemoved(in.readUTF());
+                case PRODUCT_REMOVED -> target.productRemoved(in.readUTF());
+                default -> throw new IllegalStateException("Unknown record type " + type);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(byte type, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeBoolean(instant != null);
+        if (instant != null) {
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
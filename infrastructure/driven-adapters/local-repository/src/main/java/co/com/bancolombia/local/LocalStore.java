@@ -0,0 +1,69 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.InMemoryFranchiseAdapter;
+import co.com.bancolombia.memory.StoreJournal;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Keeps the in-heap indexes of {@link InMemoryFranchiseAdapter} durable: every change is appended to a
+ * {@link SegmentLog} before it becomes visible, and {@link #compact()} folds the log into a {@link SnapshotFile}.
+ * On open the snapshot is loaded and the segments written after it are replayed on top.
+ */
+public final class LocalStore implements Closeable {
+
+    private final Path directory;
+    private final InMemoryFranchiseAdapter adapter;
+    private final SegmentLog log;
+
+    private LocalStore(Path directory, int segmentSize, StockEventGateway events) throws IOException {
+        this.directory = directory;
+        this.adapter = new InMemoryFranchiseAdapter(events, LocalRecords.encoder(this::append));
+        StoreJournal restorer = adapter.restorer();
+        long firstSegment = SnapshotFile.read(directory, restorer);
+        this.log = SegmentLog.open(directory, segmentSize, firstSegment,
+                payload -> LocalRecords.decode(payload, restorer));
+    }
+
+    public static LocalStore open(Path directory, int segmentSize, StockEventGateway events) throws IOException {
+        return new LocalStore(directory, segmentSize, events);
+    }
+
+    public InMemoryFranchiseAdapter adapter() {
+        return adapter;
+    }
+
+    /**
+     * Forces the current segment to disk. Appends already survive a crash of the process as soon as they return;
+     * this covers a crash of the machine.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the segments it covers. Does nothing when no record was
+     * written since the last snapshot.
+     */
+    public synchronized void compact() {
+        if (log.pending() == 0) {
+            return;
+        }
+        long[] firstSegment = new long[1];
+        adapter.pauseWrites(() -> firstSegment[0] = log.roll());
+        SnapshotFile.write(directory, firstSegment[0], adapter::dump);
+        log.deleteSegmentsBefore(firstSegment[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    private void append(byte[] payload) {
+        log.append(payload);
+    }
+}
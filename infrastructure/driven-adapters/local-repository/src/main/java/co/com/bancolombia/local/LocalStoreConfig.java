@@ -0,0 +1,37 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.InMemoryFranchiseAdapter;
+import co.com.bancolombia.memory.InMemoryIdempotencyAdapter;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "db.provider", havingValue = "local")
+public class LocalStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public LocalStore localStore(@Value("${db.local.directory:./data}") Path directory,
+                                 @Value("${db.local.segment-size:64MB}") DataSize segmentSize,
+                                 StockEventGateway events) throws IOException {
+        return LocalStore.open(directory, Math.toIntExact(segmentSize.toBytes()), events);
+    }
+
+    @Bean
+    public InMemoryFranchiseAdapter localFranchiseAdapter(LocalStore store) {
+        return store.adapter();
+    }
+
+    @Bean
+    public InMemoryIdempotencyAdapter localIdempotencyAdapter(
+            @Value("${db.local.idempotency.ttl:PT24H}") Duration ttl) {
+        return new InMemoryIdempotencyAdapter(ttl);
+    }
+}
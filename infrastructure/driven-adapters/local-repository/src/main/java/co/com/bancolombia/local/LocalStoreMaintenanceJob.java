@@ -0,0 +1,29 @@
+package co.com.bancolombia.local;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "db.provider", havingValue = "local")
+public class LocalStoreMaintenanceJob {
+
+    private final LocalStore store;
+
+    public LocalStoreMaintenanceJob(LocalStore store) {
+        this.store = store;
+    }
+
+    @Scheduled(fixedDelayString = "${db.local.flush-interval:PT1S}")
+    public void flush() {
+        store.flush();
+    }
+
+    @Scheduled(initialDelayString = "${db.local.compaction-interval:PT10M}",
+            fixedDelayString = "${db.local.compaction-interval:PT10M}")
+    public void compact() {
+        store.compact();
+    }
+}
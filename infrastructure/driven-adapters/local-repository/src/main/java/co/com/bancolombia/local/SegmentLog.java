@@ -0,0 +1,188 @@
+package co.com.bancolombia.local;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log split into fixed-size, memory-mapped segment files. Every record is framed as
+ * {@code [int length][int crc32][payload]}; a zero length marks the end of the written part of a segment.
+ */
+final class SegmentLog implements Closeable {
+
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d{20})\\.log");
+    private static final int FRAME_HEADER = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+    private long segmentId;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long pending;
+
+    private SegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Deletes the segments before {@code firstSegment}, replays the remaining ones into {@code replay} and leaves
+     * the log positioned after the last intact record. A torn record at the tail of the newest segment is what an
+     * interrupted append leaves behind, so it is discarded; a damaged record anywhere else fails the open.
+     */
+    static SegmentLog open(Path directory, int segmentSize, long firstSegment, Consumer<byte[]> replay)
+            throws IOException {
+        if (segmentSize <= FRAME_HEADER) {
+            throw new IllegalArgumentException("Segment size must be greater than " + FRAME_HEADER);
+        }
+        Files.createDirectories(directory);
+        SegmentLog log = new SegmentLog(directory, segmentSize);
+        log.deleteSegmentsBefore(firstSegment);
+        List<Long> segments = log.segmentIds();
+        for (int i = 0; i < segments.size(); i++) {
+            boolean newest = i == segments.size() - 1;
+            log.map(segments.get(i));
+            log.pending += log.replay(replay, newest);
+            if (!newest) {
+                log.channel.close();
+            }
+        }
+        if (segments.isEmpty()) {
+            log.map(firstSegment);
+        }
+        return log;
+    }
+
+    synchronized void append(byte[] payload) {
+        int frame = FRAME_HEADER + payload.length;
+        if (frame > segmentSize) {
+            throw new IllegalArgumentException("Record does not fit in a segment");
+        }
+        if (buffer.remaining() < frame) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        buffer.putInt(start, payload.length);
+        pending++;
+    }
+
+    /**
+     * Starts a new segment and returns its id. Every record appended before the call lives in an older segment.
+     */
+    synchronized long roll() {
+        try {
+            buffer.force();
+            channel.close();
+            map(segmentId + 1);
+            pending = 0;
+            return segmentId;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Number of records appended or replayed since the last {@link #roll()}.
+     */
+    synchronized long pending() {
+        return pending;
+    }
+
+    synchronized void flush() {
+        buffer.force();
+    }
+
+    void deleteSegmentsBefore(long segmentId) {
+        try {
+            for (long id : segmentIds()) {
+                if (id < segmentId) {
+                    Files.deleteIfExists(segmentPath(id));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private long replay(Consumer<byte[]> replay, boolean newest) throws IOException {
+        long records = 0;
+        while (buffer.remaining() >= FRAME_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                buffer.position(start);
+                return records;
+            }
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                discardTail(start, newest);
+                return records;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                discardTail(start, newest);
+                return records;
+            }
+            replay.accept(payload);
+            records++;
+        }
+        return records;
+    }
+
+    private void discardTail(int start, boolean newest) {
+        if (!newest) {
+            throw new IllegalStateException("Segment " + segmentId + " is corrupt at offset " + start);
+        }
+        buffer.position(start);
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.position(start);
+    }
+
+    private void map(long id) throws IOException {
+        channel = FileChannel.open(segmentPath(id), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        segmentId = id;
+    }
+
+    private List<Long> segmentIds() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("segment-%020d.log", id));
+    }
+}
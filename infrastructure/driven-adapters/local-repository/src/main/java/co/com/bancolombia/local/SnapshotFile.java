@@ -0,0 +1,115 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.StoreJournal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Full copy of the store as of a segment boundary. The file holds a header with the first segment that is not
+ * covered by the snapshot, the encoded entities as {@code [int length][payload]} frames terminated by a
+ * {@code -1} length, and a CRC32 of everything before it. It is written to a temporary file and moved into place,
+ * so a crash mid-write leaves the previous snapshot untouched.
+ */
+final class SnapshotFile {
+
+    static final String NAME = "snapshot.dat";
+    private static final String TEMPORARY = "snapshot.tmp";
+    private static final int MAGIC = 0x46524e51;
+    private static final int FORMAT = 1;
+    private static final int END = -1;
+
+    private SnapshotFile() {
+    }
+
+    static void write(Path directory, long firstSegment, Consumer<StoreJournal> contents) {
+        Path temporary = directory.resolve(TEMPORARY);
+        try {
+            CRC32 crc = new CRC32();
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(
+                         new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(firstSegment);
+                contents.accept(LocalRecords.encoder(payload -> frame(out, payload)));
+                out.writeInt(END);
+                out.flush();
+                new DataOutputStream(file).writeLong(crc.getValue());
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, directory.resolve(NAME), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Applies the snapshot to {@code target} and returns the first segment to replay after it, or {@code 0} when
+     * there is no snapshot yet. The checksum is verified before anything is applied.
+     */
+    static long read(Path directory, StoreJournal target) throws IOException {
+        Path path = directory.resolve(NAME);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        verify(path);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IllegalStateException("Unsupported snapshot format");
+            }
+            long firstSegment = in.readLong();
+            for (int length = in.readInt(); length != END; length = in.readInt()) {
+                LocalRecords.decode(in.readNBytes(length), target);
+            }
+            return firstSegment;
+        }
+    }
+
+    private static void verify(Path path) throws IOException {
+        long body = Files.size(path) - Long.BYTES;
+        if (body < 0) {
+            throw new IllegalStateException("Snapshot checksum does not match");
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new CheckedInputStream(file, crc))) {
+            byte[] chunk = new byte[1 << 16];
+            long left = body;
+            while (left > 0) {
+                int read = in.read(chunk, 0, (int) Math.min(chunk.length, left));
+                if (read < 0) {
+                    throw new IllegalStateException("Snapshot checksum does not match");
+                }
+                left -= read;
+            }
+            long computed = crc.getValue();
+            if (new DataInputStream(file).readLong() != computed) {
+                throw new IllegalStateException("Snapshot checksum does not match");
+            }
+        }
+    }
+
+    private static void frame(DataOutputStream out, byte[] payload) {
+        try {
+            out.writeInt(payload.length);
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
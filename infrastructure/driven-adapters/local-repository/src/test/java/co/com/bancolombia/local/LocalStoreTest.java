@@ -0,0 +1,166 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.InMemoryFranchiseAdapter;
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LocalStoreTest {
+
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    private StockEventGateway events;
+
+    @BeforeEach
+    void setUp() {
+        events = mock(StockEventGateway.class);
+    }
+
+    @Test
+    void open_shouldRecoverFromTheSnapshotAndTheSegmentsWrittenAfterIt() throws IOException {
+        Franchise franchise;
+        Product tarjeta;
+        try (LocalStore store = open()) {
+            InMemoryFranchiseAdapter adapter = store.adapter();
+            franchise = adapter.createFranchise("Nequi").block();
+            Branch centro = adapter.addBranch(franchise.getId(), "Centro").block();
+            tarjeta = adapter.addProduct(centro.getId(), "Tarjeta", 5).block();
+            adapter.addProduct(centro.getId(), "Cuenta", 3).block();
+            store.compact();
+            adapter.adjustProductStock(tarjeta.getId(), -4).block();
+            adapter.updateFranchiseName(franchise.getId(), "Nequi Colombia", null).block();
+        }
+
+        try (LocalStore store = open()) {
+            InMemoryFranchiseAdapter adapter = store.adapter();
+            StepVerifier.create(adapter.topProductByBranch(franchise.getId()))
+                    .assertNext(top -> assertEquals("Cuenta", top.getProductName()))
+                    .verifyComplete();
+            StepVerifier.create(adapter.findProduct(tarjeta.getId()))
+                    .assertNext(product -> assertEquals(1, product.getStock()))
+                    .verifyComplete();
+            StepVerifier.create(adapter.createFranchise("Nequi Colombia"))
+                    .expectError(IllegalStateException.class)
+                    .verify();
+        }
+    }
+
+    @Test
+    void open_shouldReplayRemovals() throws IOException {
+        Franchise franchise;
+        try (LocalStore store = open()) {
+            InMemoryFranchiseAdapter adapter = store.adapter();
+            franchise = adapter.createFranchise("Nequi").block();
+            Branch centro = adapter.addBranch(franchise.getId(), "Centro").block();
+            adapter.addProduct(centro.getId(), "Tarjeta", 5).block();
+            store.compact();
+            adapter.deleteBranch(centro.getId()).block();
+        }
+
+        try (LocalStore store = open()) {
+            StepVerifier.create(store.adapter().topProductByBranch(franchise.getId())).verifyComplete();
+            StepVerifier.create(store.adapter().addBranch(franchise.getId(), "Centro"))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void open_shouldRecoverTheLastUpdateOfARepeatedProduct() throws IOException {
+        Product tarjeta;
+        try (LocalStore store = open()) {
+            InMemoryFranchiseAdapter adapter = store.adapter();
+            Franchise franchise = adapter.createFranchise("Nequi").block();
+            Branch centro = adapter.addBranch(franchise.getId(), "Centro").block();
+            tarjeta = adapter.addProduct(centro.getId(), "Tarjeta", 5).block();
+            StepVerifier.create(adapter.updateProductStocks(centro.getId(), Flux.just(
+                            new StockUpdate(tarjeta.getId(), 7),
+                            new StockUpdate(tarjeta.getId(), 9))))
+                    .assertNext(r -> assertEquals(StockUpdateResult.Status.SUPERSEDED, r.getStatus()))
+                    .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                    .verifyComplete();
+        }
+
+        try (LocalStore store = open()) {
+            StepVerifier.create(store.adapter().findProduct(tarjeta.getId()))
+                    .assertNext(product -> {
+                        assertEquals(9, product.getStock());
+                        assertEquals(tarjeta.getVersion() + 1, product.getVersion());
+                    })
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void compact_shouldDeleteTheSegmentsCoveredByTheSnapshot() throws IOException {
+        try (LocalStore store = open()) {
+            store.adapter().createFranchise("Nequi").block();
+            store.compact();
+            store.compact();
+        }
+
+        assertTrue(Files.exists(directory.resolve(SnapshotFile.NAME)));
+        assertEquals(1, segmentCount());
+        assertTrue(Files.exists(directory.resolve("segment-00000000000000000001.log")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void open_shouldRecoverManyWritesQuickly(boolean compacted) throws IOException {
+        int branches = 50;
+        int productsPerBranch = 200;
+        Franchise franchise;
+        try (LocalStore store = open()) {
+            InMemoryFranchiseAdapter adapter = store.adapter();
+            franchise = adapter.createFranchise("Nequi").block();
+            assertTimeout(Duration.ofSeconds(30), () -> Flux.range(0, branches)
+                    .concatMap(b -> adapter.addBranch(franchise.getId(), "Sucursal " + b))
+                    .concatMap(branch -> Flux.range(0, productsPerBranch)
+                            .concatMap(p -> adapter.addProduct(branch.getId(), "Producto " + p, p)))
+                    .blockLast());
+            if (compacted) {
+                store.compact();
+            }
+        }
+
+        assertTimeout(Duration.ofSeconds(10), () -> {
+            try (LocalStore store = open()) {
+                StepVerifier.create(store.adapter().topProductByBranch(franchise.getId()))
+                        .expectNextCount(branches)
+                        .verifyComplete();
+            }
+        });
+    }
+
+    private LocalStore open() throws IOException {
+        return LocalStore.open(directory, SEGMENT_SIZE, events);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+}
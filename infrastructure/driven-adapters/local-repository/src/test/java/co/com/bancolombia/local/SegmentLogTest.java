@@ -0,0 +1,115 @@
+package co.com.bancolombia.local;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void open_shouldReplayRecordsInAppendOrder() throws IOException {
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> fail("Nothing to replay"))) {
+            log.append(bytes("uno"));
+            log.append(bytes("dos"));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> replayed.add(text(payload)))) {
+            assertEquals(2, log.pending());
+            log.append(bytes("tres"));
+        }
+
+        assertEquals(List.of("uno", "dos"), replayed);
+        assertEquals(List.of("uno", "dos", "tres"), replay(0));
+    }
+
+    @Test
+    void append_shouldRollToANewSegmentWhenTheCurrentOneIsFull() throws IOException {
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> { })) {
+            for (int i = 0; i < 20; i++) {
+                log.append(bytes("registro-" + i));
+            }
+        }
+
+        assertTrue(Files.exists(directory.resolve("segment-00000000000000000001.log")));
+        assertEquals(20, replay(0).size());
+    }
+
+    @Test
+    void open_shouldDiscardATornRecordAtTheTail() throws IOException {
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> { })) {
+            log.append(bytes("uno"));
+            log.append(bytes("dos"));
+        }
+        corrupt(directory.resolve("segment-00000000000000000000.log"), 8 + 3 + 8);
+
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> { })) {
+            log.append(bytes("tres"));
+        }
+
+        assertEquals(List.of("uno", "tres"), replay(0));
+    }
+
+    @Test
+    void open_shouldFailWhenAnOlderSegmentIsCorrupt() throws IOException {
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> { })) {
+            log.append(bytes("uno"));
+            log.roll();
+            log.append(bytes("dos"));
+        }
+        corrupt(directory.resolve("segment-00000000000000000000.log"), 8);
+
+        assertThrows(IllegalStateException.class, () -> SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> { }));
+    }
+
+    @Test
+    void roll_shouldLetOlderSegmentsBeDeleted() throws IOException {
+        long first;
+        try (SegmentLog log = SegmentLog.open(directory, SEGMENT_SIZE, 0, payload -> { })) {
+            log.append(bytes("uno"));
+            first = log.roll();
+            log.append(bytes("dos"));
+            assertEquals(1, log.pending());
+        }
+
+        assertEquals(1, first);
+        assertEquals(List.of("dos"), replay(first));
+        assertFalse(Files.exists(directory.resolve("segment-00000000000000000000.log")));
+    }
+
+    private List<String> replay(long firstSegment) throws IOException {
+        List<String> replayed = new ArrayList<>();
+        SegmentLog.open(directory, SEGMENT_SIZE, firstSegment, payload -> replayed.add(text(payload))).close();
+        return replayed;
+    }
+
+    private static void corrupt(Path segment, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), offset + 1);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
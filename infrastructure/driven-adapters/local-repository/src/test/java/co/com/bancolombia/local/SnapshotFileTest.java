@@ -0,0 +1,75 @@
+package co.com.bancolombia.local;
+
+import co.com.bancolombia.memory.InMemoryFranchiseAdapter;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private StockEventGateway events;
+    private InMemoryFranchiseAdapter source;
+
+    @BeforeEach
+    void setUp() {
+        events = mock(StockEventGateway.class);
+        source = new InMemoryFranchiseAdapter(events);
+    }
+
+    @Test
+    void read_shouldRestoreWhatWasWritten() throws IOException {
+        Franchise franchise = source.createFranchise("Nequi").block();
+        String branchId = source.addBranch(franchise.getId(), "Centro").block().getId();
+        source.addProduct(branchId, "Tarjeta", 7).block();
+
+        SnapshotFile.write(directory, 3, source::dump);
+        InMemoryFranchiseAdapter target = new InMemoryFranchiseAdapter(events);
+
+        assertEquals(3, SnapshotFile.read(directory, target.restorer()));
+        StepVerifier.create(target.topProductByBranch(franchise.getId()))
+                .assertNext(top -> {
+                    assertEquals("Centro", top.getBranchName());
+                    assertEquals("Tarjeta", top.getProductName());
+                    assertEquals(7, top.getStock());
+                })
+                .verifyComplete();
+        assertFalse(Files.exists(directory.resolve("snapshot.tmp")));
+    }
+
+    @Test
+    void read_shouldReturnZeroWhenThereIsNoSnapshot() throws IOException {
+        assertEquals(0, SnapshotFile.read(directory, new InMemoryFranchiseAdapter(events).restorer()));
+    }
+
+    @Test
+    void read_shouldRejectASnapshotWhoseChecksumDoesNotMatch() throws IOException {
+        source.createFranchise("Nequi").block();
+        SnapshotFile.write(directory, 0, source::dump);
+        try (FileChannel channel = FileChannel.open(directory.resolve(SnapshotFile.NAME), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 20);
+        }
+        InMemoryFranchiseAdapter target = new InMemoryFranchiseAdapter(events);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> SnapshotFile.read(directory, target.restorer()));
+
+        assertEquals("Snapshot checksum does not match", error.getMessage());
+        assertEquals(0, target.count().block());
+    }
+}
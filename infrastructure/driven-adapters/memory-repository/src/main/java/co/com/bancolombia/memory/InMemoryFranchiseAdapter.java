@@ -0,0 +1,926 @@
+package co.com.bancolombia.memory;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageCursor;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.product.Product;
+import co.com.bancolombia.usecase.health.DbHealthPort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "memory")
+public class InMemoryFranchiseAdapter implements FranchiseGateway, DbHealthPort {
+
+    static final int STOCK_BATCH_SIZE = 500;
+
+    private static final Comparator<Product> BY_STOCK = Comparator.comparingInt(Product::getStock).reversed()
+            .thenComparing(Product::getId);
+
+    private final StockEventGateway events;
+    private final StoreJournal journal;
+    private final ReadWriteLock writes = new ReentrantReadWriteLock();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, Franchise> franchises = new ConcurrentHashMap<>();
+    private final NavigableSet<String> franchiseIds = new ConcurrentSkipListSet<>();
+    private final Map<String, String> franchiseIdsByName = new ConcurrentHashMap<>();
+
+    private final Map<String, Branch> branches = new ConcurrentHashMap<>();
+    private final Map<String, String> branchIdsByName = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<String>> branchIdsByFranchise = new ConcurrentHashMap<>();
+
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+    private final Map<String, String> productIdsByName = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<Product>> productsByStock = new ConcurrentHashMap<>();
+
+    @Autowired
+    public InMemoryFranchiseAdapter(StockEventGateway events) {
+        this(events, StoreJournal.NONE);
+    }
+
+    public InMemoryFranchiseAdapter(StockEventGateway events, StoreJournal journal) {
+        this.events = events;
+        this.journal = journal;
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.fromSupplier(() -> (long) franchises.size());
+    }
+
+    @Override
+    public Mono<Franchise> createFranchise(String name) {
+        if (name == null || name.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise name must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> guarded(() -> insertFranchise(name.trim())));
+    }
+
+    @Override
+    public Flux<ImportResult> importFranchise(Flux<ImportRecord> records) {
+        return Flux.defer(() -> {
+            String[] franchiseId = new String[1];
+            return records.index()
+                    .map(line -> guarded(() -> line.getT1() == 0
+                            ? importFranchiseLine(line.getT2(), franchiseId)
+                            : importLine(line.getT2(), franchiseId[0])));
+        });
+    }
+
+    private ImportResult importFranchiseLine(ImportRecord record, String[] franchiseId) {
+        if (record.getError() != null) {
+            return ImportResult.failed(record, record.getError());
+        }
+        if (record.getType() != ImportRecord.Type.FRANCHISE) {
+            return ImportResult.failed(record, "The first line must describe the franchise");
+        }
+        if (isBlank(record.getName())) {
+            return ImportResult.failed(record, "Franchise name must not be empty");
+        }
+        try {
+            franchiseId[0] = insertFranchise(record.getName().trim()).getId();
+            return ImportResult.created(record, franchiseId[0]);
+        } catch (IllegalStateException e) {
+            return ImportResult.failed(record, e.getMessage());
+        }
+    }
+
+    private ImportResult importLine(ImportRecord record, String franchiseId) {
+        if (franchiseId == null) {
+            return ImportResult.failed(record, "Franchise was not imported");
+        }
+        String invalid = invalidReason(record);
+        if (invalid != null) {
+            return ImportResult.failed(record, invalid);
+        }
+        try {
+            if (record.getType() == ImportRecord.Type.BRANCH) {
+                return ImportResult.created(record, insertBranch(franchiseId, record.getName().trim()).getId());
+            }
+            String branchId = branchIdsByName.get(key(franchiseId, record.getBranch().trim()));
+            if (branchId == null) {
+                return ImportResult.failed(record, "Branch not found");
+            }
+            return ImportResult.created(record, insertProduct(branchId, record.getName().trim(), record.getStock()).getId());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ImportResult.failed(record, e.getMessage());
+        }
+    }
+
+    static String invalidReason(ImportRecord record) {
+        if (record.getError() != null) {
+            return record.getError();
+        }
+        if (record.getType() == ImportRecord.Type.FRANCHISE) {
+            return "Only one franchise line is allowed";
+        }
+        if (isBlank(record.getName())) {
+            return record.getType() == ImportRecord.Type.BRANCH
+                    ? "Branch name must not be empty"
+                    : "Product name must not be empty";
+        }
+        if (record.getType() == ImportRecord.Type.PRODUCT) {
+            if (isBlank(record.getBranch())) {
+                return "Branch name must not be empty";
+            }
+            if (record.getStock() == null || record.getStock() < 0) {
+                return "Stock must be >= 0";
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Mono<Branch> addBranch(String franchiseId, String branchName) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (branchName == null || branchName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch name must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> guarded(() -> insertBranch(franchiseId, branchName.trim())));
+    }
+
+    @Override
+    public Mono<Product> addProduct(String branchId, String productName, int stock) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (productName == null || productName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product name must not be empty"));
+        }
+        if (stock < 0) {
+            return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
+        }
+
+        return Mono.fromCallable(() -> guarded(() -> insertProduct(branchId, productName.trim(), stock)));
+    }
+
+    private Franchise insertFranchise(String name) {
+        Instant now = Instant.now();
+        String id = nextId();
+        if (franchiseIdsByName.putIfAbsent(name, id) != null) {
+            throw new IllegalStateException("Franchise name already exists");
+        }
+        Franchise franchise = new Franchise(id, name, now, now, 0);
+        try {
+            journal.franchiseSaved(franchise);
+        } catch (RuntimeException e) {
+            franchiseIdsByName.remove(name, id);
+            throw e;
+        }
+        branchIdsByFranchise.put(id, new ConcurrentSkipListSet<>());
+        franchises.put(id, franchise);
+        franchiseIds.add(id);
+        return franchise;
+    }
+
+    private Branch insertBranch(String franchiseId, String name) {
+        if (!franchises.containsKey(franchiseId)) {
+            throw new IllegalArgumentException("Franchise not found");
+        }
+        Instant now = Instant.now();
+        String id = nextId();
+        if (branchIdsByName.putIfAbsent(key(franchiseId, name), id) != null) {
+            throw new IllegalStateException("Branch name already exists for this franchise");
+        }
+        NavigableSet<String> siblings = branchIdsByFranchise.get(franchiseId);
+        Branch branch = new Branch(id, franchiseId, name, now, now, 0);
+        try {
+            if (siblings == null) {
+                throw new IllegalArgumentException("Franchise not found");
+            }
+            journal.branchSaved(branch);
+        } catch (RuntimeException e) {
+            branchIdsByName.remove(key(franchiseId, name), id);
+            throw e;
+        }
+        productsByStock.put(id, new ConcurrentSkipListSet<>(BY_STOCK));
+        branches.put(id, branch);
+        siblings.add(id);
+        return branch;
+    }
+
+    private Product insertProduct(String branchId, String name, int stock) {
+        Branch branch = branches.get(branchId);
+        if (branch == null) {
+            throw new IllegalArgumentException("Branch not found");
+        }
+        Instant now = Instant.now();
+        String id = nextId();
+        if (productIdsByName.putIfAbsent(key(branchId, name), id) != null) {
+            throw new IllegalStateException("Product name already exists for this branch");
+        }
+        NavigableSet<Product> ranking = productsByStock.get(branchId);
+        Product product = new Product(id, branchId, name, stock, now, now, 0);
+        try {
+            if (ranking == null) {
+                throw new IllegalArgumentException("Branch not found");
+            }
+            journal.productSaved(product);
+        } catch (RuntimeException e) {
+            productIdsByName.remove(key(branchId, name), id);
+            throw e;
+        }
+        Product before = top(ranking);
+        products.put(id, product);
+        ranking.add(product);
+        publish(StockEventType.STOCK_CHANGED, branch.getFranchiseId(), product);
+        publishTopIfChanged(branch, before, ranking);
+        return product;
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> guarded(() -> {
+            Product current = requireProduct(productId);
+            NavigableSet<Product> ranking = productsByStock.getOrDefault(current.getBranchId(), new ConcurrentSkipListSet<>(BY_STOCK));
+            Product before = top(ranking);
+            Product removed = removeProduct(productId, true);
+            if (removed == null) {
+                throw new IllegalArgumentException("Product not found");
+            }
+            Branch branch = branches.get(removed.getBranchId());
+            if (branch != null) {
+                publish(StockEventType.PRODUCT_REMOVED, branch.getFranchiseId(), removed);
+                publishTopIfChanged(branch, before, ranking);
+            }
+            return removed;
+        })).then();
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteBranch(String branchId) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> exclusive(() -> {
+            Branch removed = branches.get(branchId);
+            if (removed == null) {
+                throw new IllegalArgumentException("Branch not found");
+            }
+            journal.branchRemoved(branchId);
+            NavigableSet<String> siblings = branchIdsByFranchise.get(removed.getFranchiseId());
+            if (siblings != null) {
+                siblings.remove(branchId);
+            }
+            long removedProducts = removeBranch(branchId);
+            if (removedProducts < 0) {
+                throw new IllegalArgumentException("Branch not found");
+            }
+            return new DeletionSummary(0, 1, removedProducts);
+        }));
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteFranchise(String franchiseId) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> exclusive(() -> {
+            if (!franchises.containsKey(franchiseId)) {
+                throw new IllegalArgumentException("Franchise not found");
+            }
+            journal.franchiseRemoved(franchiseId);
+            DeletionSummary summary = removeFranchise(franchiseId);
+            if (summary == null) {
+                throw new IllegalArgumentException("Franchise not found");
+            }
+            return summary;
+        }));
+    }
+
+    private DeletionSummary removeFranchise(String franchiseId) {
+        Franchise removed = franchises.remove(franchiseId);
+        if (removed == null) {
+            return null;
+        }
+        franchiseIds.remove(franchiseId);
+        franchiseIdsByName.remove(removed.getName(), franchiseId);
+
+        long removedBranches = 0;
+        long removedProducts = 0;
+        NavigableSet<String> ids = branchIdsByFranchise.remove(franchiseId);
+        for (String branchId : ids == null ? List.<String>of() : ids) {
+            long count = removeBranch(branchId);
+            if (count >= 0) {
+                removedBranches++;
+                removedProducts += count;
+            }
+        }
+        return new DeletionSummary(1, removedBranches, removedProducts);
+    }
+
+    private long removeBranch(String branchId) {
+        Branch removed = branches.remove(branchId);
+        if (removed == null) {
+            return -1;
+        }
+        branchIdsByName.remove(key(removed.getFranchiseId(), removed.getName()), branchId);
+        NavigableSet<Product> ranking = productsByStock.remove(branchId);
+        long count = 0;
+        for (Product product : ranking == null ? List.<Product>of() : ranking) {
+            if (removeProduct(product.getId(), false) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Mono<Product> findProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> requireProduct(productId));
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String productId, int newStock, Long expectedVersion) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (newStock < 0) {
+            return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
+        }
+
+        return Mono.fromCallable(() -> writeStock(productId, current -> {
+            checkVersion(current.getVersion(), expectedVersion);
+            return newStock;
+        }));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String productId, int delta) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (delta == 0) {
+            return Mono.error(new IllegalArgumentException("Delta must not be zero"));
+        }
+
+        return Mono.fromCallable(() -> writeStock(productId, current -> {
+            long adjusted = (long) current.getStock() + delta;
+            if (adjusted < 0) {
+                throw new IllegalStateException("Insufficient stock");
+            }
+            if (adjusted > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Stock limit exceeded");
+            }
+            return (int) adjusted;
+        }));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String branchId, Flux<StockUpdate> updates) {
+        if (branchId == null || branchId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        return Mono.fromCallable(() -> requireBranch(branchId))
+                .flatMapMany(branch -> updates
+                        .buffer(STOCK_BATCH_SIZE)
+                        .concatMapIterable(batch -> applyStockBatch(branchId, batch)));
+    }
+
+    /**
+     * Only the last valid update of each product in the batch is written, so a product repeated in the
+     * batch changes and publishes once; its earlier updates are reported as superseded.
+     */
+    private List<StockUpdateResult> applyStockBatch(String branchId, List<StockUpdate> batch) {
+        Map<String, Integer> latest = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (invalidReason(batch.get(i)) == null) {
+                latest.put(batch.get(i).getProductId(), i);
+            }
+        }
+
+        List<StockUpdateResult> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            StockUpdate update = batch.get(i);
+            if (invalidReason(update) == null && latest.get(update.getProductId()) != i) {
+                results.add(new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.SUPERSEDED,
+                        "Superseded by a later update of the same product"));
+            } else {
+                results.add(applyStock(branchId, update));
+            }
+        }
+        return results;
+    }
+
+    private StockUpdateResult applyStock(String branchId, StockUpdate update) {
+        String invalid = invalidReason(update);
+        if (invalid != null) {
+            return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.INVALID, invalid);
+        }
+        Product current = products.get(update.getProductId());
+        if (current == null || !branchId.equals(current.getBranchId())) {
+            return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.NOT_FOUND, "Product not found");
+        }
+        try {
+            writeStock(update.getProductId(), product -> update.getStock());
+            return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.UPDATED, null);
+        } catch (IllegalArgumentException e) {
+            return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.NOT_FOUND, "Product not found");
+        }
+    }
+
+    static String invalidReason(StockUpdate update) {
+        if (update.getProductId() == null || update.getProductId().isBlank()) {
+            return "Product id must not be empty";
+        }
+        if (update.getStock() == null || update.getStock() < 0) {
+            return "Stock must be >= 0";
+        }
+        return null;
+    }
+
+    private Product writeStock(String productId, Function<Product, Integer> stockOf) {
+        Instant now = Instant.now();
+        Product saved = writeProduct(productId, current -> new Product(current.getId(), current.getBranchId(),
+                current.getName(), stockOf.apply(current), current.getCreatedAt(), now, current.getVersion() + 1));
+        Branch branch = branches.get(saved.getBranchId());
+        if (branch != null) {
+            publish(StockEventType.STOCK_CHANGED, branch.getFranchiseId(), saved);
+        }
+        return saved;
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductByBranch(String franchiseId) {
+        return topProductsByBranch(franchiseId, 1);
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (k < 1) {
+            return Flux.error(new IllegalArgumentException("k must be greater than zero"));
+        }
+
+        return Mono.fromCallable(() -> {
+                    NavigableSet<String> ids = branchIdsByFranchise.get(franchiseId);
+                    if (ids == null) {
+                        throw new IllegalArgumentException("Franchise not found");
+                    }
+                    return ids.stream()
+                            .map(branches::get)
+                            .filter(Objects::nonNull)
+                            .flatMap(branch -> topProducts(branch, k).stream())
+                            .toList();
+                })
+                .flatMapIterable(Function.identity());
+    }
+
+    private List<TopProductByBranch> topProducts(Branch branch, int k) {
+        List<TopProductByBranch> top = productsByStock.getOrDefault(branch.getId(), new ConcurrentSkipListSet<>(BY_STOCK))
+                .stream()
+                .limit(k)
+                .map(product -> new TopProductByBranch(branch.getId(), branch.getName(), product.getId(),
+                        product.getName(), product.getStock()))
+                .toList();
+        return top.isEmpty()
+                ? List.of(new TopProductByBranch(branch.getId(), branch.getName(), null, null, 0))
+                : top;
+    }
+
+    @Override
+    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName, Long expectedVersion) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New franchise name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        return Mono.fromCallable(() -> guarded(() -> {
+            Franchise saved = franchises.computeIfPresent(franchiseId, (id, current) -> {
+                checkVersion(current.getVersion(), expectedVersion);
+                if (current.getName().equals(cleanName)) {
+                    return current;
+                }
+                if (franchiseIdsByName.putIfAbsent(cleanName, id) != null) {
+                    throw new IllegalStateException("Franchise name already exists");
+                }
+                Franchise renamed = new Franchise(id, cleanName, current.getCreatedAt(), Instant.now(),
+                        current.getVersion() + 1);
+                journal.franchiseSaved(renamed);
+                franchiseIdsByName.remove(current.getName(), id);
+                return renamed;
+            });
+            if (saved == null) {
+                throw new IllegalArgumentException("Franchise not found");
+            }
+            return saved;
+        }));
+    }
+
+    @Override
+    public Mono<Branch> updateBranchName(String branchId, String newName, Long expectedVersion) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New branch name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        return Mono.fromCallable(() -> guarded(() -> {
+            Branch saved = branches.computeIfPresent(branchId, (id, current) -> {
+                checkVersion(current.getVersion(), expectedVersion);
+                if (current.getName().equals(cleanName)) {
+                    return current;
+                }
+                if (branchIdsByName.putIfAbsent(key(current.getFranchiseId(), cleanName), id) != null) {
+                    throw new IllegalStateException("Branch name already exists for this franchise");
+                }
+                Branch renamed = new Branch(id, current.getFranchiseId(), cleanName, current.getCreatedAt(),
+                        Instant.now(), current.getVersion() + 1);
+                journal.branchSaved(renamed);
+                branchIdsByName.remove(key(current.getFranchiseId(), current.getName()), id);
+                return renamed;
+            });
+            if (saved == null) {
+                throw new IllegalArgumentException("Branch not found");
+            }
+            return saved;
+        }));
+    }
+
+    @Override
+    public Mono<Product> updateProductName(String productId, String newName, Long expectedVersion) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New product name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        return Mono.fromCallable(() -> writeProduct(productId, current -> {
+            checkVersion(current.getVersion(), expectedVersion);
+            if (current.getName().equals(cleanName)) {
+                return current;
+            }
+            if (productIdsByName.putIfAbsent(key(current.getBranchId(), cleanName), current.getId()) != null) {
+                throw new IllegalStateException("Product name already exists for this branch");
+            }
+            productIdsByName.remove(key(current.getBranchId(), current.getName()), current.getId());
+            return new Product(current.getId(), current.getBranchId(), cleanName, current.getStock(),
+                    current.getCreatedAt(), Instant.now(), current.getVersion() + 1);
+        }));
+    }
+
+    @Override
+    public Mono<PageResult<Franchise>> listFranchises(String cursor, int limit) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Mono.fromCallable(() -> page(after(franchiseIds, cursor).stream()
+                .map(franchises::get)
+                .filter(Objects::nonNull)
+                .limit(limit + 1L)
+                .toList(), limit, franchise -> PageCursor.ofId(franchise.getId())));
+    }
+
+    @Override
+    public Mono<PageResult<Branch>> listBranches(String franchiseId, String cursor, int limit) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Mono.fromCallable(() -> {
+            NavigableSet<String> ids = branchIdsByFranchise.get(franchiseId);
+            if (ids == null) {
+                throw new IllegalArgumentException("Franchise not found");
+            }
+            return page(after(ids, cursor).stream()
+                    .map(branches::get)
+                    .filter(Objects::nonNull)
+                    .limit(limit + 1L)
+                    .toList(), limit, branch -> PageCursor.ofId(branch.getId()));
+        });
+    }
+
+    @Override
+    public Mono<PageResult<Product>> listProducts(String branchId, String cursor, int limit) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Mono.fromCallable(() -> {
+            NavigableSet<Product> ranking = productsByStock.get(branchId);
+            if (ranking == null) {
+                throw new IllegalArgumentException("Branch not found");
+            }
+            NavigableSet<Product> rows = ranking;
+            if (cursor != null) {
+                PageCursor.StockKey after = PageCursor.stockAndId(cursor);
+                rows = ranking.tailSet(new Product(after.id(), branchId, null, after.stock(), null, null), false);
+            }
+            return page(rows.stream().limit(limit + 1L).toList(), limit,
+                    product -> PageCursor.ofStockAndId(product.getStock(), product.getId()));
+        });
+    }
+
+    private Product writeProduct(String productId, UnaryOperator<Product> change) {
+        return guarded(() -> applyProduct(productId, change));
+    }
+
+    private Product applyProduct(String productId, UnaryOperator<Product> change) {
+        Product current = requireProduct(productId);
+        NavigableSet<Product> ranking = productsByStock.getOrDefault(current.getBranchId(), new ConcurrentSkipListSet<>(BY_STOCK));
+        Product before = top(ranking);
+        // The ranking is only touched inside compute, so each product appears in it exactly once.
+        Product saved = products.computeIfPresent(productId, (id, previous) -> {
+            Product next = change.apply(previous);
+            if (next != previous) {
+                journal.productSaved(next);
+            }
+            ranking.remove(previous);
+            ranking.add(next);
+            return next;
+        });
+        if (saved == null) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        Branch branch = branches.get(saved.getBranchId());
+        if (branch != null) {
+            publishTopIfChanged(branch, before, ranking);
+        }
+        return saved;
+    }
+
+    private Product removeProduct(String productId, boolean journaled) {
+        Product[] removed = new Product[1];
+        products.computeIfPresent(productId, (id, current) -> {
+            if (journaled) {
+                journal.productRemoved(id);
+            }
+            NavigableSet<Product> ranking = productsByStock.get(current.getBranchId());
+            if (ranking != null) {
+                ranking.remove(current);
+            }
+            productIdsByName.remove(key(current.getBranchId(), current.getName()), id);
+            removed[0] = current;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private Branch requireBranch(String branchId) {
+        Branch branch = branches.get(branchId);
+        if (branch == null) {
+            throw new IllegalArgumentException("Branch not found");
+        }
+        return branch;
+    }
+
+    private Product requireProduct(String productId) {
+        Product product = products.get(productId);
+        if (product == null) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        return product;
+    }
+
+    private static void checkVersion(long currentVersion, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            throw new ConcurrentModificationException("Version does not match");
+        }
+    }
+
+    private static NavigableSet<String> after(NavigableSet<String> ids, String cursor) {
+        return cursor == null ? ids : ids.tailSet(PageCursor.id(cursor), false);
+    }
+
+    private static Product top(NavigableSet<Product> ranking) {
+        return ranking.isEmpty() ? null : ranking.first();
+    }
+
+    private void publishTopIfChanged(Branch branch, Product before, NavigableSet<Product> ranking) {
+        Product after = top(ranking);
+        if (before == null && after == null) {
+            return;
+        }
+        if (before != null && after != null && before.getId().equals(after.getId())
+                && before.getName().equals(after.getName()) && before.getStock() == after.getStock()) {
+            return;
+        }
+        events.publish(new StockEvent(StockEventType.TOP_PRODUCT_CHANGED, branch.getFranchiseId(), branch.getId(),
+                after == null ? null : after.getId(), after == null ? null : after.getName(),
+                after == null ? 0 : after.getStock(), Instant.now()));
+    }
+
+    private void publish(StockEventType type, String franchiseId, Product product) {
+        int stock = type == StockEventType.PRODUCT_REMOVED ? 0 : product.getStock();
+        events.publish(new StockEvent(type, franchiseId, product.getBranchId(), product.getId(), product.getName(),
+                stock, Instant.now()));
+    }
+
+    private <T> PageResult<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageResult<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageResult<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    private <T> T guarded(Supplier<T> mutation) {
+        writes.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            writes.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a branch or franchise removal with no other mutation in flight, so no child can be inserted under the
+     * parent between its removal from the indexes and its journal entry.
+     */
+    private <T> T exclusive(Supplier<T> mutation) {
+        writes.writeLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            writes.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@code action} while no mutation is between its journal write and its index update, so a journal can
+     * roll over knowing everything it wrote so far is visible to {@link #dump(StoreJournal)}.
+     */
+    public void pauseWrites(Runnable action) {
+        writes.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            writes.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every franchise, then every branch, then every product to {@code sink}.
+     */
+    public void dump(StoreJournal sink) {
+        franchises.values().forEach(sink::franchiseSaved);
+        branches.values().forEach(sink::branchSaved);
+        products.values().forEach(sink::productSaved);
+    }
+
+    /**
+     * Returns a journal that applies saved and removed entities straight to the indexes, without validation,
+     * events or journaling. Saves are upserts, so replaying a change twice is harmless.
+     */
+    public StoreJournal restorer() {
+        return new Restorer();
+    }
+
+    private final class Restorer implements StoreJournal {
+
+        @Override
+        public void franchiseSaved(Franchise franchise) {
+            Franchise previous = franchises.put(franchise.getId(), franchise);
+            if (previous != null) {
+                franchiseIdsByName.remove(previous.getName(), previous.getId());
+            }
+            franchiseIdsByName.put(franchise.getName(), franchise.getId());
+            branchIdsByFranchise.putIfAbsent(franchise.getId(), new ConcurrentSkipListSet<>());
+            franchiseIds.add(franchise.getId());
+            observeId(franchise.getId());
+        }
+
+        @Override
+        public void branchSaved(Branch branch) {
+            NavigableSet<String> siblings = branchIdsByFranchise.get(branch.getFranchiseId());
+            if (siblings == null) {
+                return;
+            }
+            Branch previous = branches.put(branch.getId(), branch);
+            if (previous != null) {
+                branchIdsByName.remove(key(previous.getFranchiseId(), previous.getName()), previous.getId());
+            }
+            branchIdsByName.put(key(branch.getFranchiseId(), branch.getName()), branch.getId());
+            productsByStock.putIfAbsent(branch.getId(), new ConcurrentSkipListSet<>(BY_STOCK));
+            siblings.add(branch.getId());
+            observeId(branch.getId());
+        }
+
+        @Override
+        public void productSaved(Product product) {
+            NavigableSet<Product> ranking = productsByStock.get(product.getBranchId());
+            if (ranking == null) {
+                return;
+            }
+            Product previous = products.put(product.getId(), product);
+            if (previous != null) {
+                ranking.remove(previous);
+                productIdsByName.remove(key(previous.getBranchId(), previous.getName()), previous.getId());
+            }
+            ranking.add(product);
+            productIdsByName.put(key(product.getBranchId(), product.getName()), product.getId());
+            observeId(product.getId());
+        }
+
+        @Override
+        public void franchiseRemoved(String franchiseId) {
+            removeFranchise(franchiseId);
+        }
+
+        @Override
+        public void branchRemoved(String branchId) {
+            Branch removed = branches.get(branchId);
+            if (removed == null) {
+                return;
+            }
+            NavigableSet<String> siblings = branchIdsByFranchise.get(removed.getFranchiseId());
+            if (siblings != null) {
+                siblings.remove(branchId);
+            }
+            removeBranch(branchId);
+        }
+
+        @Override
+        public void productRemoved(String productId) {
+            removeProduct(productId, false);
+        }
+
+        private void observeId(String id) {
+            if (id.length() != 24) {
+                return;
+            }
+            try {
+                long value = Long.parseUnsignedLong(id.substring(8), 16);
+                sequence.accumulateAndGet(value, Math::max);
+            } catch (NumberFormatException e) {
+                // Not one of our sequential ids; it cannot collide with them.
+            }
+        }
+    }
+
+    private String nextId() {
+        return String.format("%024x", sequence.incrementAndGet());
+    }
+
+    private static String key(String parentId, String name) {
+        return parentId + '\u0000' + name;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,74 @@
+package co.com.bancolombia.memory;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "memory")
+public class InMemoryIdempotencyAdapter implements IdempotencyGateway {
+
+    private static final int SWEEP_EVERY = 1024;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong saves = new AtomicLong();
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public InMemoryIdempotencyAdapter(@Value("${db.memory.idempotency.ttl:PT24H}") Duration ttl) {
+        this(ttl, Clock.systemUTC());
+    }
+
+    InMemoryIdempotencyAdapter(Duration ttl, Clock clock) {
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<IdempotentResponse> find(String key) {
+        return Mono.fromSupplier(() -> {
+            Entry entry = entries.get(key);
+            return entry == null || entry.expired(oldest()) ? null : entry.response();
+        });
+    }
+
+    @Override
+    public Mono<IdempotentResponse> saveIfAbsent(String key, IdempotentResponse response) {
+        return Mono.fromSupplier(() -> {
+            Instant oldest = oldest();
+            if (saves.incrementAndGet() % SWEEP_EVERY == 0) {
+                entries.values().removeIf(entry -> entry.expired(oldest));
+            }
+            return entries.compute(key, (k, current) -> current == null || current.expired(oldest)
+                    ? new Entry(response, clock.instant())
+                    : current).response();
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private Instant oldest() {
+        return clock.instant().minus(ttl);
+    }
+
+    private record Entry(IdempotentResponse response, Instant createdAt) {
+
+        boolean expired(Instant oldest) {
+            return !createdAt.isAfter(oldest);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package co.com.bancolombia.memory;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.product.Product;
+
+/**
+ * Receives every change {@link InMemoryFranchiseAdapter} makes to its indexes, in the order they become visible.
+ * Saves always carry the full entity, so a journal can be replayed as a sequence of upserts.
+ */
+public interface StoreJournal {
+
+    StoreJournal NONE = new StoreJournal() {
+        @Override
+        public void franchiseSaved(Franchise franchise) {
+        }
+
+        @Override
+        public void branchSaved(Branch branch) {
+        }
+
+        @Override
+        public void productSaved(Product product) {
+        }
+
+        @Override
+        public void franchiseRemoved(String franchiseId) {
+        }
+
+        @Override
+        public void branchRemoved(String branchId) {
+        }
+
+        @Override
+        public void productRemoved(String productId) {
+        }
+    };
+
+    void franchiseSaved(Franchise franchise);
+
+    void branchSaved(Branch branch);
+
+    void productSaved(Product product);
+
+    void franchiseRemoved(String franchiseId);
+
+    void branchRemoved(String branchId);
+
+    void productRemoved(String productId);
+}
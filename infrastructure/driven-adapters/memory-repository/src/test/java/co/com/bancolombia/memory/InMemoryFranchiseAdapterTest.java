@@ -0,0 +1,528 @@
+package co.com.bancolombia.memory;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InMemoryFranchiseAdapterTest {
+
+    private StockEventGateway events;
+    private InMemoryFranchiseAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        events = mock(StockEventGateway.class);
+        adapter = new InMemoryFranchiseAdapter(events);
+    }
+
+    @Test
+    void createFranchise_shouldTrimName_andRejectDuplicates() {
+        StepVerifier.create(adapter.createFranchise("  Nequi "))
+                .assertNext(franchise -> {
+                    assertEquals("Nequi", franchise.getName());
+                    assertEquals(24, franchise.getId().length());
+                    assertEquals(0, franchise.getVersion());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(adapter.createFranchise("Nequi"))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Franchise name already exists"))
+                .verify();
+        StepVerifier.create(adapter.count())
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    void addBranch_shouldEnforceUniquenessPerFranchise() {
+        Franchise first = adapter.createFranchise("Nequi").block();
+        Franchise second = adapter.createFranchise("Daviplata").block();
+        adapter.addBranch(first.getId(), "Centro").block();
+
+        StepVerifier.create(adapter.addBranch(first.getId(), " Centro "))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Branch name already exists for this franchise"))
+                .verify();
+        StepVerifier.create(adapter.addBranch(second.getId(), "Centro"))
+                .assertNext(branch -> assertEquals(second.getId(), branch.getFranchiseId()))
+                .verifyComplete();
+        StepVerifier.create(adapter.addBranch("missing", "Centro"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void addProduct_shouldValidate_andPublishStockAndTopEvents() {
+        Branch branch = givenBranch();
+
+        StepVerifier.create(adapter.addProduct(branch.getId(), "Tarjeta", -1))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Stock must be >= 0"))
+                .verify();
+        StepVerifier.create(adapter.addProduct("missing", "Tarjeta", 1))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Branch not found"))
+                .verify();
+
+        Product product = adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.addProduct(branch.getId(), "Tarjeta", 1))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Product name already exists for this branch"))
+                .verify();
+        List<StockEvent> published = publishedEvents();
+        assertEquals(StockEventType.STOCK_CHANGED, published.get(0).getType());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, published.get(1).getType());
+        assertEquals(product.getId(), published.get(1).getProductId());
+        assertEquals(branch.getFranchiseId(), published.get(1).getFranchiseId());
+    }
+
+    @Test
+    void topProductsByBranch_shouldFollowStockChanges_andReturnPlaceholderForEmptyBranch() {
+        Branch branch = givenBranch();
+        Branch empty = adapter.addBranch(branch.getFranchiseId(), "Norte").block();
+        Product low = adapter.addProduct(branch.getId(), "Cuenta", 3).block();
+        Product high = adapter.addProduct(branch.getId(), "Tarjeta", 9).block();
+
+        StepVerifier.create(adapter.topProductByBranch(branch.getFranchiseId()))
+                .assertNext(top -> {
+                    assertEquals(high.getId(), top.getProductId());
+                    assertEquals(9, top.getStock());
+                })
+                .assertNext(top -> {
+                    assertEquals(empty.getId(), top.getBranchId());
+                    assertNull(top.getProductId());
+                    assertEquals(0, top.getStock());
+                })
+                .verifyComplete();
+
+        adapter.adjustProductStock(low.getId(), 10).block();
+
+        StepVerifier.create(adapter.topProductsByBranch(branch.getFranchiseId(), 2).take(2))
+                .assertNext(top -> assertEquals(low.getId(), top.getProductId()))
+                .assertNext(top -> assertEquals(high.getId(), top.getProductId()))
+                .verifyComplete();
+        StepVerifier.create(adapter.topProductsByBranch(branch.getFranchiseId(), 0))
+                .expectErrorMatches(e -> e.getMessage().equals("k must be greater than zero"))
+                .verify();
+    }
+
+    @Test
+    void updateProductStock_shouldCheckVersion() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.updateProductStock(product.getId(), 7, 0L))
+                .assertNext(updated -> {
+                    assertEquals(7, updated.getStock());
+                    assertEquals(1, updated.getVersion());
+                })
+                .verifyComplete();
+        StepVerifier.create(adapter.updateProductStock(product.getId(), 8, 0L))
+                .expectErrorMatches(e -> e instanceof ConcurrentModificationException
+                        && e.getMessage().equals("Version does not match"))
+                .verify();
+        StepVerifier.create(adapter.updateProductStock("missing", 8, null))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Product not found"))
+                .verify();
+    }
+
+    @Test
+    void adjustProductStock_shouldRejectInsufficientStock() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), -6))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Insufficient stock"))
+                .verify();
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), -5))
+                .assertNext(updated -> assertEquals(0, updated.getStock()))
+                .verifyComplete();
+    }
+
+    @Test
+    void adjustProductStock_shouldRejectResultAboveIntRange() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), Integer.MAX_VALUE - 4))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Stock limit exceeded"))
+                .verify();
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), Integer.MAX_VALUE - 5))
+                .assertNext(updated -> assertEquals(Integer.MAX_VALUE, updated.getStock()))
+                .verifyComplete();
+    }
+
+    @Test
+    void adjustProductStock_shouldKeepRankingConsistent_underConcurrentWriters() {
+        Branch branch = givenBranch();
+        Product product = adapter.addProduct(branch.getId(), "Tarjeta", 0).block();
+
+        Flux.range(0, 500)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> adapter.adjustProductStock(product.getId(), 1))
+                .sequential()
+                .blockLast();
+
+        PageResult<Product> page = adapter.listProducts(branch.getId(), null, 10).block();
+        assertEquals(1, page.getItems().size());
+        assertEquals(500, page.getItems().get(0).getStock());
+        assertEquals(500, adapter.findProduct(product.getId()).block().getVersion());
+    }
+
+    @Test
+    void deleteBranch_shouldLeaveNoProductBehind_whenInsertsRaceIt() {
+        List<Consumer<StoreJournal>> changes = new ArrayList<>();
+        adapter = new InMemoryFranchiseAdapter(events, recording(changes));
+        Branch branch = givenBranch();
+        List<Product> inserted = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<DeletionSummary> deleted = new AtomicReference<>();
+
+        Flux.range(0, 400)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> i == 200
+                        ? adapter.deleteBranch(branch.getId()).doOnNext(deleted::set).then()
+                        : adapter.addProduct(branch.getId(), "P" + i, i)
+                                .doOnNext(inserted::add)
+                                .onErrorResume(IllegalArgumentException.class, e -> Mono.empty())
+                                .then())
+                .sequential()
+                .blockLast();
+
+        assertEquals(inserted.size(), deleted.get().getProducts());
+        InMemoryFranchiseAdapter replica = new InMemoryFranchiseAdapter(events);
+        StoreJournal restorer = replica.restorer();
+        changes.forEach(change -> change.accept(restorer));
+        for (Product product : inserted) {
+            StepVerifier.create(adapter.findProduct(product.getId())).expectError(IllegalArgumentException.class).verify();
+            StepVerifier.create(replica.findProduct(product.getId())).expectError(IllegalArgumentException.class).verify();
+        }
+    }
+
+    @Test
+    void updateProductStocks_shouldReportPerItemStatus() {
+        Branch branch = givenBranch();
+        Branch other = adapter.addBranch(branch.getFranchiseId(), "Norte").block();
+        Product product = adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+        Product foreign = adapter.addProduct(other.getId(), "Cuenta", 5).block();
+
+        StepVerifier.create(adapter.updateProductStocks(branch.getId(), Flux.just(
+                        new StockUpdate(product.getId(), 11),
+                        new StockUpdate(foreign.getId(), 1),
+                        new StockUpdate(product.getId(), -1))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.NOT_FOUND, r.getStatus()))
+                .assertNext(r -> {
+                    assertEquals(StockUpdateResult.Status.INVALID, r.getStatus());
+                    assertEquals("Stock must be >= 0", r.getMessage());
+                })
+                .verifyComplete();
+        assertEquals(11, adapter.findProduct(product.getId()).block().getStock());
+        assertEquals(5, adapter.findProduct(foreign.getId()).block().getStock());
+    }
+
+    @Test
+    void updateProductStocks_shouldWriteTheLastUpdateOfARepeatedProductOnce() {
+        Branch branch = givenBranch();
+        Product product = adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+        clearInvocations(events);
+
+        StepVerifier.create(adapter.updateProductStocks(branch.getId(), Flux.just(
+                        new StockUpdate(product.getId(), 7),
+                        new StockUpdate(product.getId(), 9),
+                        new StockUpdate(product.getId(), -1))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.SUPERSEDED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.INVALID, r.getStatus()))
+                .verifyComplete();
+
+        Product saved = adapter.findProduct(product.getId()).block();
+        assertEquals(9, saved.getStock());
+        assertEquals(product.getVersion() + 1, saved.getVersion());
+        assertEquals(1, publishedEvents().stream().filter(e -> e.getType() == StockEventType.STOCK_CHANGED).count());
+    }
+
+    @Test
+    void updateNames_shouldApplyVersionBeforeDuplicateCheck() {
+        Franchise franchise = adapter.createFranchise("Nequi").block();
+        adapter.createFranchise("Daviplata").block();
+
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Daviplata", 3L))
+                .expectError(ConcurrentModificationException.class)
+                .verify();
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Daviplata", 0L))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Franchise name already exists"))
+                .verify();
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Nequi", null))
+                .assertNext(same -> assertEquals(0, same.getVersion()))
+                .verifyComplete();
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Nequi Plus", 0L))
+                .assertNext(renamed -> assertEquals(1, renamed.getVersion()))
+                .verifyComplete();
+        StepVerifier.create(adapter.createFranchise("Nequi"))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void updateProductName_shouldPublishTopChange_whenTopProductRenamed() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+        clearInvocations(events);
+
+        StepVerifier.create(adapter.updateProductName(product.getId(), "Tarjeta Oro", null))
+                .assertNext(renamed -> assertEquals("Tarjeta Oro", renamed.getName()))
+                .verifyComplete();
+
+        List<StockEvent> published = publishedEvents();
+        assertEquals(1, published.size());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, published.get(0).getType());
+        assertEquals("Tarjeta Oro", published.get(0).getProductName());
+    }
+
+    @Test
+    void deleteFranchise_shouldCascade_andReleaseNames() {
+        Branch branch = givenBranch();
+        adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+        adapter.addProduct(branch.getId(), "Cuenta", 5).block();
+
+        StepVerifier.create(adapter.deleteFranchise(branch.getFranchiseId()))
+                .assertNext(summary -> {
+                    assertEquals(1, summary.getFranchises());
+                    assertEquals(1, summary.getBranches());
+                    assertEquals(2, summary.getProducts());
+                })
+                .verifyComplete();
+        StepVerifier.create(adapter.createFranchise("Nequi"))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(adapter.listProducts(branch.getId(), null, 10))
+                .expectErrorMatches(e -> e.getMessage().equals("Branch not found"))
+                .verify();
+    }
+
+    @Test
+    void deleteProduct_shouldPublishRemovalAndEmptyTop() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+        clearInvocations(events);
+
+        StepVerifier.create(adapter.deleteProduct(product.getId()))
+                .verifyComplete();
+
+        List<StockEvent> published = publishedEvents();
+        assertEquals(StockEventType.PRODUCT_REMOVED, published.get(0).getType());
+        assertEquals(0, published.get(0).getStock());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, published.get(1).getType());
+        assertNull(published.get(1).getProductId());
+        StepVerifier.create(adapter.deleteProduct(product.getId()))
+                .expectErrorMatches(e -> e.getMessage().equals("Product not found"))
+                .verify();
+    }
+
+    @Test
+    void listProducts_shouldPageByStockThenId() {
+        Branch branch = givenBranch();
+        IntStream.range(0, 5).forEach(i -> adapter.addProduct(branch.getId(), "P" + i, i % 2).block());
+
+        PageResult<Product> first = adapter.listProducts(branch.getId(), null, 3).block();
+        PageResult<Product> second = adapter.listProducts(branch.getId(), first.getNextCursor(), 3).block();
+
+        assertEquals(List.of("P1", "P3", "P0"), first.getItems().stream().map(Product::getName).toList());
+        assertEquals(List.of("P2", "P4"), second.getItems().stream().map(Product::getName).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void listFranchises_shouldPageById() {
+        IntStream.range(0, 3).forEach(i -> adapter.createFranchise("F" + i).block());
+
+        PageResult<Franchise> first = adapter.listFranchises(null, 2).block();
+        PageResult<Franchise> second = adapter.listFranchises(first.getNextCursor(), 2).block();
+
+        assertEquals(List.of("F0", "F1"), first.getItems().stream().map(Franchise::getName).toList());
+        assertEquals(List.of("F2"), second.getItems().stream().map(Franchise::getName).toList());
+        StepVerifier.create(adapter.listFranchises("!!", 2))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Invalid cursor"))
+                .verify();
+    }
+
+    @Test
+    void importFranchise_shouldCreateTree_andReportLineErrors() {
+        Flux<ImportRecord> records = Flux.just(
+                new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null),
+                new ImportRecord(3, ImportRecord.Type.PRODUCT, "Tarjeta", "Centro", 4, null),
+                new ImportRecord(4, ImportRecord.Type.PRODUCT, "Cuenta", "Norte", 4, null),
+                new ImportRecord(5, ImportRecord.Type.FRANCHISE, "Otra", null, null, null));
+
+        List<ImportResult> results = adapter.importFranchise(records).collectList().block();
+
+        assertEquals(5, results.size());
+        assertNull(results.get(0).getMessage());
+        assertNull(results.get(2).getMessage());
+        assertEquals("Branch not found", results.get(3).getMessage());
+        assertEquals("Only one franchise line is allowed", results.get(4).getMessage());
+    }
+
+    @Test
+    void importFranchise_shouldFailRemainingLines_whenFranchiseLineFails() {
+        adapter.createFranchise("Nequi").block();
+
+        List<ImportResult> results = adapter.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null)))
+                .collectList()
+                .block();
+
+        assertEquals("Franchise name already exists", results.get(0).getMessage());
+        assertEquals("Franchise was not imported", results.get(1).getMessage());
+    }
+
+    @Test
+    void journal_shouldLetRestorerRebuildTheSameState() {
+        InMemoryFranchiseAdapter replica = new InMemoryFranchiseAdapter(events);
+        InMemoryFranchiseAdapter primary = new InMemoryFranchiseAdapter(events, replica.restorer());
+        Franchise franchise = primary.createFranchise("Nequi").block();
+        Branch centro = primary.addBranch(franchise.getId(), "Centro").block();
+        Branch norte = primary.addBranch(franchise.getId(), "Norte").block();
+        Product tarjeta = primary.addProduct(centro.getId(), "Tarjeta", 5).block();
+        primary.addProduct(centro.getId(), "Cuenta", 3).block();
+        primary.addProduct(norte.getId(), "Cdt", 1).block();
+        primary.adjustProductStock(tarjeta.getId(), -4).block();
+        primary.updateProductName(tarjeta.getId(), "Tarjeta Oro", null).block();
+        primary.deleteBranch(norte.getId()).block();
+
+        StepVerifier.create(replica.topProductByBranch(franchise.getId()))
+                .assertNext(top -> assertEquals("Cuenta", top.getProductName()))
+                .verifyComplete();
+        StepVerifier.create(replica.addProduct(centro.getId(), "Tarjeta Oro", 1))
+                .expectError(IllegalStateException.class)
+                .verify();
+        StepVerifier.create(replica.addProduct(centro.getId(), "Tarjeta", 1))
+                .assertNext(product -> assertTrue(product.getId().compareTo(tarjeta.getId()) > 0))
+                .verifyComplete();
+        long version = primary.findProduct(tarjeta.getId()).block().getVersion();
+        StepVerifier.create(replica.findProduct(tarjeta.getId()))
+                .assertNext(product -> assertEquals(version, product.getVersion()))
+                .verifyComplete();
+        assertEquals(1, replica.listBranches(franchise.getId(), null, 10).block().getItems().size());
+    }
+
+    @Test
+    void dump_shouldWriteParentsBeforeChildren() {
+        Branch branch = givenBranch();
+        adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+        List<String> written = new ArrayList<>();
+
+        adapter.dump(new StoreJournal() {
+            @Override
+            public void franchiseSaved(Franchise franchise) {
+                written.add("franchise");
+            }
+
+            @Override
+            public void branchSaved(Branch saved) {
+                written.add("branch");
+            }
+
+            @Override
+            public void productSaved(Product product) {
+                written.add("product");
+            }
+
+            @Override
+            public void franchiseRemoved(String franchiseId) {
+                written.add("removed");
+            }
+
+            @Override
+            public void branchRemoved(String branchId) {
+                written.add("removed");
+            }
+
+            @Override
+            public void productRemoved(String productId) {
+                written.add("removed");
+            }
+        });
+
+        assertEquals(List.of("franchise", "branch", "product"), written);
+    }
+
+    private Branch givenBranch() {
+        Franchise franchise = adapter.createFranchise("Nequi").block();
+        return adapter.addBranch(franchise.getId(), "Centro").block();
+    }
+
+    private List<StockEvent> publishedEvents() {
+        ArgumentCaptor<StockEvent> captor = ArgumentCaptor.forClass(StockEvent.class);
+        verify(events, atLeastOnce()).publish(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static StoreJournal recording(List<Consumer<StoreJournal>> changes) {
+        return new StoreJournal() {
+            @Override
+            public synchronized void franchiseSaved(Franchise franchise) {
+                changes.add(journal -> journal.franchiseSaved(franchise));
+            }
+
+            @Override
+            public synchronized void branchSaved(Branch branch) {
+                changes.add(journal -> journal.branchSaved(branch));
+            }
+
+            @Override
+            public synchronized void productSaved(Product product) {
+                changes.add(journal -> journal.productSaved(product));
+            }
+
+            @Override
+            public synchronized void franchiseRemoved(String franchiseId) {
+                changes.add(journal -> journal.franchiseRemoved(franchiseId));
+            }
+
+            @Override
+            public synchronized void branchRemoved(String branchId) {
+                changes.add(journal -> journal.branchRemoved(branchId));
+            }
+
+            @Override
+            public synchronized void productRemoved(String productId) {
+                changes.add(journal -> journal.productRemoved(productId));
+            }
+        };
+    }
+}
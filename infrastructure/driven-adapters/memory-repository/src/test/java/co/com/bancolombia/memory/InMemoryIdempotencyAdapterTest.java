@@ -0,0 +1,77 @@
+package co.com.bancolombia.memory;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryIdempotencyAdapterTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private InMemoryIdempotencyAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        adapter = new InMemoryIdempotencyAdapter(Duration.ofHours(1), CLOCK);
+    }
+
+    @Test
+    void find_shouldReturnEmpty_whenKeyUnknown() {
+        StepVerifier.create(adapter.find("k-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void saveIfAbsent_shouldStoreResponse() {
+        StepVerifier.create(adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{}", "hash-1")))
+                .assertNext(r -> assertEquals(200, r.getStatus()))
+                .verifyComplete();
+
+        StepVerifier.create(adapter.find("k-1"))
+                .assertNext(r -> {
+                    assertEquals("0", r.getEtag());
+                    assertEquals("{}", r.getBody());
+                    assertEquals("hash-1", r.getRequestHash());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void saveIfAbsent_shouldReturnWinningResponse_whenKeyAlreadyStored() {
+        adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}")).block();
+
+        StepVerifier.create(adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-2\"}")))
+                .assertNext(r -> assertEquals("{\"id\":\"f-1\"}", r.getBody()))
+                .verifyComplete();
+    }
+
+    @Test
+    void find_shouldIgnoreExpiredKeys_andSaveShouldReplaceThem() {
+        InMemoryIdempotencyAdapter expiring = new InMemoryIdempotencyAdapter(Duration.ZERO, CLOCK);
+        expiring.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}")).block();
+
+        StepVerifier.create(expiring.find("k-1"))
+                .verifyComplete();
+        StepVerifier.create(expiring.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-2\"}")))
+                .assertNext(r -> assertEquals("{\"id\":\"f-2\"}", r.getBody()))
+                .verifyComplete();
+    }
+
+    @Test
+    void saveIfAbsent_shouldSweepExpiredKeysPeriodically() {
+        InMemoryIdempotencyAdapter expiring = new InMemoryIdempotencyAdapter(Duration.ZERO, CLOCK);
+        for (int i = 0; i < 1024; i++) {
+            expiring.saveIfAbsent("k-" + i, new IdempotentResponse(200, null, "{}")).block();
+        }
+
+        assertEquals(1, expiring.size());
+    }
+}
@@ -0,0 +1,166 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds a franchise with a fixed random catalog in the {@value #DATABASE} database of the MongoDB at
+ * {@code BENCHMARK_MONGODB_URI}, with the same BSON layout and indexes the adapters use. The database is dropped
+ * when the trial ends.
+ */
+final class BenchmarkCatalog implements AutoCloseable {
+
+    static final String DATABASE = "franquicias-bench";
+
+    private final MongoClient client;
+    private final ReactiveMongoTemplate template;
+    private final Random random = new Random(42);
+
+    BenchmarkCatalog() {
+        String uri = System.getenv("BENCHMARK_MONGODB_URI");
+        if (uri == null || uri.isBlank()) {
+            throw new IllegalStateException("BENCHMARK_MONGODB_URI must point at the MongoDB to benchmark against");
+        }
+        this.client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .codecRegistry(CodecRegistries.fromRegistries(
+                        MongoDocumentCodecs.registry(), MongoClientSettings.getDefaultCodecRegistry()))
+                .build());
+        this.template = new ReactiveMongoTemplate(client, DATABASE);
+    }
+
+    ReactiveMongoTemplate template() {
+        return template;
+    }
+
+    /**
+     * Writes one franchise across the {@code franchises}, {@code branches} and {@code products} collections and
+     * returns its id.
+     */
+    String seedCollections(int branches, int productsPerBranch) {
+        new MongoIndexesConfig().ensureIndexes(template, Duration.ofDays(1)).block();
+
+        ObjectId franchiseId = new ObjectId();
+        List<Document> branchRows = new ArrayList<>();
+        List<Document> productRows = new ArrayList<>();
+        for (int b = 0; b < branches; b++) {
+            ObjectId branchId = new ObjectId();
+            branchRows.add(new Document("_id", branchId)
+                    .append("franchiseId", franchiseId.toHexString())
+                    .append("name", "Branch " + b)
+                    .append("version", 0L));
+            for (int p = 0; p < productsPerBranch; p++) {
+                productRows.add(new Document("_id", new ObjectId())
+                        .append("franchiseId", franchiseId.toHexString())
+                        .append("branchId", branchId.toHexString())
+                        .append("name", "Product " + p)
+                        .append("stock", random.nextInt(1_000))
+                        .append("version", 0L));
+            }
+        }
+
+        template.insert(new Document("_id", franchiseId).append("name", "Bench " + franchiseId).append("version", 0L),
+                TopProductAggregation.FRANCHISES).block();
+        template.insert(branchRows, TopProductAggregation.BRANCHES).then().block();
+        if (!productRows.isEmpty()) {
+            template.insert(productRows, TopProductAggregation.PRODUCTS).then().block();
+        }
+        return franchiseId.toHexString();
+    }
+
+    /**
+     * Writes the same shape of catalog as {@link #seedCollections} as one {@code franchise_trees} document and
+     * returns its id.
+     */
+    String seedTree(int branches, int productsPerBranch) {
+        new MongoEmbeddedIndexesConfig().ensureIndexes(template, Duration.ofDays(1)).block();
+
+        Instant now = Instant.now();
+        List<FranchiseTreeDocument.BranchEntry> branchEntries = new ArrayList<>();
+        for (int b = 0; b < branches; b++) {
+            List<FranchiseTreeDocument.ProductEntry> products = new ArrayList<>();
+            for (int p = 0; p < productsPerBranch; p++) {
+                products.add(new FranchiseTreeDocument.ProductEntry(new ObjectId().toHexString(), "Product " + p,
+                        random.nextInt(1_000), now, now, 0L));
+            }
+            branchEntries.add(new FranchiseTreeDocument.BranchEntry(new ObjectId().toHexString(), "Branch " + b,
+                    now, now, 0L, products));
+        }
+
+        String franchiseId = new ObjectId().toHexString();
+        return template.insert(new FranchiseTreeDocument(franchiseId, "Bench " + franchiseId, now, now, branchEntries))
+                .map(FranchiseTreeDocument::getId)
+                .block();
+    }
+
+    /**
+     * A backfill that has already finished, so {@link TopProductAggregation} takes its single-scan pipeline.
+     */
+    ProductFranchiseBackfill completedBackfill() {
+        ProductFranchiseBackfill backfill = new ProductFranchiseBackfill(template, Duration.ofMinutes(1));
+        backfill.backfillUntilDone().block();
+        return backfill;
+    }
+
+    /**
+     * {@link MongoFranchiseAdapter} wired as the {@code mongodb} provider, with repositories built from the
+     * template and id filters that are never rebuilt, so every lookup reaches MongoDB.
+     */
+    MongoFranchiseAdapter collectionsAdapter() {
+        ReactiveMongoRepositoryFactory repositories = new ReactiveMongoRepositoryFactory(template);
+        FranchiseMongoRepository franchiseRepo = repositories.getRepository(FranchiseMongoRepository.class);
+        BranchMongoRepository branchRepo = repositories.getRepository(BranchMongoRepository.class);
+        MongoCodecOperations documents = new MongoCodecOperations(template);
+        BranchTopProductProjection topProducts = new BranchTopProductProjection(
+                repositories.getRepository(BranchTopProductMongoRepository.class), franchiseRepo, branchRepo, documents,
+                new TopProductAggregation(template, completedBackfill()), template, NoEvents.INSTANCE);
+        return new MongoFranchiseAdapter(franchiseRepo, branchRepo,
+                repositories.getRepository(ProductMongoRepository.class), template, topProducts, NoEvents.INSTANCE,
+                new FranchiseTreeImporter(franchiseRepo, template, topProducts),
+                new MongoIdFilters(template, new SimpleMeterRegistry(), 0.01, 100_000, Duration.ofSeconds(5)),
+                documents);
+    }
+
+    MongoEmbeddedFranchiseAdapter embeddedAdapter() {
+        return new MongoEmbeddedFranchiseAdapter(template, NoEvents.INSTANCE);
+    }
+
+    @Override
+    public void close() {
+        template.getMongoDatabase().flatMap(database -> Mono.from(database.drop())).block();
+        client.close();
+    }
+
+    private static final class NoEvents implements StockEventGateway {
+
+        static final NoEvents INSTANCE = new NoEvents();
+
+        @Override
+        public void publish(StockEvent event) {
+            // nothing listens during a benchmark
+        }
+
+        @Override
+        public Flux<StockEvent> subscribe(String franchiseId) {
+            return Flux.empty();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Rows as the driver receives and sends them, so both the converter path (via {@link Document}) and the codec
+ * path start and end at BSON bytes.
+ */
+final class BsonRows {
+
+    static final DocumentCodec DOCUMENTS = new DocumentCodec();
+
+    private BsonRows() {
+    }
+
+    static MappingMongoConverter converter() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    static RawBsonDocument raw(Document row) {
+        return new RawBsonDocument(row, DOCUMENTS);
+    }
+
+    static <T> T decode(Codec<T> codec, RawBsonDocument row) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(row.getByteBuffer().asNIO())) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    static <T> byte[] encode(Codec<T> codec, T value) {
+        try (BasicOutputBuffer buffer = new BasicOutputBuffer(); BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            codec.encode(writer, value, EncoderContext.builder().build());
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top product of every branch read from one {@code franchise_trees} document ({@code mongodb-embedded}) against
+ * {@link MongoFranchiseAdapter} reading the rows of the {@code branch_top_products} projection, which the first read
+ * in the setup populates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmbeddedTopProductBenchmark {
+
+    @Param({"10", "100", "500"})
+    int branches;
+
+    @Param({"5", "50"})
+    int productsPerBranch;
+
+    private BenchmarkCatalog catalog;
+    private MongoEmbeddedFranchiseAdapter embedded;
+    private MongoFranchiseAdapter collections;
+    private String treeId;
+    private String franchiseId;
+
+    @Setup
+    public void setUp() {
+        catalog = new BenchmarkCatalog();
+        treeId = catalog.seedTree(branches, productsPerBranch);
+        franchiseId = catalog.seedCollections(branches, productsPerBranch);
+        embedded = catalog.embeddedAdapter();
+        collections = catalog.collectionsAdapter();
+        collections.topProductByBranch(franchiseId).then().block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public List<TopProductByBranch> embedded() {
+        return embedded.topProductByBranch(treeId).collectList().block();
+    }
+
+    @Benchmark
+    public List<TopProductByBranch> collections() {
+        return collections.topProductByBranch(franchiseId).collectList().block();
+    }
+}
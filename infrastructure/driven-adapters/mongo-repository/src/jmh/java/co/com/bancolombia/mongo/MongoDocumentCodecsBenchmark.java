@@ -0,0 +1,66 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of {@link ProductDocumentCodec} against {@code MappingMongoConverter} plus the
+ * driver's {@code DocumentCodec}, the path a document takes without the codec. Run with the {@code gc} profiler for
+ * bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MongoDocumentCodecsBenchmark {
+
+    private MappingMongoConverter converter;
+    private ProductDocumentCodec codec;
+    private ProductDocument product;
+    private RawBsonDocument row;
+
+    @Setup
+    public void setUp() {
+        converter = BsonRows.converter();
+        codec = new ProductDocumentCodec();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        product = new ProductDocument(new ObjectId().toHexString(), new ObjectId().toHexString(),
+                new ObjectId().toHexString(), "Burger", 50, now, now);
+        product.setVersion(3L);
+        row = new RawBsonDocument(BsonRows.encode(codec, product));
+    }
+
+    @Benchmark
+    public byte[] encodeWithCodec() {
+        return BsonRows.encode(codec, product);
+    }
+
+    @Benchmark
+    public byte[] encodeWithConverter() {
+        Document target = new Document();
+        converter.write(product, target);
+        return BsonRows.encode(BsonRows.DOCUMENTS, target);
+    }
+
+    @Benchmark
+    public ProductDocument decodeWithCodec() {
+        return BsonRows.decode(codec, row);
+    }
+
+    @Benchmark
+    public ProductDocument decodeWithConverter() {
+        return converter.read(ProductDocument.class, BsonRows.decode(BsonRows.DOCUMENTS, row));
+    }
+}
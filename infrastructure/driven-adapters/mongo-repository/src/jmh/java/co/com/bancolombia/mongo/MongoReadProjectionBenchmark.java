@@ -0,0 +1,87 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.projection.EntityProjection;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of mapping one row of the two hot reads, from the full document the queries used to load
+ * against the projected fields they load now. Run with the {@code gc} profiler for bytes per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MongoReadProjectionBenchmark {
+
+    private MappingMongoConverter converter;
+    private ProductDocumentCodec productCodec;
+    private EntityProjection<BranchTopProductMongoRepository.TopView, BranchTopProductDocument> topView;
+
+    private RawBsonDocument product;
+    private RawBsonDocument productTopFields;
+    private RawBsonDocument topRow;
+    private RawBsonDocument topViewFields;
+
+    @Setup
+    public void setUp() {
+        converter = BsonRows.converter();
+        productCodec = new ProductDocumentCodec();
+        topView = converter.introspectProjection(BranchTopProductMongoRepository.TopView.class,
+                BranchTopProductDocument.class);
+
+        ObjectId productId = new ObjectId();
+        Date now = Date.from(Instant.now());
+        product = BsonRows.raw(new Document("_id", productId)
+                .append("franchiseId", new ObjectId().toHexString())
+                .append("branchId", new ObjectId().toHexString())
+                .append("name", "Burger")
+                .append("stock", 50)
+                .append("createdAt", now)
+                .append("updatedAt", now)
+                .append("version", 3L));
+        productTopFields = BsonRows.raw(new Document("_id", productId).append("name", "Burger").append("stock", 50));
+
+        Document row = new Document("_id", new ObjectId().toHexString())
+                .append("branchName", "Centro")
+                .append("productId", productId.toHexString())
+                .append("productName", "Burger")
+                .append("stock", 50);
+        topViewFields = BsonRows.raw(row);
+        topRow = BsonRows.raw(new Document(row)
+                .append("franchiseId", new ObjectId().toHexString())
+                .append("refreshedAt", now));
+    }
+
+    @Benchmark
+    public ProductDocument topProductFromFullDocument() {
+        return converter.read(ProductDocument.class, BsonRows.decode(BsonRows.DOCUMENTS, product));
+    }
+
+    @Benchmark
+    public ProductDocument topProductFromProjectedFields() {
+        return BsonRows.decode(productCodec, productTopFields);
+    }
+
+    @Benchmark
+    public BranchTopProductDocument topRowAsDocument() {
+        return converter.read(BranchTopProductDocument.class, BsonRows.decode(BsonRows.DOCUMENTS, topRow));
+    }
+
+    @Benchmark
+    public BranchTopProductMongoRepository.TopView topRowAsView() {
+        return converter.project(topView, BsonRows.decode(BsonRows.DOCUMENTS, topViewFields));
+    }
+}
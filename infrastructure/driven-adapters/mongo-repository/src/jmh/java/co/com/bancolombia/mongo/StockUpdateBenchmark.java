@@ -0,0 +1,116 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.product.Product;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Stock changes on the same catalog through both MongoDB providers: one product at a time and every product of a
+ * branch in one bulk call. The {@code mongodb} side includes the refresh of the branch's
+ * {@code branch_top_products} row that each change triggers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StockUpdateBenchmark {
+
+    @Param({"10", "100"})
+    int branches;
+
+    @Param({"5", "50"})
+    int productsPerBranch;
+
+    private final Random random = new Random(42);
+
+    private BenchmarkCatalog catalog;
+    private MongoEmbeddedFranchiseAdapter embedded;
+    private MongoFranchiseAdapter collections;
+    private String treeBranchId;
+    private List<String> treeProductIds;
+    private String branchId;
+    private List<String> productIds;
+
+    @Setup
+    public void setUp() {
+        catalog = new BenchmarkCatalog();
+        String treeId = catalog.seedTree(branches, productsPerBranch);
+        String franchiseId = catalog.seedCollections(branches, productsPerBranch);
+        embedded = catalog.embeddedAdapter();
+        collections = catalog.collectionsAdapter();
+        collections.topProductByBranch(franchiseId).then().block();
+
+        FranchiseTreeDocument.BranchEntry treeBranch = catalog.template()
+                .findById(treeId, FranchiseTreeDocument.class)
+                .map(tree -> tree.getBranches().get(0))
+                .block();
+        treeBranchId = treeBranch.getBranchId();
+        treeProductIds = treeBranch.getProducts().stream().map(FranchiseTreeDocument.ProductEntry::getProductId).toList();
+
+        branchId = catalog.template()
+                .findOne(Query.query(where("franchiseId").is(franchiseId)), Document.class, TopProductAggregation.BRANCHES)
+                .map(branch -> branch.getObjectId("_id").toHexString())
+                .block();
+        productIds = catalog.template()
+                .find(Query.query(where("branchId").is(branchId)), Document.class, TopProductAggregation.PRODUCTS)
+                .map(product -> product.get("_id", ObjectId.class).toHexString())
+                .collectList()
+                .block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public Product embeddedSingle() {
+        return embedded.updateProductStock(pick(treeProductIds), random.nextInt(1_000), null).block();
+    }
+
+    @Benchmark
+    public Product collectionsSingle() {
+        return collections.updateProductStock(pick(productIds), random.nextInt(1_000), null).block();
+    }
+
+    @Benchmark
+    public List<StockUpdateResult> embeddedBranch() {
+        return embedded.updateProductStocks(treeBranchId, updates(treeProductIds)).collectList().block();
+    }
+
+    @Benchmark
+    public List<StockUpdateResult> collectionsBranch() {
+        return collections.updateProductStocks(branchId, updates(productIds)).collectList().block();
+    }
+
+    private String pick(List<String> ids) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private Flux<StockUpdate> updates(List<String> ids) {
+        List<StockUpdate> updates = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            updates.add(new StockUpdate(id, random.nextInt(1_000)));
+        }
+        return Flux.fromIterable(updates);
+    }
+}
@@ -0,0 +1,80 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Top product of every branch of one franchise: the single aggregation against the previous
+ * {@code existsById} + branches + one query per branch fan-out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TopProductAggregationBenchmark {
+
+    @Param({"10", "100", "500"})
+    int branches;
+
+    @Param({"20"})
+    int productsPerBranch;
+
+    private BenchmarkCatalog catalog;
+    private ReactiveMongoTemplate template;
+    private TopProductAggregation aggregation;
+    private String franchiseId;
+
+    @Setup
+    public void setUp() {
+        catalog = new BenchmarkCatalog();
+        template = catalog.template();
+        franchiseId = catalog.seedCollections(branches, productsPerBranch);
+        aggregation = new TopProductAggregation(template, catalog.completedBackfill());
+    }
+
+    @TearDown
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public List<TopProductByBranch> aggregation() {
+        return aggregation.topProductByBranch(franchiseId).collectList().block();
+    }
+
+    @Benchmark
+    public List<TopProductByBranch> fanOut() {
+        return template.exists(Query.query(where("_id").is(MongoIds.toId(franchiseId))), FranchiseDocument.class)
+                .flatMapMany(exists -> exists
+                        ? template.find(Query.query(where("franchiseId").is(franchiseId)), BranchDocument.class)
+                        : Flux.error(new IllegalArgumentException("Franchise not found")))
+                .concatMap(branch -> template.findOne(topOf(branch.getId()), ProductDocument.class)
+                        .map(top -> new TopProductByBranch(branch.getId(), branch.getName(), top.getId(), top.getName(),
+                                top.getStock()))
+                        .switchIfEmpty(Mono.fromSupplier(() ->
+                                new TopProductByBranch(branch.getId(), branch.getName(), null, null, 0))))
+                .collectList()
+                .block();
+    }
+
+    private static Query topOf(String branchId) {
+        return Query.query(where("branchId").is(branchId)).with(Sort.by(Sort.Direction.DESC, "stock")).limit(1);
+    }
+}
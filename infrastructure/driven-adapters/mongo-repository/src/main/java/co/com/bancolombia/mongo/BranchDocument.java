@@ -1,6 +1,7 @@
 package co.com.bancolombia.mongo;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -17,6 +18,9 @@ public class BranchDocument {
     private Instant createdAt;
     private Instant updatedAt;
 
+    @Version
+    private Long version;
+
     public BranchDocument() {}
 
     public BranchDocument(String id, String franchiseId, String name, Instant createdAt, Instant updatedAt) {
@@ -32,10 +36,12 @@ public class BranchDocument {
     public String getName() { return name; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
 
     public void setId(String id) { this.id = id; }
     public void setFranchiseId(String franchiseId) { this.franchiseId = franchiseId; }
     public void setName(String name) { this.name = name; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
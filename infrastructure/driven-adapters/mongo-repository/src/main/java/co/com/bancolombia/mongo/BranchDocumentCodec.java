@@ -0,0 +1,56 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readId;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readInstant;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readLong;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readString;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeId;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeInstant;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeLong;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeString;
+
+final class BranchDocumentCodec implements Codec<BranchDocument> {
+
+    @Override
+    public void encode(BsonWriter writer, BranchDocument value, EncoderContext context) {
+        writer.writeStartDocument();
+        writeId(writer, value.getId());
+        writeString(writer, "franchiseId", value.getFranchiseId());
+        writeString(writer, "name", value.getName());
+        writeInstant(writer, "createdAt", value.getCreatedAt());
+        writeInstant(writer, "updatedAt", value.getUpdatedAt());
+        writeLong(writer, "version", value.getVersion());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public BranchDocument decode(BsonReader reader, DecoderContext context) {
+        BranchDocument doc = new BranchDocument();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> doc.setId(readId(reader));
+                case "franchiseId" -> doc.setFranchiseId(readString(reader));
+                case "name" -> doc.setName(readString(reader));
+                case "createdAt" -> doc.setCreatedAt(readInstant(reader));
+                case "updatedAt" -> doc.setUpdatedAt(readInstant(reader));
+                case "version" -> doc.setVersion(readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return doc;
+    }
+
+    @Override
+    public Class<BranchDocument> getEncoderClass() {
+        return BranchDocument.class;
+    }
+}
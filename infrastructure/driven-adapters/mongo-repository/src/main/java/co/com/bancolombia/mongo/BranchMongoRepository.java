@@ -1,5 +1,6 @@
 package co.com.bancolombia.mongo;
 
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.data.repository.query.ReactiveQueryByExampleExecutor;
 import reactor.core.publisher.Flux;
@@ -11,4 +12,9 @@ public interface BranchMongoRepository extends
 
     Flux<BranchDocument> findAllByFranchiseId(String franchiseId);
     Mono<Boolean> existsByFranchiseIdAndName(String franchiseId, String name);
+
+    Mono<NameView> findNameViewById(String id);
+
+    record NameView(String id, String franchiseId, String name) {
+    }
 }
\ No newline at end of file
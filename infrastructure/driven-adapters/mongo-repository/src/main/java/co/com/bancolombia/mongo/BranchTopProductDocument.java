@@ -0,0 +1,57 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "branch_top_products")
+public class BranchTopProductDocument {
+
+    @Id
+    private String id;
+
+    private String franchiseId;
+    private String branchName;
+
+    private String productId;
+    private String productName;
+    private Integer stock;
+
+    private Instant refreshedAt;
+    private Long refreshTicket;
+    private Long appliedTicket;
+
+    public BranchTopProductDocument() {}
+
+    public BranchTopProductDocument(String id, String franchiseId, String branchName,
+                                    String productId, String productName, Integer stock, Instant refreshedAt) {
+        this.id = id;
+        this.franchiseId = franchiseId;
+        this.branchName = branchName;
+        this.productId = productId;
+        this.productName = productName;
+        this.stock = stock;
+        this.refreshedAt = refreshedAt;
+    }
+
+    public String getId() { return id; }
+    public String getFranchiseId() { return franchiseId; }
+    public String getBranchName() { return branchName; }
+    public String getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public Integer getStock() { return stock; }
+    public Instant getRefreshedAt() { return refreshedAt; }
+    public Long getRefreshTicket() { return refreshTicket; }
+    public Long getAppliedTicket() { return appliedTicket; }
+
+    public void setId(String id) { this.id = id; }
+    public void setFranchiseId(String franchiseId) { this.franchiseId = franchiseId; }
+    public void setBranchName(String branchName) { this.branchName = branchName; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public void setProductName(String productName) { this.productName = productName; }
+    public void setStock(Integer stock) { this.stock = stock; }
+    public void setRefreshedAt(Instant refreshedAt) { this.refreshedAt = refreshedAt; }
+    public void setRefreshTicket(Long refreshTicket) { this.refreshTicket = refreshTicket; }
+    public void setAppliedTicket(Long appliedTicket) { this.appliedTicket = appliedTicket; }
+}
@@ -0,0 +1,23 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface BranchTopProductMongoRepository extends ReactiveMongoRepository<BranchTopProductDocument, String> {
+
+    Flux<TopView> findAllByFranchiseId(String franchiseId);
+    Flux<TicketView> findTicketsByFranchiseId(String franchiseId);
+    Mono<Long> deleteByFranchiseIdAndIdIn(String franchiseId, Collection<String> ids);
+
+    /**
+     * A projection row without {@code franchiseId}, {@code refreshedAt} or the refresh tickets, which reads never need.
+     */
+    record TopView(String id, String branchName, String productId, String productName, Integer stock) {
+    }
+
+    record TicketView(String id, Long refreshTicket) {
+    }
+}
@@ -0,0 +1,223 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class BranchTopProductProjection {
+
+    static final String REFRESH_TICKET = "refreshTicket";
+    static final String APPLIED_TICKET = "appliedTicket";
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
+    private final BranchTopProductMongoRepository projectionRepo;
+    private final FranchiseMongoRepository franchiseRepo;
+    private final BranchMongoRepository branchRepo;
+    private final MongoCodecOperations documents;
+    private final TopProductAggregation topProductAggregation;
+    private final ReactiveMongoTemplate template;
+    private final StockEventGateway events;
+
+    public BranchTopProductProjection(BranchTopProductMongoRepository projectionRepo,
+                                      FranchiseMongoRepository franchiseRepo,
+                                      BranchMongoRepository branchRepo,
+                                      MongoCodecOperations documents,
+                                      TopProductAggregation topProductAggregation,
+                                      ReactiveMongoTemplate template,
+                                      StockEventGateway events) {
+        this.projectionRepo = projectionRepo;
+        this.franchiseRepo = franchiseRepo;
+        this.branchRepo = branchRepo;
+        this.documents = documents;
+        this.topProductAggregation = topProductAggregation;
+        this.template = template;
+        this.events = events;
+    }
+
+    public Flux<TopProductByBranch> topProductByBranch(String franchiseId) {
+        return projectionRepo.findAllByFranchiseId(franchiseId)
+                .map(row -> new TopProductByBranch(row.id(), row.branchName(), row.productId(), row.productName(),
+                        row.stock() == null ? 0 : row.stock()))
+                .switchIfEmpty(Flux.defer(() -> rebuild(franchiseId)));
+    }
+
+    public Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k) {
+        return k == 1
+                ? topProductByBranch(franchiseId)
+                : topProductAggregation.topProductsByBranch(franchiseId, k);
+    }
+
+    public Mono<Void> branchSaved(BranchDocument branch) {
+        Update update = new Update()
+                .set("franchiseId", branch.getFranchiseId())
+                .set("branchName", branch.getName())
+                .setOnInsert("refreshedAt", Instant.now());
+
+        return template.upsert(byBranch(branch.getId()), update, BranchTopProductDocument.class)
+                .then()
+                .onErrorResume(e -> drift(branch.getId(), e));
+    }
+
+    /**
+     * Recomputes the top product of a branch. Each refresh first takes a ticket from the row's counter and
+     * the write only lands on a row last written with a lower ticket, so the order comes from MongoDB rather than
+     * from the clocks of the instances: a refresh cannot replace one that took its ticket, and so read, later.
+     */
+    public Mono<String> refreshBranch(String branchId) {
+        return nextTicket(branchId)
+                .flatMap(ticket -> documents.findOne(topOfBranch(branchId), ProductDocument.class)
+                        .map(top -> new Top(top.getId(), top.getName(), top.getStock() == null ? 0 : top.getStock()))
+                        .defaultIfEmpty(new Top(null, null, 0))
+                        .flatMap(top -> writeTop(branchId, top, ticket)))
+                .onErrorResume(e -> drift(branchId, e));
+    }
+
+    private Mono<Long> nextTicket(String branchId) {
+        return template.findAndModify(byBranch(branchId), new Update().inc(REFRESH_TICKET, 1L), RETURN_NEW,
+                        BranchTopProductDocument.class)
+                .map(row -> row.getRefreshTicket() == null ? 0L : row.getRefreshTicket())
+                .defaultIfEmpty(0L);
+    }
+
+    private Mono<String> writeTop(String branchId, Top top, long ticket) {
+        return template.findAndModify(appliedBefore(branchId, ticket), top.update(ticket), BranchTopProductDocument.class)
+                .map(previous -> {
+                    if (top.differsFrom(previous)) {
+                        publishTop(previous.getFranchiseId(), branchId, top);
+                    }
+                    return previous.getFranchiseId();
+                })
+                .switchIfEmpty(Mono.defer(() -> branchRepo.findNameViewById(branchId)
+                        .flatMap(branch -> template.upsert(appliedBefore(branchId, ticket), top.update(ticket)
+                                        .set("franchiseId", branch.franchiseId())
+                                        .set("branchName", branch.name()), BranchTopProductDocument.class)
+                                .doOnSuccess(result -> {
+                                    if (result.getUpsertedId() != null) {
+                                        publishTop(branch.franchiseId(), branchId, top);
+                                    }
+                                })
+                                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty())
+                                .thenReturn(branch.franchiseId()))));
+    }
+
+    /**
+     * Rewrites every row of the franchise from one aggregation. The tickets handed out before the aggregation
+     * started are read first: a row is only rewritten while no refresh with a later ticket has written it, and
+     * only rows that existed then and whose branch the aggregation no longer returns are removed.
+     */
+    public Flux<TopProductByBranch> rebuild(String franchiseId) {
+        return Flux.defer(() -> projectionRepo.findTicketsByFranchiseId(franchiseId)
+                .collectMap(BranchTopProductMongoRepository.TicketView::id,
+                        row -> row.refreshTicket() == null ? 0L : row.refreshTicket())
+                .flatMapMany(tickets -> {
+                    Set<String> seen = new HashSet<>();
+                    return topProductAggregation.topProductByBranch(franchiseId)
+                            .concatMap(top -> {
+                                long ticket = tickets.getOrDefault(top.getBranchId(), 0L);
+                                seen.add(top.getBranchId());
+                                return template.upsert(appliedUpTo(top.getBranchId(), ticket),
+                                                rebuilt(franchiseId, top, ticket), BranchTopProductDocument.class)
+                                        .onErrorResume(DuplicateKeyException.class, e -> Mono.empty())
+                                        .thenReturn(top);
+                            })
+                            .concatWith(Mono.defer(() -> removeStale(franchiseId, tickets.keySet(), seen))
+                                    .thenMany(Flux.empty()));
+                }));
+    }
+
+    private Mono<Long> removeStale(String franchiseId, Set<String> existing, Set<String> seen) {
+        List<String> stale = existing.stream().filter(id -> !seen.contains(id)).toList();
+        return stale.isEmpty() ? Mono.just(0L) : projectionRepo.deleteByFranchiseIdAndIdIn(franchiseId, stale);
+    }
+
+    public Mono<Void> refreshFranchise(String franchiseId) {
+        return rebuild(franchiseId)
+                .then()
+                .onErrorResume(e -> drift(franchiseId, e));
+    }
+
+    public Mono<Void> rebuildAll() {
+        return franchiseRepo.findAllIds()
+                .concatMap(franchise -> refreshFranchise(franchise.id()))
+                .then();
+    }
+
+    private void publishTop(String franchiseId, String branchId, Top top) {
+        events.publish(new StockEvent(StockEventType.TOP_PRODUCT_CHANGED, franchiseId, branchId,
+                top.productId(), top.productName(), top.stock(), Instant.now()));
+    }
+
+    private <T> Mono<T> drift(String key, Throwable e) {
+        log.warn("branch_top_products left stale for {}, the rebuild job will restore it: {}", key, e.getMessage());
+        return Mono.empty();
+    }
+
+    private Query byBranch(String branchId) {
+        return Query.query(where("_id").is(branchId));
+    }
+
+    private Query topOfBranch(String branchId) {
+        Query query = Query.query(where("branchId").is(branchId))
+                .with(Sort.by(Sort.Order.desc("stock"), Sort.Order.asc("_id")))
+                .limit(1);
+        query.fields().include("_id", "name", "stock");
+        return query;
+    }
+
+    private Query appliedBefore(String branchId, long ticket) {
+        return Query.query(where("_id").is(branchId)
+                .orOperator(where(APPLIED_TICKET).lt(ticket), where(APPLIED_TICKET).exists(false)));
+    }
+
+    private Query appliedUpTo(String branchId, long ticket) {
+        return Query.query(where("_id").is(branchId)
+                .orOperator(where(APPLIED_TICKET).lte(ticket), where(APPLIED_TICKET).exists(false)));
+    }
+
+    private Update rebuilt(String franchiseId, TopProductByBranch top, long ticket) {
+        return new Top(top.getProductId(), top.getProductName(), top.getStock()).update(ticket)
+                .set("franchiseId", franchiseId)
+                .set("branchName", top.getBranchName());
+    }
+
+    private record Top(String productId, String productName, int stock) {
+
+        Update update(long ticket) {
+            return new Update()
+                    .set("productId", productId)
+                    .set("productName", productName)
+                    .set("stock", stock)
+                    .set(APPLIED_TICKET, ticket)
+                    .set("refreshedAt", Instant.now());
+        }
+
+        boolean differsFrom(BranchTopProductDocument previous) {
+            return !Objects.equals(productId, previous.getProductId())
+                    || !Objects.equals(productName, previous.getProductName())
+                    || !Objects.equals(stock, previous.getStock());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class BranchTopProductRebuildJob {
+
+    private final BranchTopProductProjection projection;
+
+    public BranchTopProductRebuildJob(BranchTopProductProjection projection) {
+        this.projection = projection;
+    }
+
+    @Scheduled(initialDelayString = "${db.mongodb.projections.rebuild-initial-delay:PT1M}",
+            fixedDelayString = "${db.mongodb.projections.rebuild-interval:PT1H}")
+    public Mono<Void> rebuild() {
+        return projection.rebuildAll();
+    }
+}
@@ -1,6 +1,7 @@
 package co.com.bancolombia.mongo;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -16,6 +17,9 @@ public class FranchiseDocument {
     private Instant createdAt;
     private Instant updatedAt;
 
+    @Version
+    private Long version;
+
     public FranchiseDocument() {}
 
     public FranchiseDocument(String id, String name, Instant createdAt, Instant updatedAt) {
@@ -29,9 +33,11 @@ public class FranchiseDocument {
     public String getName() { return name; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
 
     public void setId(String id) { this.id = id; }
     public void setName(String name) { this.name = name; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package co.com.bancolombia.mongo;
 
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.data.repository.query.ReactiveQueryByExampleExecutor;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface FranchiseMongoRepository extends
@@ -9,4 +11,10 @@ public interface FranchiseMongoRepository extends
         ReactiveQueryByExampleExecutor<FranchiseDocument> {
 
     Mono<Boolean> existsByName(String name);
+
+    @Query(value = "{}", fields = "{ '_id': 1 }")
+    Flux<IdView> findAllIds();
+
+    record IdView(String id) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Document(collection = "franchise_trees")
+public class FranchiseTreeDocument {
+
+    @Id
+    private String id;
+
+    private String name;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    @Version
+    private Long version;
+
+    private List<BranchEntry> branches = new ArrayList<>();
+
+    public FranchiseTreeDocument() {}
+
+    public FranchiseTreeDocument(String id, String name, Instant createdAt, Instant updatedAt, List<BranchEntry> branches) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.branches = branches;
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
+    public List<BranchEntry> getBranches() { return branches == null ? List.of() : branches; }
+
+    public void setId(String id) { this.id = id; }
+    public void setName(String name) { this.name = name; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public void setVersion(Long version) { this.version = version; }
+    public void setBranches(List<BranchEntry> branches) { this.branches = branches; }
+
+    public static class BranchEntry {
+
+        private String branchId;
+        private String name;
+        private Instant createdAt;
+        private Instant updatedAt;
+        private long version;
+        private List<ProductEntry> products = new ArrayList<>();
+
+        public BranchEntry() {}
+
+        public BranchEntry(String branchId, String name, Instant createdAt, Instant updatedAt, long version,
+                           List<ProductEntry> products) {
+            this.branchId = branchId;
+            this.name = name;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.version = version;
+            this.products = products;
+        }
+
+        public String getBranchId() { return branchId; }
+        public String getName() { return name; }
+        public Instant getCreatedAt() { return createdAt; }
+        public Instant getUpdatedAt() { return updatedAt; }
+        public long getVersion() { return version; }
+        public List<ProductEntry> getProducts() { return products == null ? List.of() : products; }
+
+        public void setBranchId(String branchId) { this.branchId = branchId; }
+        public void setName(String name) { this.name = name; }
+        public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+        public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+        public void setVersion(long version) { this.version = version; }
+        public void setProducts(List<ProductEntry> products) { this.products = products; }
+    }
+
+    public static class ProductEntry {
+
+        private String productId;
+        private String name;
+        private int stock;
+        private Instant createdAt;
+        private Instant updatedAt;
+        private long version;
+
+        public ProductEntry() {}
+
+        public ProductEntry(String productId, String name, int stock, Instant createdAt, Instant updatedAt, long version) {
+            this.productId = productId;
+            this.name = name;
+            this.stock = stock;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            this.version = version;
+        }
+
+        public String getProductId() { return productId; }
+        public String getName() { return name; }
+        public int getStock() { return stock; }
+        public Instant getCreatedAt() { return createdAt; }
+        public Instant getUpdatedAt() { return updatedAt; }
+        public long getVersion() { return version; }
+
+        public void setProductId(String productId) { this.productId = productId; }
+        public void setName(String name) { this.name = name; }
+        public void setStock(int stock) { this.stock = stock; }
+        public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+        public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+        public void setVersion(long version) { this.version = version; }
+    }
+}
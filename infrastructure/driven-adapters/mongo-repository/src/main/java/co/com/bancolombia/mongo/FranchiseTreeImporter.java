@@ -0,0 +1,221 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class FranchiseTreeImporter {
+
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final FranchiseMongoRepository franchiseRepo;
+    private final ReactiveMongoTemplate template;
+    private final BranchTopProductProjection topProducts;
+
+    public FranchiseTreeImporter(FranchiseMongoRepository franchiseRepo,
+                                 ReactiveMongoTemplate template,
+                                 BranchTopProductProjection topProducts) {
+        this.franchiseRepo = franchiseRepo;
+        this.template = template;
+        this.topProducts = topProducts;
+    }
+
+    public Flux<ImportResult> importFranchise(Flux<ImportRecord> records) {
+        return records.switchOnFirst((first, all) -> {
+            if (!first.hasValue()) {
+                return all.thenMany(Flux.<ImportResult>empty());
+            }
+            Session session = new Session();
+            return createFranchise(session, first.get())
+                    .concatWith(all.skip(1)
+                            .buffer(IMPORT_BATCH_SIZE)
+                            .concatMap(batch -> importBatch(session, batch)))
+                    .concatWith(Mono.defer(() -> session.franchiseId == null
+                            ? Mono.empty()
+                            : topProducts.refreshFranchise(session.franchiseId).then(Mono.empty())));
+        });
+    }
+
+    private Mono<ImportResult> createFranchise(Session session, ImportRecord record) {
+        if (record.getError() != null) {
+            return Mono.just(ImportResult.failed(record, record.getError()));
+        }
+        if (record.getType() != ImportRecord.Type.FRANCHISE) {
+            return Mono.just(ImportResult.failed(record, "The first line must describe the franchise"));
+        }
+        if (isBlank(record.getName())) {
+            return Mono.just(ImportResult.failed(record, "Franchise name must not be empty"));
+        }
+
+        Instant now = Instant.now();
+        String name = record.getName().trim();
+        return franchiseRepo.existsByName(name)
+                .flatMap(exists -> exists
+                        ? Mono.just(ImportResult.failed(record, "Franchise name already exists"))
+                        : franchiseRepo.insert(new FranchiseDocument(newId(), name, now, now))
+                                .map(saved -> {
+                                    session.franchiseId = saved.getId();
+                                    return ImportResult.created(record, saved.getId());
+                                }))
+                .onErrorResume(DuplicateKeyException.class,
+                        e -> Mono.just(ImportResult.failed(record, "Franchise name already exists")));
+    }
+
+    private Flux<ImportResult> importBatch(Session session, List<ImportRecord> batch) {
+        if (session.franchiseId == null) {
+            return Flux.fromIterable(batch)
+                    .map(record -> ImportResult.failed(record, "Franchise was not imported"));
+        }
+
+        Instant now = Instant.now();
+        ImportResult[] results = new ImportResult[batch.size()];
+        List<BranchDocument> branches = new ArrayList<>();
+        List<Integer> branchSlots = new ArrayList<>();
+        List<Integer> productSlots = new ArrayList<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            ImportRecord record = batch.get(i);
+            String invalid = invalidReason(record);
+            if (invalid != null) {
+                results[i] = ImportResult.failed(record, invalid);
+            } else if (record.getType() == ImportRecord.Type.BRANCH) {
+                String name = record.getName().trim();
+                if (session.branchIds.containsKey(name)) {
+                    results[i] = ImportResult.failed(record, "Branch name already exists for this franchise");
+                    continue;
+                }
+                String id = newId();
+                session.branchIds.put(name, id);
+                branches.add(new BranchDocument(id, session.franchiseId, name, now, now));
+                branchSlots.add(i);
+                results[i] = ImportResult.created(record, id);
+            } else if (!session.branchIds.containsKey(record.getBranch().trim())) {
+                results[i] = ImportResult.failed(record, "Branch not found");
+            } else {
+                productSlots.add(i);
+            }
+        }
+
+        return insertMany(TopProductAggregation.BRANCHES, branches)
+                .flatMap(branchErrors -> {
+                    branchErrors.forEach((index, message) -> {
+                        int slot = branchSlots.get(index);
+                        session.branchIds.remove(branches.get(index).getName());
+                        results[slot] = ImportResult.failed(batch.get(slot), duplicateOr(message,
+                                "Branch name already exists for this franchise"));
+                    });
+
+                    List<ProductDocument> products = new ArrayList<>();
+                    List<Integer> insertedSlots = new ArrayList<>();
+                    for (int slot : productSlots) {
+                        ImportRecord record = batch.get(slot);
+                        String branchId = session.branchIds.get(record.getBranch().trim());
+                        if (branchId == null) {
+                            results[slot] = ImportResult.failed(record, "Branch was not imported");
+                            continue;
+                        }
+                        String id = newId();
+                        products.add(new ProductDocument(id, session.franchiseId, branchId, record.getName().trim(), record.getStock(),
+                                now, now));
+                        insertedSlots.add(slot);
+                        results[slot] = ImportResult.created(record, id);
+                    }
+
+                    return insertMany(TopProductAggregation.PRODUCTS, products)
+                            .doOnNext(productErrors -> productErrors.forEach((index, message) -> {
+                                int slot = insertedSlots.get(index);
+                                results[slot] = ImportResult.failed(batch.get(slot), duplicateOr(message,
+                                        "Product name already exists for this branch"));
+                            }));
+                })
+                .thenMany(Flux.fromArray(results));
+    }
+
+    private Mono<Map<Integer, String>> insertMany(String collection, List<?> entities) {
+        if (entities.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        List<Document> documents = entities.stream()
+                .map(entity -> {
+                    Document document = new Document();
+                    template.getConverter().write(entity, document);
+                    return document;
+                })
+                .toList();
+
+        return template.getCollection(collection)
+                .flatMap(target -> Mono.from(target.insertMany(documents, new InsertManyOptions().ordered(false))))
+                .thenReturn(Map.<Integer, String>of())
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    Map<Integer, String> errors = new HashMap<>();
+                    e.getWriteErrors().forEach(error -> errors.put(error.getIndex(), errorMessage(error)));
+                    return Mono.just(errors);
+                });
+    }
+
+    private static String errorMessage(BulkWriteError error) {
+        return ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                ? null
+                : error.getMessage();
+    }
+
+    private static String duplicateOr(String message, String duplicate) {
+        return message == null ? duplicate : message;
+    }
+
+    static String invalidReason(ImportRecord record) {
+        if (record.getError() != null) {
+            return record.getError();
+        }
+        if (record.getType() == ImportRecord.Type.FRANCHISE) {
+            return "Only one franchise line is allowed";
+        }
+        if (isBlank(record.getName())) {
+            return record.getType() == ImportRecord.Type.BRANCH
+                    ? "Branch name must not be empty"
+                    : "Product name must not be empty";
+        }
+        if (record.getType() == ImportRecord.Type.PRODUCT) {
+            if (isBlank(record.getBranch())) {
+                return "Branch name must not be empty";
+            }
+            if (record.getStock() == null || record.getStock() < 0) {
+                return "Stock must be >= 0";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String newId() {
+        return new ObjectId().toHexString();
+    }
+
+    private static final class Session {
+        private String franchiseId;
+        private final Map<String, String> branchIds = new HashMap<>();
+    }
+}
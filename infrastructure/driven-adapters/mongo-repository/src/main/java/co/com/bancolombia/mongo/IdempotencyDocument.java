@@ -0,0 +1,45 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "idempotency_keys")
+public class IdempotencyDocument {
+
+    @Id
+    private String id;
+
+    private int status;
+    private String etag;
+    private String body;
+    private String requestHash;
+
+    private Instant createdAt;
+
+    public IdempotencyDocument() {}
+
+    public IdempotencyDocument(String id, int status, String etag, String body, String requestHash, Instant createdAt) {
+        this.id = id;
+        this.status = status;
+        this.etag = etag;
+        this.body = body;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() { return id; }
+    public int getStatus() { return status; }
+    public String getEtag() { return etag; }
+    public String getBody() { return body; }
+    public String getRequestHash() { return requestHash; }
+    public Instant getCreatedAt() { return createdAt; }
+
+    public void setId(String id) { this.id = id; }
+    public void setStatus(int status) { this.status = status; }
+    public void setEtag(String etag) { this.etag = etag; }
+    public void setBody(String body) { this.body = body; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
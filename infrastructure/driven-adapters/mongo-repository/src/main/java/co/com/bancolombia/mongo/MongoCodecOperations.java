@@ -0,0 +1,75 @@
+package co.com.bancolombia.mongo;
+
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs reads and writes of franchise, branch and product documents on the driver collection, so they are encoded and
+ * decoded by the codecs in {@link MongoDocumentCodecs} rather than by {@code MappingMongoConverter}. Queries and
+ * updates are sent as written (no field or id mapping), and errors still go through the template's exception
+ * translation, so a duplicate key surfaces as {@code DuplicateKeyException}.
+ */
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class MongoCodecOperations {
+
+    private static final FindOneAndUpdateOptions RETURN_AFTER = new FindOneAndUpdateOptions()
+            .returnDocument(ReturnDocument.AFTER);
+
+    private final ReactiveMongoTemplate template;
+
+    public MongoCodecOperations(ReactiveMongoTemplate template) {
+        this.template = template;
+    }
+
+    static String newId() {
+        return new ObjectId().toHexString();
+    }
+
+    /**
+     * The codecs do not generate ids, so the document must carry one (see {@link #newId()}).
+     */
+    public <T> Mono<T> insert(T document, Class<T> type) {
+        return template.execute(template.getCollectionName(type), collection -> Mono.from(
+                        collection.withDocumentClass(type).insertOne(document))
+                        .thenReturn(document))
+                .next();
+    }
+
+    public <T> Mono<T> findOne(Query query, Class<T> type) {
+        return template.execute(template.getCollectionName(type), collection -> shaped(collection.withDocumentClass(type)
+                        .find(query.getQueryObject()), query)
+                        .first())
+                .next();
+    }
+
+    public <T> Flux<T> find(Query query, Class<T> type) {
+        return template.execute(template.getCollectionName(type), collection -> shaped(collection.withDocumentClass(type)
+                .find(query.getQueryObject()), query));
+    }
+
+    /**
+     * Applies the update to the first match and returns the document as it is after the update.
+     */
+    public <T> Mono<T> findAndModify(Query query, UpdateDefinition update, Class<T> type) {
+        return template.execute(template.getCollectionName(type), collection -> collection.withDocumentClass(type)
+                        .findOneAndUpdate(query.getQueryObject(), update.getUpdateObject(), RETURN_AFTER))
+                .next();
+    }
+
+    private static <T> FindPublisher<T> shaped(FindPublisher<T> found, Query query) {
+        FindPublisher<T> sorted = found
+                .projection(query.getFieldsObject().isEmpty() ? null : query.getFieldsObject())
+                .sort(query.getSortObject().isEmpty() ? null : query.getSortObject());
+        return query.getLimit() > 0 ? sorted.limit(query.getLimit()) : sorted;
+    }
+}
@@ -0,0 +1,116 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+
+import java.time.Instant;
+
+/**
+ * Hand-written codecs for the franchise, branch and product documents. They read and write the same BSON layout as
+ * Spring Data's {@code MappingMongoConverter} (ObjectId {@code _id}, dates in milliseconds, absent nulls, no
+ * {@code _class}), so documents written by either path can be read by the other.
+ */
+public final class MongoDocumentCodecs {
+
+    private MongoDocumentCodecs() {
+    }
+
+    public static CodecRegistry registry() {
+        return CodecRegistries.fromCodecs(new FranchiseDocumentCodec(), new BranchDocumentCodec(),
+                new ProductDocumentCodec());
+    }
+
+    static String readId(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case OBJECT_ID -> reader.readObjectId().toHexString();
+            case STRING -> reader.readString();
+            case INT32 -> String.valueOf(reader.readInt32());
+            case INT64 -> String.valueOf(reader.readInt64());
+            default -> skip(reader);
+        };
+    }
+
+    static String readString(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case STRING -> reader.readString();
+            case OBJECT_ID -> reader.readObjectId().toHexString();
+            default -> skip(reader);
+        };
+    }
+
+    static Integer readInteger(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> Math.toIntExact(reader.readInt64());
+            case DOUBLE -> Math.toIntExact(exactLong(reader.readDouble()));
+            default -> skip(reader);
+        };
+    }
+
+    static Long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT64 -> reader.readInt64();
+            case INT32 -> (long) reader.readInt32();
+            case DOUBLE -> exactLong(reader.readDouble());
+            default -> skip(reader);
+        };
+    }
+
+    private static long exactLong(double value) {
+        long exact = (long) value;
+        if (exact != value || value >= 0x1p63) {
+            throw new ArithmeticException("Not a whole number within range: " + value);
+        }
+        return exact;
+    }
+
+    static Instant readInstant(BsonReader reader) {
+        return reader.getCurrentBsonType() == BsonType.DATE_TIME
+                ? Instant.ofEpochMilli(reader.readDateTime())
+                : skip(reader);
+    }
+
+    static void writeId(BsonWriter writer, String id) {
+        if (id == null) {
+            return;
+        }
+        if (ObjectId.isValid(id)) {
+            writer.writeObjectId("_id", new ObjectId(id));
+        } else {
+            writer.writeString("_id", id);
+        }
+    }
+
+    static void writeString(BsonWriter writer, String name, String value) {
+        if (value != null) {
+            writer.writeString(name, value);
+        }
+    }
+
+    static void writeInteger(BsonWriter writer, String name, Integer value) {
+        if (value != null) {
+            writer.writeInt32(name, value);
+        }
+    }
+
+    static void writeLong(BsonWriter writer, String name, Long value) {
+        if (value != null) {
+            writer.writeInt64(name, value);
+        }
+    }
+
+    static void writeInstant(BsonWriter writer, String name, Instant value) {
+        if (value != null) {
+            writer.writeDateTime(name, value.toEpochMilli());
+        }
+    }
+
+    private static <T> T skip(BsonReader reader) {
+        reader.skipValue();
+        return null;
+    }
+}
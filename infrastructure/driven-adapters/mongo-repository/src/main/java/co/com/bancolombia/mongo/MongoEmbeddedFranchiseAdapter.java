@@ -0,0 +1,775 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageCursor;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.product.Product;
+import co.com.bancolombia.mongo.FranchiseTreeDocument.BranchEntry;
+import co.com.bancolombia.mongo.FranchiseTreeDocument.ProductEntry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static co.com.bancolombia.mongo.MongoVersions.VERSION;
+import static co.com.bancolombia.mongo.MongoVersions.unchanged;
+import static co.com.bancolombia.mongo.MongoVersions.versionOf;
+import static co.com.bancolombia.mongo.MongoVersions.versioned;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb-embedded")
+public class MongoEmbeddedFranchiseAdapter implements FranchiseGateway {
+
+    private static final int STOCK_BATCH_SIZE = 500;
+    static final int IMPORT_BATCH_SIZE = 1000;
+    private static final String BRANCHES = "branches";
+    private static final String BRANCH_ID = "branches.branchId";
+    private static final String PRODUCT_ID = "branches.products.productId";
+    private static final String BRANCH_PATH = "branches.$[b].";
+    private static final String PRODUCT_PATH = "branches.$[].products.$[p].";
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+    private static final Comparator<ProductEntry> BY_STOCK = Comparator.comparingInt(ProductEntry::getStock).reversed()
+            .thenComparing(ProductEntry::getProductId);
+
+    private final ReactiveMongoTemplate template;
+    private final StockEventGateway events;
+
+    public MongoEmbeddedFranchiseAdapter(ReactiveMongoTemplate template, StockEventGateway events) {
+        this.template = template;
+        this.events = events;
+    }
+
+    @Override
+    public Mono<Franchise> createFranchise(String name) {
+        Instant now = Instant.now();
+        if (name == null || name.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise name must not be empty"));
+        }
+
+        return template.insert(new FranchiseTreeDocument(null, name.trim(), now, now, new ArrayList<>()))
+                .onErrorMap(DuplicateKeyException.class, e -> new IllegalStateException("Franchise name already exists"))
+                .map(this::toDomain);
+    }
+
+    /**
+     * Inserts the franchise document from the first line and pushes the rest into it in batches, so only the
+     * branch ids and product names already imported stay in memory, never the whole upload.
+     */
+    @Override
+    public Flux<ImportResult> importFranchise(Flux<ImportRecord> records) {
+        return records.switchOnFirst((first, all) -> {
+            if (!first.hasValue()) {
+                return all.thenMany(Flux.<ImportResult>empty());
+            }
+            TreeImport session = new TreeImport();
+            return createTree(session, first.get())
+                    .concatWith(all.skip(1)
+                            .buffer(IMPORT_BATCH_SIZE)
+                            .concatMap(batch -> importBatch(session, batch)));
+        });
+    }
+
+    private Mono<ImportResult> createTree(TreeImport session, ImportRecord first) {
+        String invalid = first.getError();
+        if (invalid == null && first.getType() != ImportRecord.Type.FRANCHISE) {
+            invalid = "The first line must describe the franchise";
+        } else if (invalid == null && isBlank(first.getName())) {
+            invalid = "Franchise name must not be empty";
+        }
+        if (invalid != null) {
+            return Mono.just(ImportResult.failed(first, invalid));
+        }
+
+        Instant now = Instant.now();
+        return template.insert(new FranchiseTreeDocument(newId(), first.getName().trim(), now, now, new ArrayList<>()))
+                .map(tree -> {
+                    session.franchiseId = tree.getId();
+                    return ImportResult.created(first, tree.getId());
+                })
+                .onErrorResume(DuplicateKeyException.class,
+                        e -> Mono.just(ImportResult.failed(first, "Franchise name already exists")));
+    }
+
+    private Flux<ImportResult> importBatch(TreeImport session, List<ImportRecord> batch) {
+        if (session.franchiseId == null) {
+            return Flux.fromIterable(batch)
+                    .map(record -> ImportResult.failed(record, "Franchise was not imported"));
+        }
+
+        Instant now = Instant.now();
+        ImportResult[] results = new ImportResult[batch.size()];
+        Map<String, BranchEntry> newBranches = new LinkedHashMap<>();
+        Map<String, List<ProductEntry>> newProducts = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            results[i] = addToBatch(session, newBranches, newProducts, batch.get(i), now);
+        }
+
+        Query query = Query.query(byFranchise(session.franchiseId));
+        Mono<Boolean> pushed = Mono.just(true);
+        if (!newBranches.isEmpty()) {
+            Update update = new Update().push(BRANCHES).each(newBranches.values().toArray());
+            pushed = pushed.then(template.updateFirst(query, update, FranchiseTreeDocument.class)
+                    .map(result -> result.getMatchedCount() > 0));
+        }
+        if (!newProducts.isEmpty()) {
+            Update update = new Update();
+            int filter = 0;
+            for (Map.Entry<String, List<ProductEntry>> products : newProducts.entrySet()) {
+                update.push("branches.$[b" + filter + "].products").each(products.getValue().toArray());
+                update.filterArray(where("b" + filter + ".branchId").is(products.getKey()));
+                filter++;
+            }
+            pushed = pushed.flatMap(matched -> template.updateFirst(query, update, FranchiseTreeDocument.class)
+                    .map(result -> matched && result.getMatchedCount() > 0));
+        }
+
+        return pushed.flatMapMany(matched -> {
+            if (matched) {
+                return Flux.fromArray(results);
+            }
+            session.franchiseId = null;
+            return Flux.fromIterable(batch).map(record -> ImportResult.failed(record, "Franchise not found"));
+        });
+    }
+
+    private ImportResult addToBatch(TreeImport session, Map<String, BranchEntry> newBranches,
+                                    Map<String, List<ProductEntry>> newProducts, ImportRecord record, Instant now) {
+        String invalid = FranchiseTreeImporter.invalidReason(record);
+        if (invalid != null) {
+            return ImportResult.failed(record, invalid);
+        }
+
+        String name = record.getName().trim();
+        if (record.getType() == ImportRecord.Type.BRANCH) {
+            if (session.branchIds.containsKey(name)) {
+                return ImportResult.failed(record, "Branch name already exists for this franchise");
+            }
+            BranchEntry branch = new BranchEntry(newId(), name, now, now, 0, new ArrayList<>());
+            session.branchIds.put(name, branch.getBranchId());
+            newBranches.put(branch.getBranchId(), branch);
+            return ImportResult.created(record, branch.getBranchId());
+        }
+
+        String branchId = session.branchIds.get(record.getBranch().trim());
+        if (branchId == null) {
+            return ImportResult.failed(record, "Branch not found");
+        }
+        if (!session.productNames.add(branchId + "/" + name)) {
+            return ImportResult.failed(record, "Product name already exists for this branch");
+        }
+        ProductEntry product = new ProductEntry(newId(), name, record.getStock(), now, now, 0);
+        BranchEntry created = newBranches.get(branchId);
+        if (created != null) {
+            created.getProducts().add(product);
+        } else {
+            newProducts.computeIfAbsent(branchId, id -> new ArrayList<>()).add(product);
+        }
+        return ImportResult.created(record, product.getProductId());
+    }
+
+    @Override
+    public Mono<Branch> addBranch(String franchiseId, String branchName) {
+        Instant now = Instant.now();
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (branchName == null || branchName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch name must not be empty"));
+        }
+
+        String cleanName = branchName.trim();
+        BranchEntry branch = new BranchEntry(newId(), cleanName, now, now, 0, new ArrayList<>());
+
+        return template.updateFirst(Query.query(byFranchise(franchiseId).and("branches.name").ne(cleanName)),
+                        new Update().push(BRANCHES, branch), FranchiseTreeDocument.class)
+                .flatMap(result -> result.getMatchedCount() > 0
+                        ? Mono.just(toDomain(franchiseId, branch))
+                        : template.exists(Query.query(byFranchise(franchiseId)), FranchiseTreeDocument.class)
+                                .flatMap(exists -> Mono.<Branch>error(exists
+                                        ? new IllegalStateException("Branch name already exists for this franchise")
+                                        : new IllegalArgumentException("Franchise not found"))));
+    }
+
+    @Override
+    public Mono<Product> addProduct(String branchId, String productName, int stock) {
+        Instant now = Instant.now();
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (productName == null || productName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product name must not be empty"));
+        }
+        if (stock < 0) {
+            return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
+        }
+
+        String cleanName = productName.trim();
+        ProductEntry product = new ProductEntry(newId(), cleanName, stock, now, now, 0);
+        Query query = Query.query(where(BRANCHES).elemMatch(where("branchId").is(branchId).and("products.name").ne(cleanName)));
+        Update update = new Update().push(BRANCH_PATH + "products", product).filterArray(where("b.branchId").is(branchId));
+
+        return template.findAndModify(withBranch(query, branchId), update, FranchiseTreeDocument.class)
+                .switchIfEmpty(Mono.defer(() -> template.exists(Query.query(where(BRANCH_ID).is(branchId)), FranchiseTreeDocument.class)
+                        .flatMap(exists -> Mono.<FranchiseTreeDocument>error(exists
+                                ? new IllegalStateException("Product name already exists for this branch")
+                                : new IllegalArgumentException("Branch not found")))))
+                .map(before -> {
+                    BranchEntry previous = matchedBranch(before);
+                    List<ProductEntry> products = new ArrayList<>(previous.getProducts());
+                    products.add(product);
+                    publish(StockEventType.STOCK_CHANGED, before.getId(), branchId, product);
+                    publishTopIfChanged(before.getId(), previous, withProducts(previous, products));
+                    return toDomain(branchId, product);
+                });
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+
+        Query query = withProductBranch(Query.query(where(PRODUCT_ID).is(productId)), productId);
+        Update update = new Update().pull("branches.$[].products", new Document("productId", productId));
+
+        return template.findAndModify(query, update, FranchiseTreeDocument.class)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")))
+                .doOnNext(before -> {
+                    BranchEntry branch = matchedBranch(before);
+                    publish(StockEventType.PRODUCT_REMOVED, before.getId(), branch.getBranchId(), productOf(branch, productId));
+                    publishTopIfChanged(before.getId(), branch, withProducts(branch, branch.getProducts().stream()
+                            .filter(product -> !product.getProductId().equals(productId))
+                            .toList()));
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteBranch(String branchId) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        Query query = withBranch(Query.query(where(BRANCH_ID).is(branchId)), branchId);
+
+        return template.findAndModify(query, new Update().pull(BRANCHES, new Document("branchId", branchId)),
+                        FranchiseTreeDocument.class)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")))
+                .map(before -> new DeletionSummary(0, 1, matchedBranch(before).getProducts().size()));
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteFranchise(String franchiseId) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+
+        Query query = Query.query(byFranchise(franchiseId));
+        query.fields().include(BRANCH_ID, PRODUCT_ID);
+
+        return template.findAndRemove(query, FranchiseTreeDocument.class)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
+                .map(removed -> new DeletionSummary(1, removed.getBranches().size(), removed.getBranches().stream()
+                        .mapToLong(branch -> branch.getProducts().size())
+                        .sum()));
+    }
+
+    @Override
+    public Mono<Product> findProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+
+        return template.findOne(withProductBranch(Query.query(where(PRODUCT_ID).is(productId)), productId),
+                        FranchiseTreeDocument.class)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")))
+                .map(tree -> {
+                    BranchEntry branch = matchedBranch(tree);
+                    return toDomain(branch.getBranchId(), productOf(branch, productId));
+                });
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String productId, int newStock, Long expectedVersion) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (newStock < 0) {
+            return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
+        }
+
+        Criteria product = where("productId").is(productId);
+        if (expectedVersion != null) {
+            product = product.and(VERSION).is(expectedVersion);
+        }
+        Instant now = Instant.now();
+        Update update = productUpdate(productId, now).set(PRODUCT_PATH + "stock", newStock);
+
+        return writeProduct(productId, where("products").elemMatch(product), update, true,
+                        previous -> changed(previous, previous.getName(), newStock, now))
+                .switchIfEmpty(Mono.defer(() -> productExists(productId)
+                        .flatMap(exists -> Mono.<Product>error(exists
+                                ? new ConcurrentModificationException("Version does not match")
+                                : new IllegalArgumentException("Product not found")))));
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String productId, int delta) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (delta == 0) {
+            return Mono.error(new IllegalArgumentException("Delta must not be zero"));
+        }
+
+        Criteria product = where("productId").is(productId);
+        if (delta < 0) {
+            product = product.and("stock").gte(-(long) delta);
+        } else {
+            product = product.and("stock").lte((long) Integer.MAX_VALUE - delta);
+        }
+        Instant now = Instant.now();
+        Update update = productUpdate(productId, now).inc(PRODUCT_PATH + "stock", delta);
+
+        return writeProduct(productId, where("products").elemMatch(product), update, true,
+                        previous -> changed(previous, previous.getName(), previous.getStock() + delta, now))
+                .switchIfEmpty(Mono.defer(() -> productExists(productId)
+                        .flatMap(exists -> Mono.<Product>error(exists
+                                ? new IllegalStateException(delta < 0 ? "Insufficient stock" : "Stock limit exceeded")
+                                : new IllegalArgumentException("Product not found")))));
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String branchId, Flux<StockUpdate> updates) {
+        if (branchId == null || branchId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        return template.exists(Query.query(where(BRANCH_ID).is(branchId)), FranchiseTreeDocument.class)
+                .flatMapMany(exists -> exists
+                        ? updates.buffer(STOCK_BATCH_SIZE).concatMap(batch -> applyStockBatch(branchId, batch))
+                        : Flux.error(new IllegalArgumentException("Branch not found")));
+    }
+
+    private Flux<StockUpdateResult> applyStockBatch(String branchId, List<StockUpdate> batch) {
+        Map<String, Integer> latest = MongoFranchiseAdapter.latestById(batch, UnaryOperator.identity());
+        Map<String, Integer> stocks = new LinkedHashMap<>();
+        latest.forEach((productId, slot) -> stocks.put(productId, batch.get(slot).getStock()));
+        if (stocks.isEmpty()) {
+            return Flux.fromIterable(stockResults(batch, latest, Set.of()));
+        }
+
+        // One update per batch: every product of the branch lives in the same document.
+        Instant now = Instant.now();
+        Update update = new Update().filterArray(where("b.branchId").is(branchId));
+        int slot = 0;
+        for (Map.Entry<String, Integer> entry : stocks.entrySet()) {
+            String path = BRANCH_PATH + "products.$[p" + slot + "].";
+            update.set(path + "stock", entry.getValue())
+                    .set(path + "updatedAt", now)
+                    .inc(path + VERSION, 1)
+                    .filterArray(where("p" + slot + ".productId").is(entry.getKey()));
+            slot++;
+        }
+
+        return template.findAndModify(withBranch(Query.query(where(BRANCH_ID).is(branchId)), branchId), update,
+                        FranchiseTreeDocument.class)
+                .map(before -> {
+                    BranchEntry branch = matchedBranch(before);
+                    List<ProductEntry> products = branch.getProducts().stream()
+                            .map(product -> stocks.containsKey(product.getProductId())
+                                    ? changed(product, product.getName(), stocks.get(product.getProductId()), now)
+                                    : product)
+                            .toList();
+                    products.stream()
+                            .filter(product -> stocks.containsKey(product.getProductId()))
+                            .forEach(product -> publish(StockEventType.STOCK_CHANGED, before.getId(), branchId, product));
+                    publishTopIfChanged(before.getId(), branch, withProducts(branch, products));
+                    return products.stream()
+                            .map(ProductEntry::getProductId)
+                            .filter(stocks::containsKey)
+                            .collect(Collectors.toSet());
+                })
+                .defaultIfEmpty(Set.of())
+                .flatMapMany(found -> Flux.fromIterable(stockResults(batch, latest, found)));
+    }
+
+    private List<StockUpdateResult> stockResults(List<StockUpdate> batch, Map<String, Integer> latest, Set<String> found) {
+        return IntStream.range(0, batch.size())
+                .mapToObj(i -> MongoFranchiseAdapter.stockResult(batch.get(i), i, UnaryOperator.identity(), latest, found::contains))
+                .toList();
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductByBranch(String franchiseId) {
+        return topProductsByBranch(franchiseId, 1);
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (k < 1) {
+            return Flux.error(new IllegalArgumentException("k must be greater than zero"));
+        }
+
+        Query query = Query.query(byFranchise(franchiseId));
+        query.fields().include(BRANCH_ID, "branches.name", PRODUCT_ID, "branches.products.name", "branches.products.stock");
+
+        return template.findOne(query, FranchiseTreeDocument.class)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
+                .flatMapIterable(tree -> tree.getBranches().stream()
+                        .flatMap(branch -> topProducts(branch, k).stream())
+                        .toList());
+    }
+
+    private static List<TopProductByBranch> topProducts(BranchEntry branch, int k) {
+        if (branch.getProducts().isEmpty()) {
+            return List.of(new TopProductByBranch(branch.getBranchId(), branch.getName(), null, null, 0));
+        }
+        return branch.getProducts().stream()
+                .sorted(BY_STOCK)
+                .limit(k)
+                .map(product -> new TopProductByBranch(branch.getBranchId(), branch.getName(),
+                        product.getProductId(), product.getName(), product.getStock()))
+                .toList();
+    }
+
+    @Override
+    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName, Long expectedVersion) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New franchise name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        Query query = versioned(Query.query(byFranchise(franchiseId).and("name").ne(cleanName)), expectedVersion);
+        query.fields().exclude(BRANCHES);
+        Update update = new Update().set("name", cleanName).set("updatedAt", Instant.now()).inc(VERSION, 1);
+
+        return template.findAndModify(query, update, RETURN_NEW, FranchiseTreeDocument.class)
+                .onErrorMap(DuplicateKeyException.class, e -> new IllegalStateException("Franchise name already exists"))
+                .switchIfEmpty(Mono.defer(() -> {
+                    Query current = Query.query(byFranchise(franchiseId));
+                    current.fields().exclude(BRANCHES);
+                    return template.findOne(current, FranchiseTreeDocument.class)
+                            .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
+                            .flatMap(franchise -> unchanged(franchise, franchise.getVersion(), expectedVersion));
+                }))
+                .map(this::toDomain);
+    }
+
+    @Override
+    public Mono<Branch> updateBranchName(String branchId, String newName, Long expectedVersion) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New branch name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        Criteria branch = where("branchId").is(branchId);
+        if (expectedVersion != null) {
+            branch = branch.and(VERSION).is(expectedVersion);
+        }
+        Instant now = Instant.now();
+        Query query = Query.query(where(BRANCHES).elemMatch(branch).and("branches.name").ne(cleanName));
+        query.fields().include(BRANCH_ID, "branches.name", "branches.createdAt", "branches.updatedAt", "branches.version");
+        Update update = new Update()
+                .set(BRANCH_PATH + "name", cleanName)
+                .set(BRANCH_PATH + "updatedAt", now)
+                .inc(BRANCH_PATH + VERSION, 1)
+                .filterArray(where("b.branchId").is(branchId));
+
+        return template.findAndModify(query, update, FranchiseTreeDocument.class)
+                .map(before -> {
+                    BranchEntry previous = branchOf(before, branchId);
+                    return toDomain(before.getId(), new BranchEntry(branchId, cleanName, previous.getCreatedAt(), now,
+                            previous.getVersion() + 1, List.of()));
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    Query current = Query.query(where(BRANCH_ID).is(branchId));
+                    current.fields().include(BRANCH_ID, "branches.name", "branches.createdAt", "branches.updatedAt",
+                            "branches.version");
+                    return template.findOne(current, FranchiseTreeDocument.class)
+                            .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")))
+                            .flatMap(tree -> {
+                                BranchEntry existing = branchOf(tree, branchId);
+                                if (existing.getName().equals(cleanName)) {
+                                    return unchanged(toDomain(tree.getId(), existing), existing.getVersion(), expectedVersion);
+                                }
+                                return Mono.<Branch>error(tree.getBranches().stream().anyMatch(other -> cleanName.equals(other.getName()))
+                                        ? new IllegalStateException("Branch name already exists for this franchise")
+                                        : new ConcurrentModificationException("Version does not match"));
+                            });
+                }));
+    }
+
+    @Override
+    public Mono<Product> updateProductName(String productId, String newName, Long expectedVersion) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New product name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        Criteria product = where("productId").is(productId);
+        if (expectedVersion != null) {
+            product = product.and(VERSION).is(expectedVersion);
+        }
+        Instant now = Instant.now();
+        Update update = productUpdate(productId, now).set(PRODUCT_PATH + "name", cleanName);
+
+        return writeProduct(productId, where("products").elemMatch(product).and("products.name").ne(cleanName), update, false,
+                        previous -> changed(previous, cleanName, previous.getStock(), now))
+                .switchIfEmpty(Mono.defer(() -> template.findOne(
+                                withProductBranch(Query.query(where(PRODUCT_ID).is(productId)), productId), FranchiseTreeDocument.class)
+                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")))
+                        .flatMap(tree -> {
+                            BranchEntry branch = matchedBranch(tree);
+                            ProductEntry existing = productOf(branch, productId);
+                            if (existing.getName().equals(cleanName)) {
+                                return unchanged(toDomain(branch.getBranchId(), existing), existing.getVersion(), expectedVersion);
+                            }
+                            return Mono.<Product>error(branch.getProducts().stream().anyMatch(other -> cleanName.equals(other.getName()))
+                                    ? new IllegalStateException("Product name already exists for this branch")
+                                    : new ConcurrentModificationException("Version does not match"));
+                        })));
+    }
+
+    @Override
+    public Mono<PageResult<Franchise>> listFranchises(String cursor, int limit) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Flux.defer(() -> {
+                    Query query = cursor == null
+                            ? new Query()
+                            : Query.query(where("_id").gt(MongoIds.toId(PageCursor.id(cursor))));
+                    query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit + 1);
+                    query.fields().exclude(BRANCHES);
+                    return template.find(query, FranchiseTreeDocument.class);
+                })
+                .map(this::toDomain)
+                .collectList()
+                .map(rows -> page(rows, limit, franchise -> PageCursor.ofId(franchise.getId())));
+    }
+
+    @Override
+    public Mono<PageResult<Branch>> listBranches(String franchiseId, String cursor, int limit) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Mono.defer(() -> {
+                    String after = cursor == null ? null : PageCursor.id(cursor);
+                    Query query = Query.query(byFranchise(franchiseId));
+                    query.fields().include(BRANCH_ID, "branches.name", "branches.createdAt", "branches.updatedAt",
+                            "branches.version");
+                    return template.findOne(query, FranchiseTreeDocument.class)
+                            .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
+                            .map(tree -> tree.getBranches().stream()
+                                    .filter(branch -> after == null || branch.getBranchId().compareTo(after) > 0)
+                                    .sorted(Comparator.comparing(BranchEntry::getBranchId))
+                                    .limit(limit + 1L)
+                                    .map(branch -> toDomain(tree.getId(), branch))
+                                    .toList());
+                })
+                .map(rows -> page(rows, limit, branch -> PageCursor.ofId(branch.getId())));
+    }
+
+    @Override
+    public Mono<PageResult<Product>> listProducts(String branchId, String cursor, int limit) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Mono.defer(() -> {
+                    PageCursor.StockKey after = cursor == null ? null : PageCursor.stockAndId(cursor);
+                    return template.findOne(withBranch(Query.query(where(BRANCH_ID).is(branchId)), branchId),
+                                    FranchiseTreeDocument.class)
+                            .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")))
+                            .map(tree -> matchedBranch(tree).getProducts().stream()
+                                    .filter(product -> after == null || product.getStock() < after.stock()
+                                            || (product.getStock() == after.stock()
+                                            && product.getProductId().compareTo(after.id()) > 0))
+                                    .sorted(BY_STOCK)
+                                    .limit(limit + 1L)
+                                    .map(product -> toDomain(branchId, product))
+                                    .toList());
+                })
+                .map(rows -> page(rows, limit, product -> PageCursor.ofStockAndId(product.getStock(), product.getId())));
+    }
+
+    private Mono<Product> writeProduct(String productId, Criteria branch, Update update, boolean stockChanged,
+                                       UnaryOperator<ProductEntry> change) {
+        Query query = withProductBranch(Query.query(where(BRANCHES).elemMatch(branch)), productId);
+        return template.findAndModify(query, update, FranchiseTreeDocument.class)
+                .map(before -> {
+                    BranchEntry previous = matchedBranch(before);
+                    ProductEntry saved = change.apply(productOf(previous, productId));
+                    if (stockChanged) {
+                        publish(StockEventType.STOCK_CHANGED, before.getId(), previous.getBranchId(), saved);
+                    }
+                    publishTopIfChanged(before.getId(), previous, withProducts(previous, previous.getProducts().stream()
+                            .map(product -> product.getProductId().equals(productId) ? saved : product)
+                            .toList()));
+                    return toDomain(previous.getBranchId(), saved);
+                });
+    }
+
+    private Mono<Boolean> productExists(String productId) {
+        return template.exists(Query.query(where(PRODUCT_ID).is(productId)), FranchiseTreeDocument.class);
+    }
+
+    private static Update productUpdate(String productId, Instant now) {
+        return new Update()
+                .set(PRODUCT_PATH + "updatedAt", now)
+                .inc(PRODUCT_PATH + VERSION, 1)
+                .filterArray(where("p.productId").is(productId));
+    }
+
+    private static ProductEntry changed(ProductEntry previous, String name, int stock, Instant now) {
+        return new ProductEntry(previous.getProductId(), name, stock, previous.getCreatedAt(), now, previous.getVersion() + 1);
+    }
+
+    private static Criteria byFranchise(String franchiseId) {
+        return where("_id").is(MongoIds.toId(franchiseId));
+    }
+
+    private static Query withBranch(Query query, String branchId) {
+        query.fields().elemMatch(BRANCHES, where("branchId").is(branchId));
+        return query;
+    }
+
+    private static Query withProductBranch(Query query, String productId) {
+        query.fields().elemMatch(BRANCHES, where("products.productId").is(productId));
+        return query;
+    }
+
+    private static BranchEntry matchedBranch(FranchiseTreeDocument tree) {
+        return tree.getBranches().get(0);
+    }
+
+    private static BranchEntry branchOf(FranchiseTreeDocument tree, String branchId) {
+        return tree.getBranches().stream()
+                .filter(branch -> branchId.equals(branch.getBranchId()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Branch not found"));
+    }
+
+    private static ProductEntry productOf(BranchEntry branch, String productId) {
+        return branch.getProducts().stream()
+                .filter(product -> productId.equals(product.getProductId()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+    }
+
+    private static BranchEntry withProducts(BranchEntry branch, List<ProductEntry> products) {
+        return new BranchEntry(branch.getBranchId(), branch.getName(), branch.getCreatedAt(), branch.getUpdatedAt(),
+                branch.getVersion(), products);
+    }
+
+    private void publishTopIfChanged(String franchiseId, BranchEntry before, BranchEntry after) {
+        TopProductByBranch previous = topProducts(before, 1).get(0);
+        TopProductByBranch current = topProducts(after, 1).get(0);
+        if (!Objects.equals(previous.getProductId(), current.getProductId())
+                || !Objects.equals(previous.getProductName(), current.getProductName())
+                || previous.getStock() != current.getStock()) {
+            events.publish(new StockEvent(StockEventType.TOP_PRODUCT_CHANGED, franchiseId, after.getBranchId(),
+                    current.getProductId(), current.getProductName(), current.getStock(), Instant.now()));
+        }
+    }
+
+    private void publish(StockEventType type, String franchiseId, String branchId, ProductEntry product) {
+        int stock = type == StockEventType.PRODUCT_REMOVED ? 0 : product.getStock();
+        events.publish(new StockEvent(type, franchiseId, branchId, product.getProductId(), product.getName(),
+                stock, Instant.now()));
+    }
+
+    private <T> PageResult<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageResult<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageResult<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String newId() {
+        return new ObjectId().toHexString();
+    }
+
+    private Franchise toDomain(FranchiseTreeDocument doc) {
+        return new Franchise(doc.getId(), doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt(), versionOf(doc.getVersion()));
+    }
+
+    private Branch toDomain(String franchiseId, BranchEntry branch) {
+        return new Branch(branch.getBranchId(), franchiseId, branch.getName(), branch.getCreatedAt(), branch.getUpdatedAt(),
+                branch.getVersion());
+    }
+
+    private Product toDomain(String branchId, ProductEntry product) {
+        return new Product(product.getProductId(), branchId, product.getName(), product.getStock(),
+                product.getCreatedAt(), product.getUpdatedAt(), product.getVersion());
+    }
+
+    private static final class TreeImport {
+        private String franchiseId;
+        private final Map<String, String> branchIds = new HashMap<>();
+        private final Set<String> productNames = new HashSet<>();
+    }
+}
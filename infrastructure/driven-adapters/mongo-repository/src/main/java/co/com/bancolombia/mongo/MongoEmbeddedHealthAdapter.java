@@ -0,0 +1,24 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.usecase.health.DbHealthPort;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb-embedded")
+public class MongoEmbeddedHealthAdapter implements DbHealthPort {
+
+    private final ReactiveMongoTemplate template;
+
+    public MongoEmbeddedHealthAdapter(ReactiveMongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return template.count(new Query(), FranchiseTreeDocument.class);
+    }
+}
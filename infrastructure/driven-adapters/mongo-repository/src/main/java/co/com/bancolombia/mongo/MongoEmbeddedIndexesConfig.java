@@ -0,0 +1,36 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb-embedded")
+public class MongoEmbeddedIndexesConfig {
+
+    @Bean
+    public ApplicationRunner mongoEmbeddedIndexesRunner(ReactiveMongoTemplate template,
+                                                        @Value("${db.mongodb.idempotency.ttl:PT24H}") Duration idempotencyTtl) {
+        return args -> ensureIndexes(template, idempotencyTtl).block();
+    }
+
+    public Mono<Void> ensureIndexes(ReactiveMongoTemplate template, Duration idempotencyTtl) {
+        return template.indexOps(FranchiseTreeDocument.class)
+                .ensureIndex(new Index().on("name", Sort.Direction.ASC).unique())
+                .then(template.indexOps(FranchiseTreeDocument.class)
+                        .ensureIndex(new Index().on("branches.branchId", Sort.Direction.ASC)))
+                .then(template.indexOps(FranchiseTreeDocument.class)
+                        .ensureIndex(new Index().on("branches.products.productId", Sort.Direction.ASC)))
+                .then(template.indexOps(IdempotencyDocument.class)
+                        .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(idempotencyTtl)))
+                .then();
+    }
+}
@@ -1,31 +1,89 @@
 package co.com.bancolombia.mongo;
 
 import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageCursor;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
 import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
 import co.com.bancolombia.model.franchise.Franchise;
 import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockEventGateway;
 import co.com.bancolombia.model.product.Product;
+import co.com.bancolombia.mongo.MongoIdFilters.Kind;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import static co.com.bancolombia.mongo.MongoVersions.VERSION;
+import static co.com.bancolombia.mongo.MongoVersions.unchanged;
+import static co.com.bancolombia.mongo.MongoVersions.versionOf;
+import static co.com.bancolombia.mongo.MongoVersions.versioned;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Repository
 @ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
 public class MongoFranchiseAdapter implements FranchiseGateway {
 
+    private static final int STOCK_BATCH_SIZE = 500;
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+
     private final FranchiseMongoRepository franchiseRepo;
     private final BranchMongoRepository branchRepo;
     private final ProductMongoRepository productRepo;
+    private final ReactiveMongoTemplate template;
+    private final BranchTopProductProjection topProducts;
+    private final StockEventGateway events;
+    private final FranchiseTreeImporter importer;
+    private final MongoIdFilters idFilters;
+    private final MongoCodecOperations documents;
 
     public MongoFranchiseAdapter(FranchiseMongoRepository franchiseRepo,
                                  BranchMongoRepository branchRepo,
-                                 ProductMongoRepository productRepo) {
+                                 ProductMongoRepository productRepo,
+                                 ReactiveMongoTemplate template,
+                                 BranchTopProductProjection topProducts,
+                                 StockEventGateway events,
+                                 FranchiseTreeImporter importer,
+                                 MongoIdFilters idFilters,
+                                 MongoCodecOperations documents) {
         this.franchiseRepo = franchiseRepo;
         this.branchRepo = branchRepo;
         this.productRepo = productRepo;
+        this.template = template;
+        this.topProducts = topProducts;
+        this.events = events;
+        this.importer = importer;
+        this.idFilters = idFilters;
+        this.documents = documents;
     }
 
     @Override
@@ -35,14 +93,20 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
             return Mono.error(new IllegalArgumentException("Franchise name must not be empty"));
         }
 
-        return franchiseRepo.existsByName(name.trim())
-                .flatMap(exists -> exists
-                        ? Mono.error(new IllegalStateException("Franchise name already exists"))
-                        : franchiseRepo.save(new FranchiseDocument(null, name.trim(), now, now))
-                )
+        FranchiseDocument franchise = new FranchiseDocument(MongoCodecOperations.newId(), name.trim(), now, now);
+        franchise.setVersion(0L);
+
+        return documents.insert(franchise, FranchiseDocument.class)
+                .onErrorMap(DuplicateKeyException.class, e -> new IllegalStateException("Franchise name already exists"))
+                .doOnNext(saved -> idFilters.created(Kind.FRANCHISE, saved.getId()))
                 .map(this::toDomain);
     }
 
+    @Override
+    public Flux<ImportResult> importFranchise(Flux<ImportRecord> records) {
+        return importer.importFranchise(records);
+    }
+
     @Override
     public Mono<Branch> addBranch(String franchiseId, String branchName) {
         Instant now = Instant.now();
@@ -52,18 +116,20 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
         if (branchName == null || branchName.isBlank()) {
             return Mono.error(new IllegalArgumentException("Branch name must not be empty"));
         }
+        if (idFilters.definitelyMissing(Kind.FRANCHISE, franchiseId)) {
+            return Mono.error(new IllegalArgumentException("Franchise not found"));
+        }
 
         String cleanName = branchName.trim();
 
         return franchiseRepo.existsById(franchiseId)
                 .flatMap(exists -> exists
-                        ? branchRepo.existsByFranchiseIdAndName(franchiseId, cleanName)
-                        : Mono.error(new IllegalArgumentException("Franchise not found"))
-                )
-                .flatMap(duplicate -> duplicate
-                        ? Mono.error(new IllegalStateException("Branch name already exists for this franchise"))
-                        : branchRepo.save(new BranchDocument(null, franchiseId, cleanName, now, now))
-                )
+                        ? documents.insert(newBranch(franchiseId, cleanName, now), BranchDocument.class)
+                                .onErrorMap(DuplicateKeyException.class,
+                                        e -> new IllegalStateException("Branch name already exists for this franchise"))
+                        : this.<BranchDocument>notFound(Kind.FRANCHISE, franchiseId, "Franchise not found"))
+                .doOnNext(saved -> idFilters.created(Kind.BRANCH, saved.getId()))
+                .flatMap(saved -> topProducts.branchSaved(saved).thenReturn(saved))
                 .map(this::toDomain);
     }
 
@@ -79,18 +145,25 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
         if (stock < 0) {
             return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
         }
+        if (idFilters.definitelyMissing(Kind.BRANCH, branchId)) {
+            return Mono.error(new IllegalArgumentException("Branch not found"));
+        }
 
         String cleanName = productName.trim();
 
-        return branchRepo.existsById(branchId)
-                .flatMap(exists -> exists
-                        ? productRepo.existsByBranchIdAndName(branchId, cleanName)
-                        : Mono.error(new IllegalArgumentException("Branch not found"))
-                )
-                .flatMap(duplicate -> duplicate
-                        ? Mono.error(new IllegalStateException("Product name already exists for this branch"))
-                        : productRepo.save(new ProductDocument(null, branchId, cleanName, stock, now, now))
-                )
+        Query branch = Query.query(where("_id").is(MongoIds.toId(branchId)));
+        branch.fields().include("franchiseId");
+
+        return template.findOne(branch, BranchDocument.class)
+                .switchIfEmpty(Mono.defer(() -> notFound(Kind.BRANCH, branchId, "Branch not found")))
+                .flatMap(parent -> documents.insert(newProduct(parent.getFranchiseId(), branchId, cleanName, stock, now),
+                                ProductDocument.class)
+                        .onErrorMap(DuplicateKeyException.class,
+                                e -> new IllegalStateException("Product name already exists for this branch")))
+                .doOnNext(saved -> idFilters.created(Kind.PRODUCT, saved.getId()))
+                .flatMap(saved -> topProducts.refreshBranch(saved.getBranchId())
+                        .doOnNext(franchiseId -> publish(StockEventType.STOCK_CHANGED, franchiseId, saved))
+                        .thenReturn(saved))
                 .map(this::toDomain);
     }
 
@@ -99,65 +172,278 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
         if (productId == null || productId.isBlank()) {
             return Mono.error(new IllegalArgumentException("Product id must not be empty"));
         }
+        if (idFilters.definitelyMissing(Kind.PRODUCT, productId)) {
+            return Mono.error(new IllegalArgumentException("Product not found"));
+        }
 
-        return productRepo.existsById(productId)
-                .flatMap(exists -> exists
-                        ? productRepo.deleteById(productId)
-                        : Mono.error(new IllegalArgumentException("Product not found"))
-                );
+        return template.findAndRemove(Query.query(where("_id").is(MongoIds.toId(productId))), ProductDocument.class)
+                .switchIfEmpty(Mono.defer(() -> notFound(Kind.PRODUCT, productId, "Product not found")))
+                .flatMap(removed -> topProducts.refreshBranch(removed.getBranchId())
+                        .doOnNext(franchiseId -> publish(StockEventType.PRODUCT_REMOVED, franchiseId, removed))
+                        .then());
     }
 
+    /**
+     * Removes the products first and the branch last, so a cascade that fails halfway can be retried: the
+     * branch only reports "not found" once nothing under it is left.
+     */
     @Override
-    public Mono<Product> updateProductStock(String productId, int newStock) {
-        Instant now = Instant.now();
+    public Mono<DeletionSummary> deleteBranch(String branchId) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        return deleteInBatches(where("branchId").is(branchId), ProductDocument.class)
+                .flatMap(products -> template.remove(Query.query(where("_id").is(branchId)), BranchTopProductDocument.class)
+                        .then(template.remove(Query.query(where("_id").is(MongoIds.toId(branchId))), BranchDocument.class))
+                        .flatMap(result -> result.getDeletedCount() == 0
+                                ? Mono.<DeletionSummary>error(new IllegalArgumentException("Branch not found"))
+                                : Mono.just(new DeletionSummary(0, 1, products))));
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteFranchise(String franchiseId) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+
+        return deleteBranchesOf(franchiseId)
+                .flatMap(summary -> template.remove(Query.query(where("franchiseId").is(franchiseId)), BranchTopProductDocument.class)
+                        .then(template.remove(Query.query(where("_id").is(MongoIds.toId(franchiseId))), FranchiseDocument.class))
+                        .flatMap(result -> result.getDeletedCount() == 0
+                                ? Mono.<DeletionSummary>error(new IllegalArgumentException("Franchise not found"))
+                                : Mono.just(new DeletionSummary(1, 0, 0).plus(summary))));
+    }
+
+    private Mono<DeletionSummary> deleteBranchesOf(String franchiseId) {
+        return nextBatchIds(where("franchiseId").is(franchiseId), BranchDocument.class)
+                .flatMap(ids -> {
+                    if (ids.isEmpty()) {
+                        return Mono.just(new DeletionSummary(0, 0, 0));
+                    }
+                    List<String> branchIds = ids.stream().map(String::valueOf).toList();
+                    return deleteInBatches(where("branchId").in(branchIds), ProductDocument.class)
+                            .flatMap(products -> template.remove(Query.query(where("_id").in(ids)), BranchDocument.class)
+                                    .map(result -> new DeletionSummary(0, result.getDeletedCount(), products)))
+                            .flatMap(batch -> ids.size() < DELETE_BATCH_SIZE
+                                    ? Mono.just(batch)
+                                    : deleteBranchesOf(franchiseId).map(batch::plus));
+                });
+    }
+
+    private Mono<Long> deleteInBatches(Criteria criteria, Class<?> entityClass) {
+        return nextBatchIds(criteria, entityClass)
+                .flatMap(ids -> ids.isEmpty()
+                        ? Mono.just(0L)
+                        : template.remove(Query.query(where("_id").in(ids)), entityClass)
+                                .map(DeleteResult::getDeletedCount)
+                                .flatMap(deleted -> ids.size() < DELETE_BATCH_SIZE
+                                        ? Mono.just(deleted)
+                                        : deleteInBatches(criteria, entityClass).map(rest -> deleted + rest)));
+    }
+
+    private Mono<List<Object>> nextBatchIds(Criteria criteria, Class<?> entityClass) {
+        Query batch = Query.query(criteria).limit(DELETE_BATCH_SIZE);
+        batch.fields().include("_id");
+        return template.find(batch, Document.class, template.getCollectionName(entityClass))
+                .map(doc -> doc.get("_id"))
+                .collectList();
+    }
+
+    @Override
+    public Mono<Product> findProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (idFilters.definitelyMissing(Kind.PRODUCT, productId)) {
+            return Mono.error(new IllegalArgumentException("Product not found"));
+        }
+
+        return documents.findOne(Query.query(where("_id").is(MongoIds.toId(productId))), ProductDocument.class)
+                .switchIfEmpty(Mono.defer(() -> notFound(Kind.PRODUCT, productId, "Product not found")))
+                .map(this::toDomain);
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String productId, int newStock, Long expectedVersion) {
         if (productId == null || productId.isBlank()) {
             return Mono.error(new IllegalArgumentException("Product id must not be empty"));
         }
         if (newStock < 0) {
             return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
         }
+        if (idFilters.definitelyMissing(Kind.PRODUCT, productId)) {
+            return Mono.error(new IllegalArgumentException("Product not found"));
+        }
+
+        Query query = versioned(Query.query(where("_id").is(MongoIds.toId(productId))), expectedVersion);
+        Update update = new Update().set("stock", newStock).set("updatedAt", Instant.now()).inc(VERSION, 1);
 
-        return productRepo.findById(productId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")))
-                .flatMap(doc -> productRepo.save(
-                        new ProductDocument(doc.getId(), doc.getBranchId(), doc.getName(), newStock, doc.getCreatedAt(), now)
-                ))
+        return documents.findAndModify(query, update, ProductDocument.class)
+                .switchIfEmpty(Mono.defer(() -> productRepo.existsById(productId)
+                        .flatMap(exists -> exists
+                                ? Mono.<ProductDocument>error(new ConcurrentModificationException("Version does not match"))
+                                : notFound(Kind.PRODUCT, productId, "Product not found"))))
+                .flatMap(saved -> topProducts.refreshBranch(saved.getBranchId())
+                        .doOnNext(franchiseId -> publish(StockEventType.STOCK_CHANGED, franchiseId, saved))
+                        .thenReturn(saved))
                 .map(this::toDomain);
     }
 
+    @Override
+    public Mono<Product> adjustProductStock(String productId, int delta) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (delta == 0) {
+            return Mono.error(new IllegalArgumentException("Delta must not be zero"));
+        }
+        if (idFilters.definitelyMissing(Kind.PRODUCT, productId)) {
+            return Mono.error(new IllegalArgumentException("Product not found"));
+        }
+
+        Criteria criteria = where("_id").is(MongoIds.toId(productId));
+        if (delta < 0) {
+            criteria = criteria.and("stock").gte(-(long) delta);
+        } else {
+            criteria = criteria.and("stock").lte((long) Integer.MAX_VALUE - delta);
+        }
+
+        return documents.findAndModify(Query.query(criteria),
+                        new Update().inc("stock", delta).set("updatedAt", Instant.now()).inc(VERSION, 1),
+                        ProductDocument.class)
+                .switchIfEmpty(Mono.defer(() -> productRepo.existsById(productId)
+                        .flatMap(exists -> exists
+                                ? Mono.<ProductDocument>error(new IllegalStateException(
+                                        delta < 0 ? "Insufficient stock" : "Stock limit exceeded"))
+                                : notFound(Kind.PRODUCT, productId, "Product not found"))))
+                .flatMap(saved -> topProducts.refreshBranch(saved.getBranchId())
+                        .doOnNext(franchiseId -> publish(StockEventType.STOCK_CHANGED, franchiseId, saved))
+                        .thenReturn(saved))
+                .map(this::toDomain);
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String branchId, Flux<StockUpdate> updates) {
+        if (branchId == null || branchId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (idFilters.definitelyMissing(Kind.BRANCH, branchId)) {
+            return Flux.error(new IllegalArgumentException("Branch not found"));
+        }
+
+        return branchRepo.existsById(branchId)
+                .flatMapMany(exists -> exists
+                        ? updates.buffer(STOCK_BATCH_SIZE).concatMap(batch -> applyStockBatch(branchId, batch))
+                        : this.<StockUpdateResult>notFound(Kind.BRANCH, branchId, "Branch not found").flux());
+    }
+
+    private Flux<StockUpdateResult> applyStockBatch(String branchId, List<StockUpdate> batch) {
+        Instant now = Instant.now();
+        Map<String, Integer> latest = latestById(batch, MongoIds::normalize);
+        if (latest.isEmpty()) {
+            return Flux.fromIterable(stockResults(batch, latest, Map.of()));
+        }
+
+        Query existing = Query.query(where("_id").in(latest.keySet().stream().map(MongoIds::toId).toList())
+                .and("branchId").is(branchId));
+        existing.fields().include("name");
+
+        return template.find(existing, ProductDocument.class)
+                .collectMap(ProductDocument::getId)
+                .flatMapMany(found -> {
+                    if (found.isEmpty()) {
+                        return Flux.fromIterable(stockResults(batch, latest, found));
+                    }
+                    ReactiveBulkOperations bulk = template.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDocument.class);
+                    latest.forEach((id, slot) -> {
+                        if (found.containsKey(id)) {
+                            bulk.updateOne(Query.query(where("_id").is(MongoIds.toId(id)).and("branchId").is(branchId)),
+                                    new Update().set("stock", batch.get(slot).getStock()).set("updatedAt", now).inc(VERSION, 1));
+                        }
+                    });
+                    return bulk.execute()
+                            .then(topProducts.refreshBranch(branchId))
+                            .doOnNext(franchiseId -> latest.forEach((id, slot) -> {
+                                if (found.containsKey(id)) {
+                                    publish(StockEventType.STOCK_CHANGED, franchiseId, new ProductDocument(
+                                            id, branchId, found.get(id).getName(), batch.get(slot).getStock(), null, now));
+                                }
+                            }))
+                            .thenMany(Flux.fromIterable(stockResults(batch, latest, found)));
+                });
+    }
+
+    /**
+     * Maps each product id of a batch to the position of its last valid update, so that only that
+     * update is written when a batch repeats a product.
+     */
+    static Map<String, Integer> latestById(List<StockUpdate> batch, UnaryOperator<String> normalize) {
+        Map<String, Integer> latest = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (invalidReason(batch.get(i)) == null) {
+                latest.put(normalize.apply(batch.get(i).getProductId()), i);
+            }
+        }
+        return latest;
+    }
+
+    private List<StockUpdateResult> stockResults(List<StockUpdate> batch, Map<String, Integer> latest,
+                                                 Map<String, ProductDocument> found) {
+        return IntStream.range(0, batch.size())
+                .mapToObj(i -> stockResult(batch.get(i), i, MongoIds::normalize, latest, found::containsKey))
+                .toList();
+    }
+
+    static StockUpdateResult stockResult(StockUpdate update, int slot, UnaryOperator<String> normalize,
+                                         Map<String, Integer> latest, Predicate<String> written) {
+        String invalid = invalidReason(update);
+        if (invalid != null) {
+            return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.INVALID, invalid);
+        }
+        String id = normalize.apply(update.getProductId());
+        if (latest.get(id) != slot) {
+            return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.SUPERSEDED,
+                    "Superseded by a later update of the same product");
+        }
+        return written.test(id)
+                ? new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.UPDATED, null)
+                : new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.NOT_FOUND, "Product not found");
+    }
+
+    static String invalidReason(StockUpdate update) {
+        if (update.getProductId() == null || update.getProductId().isBlank()) {
+            return "Product id must not be empty";
+        }
+        if (update.getStock() == null || update.getStock() < 0) {
+            return "Stock must be >= 0";
+        }
+        return null;
+    }
+
     @Override
     public Flux<TopProductByBranch> topProductByBranch(String franchiseId) {
         if (franchiseId == null || franchiseId.isBlank()) {
             return Flux.error(new IllegalArgumentException("Franchise id must not be empty"));
         }
 
-        return franchiseRepo.existsById(franchiseId)
-                .flatMapMany(exists -> exists
-                        ? branchRepo.findAllByFranchiseId(franchiseId)
-                        : Flux.error(new IllegalArgumentException("Franchise not found"))
-                )
-                .flatMap(branchDoc ->
-                        productRepo.findFirstByBranchIdOrderByStockDesc(branchDoc.getId())
-                                .map(prod -> new TopProductByBranch(
-                                        branchDoc.getId(),
-                                        branchDoc.getName(),
-                                        prod.getId(),
-                                        prod.getName(),
-                                        prod.getStock() == null ? 0 : prod.getStock()
-                                ))
-                                .switchIfEmpty(Mono.just(new TopProductByBranch(
-                                        branchDoc.getId(),
-                                        branchDoc.getName(),
-                                        null,
-                                        null,
-                                        0
-                                )))
-                );
-    }
-
-    @Override
-    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName) {
-        Instant now = Instant.now();
+        return topProducts.topProductByBranch(franchiseId);
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (k < 1) {
+            return Flux.error(new IllegalArgumentException("k must be greater than zero"));
+        }
+
+        return topProducts.topProductsByBranch(franchiseId, k);
+    }
+
+    @Override
+    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName, Long expectedVersion) {
         if (franchiseId == null || franchiseId.isBlank()) {
             return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
         }
@@ -167,25 +453,16 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
 
         String cleanName = newName.trim();
 
-        return franchiseRepo.findById(franchiseId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
-                .flatMap(existing ->
-                        franchiseRepo.existsByName(cleanName)
-                                .flatMap(dup -> {
-                                    if (existing.getName() != null && existing.getName().equals(cleanName)) {
-                                        return franchiseRepo.save(new FranchiseDocument(existing.getId(), cleanName, existing.getCreatedAt(), now));
-                                    }
-                                    return dup
-                                            ? Mono.error(new IllegalStateException("Franchise name already exists"))
-                                            : franchiseRepo.save(new FranchiseDocument(existing.getId(), cleanName, existing.getCreatedAt(), now));
-                                })
-                )
+        return template.findAndModify(renameQuery(franchiseId, cleanName, expectedVersion), rename(cleanName), RETURN_NEW, FranchiseDocument.class)
+                .onErrorMap(DuplicateKeyException.class, e -> new IllegalStateException("Franchise name already exists"))
+                .switchIfEmpty(Mono.defer(() -> franchiseRepo.findById(franchiseId)
+                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
+                        .flatMap(current -> unchanged(current, current.getVersion(), expectedVersion))))
                 .map(this::toDomain);
     }
 
     @Override
-    public Mono<Branch> updateBranchName(String branchId, String newName) {
-        Instant now = Instant.now();
+    public Mono<Branch> updateBranchName(String branchId, String newName, Long expectedVersion) {
         if (branchId == null || branchId.isBlank()) {
             return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
         }
@@ -195,25 +472,18 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
 
         String cleanName = newName.trim();
 
-        return branchRepo.findById(branchId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")))
-                .flatMap(existing ->
-                        branchRepo.existsByFranchiseIdAndName(existing.getFranchiseId(), cleanName)
-                                .flatMap(dup -> {
-                                    if (existing.getName() != null && existing.getName().equals(cleanName)) {
-                                        return branchRepo.save(new BranchDocument(existing.getId(), existing.getFranchiseId(), cleanName, existing.getCreatedAt(), now));
-                                    }
-                                    return dup
-                                            ? Mono.error(new IllegalStateException("Branch name already exists for this franchise"))
-                                            : branchRepo.save(new BranchDocument(existing.getId(), existing.getFranchiseId(), cleanName, existing.getCreatedAt(), now));
-                                })
-                )
+        return template.findAndModify(renameQuery(branchId, cleanName, expectedVersion), rename(cleanName), RETURN_NEW, BranchDocument.class)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new IllegalStateException("Branch name already exists for this franchise"))
+                .flatMap(saved -> topProducts.branchSaved(saved).thenReturn(saved))
+                .switchIfEmpty(Mono.defer(() -> branchRepo.findById(branchId)
+                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")))
+                        .flatMap(current -> unchanged(current, current.getVersion(), expectedVersion))))
                 .map(this::toDomain);
     }
 
     @Override
-    public Mono<Product> updateProductName(String productId, String newName) {
-        Instant now = Instant.now();
+    public Mono<Product> updateProductName(String productId, String newName, Long expectedVersion) {
         if (productId == null || productId.isBlank()) {
             return Mono.error(new IllegalArgumentException("Product id must not be empty"));
         }
@@ -223,32 +493,143 @@ public class MongoFranchiseAdapter implements FranchiseGateway {
 
         String cleanName = newName.trim();
 
-        return productRepo.findById(productId)
-                .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")))
-                .flatMap(existing ->
-                        productRepo.existsByBranchIdAndName(existing.getBranchId(), cleanName)
-                                .flatMap(dup -> {
-                                    if (existing.getName() != null && existing.getName().equals(cleanName)) {
-                                        return productRepo.save(new ProductDocument(existing.getId(), existing.getBranchId(), cleanName, existing.getStock(), existing.getCreatedAt(), now));
-                                    }
-                                    return dup
-                                            ? Mono.error(new IllegalStateException("Product name already exists for this branch"))
-                                            : productRepo.save(new ProductDocument(existing.getId(), existing.getBranchId(), cleanName, existing.getStock(), existing.getCreatedAt(), now));
-                                })
-                )
+        return template.findAndModify(renameQuery(productId, cleanName, expectedVersion), rename(cleanName), RETURN_NEW, ProductDocument.class)
+                .onErrorMap(DuplicateKeyException.class,
+                        e -> new IllegalStateException("Product name already exists for this branch"))
+                .flatMap(saved -> topProducts.refreshBranch(saved.getBranchId()).thenReturn(saved))
+                .switchIfEmpty(Mono.defer(() -> productRepo.findById(productId)
+                        .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")))
+                        .flatMap(current -> unchanged(current, current.getVersion(), expectedVersion))))
                 .map(this::toDomain);
     }
 
+    private Query renameQuery(String id, String name, Long expectedVersion) {
+        return versioned(Query.query(where("_id").is(MongoIds.toId(id)).and("name").ne(name)), expectedVersion);
+    }
+
+    private Update rename(String name) {
+        return new Update().set("name", name).set("updatedAt", Instant.now()).inc(VERSION, 1);
+    }
+
+    @Override
+    public Mono<PageResult<Franchise>> listFranchises(String cursor, int limit) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Flux.defer(() -> documents.find(idPage(new Query(), cursor, limit), FranchiseDocument.class))
+                .map(this::toDomain)
+                .collectList()
+                .map(rows -> page(rows, limit, franchise -> PageCursor.ofId(franchise.getId())));
+    }
+
+    @Override
+    public Mono<PageResult<Branch>> listBranches(String franchiseId, String cursor, int limit) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        Mono<PageResult<Branch>> page = Flux.defer(() -> documents.find(
+                        idPage(Query.query(where("franchiseId").is(franchiseId)), cursor, limit), BranchDocument.class))
+                .map(this::toDomain)
+                .collectList()
+                .map(rows -> page(rows, limit, branch -> PageCursor.ofId(branch.getId())));
+
+        if (cursor != null) {
+            return page;
+        }
+        return franchiseRepo.existsById(franchiseId)
+                .flatMap(exists -> exists
+                        ? page
+                        : Mono.error(new IllegalArgumentException("Franchise not found")));
+    }
+
+    @Override
+    public Mono<PageResult<Product>> listProducts(String branchId, String cursor, int limit) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        Mono<PageResult<Product>> page = Flux.defer(() -> {
+                    Criteria criteria = where("branchId").is(branchId);
+                    if (cursor != null) {
+                        PageCursor.StockKey after = PageCursor.stockAndId(cursor);
+                        criteria = criteria.orOperator(where("stock").lt(after.stock()),
+                                where("stock").is(after.stock()).and("_id").gt(MongoIds.toId(after.id())));
+                    }
+                    return documents.find(Query.query(criteria)
+                            .with(Sort.by(Sort.Order.desc("stock"), Sort.Order.asc("_id")))
+                            .limit(limit + 1), ProductDocument.class);
+                })
+                .map(this::toDomain)
+                .collectList()
+                .map(rows -> page(rows, limit, product -> PageCursor.ofStockAndId(product.getStock(), product.getId())));
+
+        if (cursor != null) {
+            return page;
+        }
+        return branchRepo.existsById(branchId)
+                .flatMap(exists -> exists
+                        ? page
+                        : Mono.error(new IllegalArgumentException("Branch not found")));
+    }
+
+    private Query idPage(Query query, String cursor, int limit) {
+        if (cursor != null) {
+            query.addCriteria(where("_id").gt(MongoIds.toId(PageCursor.id(cursor))));
+        }
+        return query.with(Sort.by("_id")).limit(limit + 1);
+    }
+
+    private <T> PageResult<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageResult<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageResult<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    private <T> Mono<T> notFound(Kind kind, String id, String message) {
+        idFilters.notFound(kind, id);
+        return Mono.error(new IllegalArgumentException(message));
+    }
+
+    private static BranchDocument newBranch(String franchiseId, String name, Instant now) {
+        BranchDocument branch = new BranchDocument(MongoCodecOperations.newId(), franchiseId, name, now, now);
+        branch.setVersion(0L);
+        return branch;
+    }
+
+    private static ProductDocument newProduct(String franchiseId, String branchId, String name, int stock, Instant now) {
+        ProductDocument product = new ProductDocument(MongoCodecOperations.newId(), franchiseId, branchId, name, stock, now, now);
+        product.setVersion(0L);
+        return product;
+    }
+
+    private void publish(StockEventType type, String franchiseId, ProductDocument product) {
+        int stock = type == StockEventType.PRODUCT_REMOVED || product.getStock() == null ? 0 : product.getStock();
+        events.publish(new StockEvent(type, franchiseId, product.getBranchId(), product.getId(), product.getName(),
+                stock, Instant.now()));
+    }
+
     private Franchise toDomain(FranchiseDocument doc) {
-        return new Franchise(doc.getId(), doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt());
+        return new Franchise(doc.getId(), doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt(), versionOf(doc.getVersion()));
     }
 
     private Branch toDomain(BranchDocument doc) {
-        return new Branch(doc.getId(), doc.getFranchiseId(), doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt());
+        return new Branch(doc.getId(), doc.getFranchiseId(), doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt(),
+                versionOf(doc.getVersion()));
     }
 
     private Product toDomain(ProductDocument doc) {
         int st = doc.getStock() == null ? 0 : doc.getStock();
-        return new Product(doc.getId(), doc.getBranchId(), doc.getName(), st, doc.getCreatedAt(), doc.getUpdatedAt());
+        return new Product(doc.getId(), doc.getBranchId(), doc.getName(), st, doc.getCreatedAt(), doc.getUpdatedAt(),
+                versionOf(doc.getVersion()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class MongoIdFilterRebuildJob {
+
+    private final MongoIdFilters idFilters;
+
+    public MongoIdFilterRebuildJob(MongoIdFilters idFilters) {
+        this.idFilters = idFilters;
+    }
+
+    @Scheduled(initialDelayString = "${db.mongodb.id-filters.rebuild-initial-delay:PT0S}",
+            fixedDelayString = "${db.mongodb.id-filters.rebuild-interval:PT15M}")
+    public Mono<Void> rebuild() {
+        return idFilters.rebuild();
+    }
+}
@@ -0,0 +1,200 @@
+package co.com.bancolombia.mongo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bloom filters over the franchise, branch and product ids, used to answer "not found" without a round trip.
+ * <p>
+ * A filter only vouches for ids it could have seen: it is rebuilt by streaming every id of its collection, and an
+ * {@link ObjectId} generated after that stream started (minus {@code clock-skew}) may come from another instance,
+ * so it is always looked up in MongoDB. Until the first rebuild finishes nothing is rejected. Deleted ids keep
+ * answering "maybe" until the next rebuild; they show up as false positives.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class MongoIdFilters {
+
+    static final String LOOKUPS_METRIC = "mongodb.id.filter.lookups";
+    static final String FALSE_POSITIVE_RATE_METRIC = "mongodb.id.filter.false.positive.rate";
+    static final String SIZE_METRIC = "mongodb.id.filter.size";
+
+    public enum Kind {
+        FRANCHISE(FranchiseDocument.class),
+        BRANCH(BranchDocument.class),
+        PRODUCT(ProductDocument.class);
+
+        private final Class<?> document;
+
+        Kind(Class<?> document) {
+            this.document = document;
+        }
+    }
+
+    private final ReactiveMongoTemplate template;
+    private final double falsePositiveRate;
+    private final long initialCapacity;
+    private final Duration clockSkew;
+    private final Clock clock;
+    private final Map<Kind, Slot> slots = new EnumMap<>(Kind.class);
+
+    @Autowired
+    public MongoIdFilters(ReactiveMongoTemplate template,
+                          MeterRegistry registry,
+                          @Value("${db.mongodb.id-filters.false-positive-rate:0.01}") double falsePositiveRate,
+                          @Value("${db.mongodb.id-filters.initial-capacity:100000}") long initialCapacity,
+                          @Value("${db.mongodb.id-filters.clock-skew:PT5S}") Duration clockSkew) {
+        this(template, registry, falsePositiveRate, initialCapacity, clockSkew, Clock.systemUTC());
+    }
+
+    MongoIdFilters(ReactiveMongoTemplate template,
+                   MeterRegistry registry,
+                   double falsePositiveRate,
+                   long initialCapacity,
+                   Duration clockSkew,
+                   Clock clock) {
+        this.template = template;
+        this.falsePositiveRate = falsePositiveRate;
+        this.initialCapacity = initialCapacity;
+        this.clockSkew = clockSkew;
+        this.clock = clock;
+        for (Kind kind : Kind.values()) {
+            Slot slot = new Slot(registry, kind);
+            slots.put(kind, slot);
+            Gauge.builder(FALSE_POSITIVE_RATE_METRIC, slot, Slot::estimatedFalsePositiveRate)
+                    .description("False positive rate implied by the bits set in the id filter")
+                    .tag("kind", slot.tag)
+                    .register(registry);
+            Gauge.builder(SIZE_METRIC, slot, Slot::size)
+                    .description("Ids added to the id filter since its last rebuild")
+                    .tag("kind", slot.tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Returns {@code true} only when {@code id} cannot exist: the filter covers it and has never seen it.
+     */
+    public boolean definitelyMissing(Kind kind, String id) {
+        Slot slot = slots.get(kind);
+        Built built = slot.built;
+        if (built != null && built.covers(id) && !built.filter.mightContain(key(id))) {
+            slot.rejected.increment();
+            return true;
+        }
+        slot.passed.increment();
+        return false;
+    }
+
+    public void created(Kind kind, String id) {
+        Built built = slots.get(kind).built;
+        if (built != null) {
+            built.filter.add(key(id));
+        }
+    }
+
+    /**
+     * Records that MongoDB did not find an id the filter let through, which is a false positive when the filter
+     * covered it.
+     */
+    public void notFound(Kind kind, String id) {
+        Slot slot = slots.get(kind);
+        Built built = slot.built;
+        if (built != null && built.covers(id)) {
+            slot.falsePositives.increment();
+        }
+    }
+
+    public Mono<Void> rebuild() {
+        return Flux.fromArray(Kind.values())
+                .concatMap(this::rebuild)
+                .then();
+    }
+
+    Mono<Void> rebuild(Kind kind) {
+        return Mono.defer(() -> {
+            Slot slot = slots.get(kind);
+            long coveredUntil = clock.instant().minus(clockSkew).getEpochSecond();
+            Built current = slot.built;
+            ScalableBloomFilter next = new ScalableBloomFilter(
+                    Math.max(initialCapacity, current == null ? 0 : current.filter.size()), falsePositiveRate);
+            Query ids = new Query();
+            ids.fields().include("_id");
+            return template.find(ids, Document.class, template.getCollectionName(kind.document))
+                    .doOnNext(doc -> next.add(String.valueOf(doc.get("_id"))))
+                    .then(Mono.fromRunnable(() -> {
+                        slot.built = new Built(next, coveredUntil);
+                        log.info("Rebuilt {} id filter with {} ids", slot.tag, next.size());
+                    }))
+                    .onErrorResume(e -> {
+                        log.warn("Could not rebuild {} id filter, keeping the previous one", slot.tag, e);
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    private static String key(String id) {
+        return ObjectId.isValid(id) ? id.toLowerCase(Locale.ROOT) : id;
+    }
+
+    private record Built(ScalableBloomFilter filter, long coveredUntil) {
+
+        private boolean covers(String id) {
+            return !ObjectId.isValid(id) || new ObjectId(id).getTimestamp() < coveredUntil;
+        }
+    }
+
+    private static final class Slot {
+
+        private final String tag;
+        private final Counter rejected;
+        private final Counter passed;
+        private final Counter falsePositives;
+        private volatile Built built;
+
+        private Slot(MeterRegistry registry, Kind kind) {
+            this.tag = kind.name().toLowerCase(Locale.ROOT);
+            this.rejected = lookups(registry, "rejected");
+            this.passed = lookups(registry, "passed");
+            this.falsePositives = lookups(registry, "false_positive");
+        }
+
+        private Counter lookups(MeterRegistry registry, String result) {
+            return Counter.builder(LOOKUPS_METRIC)
+                    .description("Id lookups answered by the id filter")
+                    .tag("kind", tag)
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        private double estimatedFalsePositiveRate() {
+            Built current = built;
+            return current == null ? 0 : current.filter.estimatedFalsePositiveRate();
+        }
+
+        private double size() {
+            Built current = built;
+            return current == null ? 0 : current.filter.size();
+        }
+    }
+}
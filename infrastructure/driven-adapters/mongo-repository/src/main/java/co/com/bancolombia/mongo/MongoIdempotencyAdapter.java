@@ -0,0 +1,51 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Repository
+@ConditionalOnExpression("'${db.provider:}'.startsWith('mongodb')")
+public class MongoIdempotencyAdapter implements IdempotencyGateway {
+
+    private final ReactiveMongoTemplate template;
+    private final Duration ttl;
+
+    public MongoIdempotencyAdapter(ReactiveMongoTemplate template,
+                                   @Value("${db.mongodb.idempotency.ttl:PT24H}") Duration ttl) {
+        this.template = template;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Mono<IdempotentResponse> find(String key) {
+        // The TTL monitor only runs once a minute, so expired keys may still be on disk.
+        Instant oldest = Instant.now().minus(ttl);
+        return template.findById(key, IdempotencyDocument.class)
+                .filter(doc -> doc.getCreatedAt() != null && doc.getCreatedAt().isAfter(oldest))
+                .map(this::toDomain);
+    }
+
+    @Override
+    public Mono<IdempotentResponse> saveIfAbsent(String key, IdempotentResponse response) {
+        IdempotencyDocument doc = new IdempotencyDocument(key, response.getStatus(), response.getEtag(),
+                response.getBody(), response.getRequestHash(), Instant.now());
+        return template.insert(doc)
+                .map(this::toDomain)
+                .onErrorResume(DuplicateKeyException.class, e -> template.findById(key, IdempotencyDocument.class)
+                        .map(this::toDomain)
+                        .defaultIfEmpty(response));
+    }
+
+    private IdempotentResponse toDomain(IdempotencyDocument doc) {
+        return new IdempotentResponse(doc.getStatus(), doc.getEtag(), doc.getBody(), doc.getRequestHash());
+    }
+}
@@ -0,0 +1,22 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.types.ObjectId;
+
+import java.util.Locale;
+
+final class MongoIds {
+
+    private MongoIds() {
+    }
+
+    static Object toId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    /**
+     * The form an id is read back in: hex ObjectIds come back lower-case.
+     */
+    static String normalize(String id) {
+        return ObjectId.isValid(id) ? id.toLowerCase(Locale.ROOT) : id;
+    }
+}
@@ -1,5 +1,7 @@
 package co.com.bancolombia.mongo;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,16 +10,24 @@ import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 @Configuration
 @ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
 public class MongoIndexesConfig {
 
     @Bean
-    public Mono<Void> ensureIndexes(ReactiveMongoTemplate template) {
+    public ApplicationRunner mongoIndexesRunner(ReactiveMongoTemplate template,
+                                                @Value("${db.mongodb.idempotency.ttl:PT24H}") Duration idempotencyTtl) {
+        return args -> ensureIndexes(template, idempotencyTtl).block();
+    }
+
+    public Mono<Void> ensureIndexes(ReactiveMongoTemplate template, Duration idempotencyTtl) {
         return template.indexOps(FranchiseDocument.class)
                 .ensureIndex(new Index().on("name", Sort.Direction.ASC).unique())
                 .then(template.indexOps(BranchDocument.class)
-                        .ensureIndex(new Index().on("franchiseId", Sort.Direction.ASC)))
+                        .ensureIndex(new Index().on("franchiseId", Sort.Direction.ASC)
+                                .on("_id", Sort.Direction.ASC)))
                 .then(template.indexOps(BranchDocument.class)
                         .ensureIndex(new Index().on("franchiseId", Sort.Direction.ASC)
                                 .on("name", Sort.Direction.ASC).unique()))
@@ -28,7 +38,17 @@ public class MongoIndexesConfig {
                                 .on("name", Sort.Direction.ASC).unique()))
                 .then(template.indexOps(ProductDocument.class)
                         .ensureIndex(new Index().on("branchId", Sort.Direction.ASC)
-                                .on("stock", Sort.Direction.DESC)))
+                                .on("stock", Sort.Direction.DESC)
+                                .on("_id", Sort.Direction.ASC)))
+                .then(template.indexOps(ProductDocument.class)
+                        .ensureIndex(new Index().on("franchiseId", Sort.Direction.ASC)
+                                .on("branchId", Sort.Direction.ASC)
+                                .on("stock", Sort.Direction.DESC)
+                                .on("_id", Sort.Direction.ASC)))
+                .then(template.indexOps(BranchTopProductDocument.class)
+                        .ensureIndex(new Index().on("franchiseId", Sort.Direction.ASC)))
+                .then(template.indexOps(IdempotencyDocument.class)
+                        .ensureIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(idempotencyTtl)))
                 .then();
     }
 }
\ No newline at end of file
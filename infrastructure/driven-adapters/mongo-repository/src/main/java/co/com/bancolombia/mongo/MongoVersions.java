@@ -0,0 +1,36 @@
+package co.com.bancolombia.mongo;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Mono;
+
+import java.util.ConcurrentModificationException;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+final class MongoVersions {
+
+    static final String VERSION = "version";
+
+    private MongoVersions() {
+    }
+
+    static Query versioned(Query query, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return query;
+        }
+        return query.addCriteria(expectedVersion == 0
+                ? new Criteria().orOperator(where(VERSION).is(0L), where(VERSION).exists(false))
+                : where(VERSION).is(expectedVersion));
+    }
+
+    static <T> Mono<T> unchanged(T current, Long currentVersion, Long expectedVersion) {
+        return expectedVersion == null || expectedVersion == versionOf(currentVersion)
+                ? Mono.just(current)
+                : Mono.error(new ConcurrentModificationException("Version does not match"));
+    }
+
+    static long versionOf(Long version) {
+        return version == null ? 0 : version;
+    }
+}
@@ -1,6 +1,7 @@
 package co.com.bancolombia.mongo;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -11,6 +12,7 @@ public class ProductDocument {
     @Id
     private String id;
 
+    private String franchiseId;
     private String branchId;
     private String name;
     private Integer stock;
@@ -18,10 +20,19 @@ public class ProductDocument {
     private Instant createdAt;
     private Instant updatedAt;
 
+    @Version
+    private Long version;
+
     public ProductDocument() {}
 
     public ProductDocument(String id, String branchId, String name, Integer stock, Instant createdAt, Instant updatedAt) {
+        this(id, null, branchId, name, stock, createdAt, updatedAt);
+    }
+
+    public ProductDocument(String id, String franchiseId, String branchId, String name, Integer stock,
+                           Instant createdAt, Instant updatedAt) {
         this.id = id;
+        this.franchiseId = franchiseId;
         this.branchId = branchId;
         this.name = name;
         this.stock = stock;
@@ -30,16 +41,20 @@ public class ProductDocument {
     }
 
     public String getId() { return id; }
+    public String getFranchiseId() { return franchiseId; }
     public String getBranchId() { return branchId; }
     public String getName() { return name; }
     public Integer getStock() { return stock; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
 
     public void setId(String id) { this.id = id; }
+    public void setFranchiseId(String franchiseId) { this.franchiseId = franchiseId; }
     public void setBranchId(String branchId) { this.branchId = branchId; }
     public void setName(String name) { this.name = name; }
     public void setStock(Integer stock) { this.stock = stock; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readId;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readInstant;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readInteger;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readLong;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.readString;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeId;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeInstant;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeInteger;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeLong;
+import static co.com.bancolombia.mongo.MongoDocumentCodecs.writeString;
+
+final class ProductDocumentCodec implements Codec<ProductDocument> {
+
+    @Override
+    public void encode(BsonWriter writer, ProductDocument value, EncoderContext context) {
+        writer.writeStartDocument();
+        writeId(writer, value.getId());
+        writeString(writer, "franchiseId", value.getFranchiseId());
+        writeString(writer, "branchId", value.getBranchId());
+        writeString(writer, "name", value.getName());
+        writeInteger(writer, "stock", value.getStock());
+        writeInstant(writer, "createdAt", value.getCreatedAt());
+        writeInstant(writer, "updatedAt", value.getUpdatedAt());
+        writeLong(writer, "version", value.getVersion());
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public ProductDocument decode(BsonReader reader, DecoderContext context) {
+        ProductDocument doc = new ProductDocument();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> doc.setId(readId(reader));
+                case "franchiseId" -> doc.setFranchiseId(readString(reader));
+                case "branchId" -> doc.setBranchId(readString(reader));
+                case "name" -> doc.setName(readString(reader));
+                case "stock" -> doc.setStock(readInteger(reader));
+                case "createdAt" -> doc.setCreatedAt(readInstant(reader));
+                case "updatedAt" -> doc.setUpdatedAt(readInstant(reader));
+                case "version" -> doc.setVersion(readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return doc;
+    }
+
+    @Override
+    public Class<ProductDocument> getEncoderClass() {
+        return ProductDocument.class;
+    }
+}
@@ -0,0 +1,78 @@
+package co.com.bancolombia.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class ProductFranchiseBackfill implements ApplicationRunner {
+
+    private final ReactiveMongoTemplate template;
+    private final Duration interval;
+    private volatile boolean complete;
+
+    public ProductFranchiseBackfill(ReactiveMongoTemplate template,
+                                    @Value("${db.mongodb.backfill.interval:PT1M}") Duration interval) {
+        this.template = template;
+        this.interval = interval;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfillUntilDone().subscribe(
+                updated -> log.info("franchiseId backfill complete, {} products updated", updated),
+                e -> log.warn("franchiseId backfill stopped, it will resume on the next start: {}", e.getMessage()));
+    }
+
+    /**
+     * True once a pass found no product left to update. Until then, products written without a
+     * franchiseId (including by instances still on the previous version) are only reachable by branchId.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    Mono<Long> backfillUntilDone() {
+        return Mono.defer(this::backfill)
+                .repeatWhen(passes -> passes.delayElements(interval))
+                .takeUntil(updated -> updated == 0)
+                .reduce(0L, Long::sum)
+                .doOnSuccess(updated -> complete = true);
+    }
+
+    /**
+     * Writes through the collection name rather than {@link ProductDocument}, so the mapped
+     * {@code @Version} is left alone and the products' ETags do not change.
+     */
+    public Mono<Long> backfill() {
+        return template.findDistinct(Query.query(where("franchiseId").exists(false)), "branchId",
+                        ProductDocument.class, String.class)
+                .concatMap(branchId -> template.findOne(branchQuery(branchId), Document.class, TopProductAggregation.BRANCHES)
+                        .flatMap(branch -> template.updateMulti(
+                                Query.query(where("branchId").is(branchId).and("franchiseId").exists(false)),
+                                new Update().set("franchiseId", branch.getString("franchiseId")),
+                                TopProductAggregation.PRODUCTS))
+                        .map(result -> result.getModifiedCount()))
+                .reduce(0L, Long::sum);
+    }
+
+    private static Query branchQuery(String branchId) {
+        Query query = Query.query(where("_id").is(MongoIds.toId(branchId)));
+        query.fields().include("franchiseId");
+        return query;
+    }
+}
@@ -11,6 +11,4 @@ public interface ProductMongoRepository extends
 
     Flux<ProductDocument> findAllByBranchId(String branchId);
     Mono<Boolean> existsByBranchIdAndName(String branchId, String name);
-
-    Mono<ProductDocument> findFirstByBranchIdOrderByStockDesc(String branchId);
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package co.com.bancolombia.mongo;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter that grows instead of degrading: when the newest slice reaches its capacity a slice twice as large
+ * with half the false positive rate is appended, so the combined rate stays under the configured one however many
+ * ids are added. Safe for concurrent adds and lookups; there is no removal, a filter is rebuilt instead.
+ */
+final class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+    private static final double LN2 = Math.log(2);
+
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+    private final AtomicLong size = new AtomicLong();
+
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        slices.add(new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        if (mightContain(hash)) {
+            return;
+        }
+        Slice newest = slices.get(slices.size() - 1);
+        newest.add(hash);
+        size.incrementAndGet();
+        if (newest.count.incrementAndGet() >= newest.capacity) {
+            grow(newest);
+        }
+    }
+
+    boolean mightContain(String value) {
+        return mightContain(hash(value));
+    }
+
+    /**
+     * Number of distinct values added, give or take the values a false positive made look like duplicates.
+     */
+    long size() {
+        return size.get();
+    }
+
+    /**
+     * False positive rate implied by how many bits are currently set in each slice.
+     */
+    double estimatedFalsePositiveRate() {
+        double allMiss = 1;
+        for (Slice slice : slices) {
+            allMiss *= 1 - slice.estimatedFalsePositiveRate();
+        }
+        return 1 - allMiss;
+    }
+
+    private boolean mightContain(long hash) {
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void grow(Slice full) {
+        if (slices.get(slices.size() - 1) == full) {
+            slices.add(new Slice(full.capacity * GROWTH, full.falsePositiveRate * TIGHTENING));
+        }
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Slice {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bits;
+        private final int hashes;
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Slice(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimal = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            this.bits = Math.max(Long.SIZE, (optimal + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+            this.words = new AtomicLongArray(Math.toIntExact(bits / Long.SIZE));
+        }
+
+        private void add(long hash) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = index(hash, i);
+                long mask = 1L << bit;
+                words.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+            }
+        }
+
+        private boolean mightContain(long hash) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = index(hash, i);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long index(long hash, int i) {
+            long low = hash & 0xffffffffL;
+            long high = (hash >>> 32) | 1;
+            return (low + i * high) % bits;
+        }
+
+        private double estimatedFalsePositiveRate() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++) {
+                set += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) set / bits, hashes);
+        }
+    }
+}
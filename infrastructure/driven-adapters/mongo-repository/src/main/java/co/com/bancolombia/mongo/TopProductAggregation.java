@@ -0,0 +1,110 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "mongodb")
+public class TopProductAggregation {
+
+    static final String FRANCHISES = "franchises";
+    static final String BRANCHES = "branches";
+    static final String PRODUCTS = "products";
+
+    private final ReactiveMongoTemplate template;
+    private final ProductFranchiseBackfill backfill;
+
+    public TopProductAggregation(ReactiveMongoTemplate template, ProductFranchiseBackfill backfill) {
+        this.template = template;
+        this.backfill = backfill;
+    }
+
+    public Flux<TopProductByBranch> topProductByBranch(String franchiseId) {
+        return topProductsByBranch(franchiseId, 1);
+    }
+
+    public Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k) {
+        return template.aggregate(pipeline(franchiseId, k), FRANCHISES, Document.class)
+                .switchIfEmpty(Flux.error(new IllegalArgumentException("Franchise not found")))
+                .filter(doc -> doc.get("branch") instanceof Document)
+                .concatMapIterable(doc -> toTopProducts(doc.get("branch", Document.class)));
+    }
+
+    Aggregation pipeline(String franchiseId) {
+        return pipeline(franchiseId, 1);
+    }
+
+    /**
+     * One row per branch, so rows reach the client as each branch is resolved and no document holds the whole
+     * franchise. Products are sorted {@code stock desc, _id asc}, the same order listings and paging use.
+     */
+    Aggregation pipeline(String franchiseId, int k) {
+        Document branchLookup = new Document("from", BRANCHES)
+                .append("localField", "franchiseKey")
+                .append("foreignField", "franchiseId")
+                .append("pipeline", List.of(new Document("$project", new Document("name", 1)
+                        .append("branchKey", new Document("$toString", "$_id")))))
+                .append("as", "branch");
+
+        List<Document> topProducts = new ArrayList<>();
+        if (backfill.isComplete()) {
+            // Uses the (franchiseId, branchId, stock desc, _id) index. Until the backfill completes, products
+            // written before franchiseId existed are only reachable by branchId, so the match is left out.
+            topProducts.add(new Document("$match",
+                    new Document("$expr", new Document("$eq", List.of("$franchiseId", "$$franchiseKey")))));
+        }
+        topProducts.add(new Document("$sort", new Document("stock", -1).append("_id", 1)));
+        topProducts.add(new Document("$limit", k));
+        topProducts.add(new Document("$project", new Document("name", 1).append("stock", 1)));
+
+        Document productLookup = new Document("from", PRODUCTS)
+                .append("localField", "branch.branchKey")
+                .append("foreignField", "branchId")
+                .append("let", new Document("franchiseKey", "$franchiseKey"))
+                .append("pipeline", topProducts)
+                .append("as", "branch.top");
+
+        return Aggregation.newAggregation(
+                stage(new Document("$match", new Document("_id", MongoIds.toId(franchiseId)))),
+                stage(new Document("$project", new Document("franchiseKey", new Document("$toString", "$_id")))),
+                stage(new Document("$lookup", branchLookup)),
+                stage(new Document("$unwind", new Document("path", "$branch")
+                        .append("preserveNullAndEmptyArrays", true))),
+                stage(new Document("$lookup", productLookup))
+        );
+    }
+
+    private List<TopProductByBranch> toTopProducts(Document branch) {
+        List<Document> top = branch.getList("top", Document.class, List.of());
+        if (top.isEmpty()) {
+            return List.of(new TopProductByBranch(branch.getString("branchKey"), branch.getString("name"), null, null, 0));
+        }
+        return top.stream()
+                .map(product -> toTopProduct(branch, product))
+                .toList();
+    }
+
+    private TopProductByBranch toTopProduct(Document branch, Document product) {
+        Number stock = product.get("stock", Number.class);
+        return new TopProductByBranch(
+                branch.getString("branchKey"),
+                branch.getString("name"),
+                String.valueOf(product.get("_id")),
+                product.getString("name"),
+                stock == null ? 0 : stock.intValue()
+        );
+    }
+
+    private static AggregationOperation stage(Document stage) {
+        return context -> stage;
+    }
+}
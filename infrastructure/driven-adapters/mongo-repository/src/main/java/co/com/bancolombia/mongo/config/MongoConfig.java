@@ -1,6 +1,14 @@
 package co.com.bancolombia.mongo.config;
 
+import co.com.bancolombia.mongo.MongoDocumentCodecs;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
 import org.springframework.beans.factory.annotation.Value;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
 import org.springframework.boot.mongodb.autoconfigure.MongoConnectionDetails;
 import org.springframework.boot.mongodb.autoconfigure.MongoProperties;
 import org.springframework.boot.mongodb.autoconfigure.PropertiesMongoConnectionDetails;
@@ -8,7 +16,11 @@ import org.springframework.boot.ssl.SslBundles;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
+@ConditionalOnExpression("'${db.provider:}'.startsWith('mongodb')")
 public class MongoConfig {
 
     @Bean
@@ -24,4 +36,27 @@ public class MongoConfig {
         properties.setUri(secret.getUri());
         return new PropertiesMongoConnectionDetails(properties, sslBundles);
     }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(MeterRegistry registry,
+                                                                    @Value("${db.mongodb.pool.max-size:100}") int maxSize,
+                                                                    @Value("${db.mongodb.pool.min-size:0}") int minSize,
+                                                                    @Value("${db.mongodb.pool.max-wait-time:PT2M}") Duration maxWaitTime,
+                                                                    @Value("${db.mongodb.pool.max-idle-time:PT0S}") Duration maxIdleTime) {
+        return settings -> settings
+                .addCommandListener(new MongoMetricsCommandListener(registry))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(maxSize)
+                        .minSize(minSize)
+                        .maxWaitTime(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(maxIdleTime.toMillis(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(registry))
+                        .addConnectionPoolListener(new MongoPoolWaitListener(registry)));
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCodecCustomizer() {
+        return settings -> settings.codecRegistry(CodecRegistries.fromRegistries(
+                MongoDocumentCodecs.registry(), MongoClientSettings.getDefaultCodecRegistry()));
+    }
 }
@@ -0,0 +1,385 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BranchTopProductProjectionTest {
+
+    private BranchTopProductMongoRepository projectionRepo;
+    private FranchiseMongoRepository franchiseRepo;
+    private BranchMongoRepository branchRepo;
+    private MongoCodecOperations documents;
+    private TopProductAggregation aggregation;
+    private ReactiveMongoTemplate template;
+    private StockEventGateway events;
+
+    private BranchTopProductProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        projectionRepo = mock(BranchTopProductMongoRepository.class);
+        franchiseRepo = mock(FranchiseMongoRepository.class);
+        branchRepo = mock(BranchMongoRepository.class);
+        documents = mock(MongoCodecOperations.class);
+        aggregation = mock(TopProductAggregation.class);
+        template = mock(ReactiveMongoTemplate.class);
+        events = mock(StockEventGateway.class);
+        projection = new BranchTopProductProjection(projectionRepo, franchiseRepo, branchRepo, documents, aggregation, template, events);
+        AtomicLong tickets = new AtomicLong();
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(BranchTopProductDocument.class)))
+                .thenAnswer(inv -> Mono.just(ticketed(tickets.incrementAndGet())));
+        when(projectionRepo.findTicketsByFranchiseId(anyString())).thenReturn(Flux.empty());
+    }
+
+    @Test
+    void topProductByBranch_shouldReadProjectionRows() {
+        when(projectionRepo.findAllByFranchiseId("f-1")).thenReturn(Flux.just(
+                new BranchTopProductMongoRepository.TopView("br-1", "Centro", "p-1", "Burger", 50),
+                new BranchTopProductMongoRepository.TopView("br-2", "Norte", null, null, null)
+        ));
+
+        StepVerifier.create(projection.topProductByBranch("f-1"))
+                .assertNext(t -> {
+                    assertEquals("br-1", t.getBranchId());
+                    assertEquals("p-1", t.getProductId());
+                    assertEquals(50, t.getStock());
+                })
+                .assertNext(t -> {
+                    assertEquals("br-2", t.getBranchId());
+                    assertEquals(0, t.getStock());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(aggregation);
+    }
+
+    @Test
+    void topProductByBranch_shouldRebuildFromAggregation_whenProjectionIsEmpty() {
+        TopProductByBranch top = new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50);
+        when(projectionRepo.findAllByFranchiseId("f-1")).thenReturn(Flux.empty());
+        when(aggregation.topProductByBranch("f-1")).thenReturn(Flux.just(top));
+        when(template.upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+        StepVerifier.create(projection.topProductByBranch("f-1"))
+                .assertNext(t -> {
+                    assertEquals("br-1", t.getBranchId());
+                    assertEquals("Burger", t.getProductName());
+                })
+                .verifyComplete();
+
+        verify(template).upsert(argThat((Query q) -> appliedGuard(q).containsKey("$lte")),
+                argThat((Update u) -> Long.valueOf(0L).equals(
+                        u.getUpdateObject().get("$set", Document.class).get(BranchTopProductProjection.APPLIED_TICKET))),
+                eq(BranchTopProductDocument.class));
+        verify(projectionRepo, never()).deleteByFranchiseIdAndIdIn(anyString(), anyCollection());
+    }
+
+    @Test
+    void topProductByBranch_shouldPropagateNotFound_fromRebuild() {
+        when(projectionRepo.findAllByFranchiseId("f-404")).thenReturn(Flux.empty());
+        when(aggregation.topProductByBranch("f-404"))
+                .thenReturn(Flux.error(new IllegalArgumentException("Franchise not found")));
+        when(template.upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+        StepVerifier.create(projection.topProductByBranch("f-404"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void topProductsByBranch_shouldQueryAggregation_whenKIsGreaterThanOne() {
+        when(aggregation.topProductsByBranch("f-1", 3))
+                .thenReturn(Flux.just(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50)));
+
+        StepVerifier.create(projection.topProductsByBranch("f-1", 3))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verifyNoInteractions(projectionRepo);
+    }
+
+    @Test
+    void refreshBranch_shouldUpdateExistingRow_andPublishWhenTopChanged() {
+        ProductDocument top = topProduct("p-1", "Burger", 50);
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.just(top));
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(new BranchTopProductDocument("br-1", "f-1", "Centro", "p-2", "Fries", 40, Instant.now())));
+
+        StepVerifier.create(projection.refreshBranch("br-1"))
+                .expectNext("f-1")
+                .verifyComplete();
+
+        verify(template).findAndModify(any(Query.class),
+                argThat((Update u) -> "p-1".equals(u.getUpdateObject().get("$set", Document.class).get("productId"))),
+                eq(BranchTopProductDocument.class));
+        verify(documents).findOne(argThat((Query q) -> "br-1".equals(q.getQueryObject().get("branchId"))
+                        && q.getLimit() == 1
+                        && new Document("stock", -1).append("_id", 1).equals(q.getSortObject())
+                        && new Document("_id", 1).append("name", 1).append("stock", 1).equals(q.getFieldsObject())),
+                eq(ProductDocument.class));
+        verify(events).publish(argThat(e -> e.getType() == StockEventType.TOP_PRODUCT_CHANGED
+                && "f-1".equals(e.getFranchiseId()) && "p-1".equals(e.getProductId()) && e.getStock() == 50));
+        verifyNoInteractions(branchRepo);
+    }
+
+    @Test
+    void refreshBranch_shouldNotPublish_whenTopIsUnchanged() {
+        ProductDocument top = topProduct("p-1", "Burger", 50);
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.just(top));
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(new BranchTopProductDocument("br-1", "f-1", "Centro", "p-1", "Burger", 50, Instant.now())));
+
+        StepVerifier.create(projection.refreshBranch("br-1"))
+                .expectNext("f-1")
+                .verifyComplete();
+
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void refreshBranch_shouldUpsertWithBranchData_whenRowIsMissing() {
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.empty());
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(branchRepo.findNameViewById("br-1"))
+                .thenReturn(Mono.just(new BranchMongoRepository.NameView("br-1", "f-1", "Centro")));
+        when(template.upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, new BsonString("br-1"))));
+
+        StepVerifier.create(projection.refreshBranch("br-1"))
+                .expectNext("f-1")
+                .verifyComplete();
+
+        verify(template).upsert(any(Query.class),
+                argThat((Update u) -> "f-1".equals(u.getUpdateObject().get("$set", Document.class).get("franchiseId"))),
+                eq(BranchTopProductDocument.class));
+        verify(events).publish(argThat(e -> e.getType() == StockEventType.TOP_PRODUCT_CHANGED
+                && e.getProductId() == null));
+    }
+
+    @Test
+    void refreshBranch_shouldSwallowErrors_soTheWriteStillSucceeds() {
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.error(new RuntimeException("boom")));
+
+        StepVerifier.create(projection.refreshBranch("br-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void rebuildAll_shouldRebuildEveryFranchise_andSkipFailures() {
+        when(franchiseRepo.findAllIds()).thenReturn(Flux.just(
+                new FranchiseMongoRepository.IdView("f-1"),
+                new FranchiseMongoRepository.IdView("f-2")
+        ));
+        when(aggregation.topProductByBranch("f-1")).thenReturn(Flux.error(new RuntimeException("boom")));
+        when(aggregation.topProductByBranch("f-2"))
+                .thenReturn(Flux.just(new TopProductByBranch("br-2", "Norte", null, null, 0)));
+        when(template.upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+        StepVerifier.create(projection.rebuildAll())
+                .verifyComplete();
+
+        verify(aggregation).topProductByBranch("f-1");
+        verify(aggregation).topProductByBranch("f-2");
+        verify(template).upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class));
+    }
+
+    @Test
+    void refreshBranch_shouldTakeATicketBeforeReading() {
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.empty());
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(new BranchTopProductDocument("br-1", "f-1", "Centro", null, null, 0, Instant.now())));
+
+        StepVerifier.create(projection.refreshBranch("br-1"))
+                .expectNext("f-1")
+                .verifyComplete();
+
+        InOrder order = inOrder(template, documents);
+        order.verify(template).findAndModify(argThat((Query q) -> "br-1".equals(q.getQueryObject().get("_id"))),
+                argThat((Update u) -> Long.valueOf(1L).equals(u.getUpdateObject().get("$inc", Document.class)
+                        .get(BranchTopProductProjection.REFRESH_TICKET))),
+                argThat((FindAndModifyOptions o) -> o.isReturnNew()), eq(BranchTopProductDocument.class));
+        order.verify(documents).findOne(any(Query.class), eq(ProductDocument.class));
+        order.verify(template).findAndModify(argThat((Query q) -> Long.valueOf(1L).equals(appliedGuard(q).get("$lt"))),
+                argThat((Update u) -> Long.valueOf(1L).equals(u.getUpdateObject().get("$set", Document.class)
+                        .get(BranchTopProductProjection.APPLIED_TICKET))),
+                eq(BranchTopProductDocument.class));
+    }
+
+    @Test
+    void refreshBranch_shouldKeepTheLaterRead_whenAnEarlierRefreshWritesLast() {
+        AtomicReference<BranchTopProductDocument> row = new AtomicReference<>(
+                new BranchTopProductDocument("br-1", "f-1", "Centro", "p-2", "Fries", 40, Instant.EPOCH));
+        storeGuardedBy(row);
+        Sinks.One<ProductDocument> slowRead = Sinks.one();
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class)))
+                .thenReturn(slowRead.asMono())
+                .thenReturn(Mono.just(topProduct("p-1", "Burger", 3)));
+        when(branchRepo.findNameViewById("br-1"))
+                .thenReturn(Mono.just(new BranchMongoRepository.NameView("br-1", "f-1", "Centro")));
+
+        CompletableFuture<String> earlier = projection.refreshBranch("br-1").toFuture();
+        StepVerifier.create(projection.refreshBranch("br-1"))
+                .expectNext("f-1")
+                .verifyComplete();
+        assertEquals(3, row.get().getStock());
+        assertEquals(2L, row.get().getAppliedTicket());
+
+        slowRead.tryEmitValue(topProduct("p-1", "Burger", 10));
+
+        assertEquals("f-1", earlier.join());
+        assertEquals("p-1", row.get().getProductId());
+        assertEquals(3, row.get().getStock());
+        assertEquals(2L, row.get().getAppliedTicket());
+        verify(events, times(1)).publish(argThat(e -> e.getType() == StockEventType.TOP_PRODUCT_CHANGED));
+    }
+
+    @Test
+    void rebuild_shouldNotOverwriteRowsRefreshedWithALaterTicket() {
+        BranchTopProductDocument stored = new BranchTopProductDocument("br-1", "f-1", "Centro", "p-1", "Burger", 3,
+                Instant.EPOCH);
+        stored.setAppliedTicket(5L);
+        AtomicReference<BranchTopProductDocument> row = new AtomicReference<>(stored);
+        storeGuardedBy(row);
+        when(projectionRepo.findTicketsByFranchiseId("f-1"))
+                .thenReturn(Flux.just(new BranchTopProductMongoRepository.TicketView("br-1", 4L)));
+        when(aggregation.topProductByBranch("f-1"))
+                .thenReturn(Flux.just(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 10)));
+
+        StepVerifier.create(projection.rebuild("f-1"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(3, row.get().getStock());
+        assertEquals(5L, row.get().getAppliedTicket());
+    }
+
+    @Test
+    void rebuild_shouldOverwriteRowsNotRefreshedSinceItsTickets() {
+        BranchTopProductDocument stored = new BranchTopProductDocument("br-1", "f-1", "Centro", "p-1", "Burger", 3,
+                Instant.EPOCH);
+        stored.setAppliedTicket(4L);
+        AtomicReference<BranchTopProductDocument> row = new AtomicReference<>(stored);
+        storeGuardedBy(row);
+        when(projectionRepo.findTicketsByFranchiseId("f-1"))
+                .thenReturn(Flux.just(new BranchTopProductMongoRepository.TicketView("br-1", 4L)));
+        when(aggregation.topProductByBranch("f-1"))
+                .thenReturn(Flux.just(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 10)));
+
+        StepVerifier.create(projection.rebuild("f-1"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(10, row.get().getStock());
+    }
+
+    @Test
+    void rebuild_shouldRemoveOnlyRowsOfBranchesTheAggregationNoLongerReturns() {
+        when(projectionRepo.findTicketsByFranchiseId("f-1")).thenReturn(Flux.just(
+                new BranchTopProductMongoRepository.TicketView("br-1", 1L),
+                new BranchTopProductMongoRepository.TicketView("br-gone", 3L)));
+        when(aggregation.topProductByBranch("f-1"))
+                .thenReturn(Flux.just(new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 10),
+                        new TopProductByBranch("br-new", "Norte", null, null, 0)));
+        when(template.upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        when(projectionRepo.deleteByFranchiseIdAndIdIn(eq("f-1"), anyCollection())).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(projection.rebuild("f-1"))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(projectionRepo).deleteByFranchiseIdAndIdIn(eq("f-1"), eq(List.of("br-gone")));
+    }
+
+    /**
+     * Stands in for the collection: applies findAndModify and upsert only when the guard on
+     * {@code appliedTicket} matches, and answers an upsert on a newer row with a duplicate key.
+     */
+    private void storeGuardedBy(AtomicReference<BranchTopProductDocument> row) {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenAnswer(inv -> {
+                    BranchTopProductDocument previous = row.get();
+                    if (!guardMatches(inv.getArgument(0), previous)) {
+                        return Mono.empty();
+                    }
+                    row.set(applied(previous, inv.getArgument(1)));
+                    return Mono.just(previous);
+                });
+        when(template.upsert(any(Query.class), any(Update.class), eq(BranchTopProductDocument.class)))
+                .thenAnswer(inv -> {
+                    if (!guardMatches(inv.getArgument(0), row.get())) {
+                        return Mono.error(new DuplicateKeyException("E11000 duplicate key error"));
+                    }
+                    row.set(applied(row.get(), inv.getArgument(1)));
+                    return Mono.just(UpdateResult.acknowledged(1, 1L, null));
+                });
+    }
+
+    private static Document appliedGuard(Query query) {
+        List<?> clauses = query.getQueryObject().get("$or", List.class);
+        assertNotNull(clauses);
+        return ((Document) clauses.get(0)).get(BranchTopProductProjection.APPLIED_TICKET, Document.class);
+    }
+
+    private static boolean guardMatches(Query query, BranchTopProductDocument stored) {
+        Document guard = appliedGuard(query);
+        Long applied = stored.getAppliedTicket();
+        if (applied == null) {
+            return true;
+        }
+        return guard.containsKey("$lt") ? applied < guard.getLong("$lt") : applied <= guard.getLong("$lte");
+    }
+
+    private static BranchTopProductDocument applied(BranchTopProductDocument stored, Update update) {
+        Document set = update.getUpdateObject().get("$set", Document.class);
+        BranchTopProductDocument next = new BranchTopProductDocument(stored.getId(), stored.getFranchiseId(),
+                stored.getBranchName(), set.getString("productId"), set.getString("productName"), set.getInteger("stock"),
+                set.get("refreshedAt", Instant.class));
+        next.setAppliedTicket(set.getLong(BranchTopProductProjection.APPLIED_TICKET));
+        return next;
+    }
+
+    private static BranchTopProductDocument ticketed(long ticket) {
+        BranchTopProductDocument row = new BranchTopProductDocument();
+        row.setRefreshTicket(ticket);
+        return row;
+    }
+
+    private static ProductDocument topProduct(String id, String name, int stock) {
+        return new ProductDocument(id, "br-1", name, stock, null, null);
+    }
+}
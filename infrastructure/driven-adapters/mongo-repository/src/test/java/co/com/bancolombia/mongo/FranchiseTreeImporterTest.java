@@ -0,0 +1,145 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.InsertManyResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FranchiseTreeImporterTest {
+
+    private FranchiseMongoRepository franchiseRepo;
+    private ReactiveMongoTemplate template;
+    private BranchTopProductProjection topProducts;
+    private MongoCollection<Document> branches;
+    private MongoCollection<Document> products;
+
+    private FranchiseTreeImporter importer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        franchiseRepo = mock(FranchiseMongoRepository.class);
+        template = mock(ReactiveMongoTemplate.class);
+        topProducts = mock(BranchTopProductProjection.class);
+        branches = mock(MongoCollection.class);
+        products = mock(MongoCollection.class);
+
+        when(template.getConverter()).thenReturn(mock(MongoConverter.class));
+        when(template.getCollection(TopProductAggregation.BRANCHES)).thenReturn(Mono.just(branches));
+        when(template.getCollection(TopProductAggregation.PRODUCTS)).thenReturn(Mono.just(products));
+        when(branches.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.just(mock(InsertManyResult.class)));
+        when(products.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.just(mock(InsertManyResult.class)));
+        when(topProducts.refreshFranchise(anyString())).thenReturn(Mono.empty());
+
+        importer = new FranchiseTreeImporter(franchiseRepo, template, topProducts);
+    }
+
+    @Test
+    void shouldImportTree_resolvingBranchesInMemory() {
+        when(franchiseRepo.existsByName("Acme")).thenReturn(Mono.just(false));
+        when(franchiseRepo.insert(any(FranchiseDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(importer.importFranchise(Flux.just(
+                        franchise(1, "Acme"),
+                        branch(2, "Centro"),
+                        product(3, "Centro", "Burger", 10),
+                        product(4, "Norte", "Fries", 5))))
+                .assertNext(r -> {
+                    assertEquals(ImportResult.Status.CREATED, r.getStatus());
+                    assertNotNull(r.getId());
+                })
+                .assertNext(r -> assertEquals(ImportResult.Status.CREATED, r.getStatus()))
+                .assertNext(r -> {
+                    assertEquals(3, r.getLine());
+                    assertEquals(ImportResult.Status.CREATED, r.getStatus());
+                })
+                .assertNext(r -> {
+                    assertEquals(4, r.getLine());
+                    assertEquals(ImportResult.Status.FAILED, r.getStatus());
+                    assertEquals("Branch not found", r.getMessage());
+                })
+                .verifyComplete();
+
+        verify(branches).insertMany(argThat((List<Document> docs) -> docs.size() == 1), any(InsertManyOptions.class));
+        verify(products).insertMany(argThat((List<Document> docs) -> docs.size() == 1), any(InsertManyOptions.class));
+        verify(topProducts).refreshFranchise(anyString());
+    }
+
+    @Test
+    void shouldFailEveryLine_whenFirstLineIsNotAFranchise() {
+        StepVerifier.create(importer.importFranchise(Flux.just(
+                        branch(1, "Centro"),
+                        product(2, "Centro", "Burger", 10))))
+                .assertNext(r -> assertEquals("The first line must describe the franchise", r.getMessage()))
+                .assertNext(r -> assertEquals("Franchise was not imported", r.getMessage()))
+                .verifyComplete();
+
+        verifyNoInteractions(franchiseRepo, branches, products, topProducts);
+    }
+
+    @Test
+    void shouldReportDuplicateProducts_fromUnorderedInsert() {
+        MongoBulkWriteException duplicate = mock(MongoBulkWriteException.class);
+        when(duplicate.getWriteErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000", new BsonDocument(), 1)));
+        when(products.insertMany(anyList(), any(InsertManyOptions.class))).thenReturn(Mono.error(duplicate));
+        when(franchiseRepo.existsByName("Acme")).thenReturn(Mono.just(false));
+        when(franchiseRepo.insert(any(FranchiseDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(importer.importFranchise(Flux.just(
+                        franchise(1, "Acme"),
+                        branch(2, "Centro"),
+                        product(3, "Centro", "Burger", 10),
+                        product(4, "Centro", "Burger", 3),
+                        new ImportRecord(5, ImportRecord.Type.PRODUCT, "Soda", "Centro", -1, null),
+                        ImportRecord.invalid(6, "Malformed JSON"))))
+                .expectNextCount(3)
+                .assertNext(r -> assertEquals("Product name already exists for this branch", r.getMessage()))
+                .assertNext(r -> assertEquals("Stock must be >= 0", r.getMessage()))
+                .assertNext(r -> assertEquals("Malformed JSON", r.getMessage()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFail_whenFranchiseNameAlreadyExists() {
+        when(franchiseRepo.existsByName("Acme")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(importer.importFranchise(Flux.just(franchise(1, "Acme"), branch(2, "Centro"))))
+                .assertNext(r -> assertEquals("Franchise name already exists", r.getMessage()))
+                .assertNext(r -> assertEquals("Franchise was not imported", r.getMessage()))
+                .verifyComplete();
+
+        verify(franchiseRepo, never()).insert(any(FranchiseDocument.class));
+        verifyNoInteractions(topProducts);
+    }
+
+    private static ImportRecord franchise(long line, String name) {
+        return new ImportRecord(line, ImportRecord.Type.FRANCHISE, name, null, null, null);
+    }
+
+    private static ImportRecord branch(long line, String name) {
+        return new ImportRecord(line, ImportRecord.Type.BRANCH, name, null, null, null);
+    }
+
+    private static ImportRecord product(long line, String branch, String name, int stock) {
+        return new ImportRecord(line, ImportRecord.Type.PRODUCT, name, branch, stock, null);
+    }
+}
@@ -0,0 +1,181 @@
+package co.com.bancolombia.mongo;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonDouble;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoDocumentCodecsTest {
+
+    private static final Instant CREATED = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    private static final Instant UPDATED = CREATED.plusSeconds(30);
+
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext context = new MongoMappingContext();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void productCodec_shouldWriteWhatTheConverterWrites() {
+        ProductDocument product = product();
+
+        assertEquals(written(product), encode(new ProductDocumentCodec(), product));
+    }
+
+    @Test
+    void branchCodec_shouldWriteWhatTheConverterWrites() {
+        BranchDocument branch = new BranchDocument(new ObjectId().toHexString(), new ObjectId().toHexString(), "Centro", CREATED, UPDATED);
+        branch.setVersion(2L);
+
+        assertEquals(written(branch), encode(new BranchDocumentCodec(), branch));
+    }
+
+    @Test
+    void franchiseCodec_shouldWriteWhatTheConverterWrites() {
+        FranchiseDocument franchise = new FranchiseDocument(new ObjectId().toHexString(), "Acme", CREATED, null);
+
+        assertEquals(written(franchise), encode(new FranchiseDocumentCodec(), franchise));
+    }
+
+    @Test
+    void productCodec_shouldDecodeConverterOutput() {
+        ProductDocument product = product();
+
+        ProductDocument decoded = decode(new ProductDocumentCodec(), converted(product));
+
+        assertEquals(product.getId(), decoded.getId());
+        assertEquals(product.getFranchiseId(), decoded.getFranchiseId());
+        assertEquals(product.getBranchId(), decoded.getBranchId());
+        assertEquals(product.getName(), decoded.getName());
+        assertEquals(product.getStock(), decoded.getStock());
+        assertEquals(CREATED, decoded.getCreatedAt());
+        assertEquals(UPDATED, decoded.getUpdatedAt());
+        assertEquals(3L, decoded.getVersion());
+    }
+
+    @Test
+    void branchCodec_shouldRoundTrip() {
+        BranchDocument branch = new BranchDocument("legacy-branch", "f-1", "Norte", CREATED, UPDATED);
+        BranchDocumentCodec codec = new BranchDocumentCodec();
+
+        BranchDocument decoded = decode(codec, encode(codec, branch));
+
+        assertEquals("legacy-branch", decoded.getId());
+        assertEquals("f-1", decoded.getFranchiseId());
+        assertEquals("Norte", decoded.getName());
+        assertEquals(CREATED, decoded.getCreatedAt());
+        assertEquals(UPDATED, decoded.getUpdatedAt());
+        assertNull(decoded.getVersion());
+    }
+
+    @Test
+    void franchiseCodec_shouldSkipUnknownFields() {
+        BsonDocument stored = converted(new FranchiseDocument(new ObjectId().toHexString(), "Acme", CREATED, UPDATED));
+        stored.append("legacyCode", new BsonString("X-1"));
+        stored.append("branches", new BsonDocument("count", new BsonInt64(4)));
+
+        FranchiseDocument decoded = decode(new FranchiseDocumentCodec(), stored);
+
+        assertEquals("Acme", decoded.getName());
+        assertEquals(UPDATED, decoded.getUpdatedAt());
+    }
+
+    @Test
+    void productCodec_shouldReadStockStoredAsInt64() {
+        BsonDocument stored = encode(new ProductDocumentCodec(), product());
+        stored.put("stock", new BsonInt64(42));
+
+        assertEquals(42, decode(new ProductDocumentCodec(), stored).getStock());
+    }
+
+    @Test
+    void productCodec_shouldReadStockStoredAsWholeDouble() {
+        BsonDocument stored = encode(new ProductDocumentCodec(), product());
+        stored.put("stock", new BsonDouble(42.0));
+
+        assertEquals(42, decode(new ProductDocumentCodec(), stored).getStock());
+    }
+
+    @Test
+    void productCodec_shouldRejectStockThatIsNotAWholeInt() {
+        BsonDocument fractional = encode(new ProductDocumentCodec(), product());
+        fractional.put("stock", new BsonDouble(4.5));
+        BsonDocument outOfRange = encode(new ProductDocumentCodec(), product());
+        outOfRange.put("stock", new BsonDouble(1e10));
+
+        assertThrows(ArithmeticException.class, () -> decode(new ProductDocumentCodec(), fractional));
+        assertThrows(ArithmeticException.class, () -> decode(new ProductDocumentCodec(), outOfRange));
+    }
+
+    @Test
+    void productCodec_shouldDecodeProjectedRow() {
+        ObjectId id = new ObjectId();
+        BsonDocument row = new Document("_id", id).append("name", "Burger").append("stock", 50)
+                .toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+
+        ProductDocument decoded = decode(new ProductDocumentCodec(), row);
+
+        assertEquals(id.toHexString(), decoded.getId());
+        assertEquals("Burger", decoded.getName());
+        assertEquals(50, decoded.getStock());
+        assertNull(decoded.getBranchId());
+    }
+
+    @Test
+    void registry_shouldResolveEveryDocumentCodec() {
+        assertInstanceOf(ProductDocumentCodec.class, MongoDocumentCodecs.registry().get(ProductDocument.class));
+        assertInstanceOf(BranchDocumentCodec.class, MongoDocumentCodecs.registry().get(BranchDocument.class));
+        assertInstanceOf(FranchiseDocumentCodec.class, MongoDocumentCodecs.registry().get(FranchiseDocument.class));
+    }
+
+    private static ProductDocument product() {
+        ProductDocument product = new ProductDocument(new ObjectId().toHexString(), "f-1", new ObjectId().toHexString(),
+                "Burger", 7, CREATED, UPDATED);
+        product.setVersion(3L);
+        return product;
+    }
+
+    private BsonDocument written(Object source) {
+        BsonDocument document = converted(source);
+        document.remove("_class");
+        return document;
+    }
+
+    private BsonDocument converted(Object source) {
+        Document target = new Document();
+        converter.write(source, target);
+        return target.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private static <T> BsonDocument encode(Codec<T> codec, T value) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), value, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static <T> T decode(Codec<T> codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,369 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.mongo.FranchiseTreeDocument.BranchEntry;
+import co.com.bancolombia.mongo.FranchiseTreeDocument.ProductEntry;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MongoEmbeddedFranchiseAdapterTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private ReactiveMongoTemplate template;
+    private StockEventGateway events;
+    private MongoEmbeddedFranchiseAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        events = mock(StockEventGateway.class);
+        adapter = new MongoEmbeddedFranchiseAdapter(template, events);
+    }
+
+    @Test
+    void createFranchise_shouldError_whenDuplicateName() {
+        when(template.insert(any(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+        StepVerifier.create(adapter.createFranchise("Nequi"))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Franchise name already exists"))
+                .verify();
+    }
+
+    @Test
+    void addBranch_shouldPushIntoFranchiseDocument() {
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        StepVerifier.create(adapter.addBranch("f-1", "  Centro "))
+                .assertNext(branch -> {
+                    assertEquals("f-1", branch.getFranchiseId());
+                    assertEquals("Centro", branch.getName());
+                    assertNotNull(branch.getId());
+                })
+                .verifyComplete();
+
+        verify(template, never()).exists(any(Query.class), eq(FranchiseTreeDocument.class));
+    }
+
+    @Test
+    void addBranch_shouldError_whenNameTakenOrFranchiseMissing() {
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+        when(template.exists(any(Query.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(true), Mono.just(false));
+
+        StepVerifier.create(adapter.addBranch("f-1", "Centro"))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Branch name already exists for this franchise"))
+                .verify();
+        StepVerifier.create(adapter.addBranch("f-1", "Centro"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void addProduct_shouldPublishStockAndTopChange_whenNewProductLeads() {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1", product("p-1", "Burger", 3)))));
+
+        StepVerifier.create(adapter.addProduct("b-1", "Pizza", 9))
+                .assertNext(product -> {
+                    assertEquals("b-1", product.getBranchId());
+                    assertEquals(9, product.getStock());
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<StockEvent> captor = ArgumentCaptor.forClass(StockEvent.class);
+        verify(events, times(2)).publish(captor.capture());
+        assertEquals(StockEventType.STOCK_CHANGED, captor.getAllValues().get(0).getType());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, captor.getAllValues().get(1).getType());
+        assertEquals("Pizza", captor.getAllValues().get(1).getProductName());
+    }
+
+    @Test
+    void addProduct_shouldError_whenNameTaken() {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.empty());
+        when(template.exists(any(Query.class), eq(FranchiseTreeDocument.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.addProduct("b-1", "Burger", 1))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Product name already exists for this branch"))
+                .verify();
+
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void updateProductStock_shouldReturnIncrementedVersion() {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1", product("p-1", "Burger", 3), product("p-2", "Pizza", 5)))));
+
+        StepVerifier.create(adapter.updateProductStock("p-1", 4, 0L))
+                .assertNext(product -> {
+                    assertEquals(4, product.getStock());
+                    assertEquals(1, product.getVersion());
+                })
+                .verifyComplete();
+
+        verify(events, times(1)).publish(any(StockEvent.class));
+    }
+
+    @Test
+    void updateProductStock_shouldError_whenVersionDoesNotMatch() {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.empty());
+        when(template.exists(any(Query.class), eq(FranchiseTreeDocument.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.updateProductStock("p-1", 4, 7L))
+                .expectError(ConcurrentModificationException.class)
+                .verify();
+    }
+
+    @Test
+    void adjustProductStock_shouldError_whenStockIsInsufficient() {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.empty());
+        when(template.exists(any(Query.class), eq(FranchiseTreeDocument.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.adjustProductStock("p-1", -10))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Insufficient stock"))
+                .verify();
+    }
+
+    @Test
+    void updateProductStocks_shouldWriteWholeBatchWithOneUpdate() {
+        when(template.exists(any(Query.class), eq(FranchiseTreeDocument.class))).thenReturn(Mono.just(true));
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1", product("p-1", "Burger", 3), product("p-2", "Pizza", 5)))));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(
+                        new StockUpdate("p-1", 10),
+                        new StockUpdate("p-2", 1),
+                        new StockUpdate("p-404", 3),
+                        new StockUpdate("p-3", -1))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.NOT_FOUND, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.INVALID, r.getStatus()))
+                .verifyComplete();
+
+        verify(template, times(1)).findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class));
+    }
+
+    @Test
+    void updateProductStocks_shouldReportEarlierRepeatsAsSuperseded() {
+        when(template.exists(any(Query.class), eq(FranchiseTreeDocument.class))).thenReturn(Mono.just(true));
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1", product("p-1", "Burger", 3)))));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(
+                        new StockUpdate("p-1", 10),
+                        new StockUpdate("p-1", 2))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.SUPERSEDED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .verifyComplete();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 10", "10, 100", "50, 1000"})
+    void topProductByBranch_shouldReadOneDocument_forAnyCatalogSize(int branches, int productsPerBranch) {
+        List<BranchEntry> entries = IntStream.range(0, branches)
+                .mapToObj(b -> branch("b-" + b, IntStream.range(0, productsPerBranch)
+                        .mapToObj(p -> product("p-" + b + "-" + p, "P" + p, p))
+                        .toArray(ProductEntry[]::new)))
+                .toList();
+        when(template.findOne(any(Query.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(new FranchiseTreeDocument("f-1", "Nequi", NOW, NOW, entries)));
+
+        StepVerifier.create(adapter.topProductByBranch("f-1").collectList())
+                .assertNext(top -> {
+                    assertEquals(branches, top.size());
+                    top.forEach(t -> assertEquals(productsPerBranch - 1, t.getStock()));
+                })
+                .verifyComplete();
+
+        verify(template, times(1)).findOne(any(Query.class), eq(FranchiseTreeDocument.class));
+        verifyNoMoreInteractions(template);
+    }
+
+    @Test
+    void topProductsByBranch_shouldKeepEmptyBranches() {
+        when(template.findOne(any(Query.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1"), branch("b-2",
+                        product("p-1", "Burger", 3), product("p-2", "Pizza", 5), product("p-3", "Soda", 1)))));
+
+        StepVerifier.create(adapter.topProductsByBranch("f-1", 2))
+                .assertNext(t -> {
+                    assertEquals("b-1", t.getBranchId());
+                    assertNull(t.getProductId());
+                })
+                .assertNext(t -> assertEquals("p-2", t.getProductId()))
+                .assertNext(t -> assertEquals("p-1", t.getProductId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void topProductByBranch_shouldError_whenFranchiseMissing() {
+        when(template.findOne(any(Query.class), eq(FranchiseTreeDocument.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(adapter.topProductByBranch("f-1"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void deleteFranchise_shouldSummarizeRemovedTree() {
+        when(template.findAndRemove(any(Query.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1", product("p-1", "Burger", 3)),
+                        branch("b-2", product("p-2", "Pizza", 5), product("p-3", "Soda", 1)))));
+
+        StepVerifier.create(adapter.deleteFranchise("f-1"))
+                .assertNext(summary -> {
+                    assertEquals(1, summary.getFranchises());
+                    assertEquals(2, summary.getBranches());
+                    assertEquals(3, summary.getProducts());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void updateBranchName_shouldReturnCurrent_whenNameIsUnchanged() {
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.empty());
+        when(template.findOne(any(Query.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(tree(branch("b-1"))));
+
+        StepVerifier.create(adapter.updateBranchName("b-1", "Sucursal b-1", null))
+                .assertNext(branch -> assertEquals("Sucursal b-1", branch.getName()))
+                .verifyComplete();
+    }
+
+    @Test
+    void importFranchise_shouldInsertTreeAndPushEachBatch() {
+        when(template.insert(any(FranchiseTreeDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        StepVerifier.create(adapter.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null),
+                        new ImportRecord(3, ImportRecord.Type.PRODUCT, "Burger", "Centro", 4, null),
+                        new ImportRecord(4, ImportRecord.Type.PRODUCT, "Burger", "Centro", 2, null),
+                        new ImportRecord(5, ImportRecord.Type.PRODUCT, "Pizza", "Norte", 2, null))))
+                .assertNext(r -> assertEquals(ImportResult.Status.CREATED, r.getStatus()))
+                .assertNext(r -> assertEquals(ImportResult.Status.CREATED, r.getStatus()))
+                .assertNext(r -> assertEquals(ImportResult.Status.CREATED, r.getStatus()))
+                .assertNext(r -> assertEquals("Product name already exists for this branch", r.getMessage()))
+                .assertNext(r -> assertEquals("Branch not found", r.getMessage()))
+                .verifyComplete();
+
+        ArgumentCaptor<FranchiseTreeDocument> tree = ArgumentCaptor.forClass(FranchiseTreeDocument.class);
+        verify(template, times(1)).insert(tree.capture());
+        assertTrue(tree.getValue().getBranches().isEmpty());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(template, times(1)).updateFirst(any(Query.class), update.capture(), eq(FranchiseTreeDocument.class));
+        Update.Modifiers modifiers = (Update.Modifiers) update.getValue().getUpdateObject()
+                .get("$push", Document.class).get("branches");
+        Object[] pushed = (Object[]) modifiers.getModifiers().iterator().next().getValue();
+        assertEquals(1, pushed.length);
+        assertEquals(1, ((BranchEntry) pushed[0]).getProducts().size());
+    }
+
+    @Test
+    void importFranchise_shouldPushProductsOfEarlierBranches_throughArrayFilters() {
+        when(template.insert(any(FranchiseTreeDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        List<ImportRecord> records = new ArrayList<>();
+        records.add(new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null));
+        IntStream.range(0, MongoEmbeddedFranchiseAdapter.IMPORT_BATCH_SIZE).forEach(i ->
+                records.add(new ImportRecord(i + 2, ImportRecord.Type.BRANCH, "Sucursal " + i, null, null, null)));
+        records.add(new ImportRecord(records.size() + 1, ImportRecord.Type.PRODUCT, "Burger", "Sucursal 0", 4, null));
+
+        StepVerifier.create(adapter.importFranchise(Flux.fromIterable(records)))
+                .expectNextCount(records.size() - 1)
+                .assertNext(r -> assertEquals(ImportResult.Status.CREATED, r.getStatus()))
+                .verifyComplete();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(template, times(2)).updateFirst(any(Query.class), update.capture(), eq(FranchiseTreeDocument.class));
+        Update products = update.getAllValues().get(1);
+        assertTrue(products.getUpdateObject().get("$push", Document.class)
+                .containsKey("branches.$[b0].products"));
+        assertEquals(1, products.getArrayFilters().size());
+    }
+
+    @Test
+    void importFranchise_shouldFailTheBatch_whenTheTreeIsGone() {
+        when(template.insert(any(FranchiseTreeDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        when(template.updateFirst(any(Query.class), any(Update.class), eq(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+        StepVerifier.create(adapter.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null))))
+                .assertNext(r -> assertEquals(ImportResult.Status.CREATED, r.getStatus()))
+                .assertNext(r -> assertEquals("Franchise not found", r.getMessage()))
+                .verifyComplete();
+    }
+
+    @Test
+    void importFranchise_shouldFailEveryLine_whenNameExists() {
+        when(template.insert(any(FranchiseTreeDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+        StepVerifier.create(adapter.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null))))
+                .assertNext(r -> assertEquals("Franchise name already exists", r.getMessage()))
+                .assertNext(r -> assertEquals("Franchise was not imported", r.getMessage()))
+                .verifyComplete();
+    }
+
+    private static FranchiseTreeDocument tree(BranchEntry... branches) {
+        return new FranchiseTreeDocument("f-1", "Nequi", NOW, NOW, new ArrayList<>(List.of(branches)));
+    }
+
+    private static BranchEntry branch(String id, ProductEntry... products) {
+        return new BranchEntry(id, "Sucursal " + id, NOW, NOW, 0, new ArrayList<>(List.of(products)));
+    }
+
+    private static ProductEntry product(String id, String name, int stock) {
+        return new ProductEntry(id, name, stock, NOW, NOW, 0);
+    }
+}
@@ -0,0 +1,34 @@
+package co.com.bancolombia.mongo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MongoEmbeddedIndexesConfigTest {
+
+    @Test
+    void ensureIndexes_shouldIndexNestedIds() {
+        ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+        ReactiveIndexOperations treeOps = mock(ReactiveIndexOperations.class);
+        ReactiveIndexOperations idempotencyOps = mock(ReactiveIndexOperations.class);
+
+        when(template.indexOps(FranchiseTreeDocument.class)).thenReturn(treeOps);
+        when(template.indexOps(IdempotencyDocument.class)).thenReturn(idempotencyOps);
+        when(treeOps.ensureIndex(any())).thenReturn(Mono.just("idx_tree_any"));
+        when(idempotencyOps.ensureIndex(any())).thenReturn(Mono.just("idx_idempotency_ttl"));
+
+        StepVerifier.create(new MongoEmbeddedIndexesConfig().ensureIndexes(template, Duration.ofHours(24)))
+                .verifyComplete();
+
+        verify(treeOps, times(3)).ensureIndex(any());
+        verify(idempotencyOps, times(1)).ensureIndex(any());
+        verifyNoMoreInteractions(treeOps, idempotencyOps);
+    }
+}
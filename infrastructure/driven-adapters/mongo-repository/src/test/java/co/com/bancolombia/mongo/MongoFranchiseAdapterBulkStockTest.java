@@ -0,0 +1,180 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MongoFranchiseAdapterBulkStockTest {
+
+    FranchiseMongoRepository franchiseRepo;
+    BranchMongoRepository branchRepo;
+    ProductMongoRepository productRepo;
+    ReactiveMongoTemplate template;
+    BranchTopProductProjection topProducts;
+    StockEventGateway events;
+    FranchiseTreeImporter importer;
+    MongoIdFilters idFilters;
+    MongoCodecOperations documents;
+    ReactiveBulkOperations bulk;
+
+    MongoFranchiseAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        franchiseRepo = mock(FranchiseMongoRepository.class);
+        branchRepo = mock(BranchMongoRepository.class);
+        productRepo = mock(ProductMongoRepository.class);
+        template = mock(ReactiveMongoTemplate.class);
+        topProducts = mock(BranchTopProductProjection.class);
+        events = mock(StockEventGateway.class);
+        importer = mock(FranchiseTreeImporter.class);
+        idFilters = mock(MongoIdFilters.class);
+        documents = mock(MongoCodecOperations.class);
+        bulk = mock(ReactiveBulkOperations.class);
+
+        when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDocument.class)).thenReturn(bulk);
+        when(bulk.updateOne(any(Query.class), any(UpdateDefinition.class))).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(Mono.just(mock(BulkWriteResult.class)));
+        when(topProducts.refreshBranch("b-1")).thenReturn(Mono.just("f-1"));
+
+        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo, template, topProducts, events, importer, idFilters, documents);
+    }
+
+    @Test
+    void updateProductStocks_shouldReportEveryItem_andWriteOnlyExistingProducts() {
+        when(branchRepo.existsById("b-1")).thenReturn(Mono.just(true));
+        when(template.find(any(Query.class), eq(ProductDocument.class))).thenReturn(Flux.just(
+                new ProductDocument("p-1", "b-1", "Burger", null, null, null)));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(
+                        new StockUpdate("p-1", 10),
+                        new StockUpdate("p-404", 3),
+                        new StockUpdate("p-2", -1),
+                        new StockUpdate(" ", 1))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.NOT_FOUND, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.INVALID, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.INVALID, r.getStatus()))
+                .verifyComplete();
+
+        verify(bulk, times(1)).updateOne(any(Query.class), any(UpdateDefinition.class));
+        verify(bulk, times(1)).execute();
+        verify(topProducts, times(1)).refreshBranch("b-1");
+        verify(events).publish(argThat(e -> e.getType() == StockEventType.STOCK_CHANGED
+                && "p-1".equals(e.getProductId()) && e.getStock() == 10));
+        verifyNoInteractions(productRepo);
+    }
+
+    @Test
+    void updateProductStocks_shouldSendOneBulkWritePerBatch() {
+        when(branchRepo.existsById("b-1")).thenReturn(Mono.just(true));
+        when(template.find(any(Query.class), eq(ProductDocument.class)))
+                .thenAnswer(inv -> Flux.range(0, 500).map(i -> new ProductDocument("p-" + i, "b-1", "P", null, null, null)))
+                .thenAnswer(inv -> Flux.range(500, 100).map(i -> new ProductDocument("p-" + i, "b-1", "P", null, null, null)));
+
+        Flux<StockUpdate> updates = Flux.fromStream(IntStream.range(0, 600).mapToObj(i -> new StockUpdate("p-" + i, i)));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", updates))
+                .expectNextCount(600)
+                .verifyComplete();
+
+        verify(template, times(2)).bulkOps(BulkOperations.BulkMode.UNORDERED, ProductDocument.class);
+        verify(bulk, times(2)).execute();
+        verify(bulk, times(600)).updateOne(any(Query.class), any(UpdateDefinition.class));
+    }
+
+    @Test
+    void updateProductStocks_shouldWriteOnlyTheLastUpdate_whenABatchRepeatsAProduct() {
+        when(branchRepo.existsById("b-1")).thenReturn(Mono.just(true));
+        when(template.find(any(Query.class), eq(ProductDocument.class))).thenReturn(Flux.just(
+                new ProductDocument("p-1", "b-1", "Burger", null, null, null)));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(
+                        new StockUpdate("p-1", 10),
+                        new StockUpdate("p-1", 4))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.SUPERSEDED, r.getStatus()))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .verifyComplete();
+
+        verify(bulk, times(1)).updateOne(any(Query.class),
+                argThat((UpdateDefinition u) -> Integer.valueOf(4).equals(u.getUpdateObject().get("$set", Document.class).get("stock"))));
+        verify(events, times(1)).publish(argThat(e -> e.getStock() == 4));
+    }
+
+    @Test
+    void updateProductStocks_shouldTreatIdsDifferingOnlyInCaseAsTheSameProduct() {
+        String id = new ObjectId().toHexString();
+        when(branchRepo.existsById("b-1")).thenReturn(Mono.just(true));
+        when(template.find(any(Query.class), eq(ProductDocument.class))).thenReturn(Flux.just(
+                new ProductDocument(id, "b-1", "Burger", null, null, null)));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(
+                        new StockUpdate(id.toUpperCase(), 7),
+                        new StockUpdate(id, 8))))
+                .assertNext(r -> {
+                    assertEquals(StockUpdateResult.Status.SUPERSEDED, r.getStatus());
+                    assertEquals(id.toUpperCase(), r.getProductId());
+                })
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .verifyComplete();
+
+        verify(bulk, times(1)).updateOne(any(Query.class), any(UpdateDefinition.class));
+    }
+
+    @Test
+    void updateProductStocks_shouldReportUpperCaseObjectIdsAsUpdated() {
+        String id = new ObjectId().toHexString();
+        when(branchRepo.existsById("b-1")).thenReturn(Mono.just(true));
+        when(template.find(any(Query.class), eq(ProductDocument.class))).thenReturn(Flux.just(
+                new ProductDocument(id, "b-1", "Burger", null, null, null)));
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(new StockUpdate(id.toUpperCase(), 7))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.UPDATED, r.getStatus()))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateProductStocks_shouldSkipWrite_whenNothingMatches() {
+        when(branchRepo.existsById("b-1")).thenReturn(Mono.just(true));
+        when(template.find(any(Query.class), eq(ProductDocument.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(adapter.updateProductStocks("b-1", Flux.just(new StockUpdate("p-404", 3))))
+                .assertNext(r -> assertEquals(StockUpdateResult.Status.NOT_FOUND, r.getStatus()))
+                .verifyComplete();
+
+        verify(template, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(ProductDocument.class));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void updateProductStocks_shouldError_whenBranchNotFound() {
+        when(branchRepo.existsById("b-404")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(adapter.updateProductStocks("b-404", Flux.just(new StockUpdate("p-1", 1))))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Branch not found"))
+                .verify();
+
+        verifyNoInteractions(template);
+    }
+}
@@ -0,0 +1,149 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MongoFranchiseAdapterCascadeDeleteTest {
+
+    private FranchiseMongoRepository franchiseRepo;
+    private BranchMongoRepository branchRepo;
+    private ProductMongoRepository productRepo;
+    private ReactiveMongoTemplate template;
+    private BranchTopProductProjection topProducts;
+    private StockEventGateway events;
+    private FranchiseTreeImporter importer;
+    private MongoIdFilters idFilters;
+    private MongoCodecOperations documents;
+
+    private MongoFranchiseAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        franchiseRepo = mock(FranchiseMongoRepository.class);
+        branchRepo = mock(BranchMongoRepository.class);
+        productRepo = mock(ProductMongoRepository.class);
+        template = mock(ReactiveMongoTemplate.class);
+        topProducts = mock(BranchTopProductProjection.class);
+        events = mock(StockEventGateway.class);
+        importer = mock(FranchiseTreeImporter.class);
+        idFilters = mock(MongoIdFilters.class);
+        documents = mock(MongoCodecOperations.class);
+        when(template.getCollectionName(BranchDocument.class)).thenReturn("branches");
+        when(template.getCollectionName(ProductDocument.class)).thenReturn("products");
+        when(template.remove(any(Query.class), eq(BranchTopProductDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo, template, topProducts, events, importer, idFilters, documents);
+    }
+
+    @Test
+    void deleteBranch_shouldFail_whenNotFound() {
+        when(template.find(any(Query.class), eq(Document.class), eq("products"))).thenReturn(Flux.empty());
+        when(template.remove(any(Query.class), eq(BranchDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(0)));
+
+        StepVerifier.create(adapter.deleteBranch("b-404"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Branch not found"))
+                .verify();
+
+        verify(template, never()).remove(any(Query.class), eq(ProductDocument.class));
+    }
+
+    @Test
+    void deleteBranch_shouldDeleteProductsInBoundedBatches() {
+        when(template.remove(any(Query.class), eq(BranchDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+        when(template.find(any(Query.class), eq(Document.class), eq("products")))
+                .thenReturn(ids(1000), ids(250));
+        when(template.remove(any(Query.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(DeleteResult.acknowledged(1000)), Mono.just(DeleteResult.acknowledged(250)));
+
+        StepVerifier.create(adapter.deleteBranch("b-1"))
+                .assertNext(summary -> {
+                    assertEquals(0, summary.getFranchises());
+                    assertEquals(1, summary.getBranches());
+                    assertEquals(1250, summary.getProducts());
+                })
+                .verifyComplete();
+
+        verify(template, times(2)).find(argThat((Query q) -> q.getLimit() == 1000
+                && "b-1".equals(q.getQueryObject().get("branchId"))), eq(Document.class), eq("products"));
+        InOrder order = inOrder(template);
+        order.verify(template, times(2)).remove(any(Query.class), eq(ProductDocument.class));
+        order.verify(template).remove(any(Query.class), eq(BranchTopProductDocument.class));
+        order.verify(template).remove(any(Query.class), eq(BranchDocument.class));
+    }
+
+    @Test
+    void deleteBranch_shouldKeepTheBranch_whenDeletingItsProductsFails() {
+        when(template.find(any(Query.class), eq(Document.class), eq("products"))).thenReturn(ids(3));
+        when(template.remove(any(Query.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+
+        StepVerifier.create(adapter.deleteBranch("b-1"))
+                .expectErrorMessage("connection reset")
+                .verify();
+
+        verify(template, never()).remove(any(Query.class), eq(BranchDocument.class));
+    }
+
+    @Test
+    void deleteFranchise_shouldFail_whenNotFound() {
+        when(template.find(any(Query.class), eq(Document.class), eq("branches"))).thenReturn(Flux.empty());
+        when(template.remove(any(Query.class), eq(FranchiseDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(0)));
+
+        StepVerifier.create(adapter.deleteFranchise("f-404"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+
+        verify(template, never()).remove(any(Query.class), eq(BranchDocument.class));
+    }
+
+    @Test
+    void deleteFranchise_shouldCascadeToBranchesAndProducts() {
+        when(template.remove(any(Query.class), eq(FranchiseDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(1)));
+        when(template.find(any(Query.class), eq(Document.class), eq("branches"))).thenReturn(ids(2));
+        when(template.find(any(Query.class), eq(Document.class), eq("products"))).thenReturn(ids(7));
+        when(template.remove(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(7)));
+        when(template.remove(any(Query.class), eq(BranchDocument.class))).thenReturn(Mono.just(DeleteResult.acknowledged(2)));
+
+        StepVerifier.create(adapter.deleteFranchise("f-1"))
+                .assertNext(summary -> {
+                    assertEquals(1, summary.getFranchises());
+                    assertEquals(2, summary.getBranches());
+                    assertEquals(7, summary.getProducts());
+                })
+                .verifyComplete();
+
+        verify(template).find(argThat((Query q) -> q.getQueryObject().get("branchId", Document.class) != null),
+                eq(Document.class), eq("products"));
+        InOrder order = inOrder(template);
+        order.verify(template).remove(any(Query.class), eq(ProductDocument.class));
+        order.verify(template).remove(any(Query.class), eq(BranchDocument.class));
+        order.verify(template).remove(argThat((Query q) -> "f-1".equals(q.getQueryObject().get("franchiseId"))),
+                eq(BranchTopProductDocument.class));
+        order.verify(template).remove(any(Query.class), eq(FranchiseDocument.class));
+    }
+
+    private static Flux<Document> ids(int count) {
+        List<Document> docs = IntStream.range(0, count)
+                .mapToObj(i -> new Document("_id", new ObjectId()))
+                .toList();
+        return Flux.fromIterable(docs);
+    }
+}
@@ -0,0 +1,145 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.PageCursor;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MongoFranchiseAdapterListingTest {
+
+    FranchiseMongoRepository franchiseRepo;
+    BranchMongoRepository branchRepo;
+    ProductMongoRepository productRepo;
+    ReactiveMongoTemplate template;
+    BranchTopProductProjection topProducts;
+    StockEventGateway events;
+    FranchiseTreeImporter importer;
+    MongoIdFilters idFilters;
+    MongoCodecOperations documents;
+
+    MongoFranchiseAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        franchiseRepo = mock(FranchiseMongoRepository.class);
+        branchRepo = mock(BranchMongoRepository.class);
+        productRepo = mock(ProductMongoRepository.class);
+        template = mock(ReactiveMongoTemplate.class);
+        topProducts = mock(BranchTopProductProjection.class);
+        events = mock(StockEventGateway.class);
+        importer = mock(FranchiseTreeImporter.class);
+        idFilters = mock(MongoIdFilters.class);
+        documents = mock(MongoCodecOperations.class);
+        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo, template, topProducts, events, importer, idFilters, documents);
+    }
+
+    @Test
+    void listFranchises_shouldFetchOneExtraRow_andReturnCursorOfLastItem() {
+        Instant now = Instant.now();
+        when(documents.find(argThat((Query q) -> q.getLimit() == 3 && q.getQueryObject().isEmpty()
+                && new Document("_id", 1).equals(q.getSortObject())), eq(FranchiseDocument.class))).thenReturn(Flux.just(
+                new FranchiseDocument("f-1", "A", now, now),
+                new FranchiseDocument("f-2", "B", now, now),
+                new FranchiseDocument("f-3", "C", now, now)));
+
+        StepVerifier.create(adapter.listFranchises(null, 2))
+                .assertNext(page -> {
+                    assertEquals(2, page.getItems().size());
+                    assertEquals("f-2", page.getItems().get(1).getId());
+                    assertEquals(PageCursor.ofId("f-2"), page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void listFranchises_shouldSeekPastCursor_andEndWithoutNextCursor() {
+        String lastId = new ObjectId().toHexString();
+        Instant now = Instant.now();
+        when(documents.find(argThat((Query q) -> q.getLimit() == 3
+                && new Document("_id", new Document("$gt", new ObjectId(lastId))).equals(q.getQueryObject())),
+                eq(FranchiseDocument.class))).thenReturn(Flux.just(
+                new FranchiseDocument("f-9", "Z", now, now)));
+
+        StepVerifier.create(adapter.listFranchises(PageCursor.ofId(lastId), 2))
+                .assertNext(page -> {
+                    assertEquals(1, page.getItems().size());
+                    assertNull(page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void listFranchises_shouldRejectMalformedCursor() {
+        StepVerifier.create(adapter.listFranchises("%%%", 2))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Invalid cursor"))
+                .verify();
+    }
+
+    @Test
+    void listBranches_shouldError_whenFranchiseNotFoundOnFirstPage() {
+        when(franchiseRepo.existsById("f-404")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(adapter.listBranches("f-404", null, 10))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+
+        verifyNoInteractions(documents);
+    }
+
+    @Test
+    void listBranches_shouldNotRecheckFranchise_onFollowingPages() {
+        Instant now = Instant.now();
+        when(documents.find(argThat((Query q) -> q.getLimit() == 11
+                && new Document("franchiseId", "f-1").append("_id", new Document("$gt", "b-1")).equals(q.getQueryObject())),
+                eq(BranchDocument.class))).thenReturn(Flux.just(
+                new BranchDocument("b-2", "f-1", "Norte", now, now)));
+
+        StepVerifier.create(adapter.listBranches("f-1", PageCursor.ofId("b-1"), 10))
+                .assertNext(page -> assertEquals("b-2", page.getItems().get(0).getId()))
+                .verifyComplete();
+
+        verifyNoInteractions(franchiseRepo);
+    }
+
+    @Test
+    void listProducts_shouldSeekByStockAndId() {
+        Instant now = Instant.now();
+        when(documents.find(argThat((Query q) -> q.getLimit() == 2
+                && "b-1".equals(q.getQueryObject().get("branchId"))
+                && q.getQueryObject().containsKey("$or")
+                && new Document("stock", -1).append("_id", 1).equals(q.getSortObject())),
+                eq(ProductDocument.class))).thenReturn(Flux.just(
+                new ProductDocument("p-7", "b-1", "Soda", 30, now, now),
+                new ProductDocument("p-2", "b-1", "Salad", 10, now, now)));
+
+        StepVerifier.create(adapter.listProducts("b-1", PageCursor.ofStockAndId(30, "p-4"), 1))
+                .assertNext(page -> {
+                    assertEquals("p-7", page.getItems().get(0).getId());
+                    assertEquals(PageCursor.ofStockAndId(30, "p-7"), page.getNextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void listProducts_shouldRejectCursorWithoutStock() {
+        StepVerifier.create(adapter.listProducts("b-1", PageCursor.ofId("p-4"), 1))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Invalid cursor"))
+                .verify();
+    }
+}
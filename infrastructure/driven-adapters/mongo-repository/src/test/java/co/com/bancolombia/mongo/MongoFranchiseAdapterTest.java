@@ -1,15 +1,24 @@
 package co.com.bancolombia.mongo;
 
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Instant;
+import java.util.ConcurrentModificationException;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -20,12 +29,18 @@ class MongoFranchiseAdapterTest {
     @Mock FranchiseMongoRepository franchiseRepo;
     @Mock BranchMongoRepository branchRepo;
     @Mock ProductMongoRepository productRepo;
+    @Mock ReactiveMongoTemplate template;
+    @Mock BranchTopProductProjection topProducts;
+    @Mock StockEventGateway events;
+    @Mock FranchiseTreeImporter importer;
+    @Mock MongoIdFilters idFilters;
+    @Mock MongoCodecOperations documents;
 
     MongoFranchiseAdapter adapter;
 
     @BeforeEach
     void setUp() {
-        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo);
+        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo, template, topProducts, events, importer, idFilters, documents);
     }
 
     @Test
@@ -40,23 +55,21 @@ class MongoFranchiseAdapterTest {
 
     @Test
     void createFranchise_shouldError_whenDuplicateName() {
-        when(franchiseRepo.existsByName("Nequi")).thenReturn(Mono.just(true));
+        when(documents.insert(any(FranchiseDocument.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
 
         StepVerifier.create(adapter.createFranchise("Nequi"))
                 .expectErrorMatches(e -> e instanceof IllegalStateException
                         && e.getMessage().contains("already exists"))
                 .verify();
 
-        verify(franchiseRepo).existsByName("Nequi");
-        verifyNoMoreInteractions(franchiseRepo);
-        verifyNoInteractions(branchRepo, productRepo);
+        verify(documents).insert(any(FranchiseDocument.class), eq(FranchiseDocument.class));
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo);
     }
 
     @Test
-    void createFranchise_shouldSaveAndMap_whenOk() {
-        Instant now = Instant.now();
-        when(franchiseRepo.existsByName("Nequi")).thenReturn(Mono.just(false));
-        when(franchiseRepo.save(any(FranchiseDocument.class)))
+    void createFranchise_shouldInsertAndMap_whenOk() {
+        when(documents.insert(any(FranchiseDocument.class), eq(FranchiseDocument.class)))
                 .thenAnswer(inv -> {
                     FranchiseDocument doc = inv.getArgument(0);
                     return Mono.just(new FranchiseDocument("f-1", doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt()));
@@ -68,13 +81,13 @@ class MongoFranchiseAdapterTest {
                     org.junit.jupiter.api.Assertions.assertEquals("Nequi", fr.getName());                 })
                 .verifyComplete();
 
-        verify(franchiseRepo).existsByName("Nequi");
-        verify(franchiseRepo).save(any(FranchiseDocument.class));
-        verifyNoInteractions(branchRepo, productRepo);
+        verify(documents).insert(argThat((FranchiseDocument doc) -> doc.getId() != null
+                && Long.valueOf(0L).equals(doc.getVersion())), eq(FranchiseDocument.class));
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo);
     }
 
     @Test
-    void addBranch_shouldError_whenFranchiseNotFound() {
+    void addBranch_shouldNotInsert_whenFranchiseNotFound() {
         when(franchiseRepo.existsById("f-1")).thenReturn(Mono.just(false));
 
         StepVerifier.create(adapter.addBranch("f-1", "Sucursal 1"))
@@ -83,34 +96,47 @@ class MongoFranchiseAdapterTest {
                 .verify();
 
         verify(franchiseRepo).existsById("f-1");
-        verifyNoInteractions(branchRepo, productRepo);
+        verify(idFilters).notFound(MongoIdFilters.Kind.FRANCHISE, "f-1");
+        verifyNoInteractions(branchRepo, productRepo, topProducts);
+    }
+
+    @Test
+    void addBranch_shouldRejectWithoutRoundTrip_whenFranchiseIsDefinitelyMissing() {
+        when(idFilters.definitelyMissing(MongoIdFilters.Kind.FRANCHISE, "f-1")).thenReturn(true);
+
+        StepVerifier.create(adapter.addBranch("f-1", "Sucursal 1"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo, topProducts);
     }
 
     @Test
     void addBranch_shouldError_whenDuplicateBranchName() {
         when(franchiseRepo.existsById("f-1")).thenReturn(Mono.just(true));
-        when(branchRepo.existsByFranchiseIdAndName("f-1", "Sucursal 1")).thenReturn(Mono.just(true));
+        when(documents.insert(any(BranchDocument.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
 
         StepVerifier.create(adapter.addBranch("f-1", "Sucursal 1"))
                 .expectErrorMatches(e -> e instanceof IllegalStateException
                         && e.getMessage().contains("already exists"))
                 .verify();
 
-        verify(franchiseRepo).existsById("f-1");
-        verify(branchRepo).existsByFranchiseIdAndName("f-1", "Sucursal 1");
-        verifyNoMoreInteractions(franchiseRepo, branchRepo);
-        verifyNoInteractions(productRepo);
+        verify(documents).insert(any(BranchDocument.class), eq(BranchDocument.class));
+        verifyNoMoreInteractions(branchRepo);
+        verifyNoInteractions(productRepo, topProducts);
     }
 
     @Test
-    void addBranch_shouldSaveAndMap_whenOk() {
+    void addBranch_shouldInsertAndMap_whenOk() {
         when(franchiseRepo.existsById("f-1")).thenReturn(Mono.just(true));
-        when(branchRepo.existsByFranchiseIdAndName("f-1", "Sucursal 1")).thenReturn(Mono.just(false));
-        when(branchRepo.save(any(BranchDocument.class)))
+        when(documents.insert(any(BranchDocument.class), eq(BranchDocument.class)))
                 .thenAnswer(inv -> {
                     BranchDocument doc = inv.getArgument(0);
                     return Mono.just(new BranchDocument("b-1", doc.getFranchiseId(), doc.getName(), doc.getCreatedAt(), doc.getUpdatedAt()));
                 });
+        when(topProducts.branchSaved(any(BranchDocument.class))).thenReturn(Mono.empty());
 
         StepVerifier.create(adapter.addBranch("f-1", "  Sucursal 1  "))
                 .assertNext(b -> {
@@ -121,43 +147,56 @@ class MongoFranchiseAdapterTest {
                 .verifyComplete();
 
         verify(franchiseRepo).existsById("f-1");
-        verify(branchRepo).existsByFranchiseIdAndName("f-1", "Sucursal 1");
-        verify(branchRepo).save(any(BranchDocument.class));
+        verify(documents).insert(argThat((BranchDocument doc) -> "Sucursal 1".equals(doc.getName())), eq(BranchDocument.class));
+        verifyNoMoreInteractions(branchRepo);
+        verify(topProducts).branchSaved(argThat(doc -> "b-1".equals(doc.getId())));
+        verify(idFilters).created(MongoIdFilters.Kind.BRANCH, "b-1");
         verifyNoInteractions(productRepo);
     }
 
     @Test
-    void topProductByBranch_shouldReturnTopProductOrEmptyPerBranch() {
-        when(franchiseRepo.existsById("f-1")).thenReturn(Mono.just(true));
+    void topProductsByBranch_shouldError_whenKIsNotPositive() {
+        StepVerifier.create(adapter.topProductsByBranch("f-1", 0))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("k must be greater than zero"))
+                .verify();
+
+        verifyNoInteractions(topProducts);
+    }
 
-        BranchDocument br1 = new BranchDocument("br-1", "f-1", "Centro", Instant.now(), Instant.now());
-        BranchDocument br2 = new BranchDocument("br-2", "f-1", "Norte", Instant.now(), Instant.now());
-        when(branchRepo.findAllByFranchiseId("f-1")).thenReturn(Flux.just(br1, br2));
+    @Test
+    void topProductsByBranch_shouldDelegateToProjection() {
+        TopProductByBranch top = new TopProductByBranch("b-1", "Centro", "p-1", "Burger", 50);
+        when(topProducts.topProductsByBranch("f-1", 3)).thenReturn(Flux.just(top));
+
+        StepVerifier.create(adapter.topProductsByBranch("f-1", 3))
+                .expectNext(top)
+                .verifyComplete();
+
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo);
+    }
+
+    @Test
+    void topProductByBranch_shouldError_whenFranchiseIdBlank() {
+        StepVerifier.create(adapter.topProductByBranch(" "))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise id must not be empty"))
+                .verify();
+
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo, topProducts);
+    }
+
+    @Test
+    void topProductByBranch_shouldReadProjection() {
+        TopProductByBranch top = new TopProductByBranch("br-1", "Centro", "p-1", "Burger", 50);
+        when(topProducts.topProductByBranch("f-1")).thenReturn(Flux.just(top));
 
-        ProductDocument p1 = new ProductDocument("p-1", "br-1", "Burger", 50, Instant.now(), Instant.now());
-        when(productRepo.findFirstByBranchIdOrderByStockDesc("br-1")).thenReturn(Mono.just(p1));
-        when(productRepo.findFirstByBranchIdOrderByStockDesc("br-2")).thenReturn(Mono.empty()); 
         StepVerifier.create(adapter.topProductByBranch("f-1"))
-                .assertNext(t -> {
-                    org.junit.jupiter.api.Assertions.assertEquals("br-1", t.getBranchId());
-                    org.junit.jupiter.api.Assertions.assertEquals("Centro", t.getBranchName());
-                    org.junit.jupiter.api.Assertions.assertEquals("p-1", t.getProductId());
-                    org.junit.jupiter.api.Assertions.assertEquals("Burger", t.getProductName());
-                    org.junit.jupiter.api.Assertions.assertEquals(50, t.getStock());
-                })
-                .assertNext(t -> {
-                    org.junit.jupiter.api.Assertions.assertEquals("br-2", t.getBranchId());
-                    org.junit.jupiter.api.Assertions.assertEquals("Norte", t.getBranchName());
-                    org.junit.jupiter.api.Assertions.assertNull(t.getProductId());
-                    org.junit.jupiter.api.Assertions.assertNull(t.getProductName());
-                    org.junit.jupiter.api.Assertions.assertEquals(0, t.getStock());
-                })
+                .expectNext(top)
                 .verifyComplete();
 
-        verify(franchiseRepo).existsById("f-1");
-        verify(branchRepo).findAllByFranchiseId("f-1");
-        verify(productRepo).findFirstByBranchIdOrderByStockDesc("br-1");
-        verify(productRepo).findFirstByBranchIdOrderByStockDesc("br-2");
+        verify(topProducts).topProductByBranch("f-1");
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo);
     }
 
     @Test
@@ -191,16 +230,18 @@ class MongoFranchiseAdapterTest {
     }
 
     @Test
-    void addProduct_shouldSaveAndMap_whenOk() {
-        when(branchRepo.existsById("br-1")).thenReturn(Mono.just(true));
-        when(productRepo.existsByBranchIdAndName("br-1", "Burger")).thenReturn(Mono.just(false));
-        when(productRepo.save(any(ProductDocument.class)))
+    void addProduct_shouldInsertAndMap_whenOk() {
+        when(template.findOne(any(Query.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.just(new BranchDocument("br-1", "f-1", null, null, null)));
+        when(documents.insert(any(ProductDocument.class), eq(ProductDocument.class)))
                 .thenAnswer(inv -> {
                     ProductDocument doc = inv.getArgument(0);
+                    org.junit.jupiter.api.Assertions.assertEquals("f-1", doc.getFranchiseId());
                     return Mono.just(new ProductDocument(
                             "p-1", doc.getBranchId(), doc.getName(), doc.getStock(), doc.getCreatedAt(), doc.getUpdatedAt()
                     ));
                 });
+        when(topProducts.refreshBranch("br-1")).thenReturn(Mono.empty());
 
         StepVerifier.create(adapter.addProduct("br-1", "  Burger  ", 10))
                 .assertNext(p -> {
@@ -211,10 +252,37 @@ class MongoFranchiseAdapterTest {
                 })
                 .verifyComplete();
 
-        verify(branchRepo).existsById("br-1");
-        verify(productRepo).existsByBranchIdAndName("br-1", "Burger");
-        verify(productRepo).save(any(ProductDocument.class));
-        verifyNoInteractions(franchiseRepo);
+        verify(documents).insert(any(ProductDocument.class), eq(ProductDocument.class));
+        verifyNoMoreInteractions(productRepo);
+        verify(topProducts).refreshBranch("br-1");
+        verifyNoInteractions(franchiseRepo, branchRepo);
+    }
+
+    @Test
+    void addProduct_shouldError_whenDuplicateProductName() {
+        when(template.findOne(any(Query.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.just(new BranchDocument("br-1", "f-1", null, null, null)));
+        when(documents.insert(any(ProductDocument.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+        StepVerifier.create(adapter.addProduct("br-1", "Burger", 10))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().contains("Product name already exists"))
+                .verify();
+
+        verifyNoInteractions(topProducts, events);
+    }
+
+    @Test
+    void addProduct_shouldNotInsert_whenBranchNotFound() {
+        when(template.findOne(any(Query.class), eq(BranchDocument.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(adapter.addProduct("br-404", "Burger", 10))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Branch not found"))
+                .verify();
+
+        verifyNoInteractions(productRepo, topProducts, events);
     }
 
     @Test
@@ -229,34 +297,36 @@ class MongoFranchiseAdapterTest {
 
     @Test
     void deleteProduct_shouldError_whenNotFound() {
-        when(productRepo.existsById("p-1")).thenReturn(Mono.just(false));
+        when(template.findAndRemove(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.empty());
 
         StepVerifier.create(adapter.deleteProduct("p-1"))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Product not found"))
                 .verify();
 
-        verify(productRepo).existsById("p-1");
-        verifyNoMoreInteractions(productRepo);
-        verifyNoInteractions(franchiseRepo, branchRepo);
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo, topProducts);
     }
 
     @Test
-    void deleteProduct_shouldDelete_whenExists() {
-        when(productRepo.existsById("p-1")).thenReturn(Mono.just(true));
-        when(productRepo.deleteById("p-1")).thenReturn(Mono.empty());
+    void deleteProduct_shouldRemoveInOneRoundTrip_whenExists() {
+        ProductDocument existing = new ProductDocument("p-1", "br-1", "Burger", 5, Instant.now(), Instant.now());
+        when(template.findAndRemove(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.just(existing));
+        when(topProducts.refreshBranch("br-1")).thenReturn(Mono.just("fr-1"));
 
         StepVerifier.create(adapter.deleteProduct("p-1"))
                 .verifyComplete();
 
-        verify(productRepo).existsById("p-1");
-        verify(productRepo).deleteById("p-1");
-        verifyNoInteractions(franchiseRepo, branchRepo);
+        verify(template).findAndRemove(argThat((Query q) -> "p-1".equals(q.getQueryObject().get("_id"))),
+                eq(ProductDocument.class));
+        verify(topProducts).refreshBranch("br-1");
+        verify(events).publish(argThat(e -> e.getType() == StockEventType.PRODUCT_REMOVED
+                && "fr-1".equals(e.getFranchiseId()) && "p-1".equals(e.getProductId())));
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo);
     }
 
     @Test
     void updateProductStock_shouldError_whenProductIdBlank() {
-        StepVerifier.create(adapter.updateProductStock("  ", 10))
+        StepVerifier.create(adapter.updateProductStock("  ", 10, null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Product id must not be empty"))
                 .verify();
@@ -266,7 +336,7 @@ class MongoFranchiseAdapterTest {
 
     @Test
     void updateProductStock_shouldError_whenStockNegative() {
-        StepVerifier.create(adapter.updateProductStock("p-1", -1))
+        StepVerifier.create(adapter.updateProductStock("p-1", -1, null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Stock must be"))
                 .verify();
@@ -276,39 +346,201 @@ class MongoFranchiseAdapterTest {
 
     @Test
     void updateProductStock_shouldError_whenProductNotFound() {
-        when(productRepo.findById("p-1")).thenReturn(Mono.empty());
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(productRepo.existsById("p-1")).thenReturn(Mono.just(false));
 
-        StepVerifier.create(adapter.updateProductStock("p-1", 10))
+        StepVerifier.create(adapter.updateProductStock("p-1", 10, null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Product not found"))
                 .verify();
 
-        verify(productRepo).findById("p-1");
-        verifyNoMoreInteractions(productRepo);
-        verifyNoInteractions(franchiseRepo, branchRepo);
+        verifyNoInteractions(franchiseRepo, branchRepo, topProducts);
     }
 
     @Test
-    void updateProductStock_shouldSaveUpdatedStock_whenOk() {
-        ProductDocument existing = new ProductDocument(
-                "p-1", "br-1", "Burger", 5, Instant.now(), Instant.now()
-        );
+    void updateProductStock_shouldRejectWithoutRoundTrip_whenProductIsDefinitelyMissing() {
+        when(idFilters.definitelyMissing(MongoIdFilters.Kind.PRODUCT, "p-1")).thenReturn(true);
 
-        when(productRepo.findById("p-1")).thenReturn(Mono.just(existing));
-        when(productRepo.save(any(ProductDocument.class)))
-                .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        StepVerifier.create(adapter.updateProductStock("p-1", 10, null))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Product not found"))
+                .verify();
+
+        verifyNoInteractions(template, documents, franchiseRepo, branchRepo, productRepo, topProducts);
+    }
+
+    @Test
+    void addProduct_shouldRejectWithoutRoundTrip_whenBranchIsDefinitelyMissing() {
+        when(idFilters.definitelyMissing(MongoIdFilters.Kind.BRANCH, "b-1")).thenReturn(true);
+
+        StepVerifier.create(adapter.addProduct("b-1", "Tarjeta", 5))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Branch not found"))
+                .verify();
 
-        StepVerifier.create(adapter.updateProductStock("p-1", 99))
+        verifyNoInteractions(template, documents, franchiseRepo, branchRepo, productRepo, topProducts);
+    }
+
+    @Test
+    void updateProductStock_shouldSetStockAndBumpVersion_inOneWrite() {
+        ProductDocument updated = new ProductDocument("p-1", "br-1", "Burger", 99, Instant.now(), Instant.now());
+        updated.setVersion(4L);
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(updated));
+        when(topProducts.refreshBranch("br-1")).thenReturn(Mono.just("fr-1"));
+
+        StepVerifier.create(adapter.updateProductStock("p-1", 99, null))
                 .assertNext(p -> {
                     org.junit.jupiter.api.Assertions.assertEquals("p-1", p.getId());
                     org.junit.jupiter.api.Assertions.assertEquals("br-1", p.getBranchId());
-                    org.junit.jupiter.api.Assertions.assertEquals("Burger", p.getName());
                     org.junit.jupiter.api.Assertions.assertEquals(99, p.getStock());
+                    org.junit.jupiter.api.Assertions.assertEquals(4, p.getVersion());
                 })
                 .verifyComplete();
 
-        verify(productRepo).findById("p-1");
-        verify(productRepo).save(any(ProductDocument.class));
-        verifyNoInteractions(franchiseRepo, branchRepo);
+        verify(documents).findAndModify(
+                argThat((Query q) -> !q.getQueryObject().containsKey("version")),
+                argThat((Update u) -> u.getUpdateObject().get("$set", Document.class).get("stock").equals(99)
+                        && u.getUpdateObject().get("$inc", Document.class).get("version").equals(1)),
+                eq(ProductDocument.class));
+        verify(events).publish(argThat(e -> e.getType() == StockEventType.STOCK_CHANGED
+                && "fr-1".equals(e.getFranchiseId()) && e.getStock() == 99));
+        verifyNoInteractions(franchiseRepo, branchRepo, productRepo);
+    }
+
+    @Test
+    void updateProductStock_shouldMatchExpectedVersion() {
+        ProductDocument updated = new ProductDocument("p-1", "br-1", "Burger", 7, Instant.now(), Instant.now());
+        updated.setVersion(3L);
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(updated));
+        when(topProducts.refreshBranch("br-1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(adapter.updateProductStock("p-1", 7, 2L))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(documents).findAndModify(argThat((Query q) -> Long.valueOf(2L).equals(q.getQueryObject().get("version"))),
+                any(Update.class), eq(ProductDocument.class));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void updateProductStock_shouldFailPrecondition_whenVersionDoesNotMatch() {
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(productRepo.existsById("p-1")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.updateProductStock("p-1", 7, 2L))
+                .expectError(ConcurrentModificationException.class)
+                .verify();
+
+        verifyNoInteractions(topProducts, events);
+    }
+
+    @Test
+    void findProduct_shouldReturnProduct_whenExists() {
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(new ProductDocument("p-1", "br-1", "Burger", 5, Instant.now(), Instant.now())));
+
+        StepVerifier.create(adapter.findProduct("p-1"))
+                .assertNext(p -> org.junit.jupiter.api.Assertions.assertEquals(5, p.getStock()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findProduct_shouldError_whenNotFound() {
+        when(documents.findOne(any(Query.class), eq(ProductDocument.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(adapter.findProduct("p-404"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Product not found"))
+                .verify();
+    }
+
+    @Test
+    void adjustProductStock_shouldError_whenDeltaIsZero() {
+        StepVerifier.create(adapter.adjustProductStock("p-1", 0))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Delta must not be zero"))
+                .verify();
+
+        verifyNoInteractions(template, documents, productRepo);
+    }
+
+    @Test
+    void adjustProductStock_shouldIncrementAtomically_withNonNegativeGuard() {
+        ProductDocument updated = new ProductDocument("p-1", "br-1", "Burger", 8, Instant.now(), Instant.now());
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(updated));
+        when(topProducts.refreshBranch("br-1")).thenReturn(Mono.just("fr-1"));
+
+        StepVerifier.create(adapter.adjustProductStock("p-1", -2))
+                .assertNext(p -> org.junit.jupiter.api.Assertions.assertEquals(8, p.getStock()))
+                .verifyComplete();
+
+        verify(documents).findAndModify(
+                argThat((Query q) -> q.getQueryObject().get("stock", Document.class).get("$gte").equals(2L)),
+                argThat((Update u) -> u.getUpdateObject().get("$inc", Document.class).get("stock").equals(-2)),
+                eq(ProductDocument.class));
+        verify(events).publish(argThat(e -> e.getType() == StockEventType.STOCK_CHANGED && e.getStock() == 8));
+        verifyNoInteractions(productRepo);
+    }
+
+    @Test
+    void adjustProductStock_shouldGuardAgainstOverflow_whenIncrementing() {
+        ProductDocument updated = new ProductDocument("p-1", "br-1", "Burger", 12, Instant.now(), Instant.now());
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(updated));
+        when(topProducts.refreshBranch("br-1")).thenReturn(Mono.just("fr-1"));
+
+        StepVerifier.create(adapter.adjustProductStock("p-1", 2))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(documents).findAndModify(
+                argThat((Query q) -> q.getQueryObject().get("stock", Document.class).get("$lte").equals(Integer.MAX_VALUE - 2L)),
+                any(Update.class), eq(ProductDocument.class));
+    }
+
+    @Test
+    void adjustProductStock_shouldConflict_whenIncrementWouldOverflow() {
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(productRepo.existsById("p-1")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.adjustProductStock("p-1", Integer.MAX_VALUE))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Stock limit exceeded"))
+                .verify();
+
+        verifyNoInteractions(topProducts, events);
+    }
+
+    @Test
+    void adjustProductStock_shouldConflict_whenStockIsInsufficient() {
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(productRepo.existsById("p-1")).thenReturn(Mono.just(true));
+
+        StepVerifier.create(adapter.adjustProductStock("p-1", -50))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().contains("Insufficient stock"))
+                .verify();
+
+        verifyNoInteractions(topProducts, events);
+    }
+
+    @Test
+    void adjustProductStock_shouldError_whenProductNotFound() {
+        when(documents.findAndModify(any(Query.class), any(Update.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(productRepo.existsById("p-404")).thenReturn(Mono.just(false));
+
+        StepVerifier.create(adapter.adjustProductStock("p-404", 3))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Product not found"))
+                .verify();
     }
 }
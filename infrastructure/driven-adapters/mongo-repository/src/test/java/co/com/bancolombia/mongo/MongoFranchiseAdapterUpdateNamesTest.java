@@ -1,12 +1,21 @@
 package co.com.bancolombia.mongo;
 
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Instant;
+import java.util.ConcurrentModificationException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -15,261 +24,329 @@ class MongoFranchiseAdapterUpdateNamesTest {
     FranchiseMongoRepository franchiseRepo;
     BranchMongoRepository branchRepo;
     ProductMongoRepository productRepo;
+    ReactiveMongoTemplate template;
+    BranchTopProductProjection topProducts;
+    StockEventGateway events;
+    FranchiseTreeImporter importer;
+    MongoIdFilters idFilters;
+    MongoCodecOperations documents;
 
     MongoFranchiseAdapter adapter;
 
+    private static final Instant CREATED = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant UPDATED = Instant.parse("2025-01-02T00:00:00Z");
+
     @BeforeEach
     void setUp() {
         franchiseRepo = mock(FranchiseMongoRepository.class);
         branchRepo = mock(BranchMongoRepository.class);
         productRepo = mock(ProductMongoRepository.class);
-        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo);
+        template = mock(ReactiveMongoTemplate.class);
+        topProducts = mock(BranchTopProductProjection.class);
+        events = mock(StockEventGateway.class);
+        importer = mock(FranchiseTreeImporter.class);
+        idFilters = mock(MongoIdFilters.class);
+        documents = mock(MongoCodecOperations.class);
+        when(topProducts.branchSaved(any())).thenReturn(Mono.empty());
+        when(topProducts.refreshBranch(any())).thenReturn(Mono.empty());
+        adapter = new MongoFranchiseAdapter(franchiseRepo, branchRepo, productRepo, template, topProducts, events, importer, idFilters, documents);
     }
 
     @Test
     void updateFranchiseName_shouldFail_whenIdBlank() {
-        StepVerifier.create(adapter.updateFranchiseName("  ", "New"))
+        StepVerifier.create(adapter.updateFranchiseName("  ", "New", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Franchise id must not be empty"))
                 .verify();
+
+        verifyNoInteractions(template);
     }
 
     @Test
     void updateFranchiseName_shouldFail_whenNameBlank() {
-        StepVerifier.create(adapter.updateFranchiseName("f-1", " "))
+        StepVerifier.create(adapter.updateFranchiseName("f-1", " ", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("New franchise name must not be empty"))
                 .verify();
+
+        verifyNoInteractions(template);
     }
 
     @Test
-    void updateFranchiseName_shouldFail_whenNotFound() {
-        when(franchiseRepo.findById("f-1")).thenReturn(Mono.empty());
+    void updateFranchiseName_shouldRenameWithSingleConditionalWrite() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.just(new FranchiseDocument("f-1", "NEW", CREATED, Instant.now())));
 
-        StepVerifier.create(adapter.updateFranchiseName("f-1", "New"))
-                .expectErrorMatches(e -> e instanceof IllegalArgumentException
-                        && e.getMessage().contains("Franchise not found"))
-                .verify();
+        StepVerifier.create(adapter.updateFranchiseName("f-1", " NEW ", null))
+                .assertNext(renamed -> assertEquals("NEW", renamed.getName()))
+                .verifyComplete();
 
-        verify(franchiseRepo).findById("f-1");
-        verifyNoMoreInteractions(franchiseRepo);
-        verifyNoInteractions(branchRepo, productRepo);
+        verify(template).findAndModify(
+                argThat((Query q) -> "NEW".equals(q.getQueryObject().get("name", Document.class).get("$ne"))),
+                argThat((Update u) -> "NEW".equals(u.getUpdateObject().get("$set", Document.class).get("name"))),
+                argThat((FindAndModifyOptions o) -> o.isReturnNew()),
+                eq(FranchiseDocument.class));
+        verifyNoInteractions(franchiseRepo);
     }
 
     @Test
-    void updateFranchiseName_shouldAllowSameName_andSave() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        Instant updated = Instant.parse("2025-01-02T00:00:00Z");
-        FranchiseDocument existing = new FranchiseDocument("f-1", "ACME", created, updated);
-
-        when(franchiseRepo.findById("f-1")).thenReturn(Mono.just(existing));
-                when(franchiseRepo.existsByName("ACME")).thenReturn(Mono.just(true));
-        when(franchiseRepo.save(any(FranchiseDocument.class)))
-                .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
-
-        StepVerifier.create(adapter.updateFranchiseName("f-1", " ACME "))
-                .assertNext(fr -> {
-                    org.junit.jupiter.api.Assertions.assertEquals("f-1", fr.getId());
-                    org.junit.jupiter.api.Assertions.assertEquals("ACME", fr.getName());
+    void updateFranchiseName_shouldSkipWrite_whenNameIsUnchanged() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.empty());
+        when(franchiseRepo.findById("f-1")).thenReturn(Mono.just(new FranchiseDocument("f-1", "SAME", CREATED, UPDATED)));
+
+        StepVerifier.create(adapter.updateFranchiseName("f-1", " SAME ", null))
+                .assertNext(same -> {
+                    assertEquals("SAME", same.getName());
+                    assertEquals(UPDATED, same.getUpdatedAt());
                 })
                 .verifyComplete();
 
-        verify(franchiseRepo).findById("f-1");
-        verify(franchiseRepo).existsByName("ACME");
-        verify(franchiseRepo).save(argThat(doc ->
-                doc.getId().equals("f-1")
-                        && doc.getName().equals("ACME")
-                        && doc.getCreatedAt().equals(created)
-                        && doc.getUpdatedAt() != null
-        ));
+        verify(franchiseRepo, never()).save(any());
+        verifyNoInteractions(topProducts);
     }
 
     @Test
-    void updateFranchiseName_shouldFail_whenDuplicateName() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        FranchiseDocument existing = new FranchiseDocument("f-1", "OLD", created, created);
-
-        when(franchiseRepo.findById("f-1")).thenReturn(Mono.just(existing));
-        when(franchiseRepo.existsByName("NEW")).thenReturn(Mono.just(true));
+    void updateFranchiseName_shouldFail_whenNotFound() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.empty());
+        when(franchiseRepo.findById("f-1")).thenReturn(Mono.empty());
 
-        StepVerifier.create(adapter.updateFranchiseName("f-1", " NEW "))
-                .expectErrorMatches(e -> e instanceof IllegalStateException
-                        && e.getMessage().contains("Franchise name already exists"))
+        StepVerifier.create(adapter.updateFranchiseName("f-1", "NEW", null))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
                 .verify();
-
-        verify(franchiseRepo).findById("f-1");
-        verify(franchiseRepo).existsByName("NEW");
-        verify(franchiseRepo, never()).save(any());
     }
 
     @Test
-    void updateFranchiseName_shouldSave_whenNotDuplicate() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        FranchiseDocument existing = new FranchiseDocument("f-1", "OLD", created, created);
-
-        when(franchiseRepo.findById("f-1")).thenReturn(Mono.just(existing));
-        when(franchiseRepo.existsByName("NEW")).thenReturn(Mono.just(false));
-        when(franchiseRepo.save(any(FranchiseDocument.class)))
-                .thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+    void updateFranchiseName_shouldFail_whenDuplicateName() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
 
-        StepVerifier.create(adapter.updateFranchiseName("f-1", " NEW "))
-                .assertNext(fr -> org.junit.jupiter.api.Assertions.assertEquals("NEW", fr.getName()))
-                .verifyComplete();
+        StepVerifier.create(adapter.updateFranchiseName("f-1", " NEW ", null))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().contains("Franchise name already exists"))
+                .verify();
 
-        verify(franchiseRepo).save(argThat(doc -> doc.getName().equals("NEW")));
+        verifyNoInteractions(franchiseRepo, topProducts);
     }
-            
+
     @Test
     void updateBranchName_shouldFail_whenIdBlank() {
-        StepVerifier.create(adapter.updateBranchName(" ", "X"))
+        StepVerifier.create(adapter.updateBranchName("  ", "New", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Branch id must not be empty"))
                 .verify();
+
+        verifyNoInteractions(template);
     }
 
     @Test
     void updateBranchName_shouldFail_whenNameBlank() {
-        StepVerifier.create(adapter.updateBranchName("b-1", " "))
+        StepVerifier.create(adapter.updateBranchName("b-1", " ", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("New branch name must not be empty"))
                 .verify();
+
+        verifyNoInteractions(template);
     }
 
     @Test
-    void updateBranchName_shouldFail_whenNotFound() {
-        when(branchRepo.findById("b-1")).thenReturn(Mono.empty());
+    void updateBranchName_shouldRenameWithSingleConditionalWrite() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.just(new BranchDocument("b-1", "f-1", "NEW", CREATED, Instant.now())));
 
-        StepVerifier.create(adapter.updateBranchName("b-1", "NEW"))
-                .expectErrorMatches(e -> e instanceof IllegalArgumentException
-                        && e.getMessage().contains("Branch not found"))
-                .verify();
+        StepVerifier.create(adapter.updateBranchName("b-1", " NEW ", null))
+                .assertNext(renamed -> assertEquals("NEW", renamed.getName()))
+                .verifyComplete();
 
-        verify(branchRepo).findById("b-1");
-        verify(branchRepo, never()).save(any());
+        verify(template).findAndModify(
+                argThat((Query q) -> "NEW".equals(q.getQueryObject().get("name", Document.class).get("$ne"))),
+                argThat((Update u) -> "NEW".equals(u.getUpdateObject().get("$set", Document.class).get("name"))),
+                argThat((FindAndModifyOptions o) -> o.isReturnNew()),
+                eq(BranchDocument.class));
+        verifyNoInteractions(branchRepo);
+        verify(topProducts).branchSaved(argThat(doc -> "NEW".equals(doc.getName())));
     }
 
     @Test
-    void updateBranchName_shouldAllowSameName_andSave() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        BranchDocument existing = new BranchDocument("b-1", "f-1", "BRANCH", created, created);
-
-        when(branchRepo.findById("b-1")).thenReturn(Mono.just(existing));
-        when(branchRepo.existsByFranchiseIdAndName("f-1", "BRANCH")).thenReturn(Mono.just(true));
-        when(branchRepo.save(any(BranchDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
-
-        StepVerifier.create(adapter.updateBranchName("b-1", " BRANCH "))
-                .assertNext(br -> org.junit.jupiter.api.Assertions.assertEquals("BRANCH", br.getName()))
+    void updateBranchName_shouldSkipWrite_whenNameIsUnchanged() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.empty());
+        when(branchRepo.findById("b-1")).thenReturn(Mono.just(new BranchDocument("b-1", "f-1", "SAME", CREATED, UPDATED)));
+
+        StepVerifier.create(adapter.updateBranchName("b-1", " SAME ", null))
+                .assertNext(same -> {
+                    assertEquals("SAME", same.getName());
+                    assertEquals(UPDATED, same.getUpdatedAt());
+                })
                 .verifyComplete();
 
-        verify(branchRepo).save(argThat(doc -> doc.getName().equals("BRANCH")));
+        verify(branchRepo, never()).save(any());
+        verifyNoInteractions(topProducts);
     }
 
     @Test
-    void updateBranchName_shouldFail_whenDuplicateInFranchise() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        BranchDocument existing = new BranchDocument("b-1", "f-1", "OLD", created, created);
-
-        when(branchRepo.findById("b-1")).thenReturn(Mono.just(existing));
-        when(branchRepo.existsByFranchiseIdAndName("f-1", "NEW")).thenReturn(Mono.just(true));
+    void updateBranchName_shouldFail_whenNotFound() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.empty());
+        when(branchRepo.findById("b-1")).thenReturn(Mono.empty());
 
-        StepVerifier.create(adapter.updateBranchName("b-1", " NEW "))
-                .expectErrorMatches(e -> e instanceof IllegalStateException
-                        && e.getMessage().contains("Branch name already exists for this franchise"))
+        StepVerifier.create(adapter.updateBranchName("b-1", "NEW", null))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Branch not found"))
                 .verify();
-
-        verify(branchRepo, never()).save(any());
     }
 
     @Test
-    void updateBranchName_shouldSave_whenNotDuplicate() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        BranchDocument existing = new BranchDocument("b-1", "f-1", "OLD", created, created);
-
-        when(branchRepo.findById("b-1")).thenReturn(Mono.just(existing));
-        when(branchRepo.existsByFranchiseIdAndName("f-1", "NEW")).thenReturn(Mono.just(false));
-        when(branchRepo.save(any(BranchDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+    void updateBranchName_shouldFail_whenDuplicateName() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
 
-        StepVerifier.create(adapter.updateBranchName("b-1", " NEW "))
-                .assertNext(br -> org.junit.jupiter.api.Assertions.assertEquals("NEW", br.getName()))
-                .verifyComplete();
+        StepVerifier.create(adapter.updateBranchName("b-1", " NEW ", null))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().contains("Branch name already exists for this franchise"))
+                .verify();
 
-        verify(branchRepo).save(argThat(doc -> doc.getName().equals("NEW")));
+        verifyNoInteractions(branchRepo, topProducts);
     }
-            
+
     @Test
     void updateProductName_shouldFail_whenIdBlank() {
-        StepVerifier.create(adapter.updateProductName(" ", "X"))
+        StepVerifier.create(adapter.updateProductName("  ", "New", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Product id must not be empty"))
                 .verify();
+
+        verifyNoInteractions(template);
     }
 
     @Test
     void updateProductName_shouldFail_whenNameBlank() {
-        StepVerifier.create(adapter.updateProductName("p-1", " "))
+        StepVerifier.create(adapter.updateProductName("p-1", " ", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("New product name must not be empty"))
                 .verify();
+
+        verifyNoInteractions(template);
+    }
+
+    @Test
+    void updateProductName_shouldRenameWithSingleConditionalWrite() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(new ProductDocument("p-1", "b-1", "NEW", 10, CREATED, Instant.now())));
+
+        StepVerifier.create(adapter.updateProductName("p-1", " NEW ", null))
+                .assertNext(renamed -> assertEquals("NEW", renamed.getName()))
+                .verifyComplete();
+
+        verify(template).findAndModify(
+                argThat((Query q) -> "NEW".equals(q.getQueryObject().get("name", Document.class).get("$ne"))),
+                argThat((Update u) -> "NEW".equals(u.getUpdateObject().get("$set", Document.class).get("name"))),
+                argThat((FindAndModifyOptions o) -> o.isReturnNew()),
+                eq(ProductDocument.class));
+        verifyNoInteractions(productRepo);
+        verify(topProducts).refreshBranch("b-1");
+    }
+
+    @Test
+    void updateProductName_shouldSkipWrite_whenNameIsUnchanged() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
+        when(productRepo.findById("p-1")).thenReturn(Mono.just(new ProductDocument("p-1", "b-1", "SAME", 10, CREATED, UPDATED)));
+
+        StepVerifier.create(adapter.updateProductName("p-1", " SAME ", null))
+                .assertNext(same -> {
+                    assertEquals("SAME", same.getName());
+                    assertEquals(UPDATED, same.getUpdatedAt());
+                })
+                .verifyComplete();
+
+        verify(productRepo, never()).save(any());
+        verifyNoInteractions(topProducts);
     }
 
     @Test
     void updateProductName_shouldFail_whenNotFound() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.empty());
         when(productRepo.findById("p-1")).thenReturn(Mono.empty());
 
-        StepVerifier.create(adapter.updateProductName("p-1", "NEW"))
+        StepVerifier.create(adapter.updateProductName("p-1", "NEW", null))
                 .expectErrorMatches(e -> e instanceof IllegalArgumentException
                         && e.getMessage().contains("Product not found"))
                 .verify();
-
-        verify(productRepo).findById("p-1");
-        verify(productRepo, never()).save(any());
     }
 
     @Test
-    void updateProductName_shouldAllowSameName_andSave() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        ProductDocument existing = new ProductDocument("p-1", "b-1", "PROD", 10, created, created);
+    void updateProductName_shouldFail_whenDuplicateName() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
 
-        when(productRepo.findById("p-1")).thenReturn(Mono.just(existing));
-        when(productRepo.existsByBranchIdAndName("b-1", "PROD")).thenReturn(Mono.just(true));
-        when(productRepo.save(any(ProductDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        StepVerifier.create(adapter.updateProductName("p-1", " NEW ", null))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().contains("Product name already exists for this branch"))
+                .verify();
+
+        verifyNoInteractions(productRepo, topProducts);
+    }
 
-        StepVerifier.create(adapter.updateProductName("p-1", " PROD "))
-                .assertNext(p -> org.junit.jupiter.api.Assertions.assertEquals("PROD", p.getName()))
+    @Test
+    void updateProductName_shouldConditionOnExpectedVersion() {
+        ProductDocument renamed = new ProductDocument("p-1", "b-1", "NEW", 10, CREATED, Instant.now());
+        renamed.setVersion(5L);
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(ProductDocument.class)))
+                .thenReturn(Mono.just(renamed));
+
+        StepVerifier.create(adapter.updateProductName("p-1", "NEW", 4L))
+                .assertNext(product -> assertEquals(5, product.getVersion()))
                 .verifyComplete();
 
-        verify(productRepo).save(argThat(doc -> doc.getName().equals("PROD")));
+        verify(template).findAndModify(
+                argThat((Query q) -> Long.valueOf(4L).equals(q.getQueryObject().get("version"))),
+                argThat((Update u) -> u.getUpdateObject().get("$inc", Document.class).get("version").equals(1)),
+                any(FindAndModifyOptions.class),
+                eq(ProductDocument.class));
     }
 
     @Test
-    void updateProductName_shouldFail_whenDuplicateInBranch() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        ProductDocument existing = new ProductDocument("p-1", "b-1", "OLD", 10, created, created);
-
-        when(productRepo.findById("p-1")).thenReturn(Mono.just(existing));
-        when(productRepo.existsByBranchIdAndName("b-1", "NEW")).thenReturn(Mono.just(true));
+    void updateFranchiseName_shouldAcceptDocumentsWithoutVersion_whenZeroIsExpected() {
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(FranchiseDocument.class)))
+                .thenReturn(Mono.just(new FranchiseDocument("f-1", "NEW", CREATED, UPDATED)));
 
-        StepVerifier.create(adapter.updateProductName("p-1", " NEW "))
-                .expectErrorMatches(e -> e instanceof IllegalStateException
-                        && e.getMessage().contains("Product name already exists for this branch"))
-                .verify();
+        StepVerifier.create(adapter.updateFranchiseName("f-1", "NEW", 0L))
+                .expectNextCount(1)
+                .verifyComplete();
 
-        verify(productRepo, never()).save(any());
+        verify(template).findAndModify(argThat((Query q) -> q.getQueryObject().containsKey("$or")),
+                any(Update.class), any(FindAndModifyOptions.class), eq(FranchiseDocument.class));
     }
 
     @Test
-    void updateProductName_shouldSave_whenNotDuplicate() {
-        Instant created = Instant.parse("2025-01-01T00:00:00Z");
-        ProductDocument existing = new ProductDocument("p-1", "b-1", "OLD", 10, created, created);
+    void updateBranchName_shouldFailPrecondition_whenVersionDoesNotMatch() {
+        BranchDocument current = new BranchDocument("b-1", "f-1", "OLD", CREATED, UPDATED);
+        current.setVersion(7L);
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.empty());
+        when(branchRepo.findById("b-1")).thenReturn(Mono.just(current));
+
+        StepVerifier.create(adapter.updateBranchName("b-1", "NEW", 6L))
+                .expectError(ConcurrentModificationException.class)
+                .verify();
 
-        when(productRepo.findById("p-1")).thenReturn(Mono.just(existing));
-        when(productRepo.existsByBranchIdAndName("b-1", "NEW")).thenReturn(Mono.just(false));
-        when(productRepo.save(any(ProductDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+        verifyNoInteractions(topProducts);
+    }
 
-        StepVerifier.create(adapter.updateProductName("p-1", " NEW "))
-                .assertNext(p -> org.junit.jupiter.api.Assertions.assertEquals("NEW", p.getName()))
+    @Test
+    void updateBranchName_shouldReturnCurrent_whenNameAndVersionAreUnchanged() {
+        BranchDocument current = new BranchDocument("b-1", "f-1", "SAME", CREATED, UPDATED);
+        current.setVersion(7L);
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(BranchDocument.class)))
+                .thenReturn(Mono.empty());
+        when(branchRepo.findById("b-1")).thenReturn(Mono.just(current));
+
+        StepVerifier.create(adapter.updateBranchName("b-1", "SAME", 7L))
+                .assertNext(same -> assertEquals(7, same.getVersion()))
                 .verifyComplete();
-
-        verify(productRepo).save(argThat(doc -> doc.getName().equals("NEW")));
     }
 }
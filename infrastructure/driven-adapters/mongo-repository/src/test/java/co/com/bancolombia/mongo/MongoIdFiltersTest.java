@@ -0,0 +1,122 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.mongo.MongoIdFilters.Kind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MongoIdFiltersTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final String stored = idAt(NOW.minus(Duration.ofDays(1)));
+    private final String deleted = idAt(NOW.minus(Duration.ofDays(2)));
+
+    private ReactiveMongoTemplate template;
+    private SimpleMeterRegistry registry;
+    private MongoIdFilters filters;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        registry = new SimpleMeterRegistry();
+        when(template.getCollectionName(FranchiseDocument.class)).thenReturn("franchises");
+        when(template.getCollectionName(BranchDocument.class)).thenReturn("branches");
+        when(template.getCollectionName(ProductDocument.class)).thenReturn("products");
+        when(template.find(any(Query.class), eq(Document.class), anyString())).thenReturn(Flux.empty());
+        when(template.find(any(Query.class), eq(Document.class), eq("products")))
+                .thenReturn(Flux.just(new Document("_id", new ObjectId(stored))));
+        filters = new MongoIdFilters(template, registry, 0.01, 1000, Duration.ofSeconds(5),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void definitelyMissing_shouldRejectNothing_beforeTheFirstRebuild() {
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, deleted));
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, "not-an-id"));
+    }
+
+    @Test
+    void definitelyMissing_shouldRejectCoveredIdsThatWereNeverSeen() {
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, stored));
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, stored.toUpperCase()));
+        assertTrue(filters.definitelyMissing(Kind.PRODUCT, deleted));
+        assertTrue(filters.definitelyMissing(Kind.PRODUCT, "not-an-id"));
+        assertTrue(filters.definitelyMissing(Kind.FRANCHISE, stored));
+        assertEquals(3, lookups("product", "rejected") + lookups("franchise", "rejected"));
+    }
+
+    @Test
+    void definitelyMissing_shouldNotTrustTheFilter_forIdsGeneratedAfterTheRebuildStarted() {
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, idAt(NOW.minusSeconds(1))));
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, idAt(NOW.plusSeconds(60))));
+    }
+
+    @Test
+    void created_shouldAddTheIdToTheFilter() {
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+
+        filters.created(Kind.PRODUCT, deleted);
+
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, deleted));
+    }
+
+    @Test
+    void notFound_shouldCountFalsePositives_onlyForCoveredIds() {
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+
+        filters.notFound(Kind.PRODUCT, stored);
+        filters.notFound(Kind.PRODUCT, idAt(NOW.plusSeconds(60)));
+
+        assertEquals(1, lookups("product", "false_positive"));
+    }
+
+    @Test
+    void rebuild_shouldKeepThePreviousFilter_whenStreamingFails() {
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+        when(template.find(any(Query.class), eq(Document.class), eq("products")))
+                .thenReturn(Flux.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+
+        assertTrue(filters.definitelyMissing(Kind.PRODUCT, deleted));
+        assertFalse(filters.definitelyMissing(Kind.PRODUCT, stored));
+    }
+
+    @Test
+    void rebuild_shouldPublishTheFilterSize() {
+        StepVerifier.create(filters.rebuild()).verifyComplete();
+
+        assertEquals(1, registry.get(MongoIdFilters.SIZE_METRIC).tag("kind", "product").gauge().value());
+        assertTrue(registry.get(MongoIdFilters.FALSE_POSITIVE_RATE_METRIC).tag("kind", "product").gauge().value() < 0.01);
+    }
+
+    private double lookups(String kind, String result) {
+        return registry.get(MongoIdFilters.LOOKUPS_METRIC).tag("kind", kind).tag("result", result).counter().count();
+    }
+
+    private static String idAt(Instant instant) {
+        return new ObjectId(Date.from(instant)).toHexString();
+    }
+}
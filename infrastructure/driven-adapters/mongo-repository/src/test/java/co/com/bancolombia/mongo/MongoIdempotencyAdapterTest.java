@@ -0,0 +1,79 @@
+package co.com.bancolombia.mongo;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MongoIdempotencyAdapterTest {
+
+    private ReactiveMongoTemplate template;
+    private MongoIdempotencyAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        adapter = new MongoIdempotencyAdapter(template, Duration.ofHours(1));
+    }
+
+    @Test
+    void find_shouldReturnStoredResponse() {
+        when(template.findById("k-1", IdempotencyDocument.class))
+                .thenReturn(Mono.just(new IdempotencyDocument("k-1", 200, "0", "{}", "hash-1", Instant.now())));
+
+        StepVerifier.create(adapter.find("k-1"))
+                .assertNext(r -> {
+                    assertEquals(200, r.getStatus());
+                    assertEquals("0", r.getEtag());
+                    assertEquals("{}", r.getBody());
+                    assertEquals("hash-1", r.getRequestHash());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void find_shouldIgnoreExpiredKeys_notYetRemovedByTtlMonitor() {
+        when(template.findById("k-1", IdempotencyDocument.class))
+                .thenReturn(Mono.just(new IdempotencyDocument("k-1", 200, "0", "{}", null,
+                        Instant.now().minus(Duration.ofHours(2)))));
+
+        StepVerifier.create(adapter.find("k-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void saveIfAbsent_shouldInsertResponse() {
+        when(template.insert(any(IdempotencyDocument.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
+
+        StepVerifier.create(adapter.saveIfAbsent("k-1", new IdempotentResponse(409, null, "{\"status\":409}", "hash-1")))
+                .assertNext(r -> {
+                    assertEquals(409, r.getStatus());
+                    assertEquals("hash-1", r.getRequestHash());
+                })
+                .verifyComplete();
+
+        verify(template).insert(argThat((IdempotencyDocument doc) -> "k-1".equals(doc.getId())
+                && "hash-1".equals(doc.getRequestHash()) && doc.getCreatedAt() != null));
+    }
+
+    @Test
+    void saveIfAbsent_shouldReturnWinningResponse_whenKeyAlreadyStored() {
+        when(template.insert(any(IdempotencyDocument.class))).thenReturn(Mono.error(new DuplicateKeyException("E11000")));
+        when(template.findById("k-1", IdempotencyDocument.class))
+                .thenReturn(Mono.just(new IdempotencyDocument("k-1", 200, "0", "{\"id\":\"f-1\"}", "hash-1", Instant.now())));
+
+        StepVerifier.create(adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-2\"}")))
+                .assertNext(r -> assertEquals("{\"id\":\"f-1\"}", r.getBody()))
+                .verifyComplete();
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -18,26 +20,48 @@ class MongoIndexesConfigTest {
         ReactiveIndexOperations franchiseOps = mock(ReactiveIndexOperations.class);
         ReactiveIndexOperations branchOps = mock(ReactiveIndexOperations.class);
         ReactiveIndexOperations productOps = mock(ReactiveIndexOperations.class);
+        ReactiveIndexOperations topProductOps = mock(ReactiveIndexOperations.class);
+        ReactiveIndexOperations idempotencyOps = mock(ReactiveIndexOperations.class);
 
         when(template.indexOps(FranchiseDocument.class)).thenReturn(franchiseOps);
         when(template.indexOps(BranchDocument.class)).thenReturn(branchOps);
         when(template.indexOps(ProductDocument.class)).thenReturn(productOps);
+        when(template.indexOps(BranchTopProductDocument.class)).thenReturn(topProductOps);
+        when(template.indexOps(IdempotencyDocument.class)).thenReturn(idempotencyOps);
 
         when(franchiseOps.ensureIndex(any())).thenReturn(Mono.just("idx_franchise_name"));
         when(branchOps.ensureIndex(any())).thenReturn(Mono.just("idx_branch_any"));
         when(productOps.ensureIndex(any())).thenReturn(Mono.just("idx_product_any"));
+        when(topProductOps.ensureIndex(any())).thenReturn(Mono.just("idx_top_product_any"));
+        when(idempotencyOps.ensureIndex(any())).thenReturn(Mono.just("idx_idempotency_ttl"));
 
         MongoIndexesConfig config = new MongoIndexesConfig();
 
-        StepVerifier.create(config.ensureIndexes(template))
+        StepVerifier.create(config.ensureIndexes(template, Duration.ofHours(24)))
                 .verifyComplete();
 
         verify(franchiseOps, times(1)).ensureIndex(any());
 
         verify(branchOps, times(2)).ensureIndex(any());
 
-        verify(productOps, times(3)).ensureIndex(any());
+        verify(productOps, times(4)).ensureIndex(any());
+
+        verify(topProductOps, times(1)).ensureIndex(any());
+
+        verify(idempotencyOps, times(1)).ensureIndex(any());
+
+        verifyNoMoreInteractions(franchiseOps, branchOps, productOps, topProductOps, idempotencyOps);
+    }
+
+    @Test
+    void mongoIndexesRunner_shouldEnsureIndexesOnStartup() throws Exception {
+        ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+        ReactiveIndexOperations ops = mock(ReactiveIndexOperations.class);
+        when(template.indexOps(any(Class.class))).thenReturn(ops);
+        when(ops.ensureIndex(any())).thenReturn(Mono.just("idx"));
+
+        new MongoIndexesConfig().mongoIndexesRunner(template, Duration.ofHours(24)).run(null);
 
-        verifyNoMoreInteractions(franchiseOps, branchOps, productOps);
+        verify(ops, times(9)).ensureIndex(any());
     }
 }
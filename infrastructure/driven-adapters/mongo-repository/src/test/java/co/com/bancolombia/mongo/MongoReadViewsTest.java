@@ -0,0 +1,59 @@
+package co.com.bancolombia.mongo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+
+import java.lang.reflect.RecordComponent;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoReadViewsTest {
+
+    private MongoMappingContext context;
+    private MappingMongoConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        context = new MongoMappingContext();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.afterPropertiesSet();
+    }
+
+    static Stream<Arguments> views() {
+        return Stream.of(
+                Arguments.of(BranchMongoRepository.NameView.class, BranchDocument.class),
+                Arguments.of(FranchiseMongoRepository.IdView.class, FranchiseDocument.class),
+                Arguments.of(BranchTopProductMongoRepository.TopView.class, BranchTopProductDocument.class));
+    }
+
+    @ParameterizedTest
+    @MethodSource("views")
+    void view_shouldOnlyNamePropertiesOfItsDocument(Class<? extends Record> view, Class<?> document) {
+        MongoPersistentEntity<?> entity = context.getRequiredPersistentEntity(document);
+
+        for (RecordComponent component : view.getRecordComponents()) {
+            assertNotNull(entity.getPersistentProperty(component.getName()),
+                    view.getSimpleName() + "." + component.getName() + " is not a property of " + document.getSimpleName());
+        }
+    }
+
+    @Test
+    void topView_shouldBeReadStraightFromTheRow() {
+        org.bson.Document row = new org.bson.Document("_id", "br-1").append("branchName", "Centro")
+                .append("productId", "p-1").append("productName", "Burger").append("stock", 50);
+
+        BranchTopProductMongoRepository.TopView view = converter.project(
+                converter.introspectProjection(BranchTopProductMongoRepository.TopView.class, BranchTopProductDocument.class),
+                row);
+
+        assertEquals(new BranchTopProductMongoRepository.TopView("br-1", "Centro", "p-1", "Burger", 50), view);
+    }
+}
@@ -0,0 +1,111 @@
+package co.com.bancolombia.mongo;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductFranchiseBackfillTest {
+
+    private ReactiveMongoTemplate template;
+    private ProductFranchiseBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        backfill = new ProductFranchiseBackfill(template, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void shouldCopyFranchiseIdFromEachBranch() {
+        when(template.findDistinct(any(Query.class), eq("branchId"), eq(ProductDocument.class), eq(String.class)))
+                .thenReturn(Flux.just("b-1", "b-2"));
+        when(template.findOne(any(Query.class), eq(Document.class), eq("branches")))
+                .thenReturn(Mono.just(new Document("franchiseId", "f-1")));
+        when(template.updateMulti(any(Query.class), any(Update.class), eq("products")))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(3, 3L, null)), Mono.just(UpdateResult.acknowledged(2, 2L, null)));
+
+        StepVerifier.create(backfill.backfill())
+                .expectNext(5L)
+                .verifyComplete();
+
+        verify(template, times(2)).updateMulti(any(Query.class), any(Update.class), eq("products"));
+    }
+
+    @Test
+    void shouldSkipOrphanProducts_whenBranchIsGone() {
+        when(template.findDistinct(any(Query.class), eq("branchId"), eq(ProductDocument.class), eq(String.class)))
+                .thenReturn(Flux.just("b-404"));
+        when(template.findOne(any(Query.class), eq(Document.class), eq("branches"))).thenReturn(Mono.empty());
+
+        StepVerifier.create(backfill.backfill())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(template, never()).updateMulti(any(Query.class), any(Update.class), eq("products"));
+    }
+
+    @Test
+    void shouldLeaveVersionUntouched_whenSettingFranchiseId() {
+        when(template.findDistinct(any(Query.class), eq("branchId"), eq(ProductDocument.class), eq(String.class)))
+                .thenReturn(Flux.just("b-1"));
+        when(template.findOne(any(Query.class), eq(Document.class), eq("branches")))
+                .thenReturn(Mono.just(new Document("franchiseId", "f-1")));
+        when(template.updateMulti(any(Query.class), any(Update.class), eq("products")))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        StepVerifier.create(backfill.backfill())
+                .expectNext(1L)
+                .verifyComplete();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(template).updateMulti(any(Query.class), update.capture(), eq("products"));
+        assertEquals(new Document("$set", new Document("franchiseId", "f-1")), update.getValue().getUpdateObject());
+        verify(template, never()).updateMulti(any(Query.class), any(Update.class), eq(ProductDocument.class));
+    }
+
+    @Test
+    void shouldRepeatPassesUntilNothingIsLeft_thenReportComplete() {
+        when(template.findDistinct(any(Query.class), eq("branchId"), eq(ProductDocument.class), eq(String.class)))
+                .thenReturn(Flux.just("b-1"), Flux.just("b-1"), Flux.empty());
+        when(template.findOne(any(Query.class), eq(Document.class), eq("branches")))
+                .thenReturn(Mono.just(new Document("franchiseId", "f-1")));
+        when(template.updateMulti(any(Query.class), any(Update.class), eq("products")))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(4, 4L, null)), Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        StepVerifier.withVirtualTime(() -> backfill.backfillUntilDone())
+                .expectSubscription()
+                .then(() -> assertFalse(backfill.isComplete()))
+                .thenAwait(Duration.ofMinutes(2))
+                .expectNext(5L)
+                .verifyComplete();
+
+        assertTrue(backfill.isComplete());
+        verify(template, times(3)).findDistinct(any(Query.class), eq("branchId"), eq(ProductDocument.class), eq(String.class));
+    }
+
+    @Test
+    void shouldStayIncomplete_whenAPassFails() {
+        when(template.findDistinct(any(Query.class), eq("branchId"), eq(ProductDocument.class), eq(String.class)))
+                .thenReturn(Flux.error(new IllegalStateException("down")));
+
+        StepVerifier.create(backfill.backfillUntilDone())
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertFalse(backfill.isComplete());
+    }
+}
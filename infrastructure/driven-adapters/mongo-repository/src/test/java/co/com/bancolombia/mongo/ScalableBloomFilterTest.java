@@ -0,0 +1,48 @@
+package co.com.bancolombia.mongo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void mightContain_shouldNeverMissAnAddedValue() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        IntStream.range(0, 10_000).forEach(i -> filter.add("id-" + i));
+
+        assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("id-" + i)));
+        assertEquals(10_000, filter.size(), 100);
+    }
+
+    @Test
+    void mightContain_shouldStayUnderTheFalsePositiveRate_afterGrowing() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        IntStream.range(0, 20_000).forEach(i -> filter.add("id-" + i));
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("missing-" + i))
+                .count();
+
+        assertTrue(falsePositives < 1_500, "false positives: " + falsePositives);
+        assertTrue(filter.estimatedFalsePositiveRate() < 0.015);
+    }
+
+    @Test
+    void add_shouldNotGrow_forDuplicates() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        IntStream.range(0, 1_000).forEach(i -> filter.add("same"));
+
+        assertEquals(1, filter.size());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,168 @@
+package co.com.bancolombia.mongo;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TopProductAggregationTest {
+
+    private ReactiveMongoTemplate template;
+    private ProductFranchiseBackfill backfill;
+    private TopProductAggregation aggregation;
+
+    @BeforeEach
+    void setUp() {
+        template = mock(ReactiveMongoTemplate.class);
+        backfill = mock(ProductFranchiseBackfill.class);
+        when(backfill.isComplete()).thenReturn(true);
+        aggregation = new TopProductAggregation(template, backfill);
+    }
+
+    @Test
+    void shouldMapTopProductAndKeepEmptyBranches() {
+        when(template.aggregate(any(Aggregation.class), eq("franchises"), eq(Document.class)))
+                .thenReturn(Flux.just(
+                        row(branch("br-1", "Centro", product("p-1", "Burger", 50))),
+                        row(branch("br-2", "Norte"))));
+
+        StepVerifier.create(aggregation.topProductByBranch("f-1"))
+                .assertNext(t -> {
+                    assertEquals("br-1", t.getBranchId());
+                    assertEquals("Centro", t.getBranchName());
+                    assertEquals("p-1", t.getProductId());
+                    assertEquals("Burger", t.getProductName());
+                    assertEquals(50, t.getStock());
+                })
+                .assertNext(t -> {
+                    assertEquals("br-2", t.getBranchId());
+                    assertEquals("Norte", t.getBranchName());
+                    assertNull(t.getProductId());
+                    assertNull(t.getProductName());
+                    assertEquals(0, t.getStock());
+                })
+                .verifyComplete();
+
+        verify(template, times(1)).aggregate(any(Aggregation.class), eq("franchises"), eq(Document.class));
+    }
+
+    @Test
+    void shouldEmitEachBranchAsItsRowArrives() {
+        Sinks.Many<Document> rows = Sinks.many().unicast().onBackpressureBuffer();
+        when(template.aggregate(any(Aggregation.class), eq("franchises"), eq(Document.class)))
+                .thenReturn(rows.asFlux());
+
+        StepVerifier.create(aggregation.topProductByBranch("f-1"))
+                .then(() -> rows.tryEmitNext(row(branch("br-1", "Centro", product("p-1", "Burger", 50)))))
+                .assertNext(t -> assertEquals("br-1", t.getBranchId()))
+                .then(() -> rows.tryEmitNext(row(branch("br-2", "Norte"))))
+                .assertNext(t -> assertEquals("br-2", t.getBranchId()))
+                .then(rows::tryEmitComplete)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCompleteEmpty_whenFranchiseHasNoBranches() {
+        when(template.aggregate(any(Aggregation.class), eq("franchises"), eq(Document.class)))
+                .thenReturn(Flux.just(new Document("_id", "f-1")));
+
+        StepVerifier.create(aggregation.topProductByBranch("f-1"))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldError_whenFranchiseNotFound() {
+        when(template.aggregate(any(Aggregation.class), eq("franchises"), eq(Document.class)))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(aggregation.topProductByBranch("f-404"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().contains("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void pipeline_shouldUnwindBranchesBeforeLookingUpTheirProducts() {
+        String id = new ObjectId().toHexString();
+
+        List<Document> stages = aggregation.pipeline(id)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertEquals(5, stages.size());
+        assertEquals(new ObjectId(id), stages.get(0).get("$match", Document.class).get("_id"));
+        assertEquals("branches", stages.get(2).get("$lookup", Document.class).getString("from"));
+        assertEquals("$branch", stages.get(3).get("$unwind", Document.class).getString("path"));
+        Document productLookup = stages.get(4).get("$lookup", Document.class);
+        assertEquals("products", productLookup.getString("from"));
+        assertEquals("branch.branchKey", productLookup.getString("localField"));
+        assertEquals("branchId", productLookup.getString("foreignField"));
+        assertEquals("branch.top", productLookup.getString("as"));
+    }
+
+    @Test
+    void topProductsByBranch_shouldEmitEveryProductOfEachBranch() {
+        when(template.aggregate(any(Aggregation.class), eq("franchises"), eq(Document.class)))
+                .thenReturn(Flux.just(row(branch("br-1", "Centro",
+                        product("p-1", "Burger", 50), product("p-2", "Fries", 20)))));
+
+        StepVerifier.create(aggregation.topProductsByBranch("f-1", 2))
+                .assertNext(t -> assertEquals("p-1", t.getProductId()))
+                .assertNext(t -> {
+                    assertEquals("p-2", t.getProductId());
+                    assertEquals("br-1", t.getBranchId());
+                    assertEquals(20, t.getStock());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void pipeline_shouldMatchFranchiseAndKeepFirstKByStockThenId() {
+        List<Document> productStages = productStages(aggregation.pipeline("f-1", 5));
+
+        assertEquals(4, productStages.size());
+        assertEquals(new Document("$eq", List.of("$franchiseId", "$$franchiseKey")),
+                productStages.get(0).get("$match", Document.class).get("$expr"));
+        assertEquals(new Document("stock", -1).append("_id", 1), productStages.get(1).get("$sort"));
+        assertEquals(5, productStages.get(2).get("$limit"));
+    }
+
+    @Test
+    void pipeline_shouldLookupProductsByBranchOnly_untilBackfillCompletes() {
+        when(backfill.isComplete()).thenReturn(false);
+
+        List<Document> productStages = productStages(aggregation.pipeline("f-1", 3));
+
+        assertEquals(3, productStages.size());
+        assertEquals(new Document("stock", -1).append("_id", 1), productStages.get(0).get("$sort"));
+        assertEquals(3, productStages.get(1).get("$limit"));
+    }
+
+    private static List<Document> productStages(Aggregation pipeline) {
+        return pipeline.toPipeline(Aggregation.DEFAULT_CONTEXT).get(4)
+                .get("$lookup", Document.class).getList("pipeline", Document.class);
+    }
+
+    private static Document row(Document branch) {
+        return new Document("_id", "f-1").append("franchiseKey", "f-1").append("branch", branch);
+    }
+
+    private static Document branch(String id, String name, Document... top) {
+        return new Document("branchKey", id).append("name", name).append("top", List.of(top));
+    }
+
+    private static Document product(String id, String name, int stock) {
+        return new Document("_id", id).append("name", name).append("stock", stock);
+    }
+}
@@ -1,11 +1,17 @@
 package co.com.bancolombia.mongo.config;
 
+import co.com.bancolombia.mongo.ProductDocument;
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.mongodb.autoconfigure.MongoConnectionDetails;
 import org.springframework.boot.ssl.SslBundles;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.mock;
@@ -39,4 +45,31 @@ class MongoConfigTest {
 
         assertNotNull(result);
     }
+
+    @Test
+    void mongoPoolCustomizer_shouldSizePoolAndRegisterListeners() {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+
+        mongoConfigUnderTest.mongoPoolCustomizer(new SimpleMeterRegistry(), 20, 2, Duration.ofSeconds(5), Duration.ofMinutes(10))
+                .customize(builder);
+        MongoClientSettings settings = builder.build();
+
+        assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(2, settings.getConnectionPoolSettings().getMinSize());
+        assertEquals(5000, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        assertEquals(600000, settings.getConnectionPoolSettings().getMaxConnectionIdleTime(TimeUnit.MILLISECONDS));
+        assertEquals(2, settings.getConnectionPoolSettings().getConnectionPoolListeners().size());
+        assertEquals(1, settings.getCommandListeners().size());
+    }
+
+    @Test
+    void mongoCodecCustomizer_shouldRegisterDocumentCodecs() {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder();
+
+        mongoConfigUnderTest.mongoCodecCustomizer().customize(builder);
+        MongoClientSettings settings = builder.build();
+
+        assertEquals(ProductDocument.class, settings.getCodecRegistry().get(ProductDocument.class).getEncoderClass());
+        assertNotNull(settings.getCodecRegistry().get(org.bson.Document.class));
+    }
 }
@@ -0,0 +1,48 @@
+package co.com.bancolombia.mongo.config;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MongoPoolWaitListenerTest {
+
+    private static final ServerId SERVER = new ServerId(new ClusterId("c-1"), new ServerAddress("localhost", 27017));
+
+    private SimpleMeterRegistry registry;
+    private MongoPoolWaitListener listener;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        listener = new MongoPoolWaitListener(registry);
+    }
+
+    @Test
+    void shouldRecordWaitTime_whenConnectionIsCheckedOut() {
+        listener.connectionCheckedOut(new ConnectionCheckedOutEvent(new ConnectionId(SERVER), 1,
+                TimeUnit.MILLISECONDS.toNanos(15)));
+
+        Timer timer = registry.get(MongoPoolWaitListener.WAIT_METRIC).tag("outcome", "success").timer();
+        assertEquals(1, timer.count());
+        assertEquals(15, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    void shouldTagFailureReason_whenCheckOutTimesOut() {
+        listener.connectionCheckOutFailed(new ConnectionCheckOutFailedEvent(SERVER, 1,
+                ConnectionCheckOutFailedEvent.Reason.TIMEOUT, TimeUnit.SECONDS.toNanos(2)));
+
+        assertEquals(1, registry.get(MongoPoolWaitListener.WAIT_METRIC).tag("outcome", "timeout").timer().count());
+    }
+}
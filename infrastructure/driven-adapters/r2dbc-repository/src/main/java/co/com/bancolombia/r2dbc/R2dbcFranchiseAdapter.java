@@ -0,0 +1,732 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageCursor;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.product.Product;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static co.com.bancolombia.r2dbc.R2dbcStatements.instant;
+import static co.com.bancolombia.r2dbc.R2dbcStatements.newId;
+import static co.com.bancolombia.r2dbc.R2dbcStatements.now;
+import static co.com.bancolombia.r2dbc.R2dbcStatements.timestamp;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "r2dbc")
+public class R2dbcFranchiseAdapter implements FranchiseGateway {
+
+    static final int STOCK_BATCH_SIZE = 500;
+
+    static final String TOP_PRODUCTS = """
+            SELECT f.id AS franchise_id, b.id AS branch_id, b.name AS branch_name,
+                   t.id AS product_id, t.name AS product_name, t.stock
+            FROM franchises f
+            LEFT JOIN branches b ON b.franchise_id = f.id
+            LEFT JOIN (
+                SELECT p.id, p.branch_id, p.name, p.stock,
+                       ROW_NUMBER() OVER (PARTITION BY p.branch_id ORDER BY p.stock DESC, p.id) AS rn
+                FROM products p
+                JOIN branches pb ON pb.id = p.branch_id
+                WHERE pb.franchise_id = :franchiseId
+            ) t ON t.branch_id = b.id AND t.rn <= :k
+            WHERE f.id = :franchiseId
+            ORDER BY b.id, t.rn
+            """;
+
+    private static final String BRANCH_TOP = """
+            SELECT b.id AS branch_id, b.franchise_id, t.id AS product_id, t.name AS product_name, t.stock
+            FROM branches b
+            LEFT JOIN (
+                SELECT id, branch_id, name, stock,
+                       ROW_NUMBER() OVER (PARTITION BY branch_id ORDER BY stock DESC, id) AS rn
+                FROM products
+                WHERE branch_id = %1$s
+            ) t ON t.branch_id = b.id AND t.rn = 1
+            WHERE b.id = %1$s
+            """;
+    private static final String TOP_OF_BRANCH = BRANCH_TOP.formatted(":branchId");
+    private static final String TOP_OF_PRODUCT_BRANCH =
+            BRANCH_TOP.formatted("(SELECT branch_id FROM products WHERE id = :productId)");
+
+    private static final String FRANCHISE_COLUMNS = "id, name, created_at, updated_at, version";
+    private static final String BRANCH_COLUMNS = "id, franchise_id, name, created_at, updated_at, version";
+    private static final String PRODUCT_COLUMNS = "id, branch_id, name, stock, created_at, updated_at, version";
+
+    private static final String UPDATE_STOCK = "UPDATE products SET stock = $1, updated_at = $2, version = version + 1 "
+            + "WHERE id = $3 AND branch_id = $4";
+
+    private final DatabaseClient db;
+    private final TransactionalOperator tx;
+    private final R2dbcFranchiseImporter importer;
+    private final StockEventGateway events;
+
+    public R2dbcFranchiseAdapter(ConnectionFactory connectionFactory,
+                                 R2dbcFranchiseImporter importer,
+                                 StockEventGateway events) {
+        this.db = DatabaseClient.create(connectionFactory);
+        this.tx = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        this.importer = importer;
+        this.events = events;
+    }
+
+    @Override
+    public Mono<Franchise> createFranchise(String name) {
+        if (name == null || name.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise name must not be empty"));
+        }
+
+        String id = newId();
+        String cleanName = name.trim();
+        Instant now = now();
+        return db.sql("INSERT INTO franchises (" + FRANCHISE_COLUMNS + ") VALUES (:id, :name, :now, :now, 0)")
+                .bind("id", id)
+                .bind("name", cleanName)
+                .bind("now", timestamp(now))
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new IllegalStateException("Franchise name already exists"))
+                .thenReturn(new Franchise(id, cleanName, now, now, 0));
+    }
+
+    @Override
+    public Flux<ImportResult> importFranchise(Flux<ImportRecord> records) {
+        return importer.importFranchise(records);
+    }
+
+    @Override
+    public Mono<Branch> addBranch(String franchiseId, String branchName) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (branchName == null || branchName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch name must not be empty"));
+        }
+
+        String id = newId();
+        String cleanName = branchName.trim();
+        Instant now = now();
+        return db.sql("INSERT INTO branches (" + BRANCH_COLUMNS + ") "
+                        + "SELECT :id, id, :name, :now, :now, 0 FROM franchises WHERE id = :franchiseId")
+                .bind("id", id)
+                .bind("name", cleanName)
+                .bind("now", timestamp(now))
+                .bind("franchiseId", franchiseId)
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new IllegalStateException("Branch name already exists for this franchise"))
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new IllegalArgumentException("Franchise not found"))
+                        : Mono.just(new Branch(id, franchiseId, cleanName, now, now, 0)));
+    }
+
+    @Override
+    public Mono<Product> addProduct(String branchId, String productName, int stock) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (productName == null || productName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product name must not be empty"));
+        }
+        if (stock < 0) {
+            return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
+        }
+
+        String id = newId();
+        String cleanName = productName.trim();
+        Instant now = now();
+        Mono<Product> insert = db.sql("INSERT INTO products (" + PRODUCT_COLUMNS + ") "
+                        + "SELECT :id, id, :name, :stock, :now, :now, 0 FROM branches WHERE id = :branchId")
+                .bind("id", id)
+                .bind("name", cleanName)
+                .bind("stock", stock)
+                .bind("now", timestamp(now))
+                .bind("branchId", branchId)
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class,
+                        e -> new IllegalStateException("Product name already exists for this branch"))
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new IllegalArgumentException("Branch not found"))
+                        : Mono.just(new Product(id, branchId, cleanName, stock, now, now, 0)));
+
+        return refreshingTop(topOfBranch(branchId), insert, StockEventType.STOCK_CHANGED);
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+
+        Mono<Product> delete = findProductRow(productId)
+                .flatMap(product -> db.sql("DELETE FROM products WHERE id = :id")
+                        .bind("id", productId)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(rows -> rows == 0
+                                ? Mono.error(new IllegalArgumentException("Product not found"))
+                                : Mono.just(product)));
+
+        return refreshingTop(topOfProductBranch(productId), delete, StockEventType.PRODUCT_REMOVED).then();
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteBranch(String branchId) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        return db.sql("DELETE FROM products WHERE branch_id = :branchId")
+                .bind("branchId", branchId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(products -> db.sql("DELETE FROM branches WHERE id = :branchId")
+                        .bind("branchId", branchId)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(branches -> branches == 0
+                                ? Mono.error(new IllegalArgumentException("Branch not found"))
+                                : Mono.just(new DeletionSummary(0, branches, products))))
+                .as(tx::transactional);
+    }
+
+    @Override
+    public Mono<DeletionSummary> deleteFranchise(String franchiseId) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+
+        return db.sql("DELETE FROM products WHERE branch_id IN (SELECT id FROM branches WHERE franchise_id = :franchiseId)")
+                .bind("franchiseId", franchiseId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(products -> db.sql("DELETE FROM branches WHERE franchise_id = :franchiseId")
+                        .bind("franchiseId", franchiseId)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(branches -> db.sql("DELETE FROM franchises WHERE id = :franchiseId")
+                                .bind("franchiseId", franchiseId)
+                                .fetch()
+                                .rowsUpdated()
+                                .flatMap(franchises -> franchises == 0
+                                        ? Mono.error(new IllegalArgumentException("Franchise not found"))
+                                        : Mono.just(new DeletionSummary(franchises, branches, products)))))
+                .as(tx::transactional);
+    }
+
+    @Override
+    public Mono<Product> findProduct(String productId) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+
+        return findProductRow(productId);
+    }
+
+    @Override
+    public Mono<Product> updateProductStock(String productId, int newStock, Long expectedVersion) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (newStock < 0) {
+            return Mono.error(new IllegalArgumentException("Stock must be >= 0"));
+        }
+
+        DatabaseClient.GenericExecuteSpec update = db.sql("UPDATE products SET stock = :stock, updated_at = :now, "
+                        + "version = version + 1 WHERE id = :id" + (expectedVersion == null ? "" : " AND version = :version"))
+                .bind("stock", newStock)
+                .bind("id", productId);
+        if (expectedVersion != null) {
+            update = update.bind("version", expectedVersion);
+        }
+        DatabaseClient.GenericExecuteSpec spec = update;
+
+        Mono<Product> write = Mono.defer(() -> spec.bind("now", timestamp(now())).fetch().rowsUpdated())
+                .flatMap(rows -> rows == 0
+                        ? findProductRow(productId).flatMap(current ->
+                                Mono.<Product>error(new ConcurrentModificationException("Version does not match")))
+                        : findProductRow(productId));
+
+        return refreshingTop(topOfProductBranch(productId), write, StockEventType.STOCK_CHANGED);
+    }
+
+    @Override
+    public Mono<Product> adjustProductStock(String productId, int delta) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (delta == 0) {
+            return Mono.error(new IllegalArgumentException("Delta must not be zero"));
+        }
+
+        Mono<Product> write = Mono.defer(() -> db.sql("UPDATE products SET stock = stock + :delta, updated_at = :now, "
+                                + "version = version + 1 WHERE id = :id AND stock >= :min AND stock <= :max")
+                        .bind("delta", delta)
+                        .bind("now", timestamp(now()))
+                        .bind("id", productId)
+                        .bind("min", Math.max(0L, -(long) delta))
+                        .bind("max", Integer.MAX_VALUE - Math.max(0L, delta))
+                        .fetch()
+                        .rowsUpdated())
+                .flatMap(rows -> rows == 0
+                        ? findProductRow(productId).flatMap(current -> Mono.<Product>error(
+                                new IllegalStateException(delta < 0 ? "Insufficient stock" : "Stock limit exceeded")))
+                        : findProductRow(productId));
+
+        return refreshingTop(topOfProductBranch(productId), write, StockEventType.STOCK_CHANGED);
+    }
+
+    @Override
+    public Flux<StockUpdateResult> updateProductStocks(String branchId, Flux<StockUpdate> updates) {
+        if (branchId == null || branchId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+
+        return topOfBranch(branchId)
+                .flatMapMany(top -> updates
+                        .buffer(STOCK_BATCH_SIZE)
+                        .concatMap(batch -> updateBatch(branchId, batch)));
+    }
+
+    /**
+     * Only the last valid update of each product in the batch is sent, so a repeated product is written and
+     * published once and its earlier updates are reported as superseded.
+     */
+    private Flux<StockUpdateResult> updateBatch(String branchId, List<StockUpdate> batch) {
+        StockUpdateResult[] results = new StockUpdateResult[batch.size()];
+        Map<String, Integer> latest = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (invalidReason(batch.get(i)) == null) {
+                latest.put(batch.get(i).getProductId(), i);
+            }
+        }
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            StockUpdate update = batch.get(i);
+            String invalid = invalidReason(update);
+            if (invalid != null) {
+                results[i] = new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.INVALID, invalid);
+            } else if (latest.get(update.getProductId()) != i) {
+                results[i] = new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.SUPERSEDED,
+                        "Superseded by a later update of the same product");
+            } else {
+                ids.add(update.getProductId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Flux.fromArray(results);
+        }
+
+        Instant now = now();
+        return topOfBranch(branchId)
+                .flatMapMany(before -> db.sql("SELECT id, name FROM products WHERE branch_id = :branchId AND id IN (:ids)")
+                        .bind("branchId", branchId)
+                        .bind("ids", ids)
+                        .map(row -> new String[]{row.get("id", String.class), row.get("name", String.class)})
+                        .all()
+                        .collectMap(row -> row[0], row -> row[1])
+                        .flatMapMany(names -> {
+                            List<Integer> slots = new ArrayList<>();
+                            List<Object[]> rows = new ArrayList<>();
+                            for (int i = 0; i < batch.size(); i++) {
+                                StockUpdate update = batch.get(i);
+                                if (results[i] != null) {
+                                    continue;
+                                }
+                                if (!names.containsKey(update.getProductId())) {
+                                    results[i] = notFound(update);
+                                    continue;
+                                }
+                                slots.add(i);
+                                rows.add(new Object[]{update.getStock(), timestamp(now), update.getProductId(), branchId});
+                            }
+
+                            return R2dbcStatements.executeBatch(db, UPDATE_STOCK, rows)
+                                    .flatMap(counts -> topOfBranch(branchId)
+                                            .doOnNext(after -> {
+                                                for (int j = 0; j < slots.size(); j++) {
+                                                    int slot = slots.get(j);
+                                                    StockUpdate update = batch.get(slot);
+                                                    if (counts.get(j) == 0) {
+                                                        results[slot] = notFound(update);
+                                                        continue;
+                                                    }
+                                                    results[slot] = new StockUpdateResult(update.getProductId(),
+                                                            StockUpdateResult.Status.UPDATED, null);
+                                                    publish(StockEventType.STOCK_CHANGED, after.franchiseId(), branchId,
+                                                            update.getProductId(), names.get(update.getProductId()),
+                                                            update.getStock());
+                                                }
+                                                publishTopIfChanged(before, after);
+                                            }))
+                                    .thenMany(Flux.defer(() -> Flux.fromArray(results)));
+                        }));
+    }
+
+    private static StockUpdateResult notFound(StockUpdate update) {
+        return new StockUpdateResult(update.getProductId(), StockUpdateResult.Status.NOT_FOUND, "Product not found");
+    }
+
+    static String invalidReason(StockUpdate update) {
+        if (update.getProductId() == null || update.getProductId().isBlank()) {
+            return "Product id must not be empty";
+        }
+        if (update.getStock() == null || update.getStock() < 0) {
+            return "Stock must be >= 0";
+        }
+        return null;
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductByBranch(String franchiseId) {
+        return topProductsByBranch(franchiseId, 1);
+    }
+
+    @Override
+    public Flux<TopProductByBranch> topProductsByBranch(String franchiseId, int k) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Flux.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (k < 1) {
+            return Flux.error(new IllegalArgumentException("k must be greater than zero"));
+        }
+
+        return db.sql(TOP_PRODUCTS)
+                .bind("franchiseId", franchiseId)
+                .bind("k", k)
+                .map(row -> {
+                    Integer stock = row.get("stock", Integer.class);
+                    return new TopProductByBranch(row.get("branch_id", String.class), row.get("branch_name", String.class),
+                            row.get("product_id", String.class), row.get("product_name", String.class),
+                            stock == null ? 0 : stock);
+                })
+                .all()
+                .switchIfEmpty(Flux.error(new IllegalArgumentException("Franchise not found")))
+                .filter(top -> top.getBranchId() != null);
+    }
+
+    @Override
+    public Mono<Franchise> updateFranchiseName(String franchiseId, String newName, Long expectedVersion) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New franchise name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        return db.sql("SELECT " + FRANCHISE_COLUMNS + " FROM franchises WHERE id = :id")
+                .bind("id", franchiseId)
+                .map(R2dbcFranchiseAdapter::toFranchise)
+                .one()
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Franchise not found")))
+                .flatMap(current -> rename("franchises", current.getId(), current.getName(), current.getVersion(),
+                        cleanName, expectedVersion, "Franchise name already exists")
+                        .map(renamed -> renamed
+                                .map(now -> new Franchise(current.getId(), cleanName, current.getCreatedAt(), now,
+                                        current.getVersion() + 1))
+                                .orElse(current)));
+    }
+
+    @Override
+    public Mono<Branch> updateBranchName(String branchId, String newName, Long expectedVersion) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New branch name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        return db.sql("SELECT " + BRANCH_COLUMNS + " FROM branches WHERE id = :id")
+                .bind("id", branchId)
+                .map(R2dbcFranchiseAdapter::toBranch)
+                .one()
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")))
+                .flatMap(current -> rename("branches", current.getId(), current.getName(), current.getVersion(),
+                        cleanName, expectedVersion, "Branch name already exists for this franchise")
+                        .map(renamed -> renamed
+                                .map(now -> new Branch(current.getId(), current.getFranchiseId(), cleanName,
+                                        current.getCreatedAt(), now, current.getVersion() + 1))
+                                .orElse(current)));
+    }
+
+    @Override
+    public Mono<Product> updateProductName(String productId, String newName, Long expectedVersion) {
+        if (productId == null || productId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Product id must not be empty"));
+        }
+        if (newName == null || newName.isBlank()) {
+            return Mono.error(new IllegalArgumentException("New product name must not be empty"));
+        }
+
+        String cleanName = newName.trim();
+        Mono<Product> write = findProductRow(productId)
+                .flatMap(current -> rename("products", current.getId(), current.getName(), current.getVersion(),
+                        cleanName, expectedVersion, "Product name already exists for this branch")
+                        .map(renamed -> renamed
+                                .map(now -> new Product(current.getId(), current.getBranchId(), cleanName,
+                                        current.getStock(), current.getCreatedAt(), now, current.getVersion() + 1))
+                                .orElse(current)));
+
+        return refreshingTop(topOfProductBranch(productId), write, null);
+    }
+
+    /**
+     * Emits the new {@code updated_at} when the row was renamed, or an empty optional when the name is unchanged.
+     * The version is checked before the name so a stale client always gets a conflict.
+     */
+    private Mono<Optional<Instant>> rename(String table, String id, String currentName, long currentVersion, String newName,
+                                 Long expectedVersion, String duplicateMessage) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            return Mono.error(new ConcurrentModificationException("Version does not match"));
+        }
+        if (currentName.equals(newName)) {
+            return Mono.just(Optional.empty());
+        }
+
+        Instant now = now();
+        return db.sql("UPDATE " + table + " SET name = :name, updated_at = :now, version = version + 1 "
+                        + "WHERE id = :id AND version = :version")
+                .bind("name", newName)
+                .bind("now", timestamp(now))
+                .bind("id", id)
+                .bind("version", currentVersion)
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class, e -> new IllegalStateException(duplicateMessage))
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new ConcurrentModificationException("Version does not match"))
+                        : Mono.just(Optional.of(now)));
+    }
+
+    @Override
+    public Mono<PageResult<Franchise>> listFranchises(String cursor, int limit) {
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        return Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec spec = cursor == null
+                    ? db.sql("SELECT " + FRANCHISE_COLUMNS + " FROM franchises ORDER BY id LIMIT :limit")
+                    : db.sql("SELECT " + FRANCHISE_COLUMNS + " FROM franchises WHERE id > :after ORDER BY id LIMIT :limit")
+                    .bind("after", PageCursor.id(cursor));
+            return spec.bind("limit", limit + 1)
+                    .map(R2dbcFranchiseAdapter::toFranchise)
+                    .all()
+                    .collectList()
+                    .map(rows -> page(rows, limit, franchise -> PageCursor.ofId(franchise.getId())));
+        });
+    }
+
+    @Override
+    public Mono<PageResult<Branch>> listBranches(String franchiseId, String cursor, int limit) {
+        if (franchiseId == null || franchiseId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Franchise id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        Mono<PageResult<Branch>> page = Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec spec = cursor == null
+                    ? db.sql("SELECT " + BRANCH_COLUMNS + " FROM branches WHERE franchise_id = :franchiseId "
+                    + "ORDER BY id LIMIT :limit")
+                    : db.sql("SELECT " + BRANCH_COLUMNS + " FROM branches WHERE franchise_id = :franchiseId "
+                    + "AND id > :after ORDER BY id LIMIT :limit")
+                    .bind("after", PageCursor.id(cursor));
+            return spec.bind("franchiseId", franchiseId)
+                    .bind("limit", limit + 1)
+                    .map(R2dbcFranchiseAdapter::toBranch)
+                    .all()
+                    .collectList()
+                    .map(rows -> page(rows, limit, branch -> PageCursor.ofId(branch.getId())));
+        });
+
+        if (cursor != null) {
+            return page;
+        }
+        return exists("franchises", franchiseId)
+                .flatMap(exists -> exists
+                        ? page
+                        : Mono.error(new IllegalArgumentException("Franchise not found")));
+    }
+
+    @Override
+    public Mono<PageResult<Product>> listProducts(String branchId, String cursor, int limit) {
+        if (branchId == null || branchId.isBlank()) {
+            return Mono.error(new IllegalArgumentException("Branch id must not be empty"));
+        }
+        if (limit < 1) {
+            return Mono.error(new IllegalArgumentException("Limit must be greater than zero"));
+        }
+
+        Mono<PageResult<Product>> page = Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec spec;
+            if (cursor == null) {
+                spec = db.sql("SELECT " + PRODUCT_COLUMNS + " FROM products WHERE branch_id = :branchId "
+                        + "ORDER BY stock DESC, id LIMIT :limit");
+            } else {
+                PageCursor.StockKey after = PageCursor.stockAndId(cursor);
+                spec = db.sql("SELECT " + PRODUCT_COLUMNS + " FROM products WHERE branch_id = :branchId "
+                                + "AND (stock < :stock OR (stock = :stock AND id > :after)) "
+                                + "ORDER BY stock DESC, id LIMIT :limit")
+                        .bind("stock", after.stock())
+                        .bind("after", after.id());
+            }
+            return spec.bind("branchId", branchId)
+                    .bind("limit", limit + 1)
+                    .map(R2dbcFranchiseAdapter::toProduct)
+                    .all()
+                    .collectList()
+                    .map(rows -> page(rows, limit,
+                            product -> PageCursor.ofStockAndId(product.getStock(), product.getId())));
+        });
+
+        if (cursor != null) {
+            return page;
+        }
+        return exists("branches", branchId)
+                .flatMap(exists -> exists
+                        ? page
+                        : Mono.error(new IllegalArgumentException("Branch not found")));
+    }
+
+    private Mono<Boolean> exists(String table, String id) {
+        return db.sql("SELECT 1 FROM " + table + " WHERE id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    private Mono<Product> findProductRow(String productId) {
+        return db.sql("SELECT " + PRODUCT_COLUMNS + " FROM products WHERE id = :id")
+                .bind("id", productId)
+                .map(R2dbcFranchiseAdapter::toProduct)
+                .one()
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")));
+    }
+
+    private Mono<BranchTop> topOfBranch(String branchId) {
+        return db.sql(TOP_OF_BRANCH)
+                .bind("branchId", branchId)
+                .map(BranchTop::of)
+                .one()
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Branch not found")));
+    }
+
+    private Mono<BranchTop> topOfProductBranch(String productId) {
+        return db.sql(TOP_OF_PRODUCT_BRANCH)
+                .bind("productId", productId)
+                .map(BranchTop::of)
+                .one()
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("Product not found")));
+    }
+
+    /**
+     * Runs {@code write} between two reads of the branch's top product and publishes the product event plus a
+     * {@code TOP_PRODUCT_CHANGED} event when the top moved. A {@code null} type only checks the top.
+     */
+    private Mono<Product> refreshingTop(Mono<BranchTop> topBefore, Mono<Product> write, StockEventType type) {
+        return topBefore.flatMap(before -> write.flatMap(saved -> db.sql(TOP_OF_BRANCH)
+                .bind("branchId", before.branchId())
+                .map(BranchTop::of)
+                .one()
+                .doOnNext(after -> {
+                    if (type != null) {
+                        publish(type, after.franchiseId(), saved.getBranchId(), saved.getId(), saved.getName(),
+                                saved.getStock());
+                    }
+                    publishTopIfChanged(before, after);
+                })
+                .thenReturn(saved)));
+    }
+
+    private void publishTopIfChanged(BranchTop before, BranchTop after) {
+        if (!after.differsFrom(before)) {
+            return;
+        }
+        events.publish(new StockEvent(StockEventType.TOP_PRODUCT_CHANGED, after.franchiseId(), after.branchId(),
+                after.productId(), after.productName(), after.stock(), Instant.now()));
+    }
+
+    private void publish(StockEventType type, String franchiseId, String branchId, String productId, String name,
+                         int stock) {
+        events.publish(new StockEvent(type, franchiseId, branchId, productId, name,
+                type == StockEventType.PRODUCT_REMOVED ? 0 : stock, Instant.now()));
+    }
+
+    private <T> PageResult<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageResult<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new PageResult<>(items, cursorOf.apply(items.get(limit - 1)));
+    }
+
+    static Franchise toFranchise(Readable row) {
+        return new Franchise(row.get("id", String.class), row.get("name", String.class),
+                instant(row, "created_at"), instant(row, "updated_at"), row.get("version", Long.class));
+    }
+
+    static Branch toBranch(Readable row) {
+        return new Branch(row.get("id", String.class), row.get("franchise_id", String.class),
+                row.get("name", String.class), instant(row, "created_at"), instant(row, "updated_at"),
+                row.get("version", Long.class));
+    }
+
+    static Product toProduct(Readable row) {
+        return new Product(row.get("id", String.class), row.get("branch_id", String.class),
+                row.get("name", String.class), row.get("stock", Integer.class), instant(row, "created_at"),
+                instant(row, "updated_at"), row.get("version", Long.class));
+    }
+
+    record BranchTop(String branchId, String franchiseId, String productId, String productName, int stock) {
+
+        static BranchTop of(Readable row) {
+            Integer stock = row.get("stock", Integer.class);
+            return new BranchTop(row.get("branch_id", String.class), row.get("franchise_id", String.class),
+                    row.get("product_id", String.class), row.get("product_name", String.class),
+                    stock == null ? 0 : stock);
+        }
+
+        boolean differsFrom(BranchTop other) {
+            return !Objects.equals(productId, other.productId)
+                    || !Objects.equals(productName, other.productName)
+                    || stock != other.stock;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static co.com.bancolombia.r2dbc.R2dbcStatements.newId;
+import static co.com.bancolombia.r2dbc.R2dbcStatements.now;
+import static co.com.bancolombia.r2dbc.R2dbcStatements.timestamp;
+
+@Component
+@ConditionalOnProperty(name = "db.provider", havingValue = "r2dbc")
+public class R2dbcFranchiseImporter {
+
+    static final int IMPORT_BATCH_SIZE = 1000;
+
+    private static final String INSERT_BRANCH = "INSERT INTO branches "
+            + "(id, franchise_id, name, created_at, updated_at, version) VALUES ($1, $2, $3, $4, $4, 0)";
+    private static final String INSERT_PRODUCT = "INSERT INTO products "
+            + "(id, branch_id, name, stock, created_at, updated_at, version) VALUES ($1, $2, $3, $4, $5, $5, 0)";
+
+    private final DatabaseClient db;
+    private final TransactionalOperator tx;
+
+    public R2dbcFranchiseImporter(ConnectionFactory connectionFactory) {
+        this.db = DatabaseClient.create(connectionFactory);
+        this.tx = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    public Flux<ImportResult> importFranchise(Flux<ImportRecord> records) {
+        return records.switchOnFirst((first, all) -> {
+            if (!first.hasValue()) {
+                return all.thenMany(Flux.<ImportResult>empty());
+            }
+            Session session = new Session();
+            return createFranchise(session, first.get())
+                    .concatWith(all.skip(1)
+                            .buffer(IMPORT_BATCH_SIZE)
+                            .concatMap(batch -> importBatch(session, batch)));
+        });
+    }
+
+    private Mono<ImportResult> createFranchise(Session session, ImportRecord record) {
+        if (record.getError() != null) {
+            return Mono.just(ImportResult.failed(record, record.getError()));
+        }
+        if (record.getType() != ImportRecord.Type.FRANCHISE) {
+            return Mono.just(ImportResult.failed(record, "The first line must describe the franchise"));
+        }
+        if (isBlank(record.getName())) {
+            return Mono.just(ImportResult.failed(record, "Franchise name must not be empty"));
+        }
+
+        String id = newId();
+        OffsetDateTime now = timestamp(now());
+        return db.sql("INSERT INTO franchises (id, name, created_at, updated_at, version) VALUES (:id, :name, :now, :now, 0)")
+                .bind("id", id)
+                .bind("name", record.getName().trim())
+                .bind("now", now)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> {
+                    session.franchiseId = id;
+                    return ImportResult.created(record, id);
+                })
+                .onErrorResume(DataIntegrityViolationException.class,
+                        e -> Mono.just(ImportResult.failed(record, "Franchise name already exists")));
+    }
+
+    /**
+     * Branch names are checked against the branches already imported, so branches always go as one batched
+     * insert. Products go the same way and only when {@code uk_products_branch_name} rejects the batch are they
+     * inserted one by one, so the duplicates are reported without keeping every product name in memory.
+     */
+    private Flux<ImportResult> importBatch(Session session, List<ImportRecord> batch) {
+        if (session.franchiseId == null) {
+            return Flux.fromIterable(batch)
+                    .map(record -> ImportResult.failed(record, "Franchise was not imported"));
+        }
+
+        Instant now = now();
+        ImportResult[] results = new ImportResult[batch.size()];
+        List<Object[]> branches = new ArrayList<>();
+        List<Object[]> products = new ArrayList<>();
+        List<Integer> productSlots = new ArrayList<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            ImportRecord record = batch.get(i);
+            String invalid = invalidReason(record);
+            if (invalid != null) {
+                results[i] = ImportResult.failed(record, invalid);
+                continue;
+            }
+            String name = record.getName().trim();
+            if (record.getType() == ImportRecord.Type.BRANCH) {
+                if (session.branchIds.containsKey(name)) {
+                    results[i] = ImportResult.failed(record, "Branch name already exists for this franchise");
+                    continue;
+                }
+                String id = newId();
+                session.branchIds.put(name, id);
+                branches.add(new Object[]{id, session.franchiseId, name, timestamp(now)});
+                results[i] = ImportResult.created(record, id);
+                continue;
+            }
+            String branchId = session.branchIds.get(record.getBranch().trim());
+            if (branchId == null) {
+                results[i] = ImportResult.failed(record, "Branch not found");
+            } else {
+                String id = newId();
+                products.add(new Object[]{id, branchId, name, record.getStock(), timestamp(now)});
+                productSlots.add(i);
+                results[i] = ImportResult.created(record, id);
+            }
+        }
+
+        return R2dbcStatements.executeBatch(db, INSERT_BRANCH, branches)
+                .then(R2dbcStatements.executeBatch(db, INSERT_PRODUCT, products))
+                .as(tx::transactional)
+                .onErrorResume(DataIntegrityViolationException.class,
+                        e -> R2dbcStatements.executeBatch(db, INSERT_BRANCH, branches)
+                                .as(tx::transactional)
+                                .then(insertEach(products, productSlots, batch, results)))
+                .thenMany(Flux.fromArray(results));
+    }
+
+    private Mono<Void> insertEach(List<Object[]> products, List<Integer> slots, List<ImportRecord> batch,
+                                  ImportResult[] results) {
+        return Flux.range(0, products.size())
+                .concatMap(i -> R2dbcStatements.executeBatch(db, INSERT_PRODUCT, List.<Object[]>of(products.get(i)))
+                        .onErrorResume(DataIntegrityViolationException.class, e -> {
+                            int slot = slots.get(i);
+                            results[slot] = ImportResult.failed(batch.get(slot), "Product name already exists for this branch");
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    static String invalidReason(ImportRecord record) {
+        if (record.getError() != null) {
+            return record.getError();
+        }
+        if (record.getType() == ImportRecord.Type.FRANCHISE) {
+            return "Only one franchise line is allowed";
+        }
+        if (isBlank(record.getName())) {
+            return record.getType() == ImportRecord.Type.BRANCH
+                    ? "Branch name must not be empty"
+                    : "Product name must not be empty";
+        }
+        if (record.getType() == ImportRecord.Type.PRODUCT) {
+            if (isBlank(record.getBranch())) {
+                return "Branch name must not be empty";
+            }
+            if (record.getStock() == null || record.getStock() < 0) {
+                return "Stock must be >= 0";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static final class Session {
+        private String franchiseId;
+        private final Map<String, String> branchIds = new HashMap<>();
+    }
+}
@@ -0,0 +1,26 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.usecase.health.DbHealthPort;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "r2dbc")
+public class R2dbcHealthAdapter implements DbHealthPort {
+
+    private final DatabaseClient db;
+
+    public R2dbcHealthAdapter(ConnectionFactory connectionFactory) {
+        this.db = DatabaseClient.create(connectionFactory);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return db.sql("SELECT COUNT(*) FROM franchises")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+}
@@ -0,0 +1,75 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static co.com.bancolombia.r2dbc.R2dbcStatements.now;
+import static co.com.bancolombia.r2dbc.R2dbcStatements.timestamp;
+
+@Repository
+@ConditionalOnProperty(name = "db.provider", havingValue = "r2dbc")
+public class R2dbcIdempotencyAdapter implements IdempotencyGateway {
+
+    static final int PURGE_EVERY = 1024;
+
+    private final DatabaseClient db;
+    private final Duration ttl;
+    private final AtomicLong saves = new AtomicLong();
+
+    public R2dbcIdempotencyAdapter(ConnectionFactory connectionFactory,
+                                   @Value("${db.r2dbc.idempotency.ttl:PT24H}") Duration ttl) {
+        this.db = DatabaseClient.create(connectionFactory);
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Mono<IdempotentResponse> find(String key) {
+        return db.sql("SELECT status, etag, body, request_hash FROM idempotency_keys WHERE idempotency_key = :key AND created_at > :oldest")
+                .bind("key", key)
+                .bind("oldest", timestamp(Instant.now().minus(ttl)))
+                .map(row -> new IdempotentResponse(row.get("status", Integer.class), row.get("etag", String.class),
+                        row.get("body", String.class), row.get("request_hash", String.class)))
+                .one();
+    }
+
+    @Override
+    public Mono<IdempotentResponse> saveIfAbsent(String key, IdempotentResponse response) {
+        // Expired keys are dropped here since there is no TTL index; the full purge runs every PURGE_EVERY saves.
+        boolean purgeAll = saves.incrementAndGet() % PURGE_EVERY == 0;
+        Instant now = now();
+        DatabaseClient.GenericExecuteSpec purge = db.sql("DELETE FROM idempotency_keys WHERE created_at <= :oldest"
+                        + (purgeAll ? "" : " AND idempotency_key = :key"))
+                .bind("oldest", timestamp(now.minus(ttl)));
+        if (!purgeAll) {
+            purge = purge.bind("key", key);
+        }
+
+        DatabaseClient.GenericExecuteSpec insert = db.sql("INSERT INTO idempotency_keys "
+                        + "(idempotency_key, status, etag, body, request_hash, created_at) "
+                        + "VALUES (:key, :status, :etag, :body, :requestHash, :createdAt)")
+                .bind("key", key)
+                .bind("status", response.getStatus())
+                .bind("createdAt", timestamp(now));
+        insert = response.getEtag() == null ? insert.bindNull("etag", String.class) : insert.bind("etag", response.getEtag());
+        insert = response.getBody() == null ? insert.bindNull("body", String.class) : insert.bind("body", response.getBody());
+        insert = response.getRequestHash() == null
+                ? insert.bindNull("requestHash", String.class)
+                : insert.bind("requestHash", response.getRequestHash());
+
+        return purge.fetch().rowsUpdated()
+                .then(insert.fetch().rowsUpdated())
+                .thenReturn(response)
+                .onErrorResume(DataIntegrityViolationException.class, e -> find(key).defaultIfEmpty(response));
+    }
+}
@@ -0,0 +1,28 @@
+package co.com.bancolombia.r2dbc;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ConnectionFactoryInitializer;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+
+@Configuration
+@ConditionalOnProperty(name = "db.provider", havingValue = "r2dbc")
+public class R2dbcSchemaConfig {
+
+    static final String SCHEMA = "r2dbc/schema.sql";
+
+    @Bean
+    public ConnectionFactoryInitializer r2dbcSchemaInitializer(ConnectionFactory connectionFactory) {
+        ConnectionFactoryInitializer initializer = new ConnectionFactoryInitializer();
+        initializer.setConnectionFactory(connectionFactory);
+        initializer.setDatabasePopulator(schema());
+        return initializer;
+    }
+
+    static ResourceDatabasePopulator schema() {
+        return new ResourceDatabasePopulator(new ClassPathResource(SCHEMA));
+    }
+}
@@ -0,0 +1,63 @@
+package co.com.bancolombia.r2dbc;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+final class R2dbcStatements {
+
+    private R2dbcStatements() {
+    }
+
+    static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    static OffsetDateTime timestamp(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    static Instant instant(Readable row, String column) {
+        OffsetDateTime value = row.get(column, OffsetDateTime.class);
+        return value == null ? null : value.toInstant();
+    }
+
+    /**
+     * Runs {@code sql} once per row as a single batched statement, using positional {@code $n} markers,
+     * and returns the update count of every row in order.
+     */
+    static Mono<List<Long>> executeBatch(DatabaseClient db, String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return db.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < rows.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        Object[] values = rows.get(i);
+                        for (int j = 0; j < values.length; j++) {
+                            statement.bind(j, values[j]);
+                        }
+                    }
+                    return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+                })
+                .collectList();
+    }
+}
@@ -0,0 +1,44 @@
+CREATE TABLE IF NOT EXISTS franchises (
+    id VARCHAR(36) PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_franchises_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS branches (
+    id VARCHAR(36) PRIMARY KEY,
+    franchise_id VARCHAR(36) NOT NULL REFERENCES franchises (id) ON DELETE CASCADE,
+    name VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_branches_franchise_name UNIQUE (franchise_id, name)
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id VARCHAR(36) PRIMARY KEY,
+    branch_id VARCHAR(36) NOT NULL REFERENCES branches (id) ON DELETE CASCADE,
+    name VARCHAR(255) NOT NULL,
+    stock INT NOT NULL CHECK (stock >= 0),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_products_branch_name UNIQUE (branch_id, name)
+);
+
+CREATE INDEX IF NOT EXISTS ix_branches_franchise ON branches (franchise_id, id);
+
+CREATE INDEX IF NOT EXISTS ix_products_branch_stock ON products (branch_id, stock DESC, id);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(512) PRIMARY KEY,
+    status INT NOT NULL,
+    etag VARCHAR(64),
+    body VARCHAR,
+    request_hash VARCHAR(64),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_idempotency_keys_created_at ON idempotency_keys (created_at);
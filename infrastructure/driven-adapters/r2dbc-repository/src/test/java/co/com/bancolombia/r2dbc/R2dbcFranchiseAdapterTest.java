@@ -0,0 +1,350 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import co.com.bancolombia.model.product.Product;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class R2dbcFranchiseAdapterTest {
+
+    private StockEventGateway events;
+    private R2dbcFranchiseAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = H2ConnectionFactory.inMemory("franchises-" + UUID.randomUUID());
+        R2dbcSchemaConfig.schema().populate(connectionFactory).block();
+        events = mock(StockEventGateway.class);
+        adapter = new R2dbcFranchiseAdapter(connectionFactory, new R2dbcFranchiseImporter(connectionFactory), events);
+    }
+
+    @Test
+    void createFranchise_shouldTrimName_andRejectDuplicates() {
+        StepVerifier.create(adapter.createFranchise("  Nequi "))
+                .assertNext(franchise -> {
+                    assertEquals("Nequi", franchise.getName());
+                    assertEquals(0, franchise.getVersion());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(adapter.createFranchise("Nequi"))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Franchise name already exists"))
+                .verify();
+    }
+
+    @Test
+    void addBranch_shouldError_whenFranchiseMissingOrNameTaken() {
+        Branch branch = givenBranch();
+
+        StepVerifier.create(adapter.addBranch(branch.getFranchiseId(), "Centro"))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Branch name already exists for this franchise"))
+                .verify();
+        StepVerifier.create(adapter.addBranch("missing", "Centro"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void addProduct_shouldInsert_andPublishStockAndTopEvents() {
+        Branch branch = givenBranch();
+
+        Product product = adapter.addProduct(branch.getId(), " Tarjeta ", 5).block();
+
+        assertEquals("Tarjeta", product.getName());
+        List<StockEvent> published = publishedEvents();
+        assertEquals(StockEventType.STOCK_CHANGED, published.get(0).getType());
+        assertEquals(branch.getFranchiseId(), published.get(0).getFranchiseId());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, published.get(1).getType());
+        assertEquals(product.getId(), published.get(1).getProductId());
+        StepVerifier.create(adapter.addProduct(branch.getId(), "Tarjeta", 1))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Product name already exists for this branch"))
+                .verify();
+        StepVerifier.create(adapter.addProduct("missing", "Tarjeta", 1))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Branch not found"))
+                .verify();
+    }
+
+    @Test
+    void topProductsByBranch_shouldRankEachBranchWithWindowFunction() {
+        Branch centro = givenBranch();
+        Branch norte = adapter.addBranch(centro.getFranchiseId(), "Norte").block();
+        Branch vacia = adapter.addBranch(centro.getFranchiseId(), "Vacia").block();
+        IntStream.range(0, 20).forEach(i -> adapter.addProduct(centro.getId(), "C" + i, i).block());
+        IntStream.range(0, 3).forEach(i -> adapter.addProduct(norte.getId(), "N" + i, 7).block());
+
+        List<TopProductByBranch> top = adapter.topProductsByBranch(centro.getFranchiseId(), 2).collectList().block();
+
+        assertEquals(List.of("C19", "C18"), namesOf(top, centro.getId()));
+        assertEquals(2, namesOf(top, norte.getId()).size());
+        List<TopProductByBranch> empty = top.stream().filter(t -> t.getBranchId().equals(vacia.getId())).toList();
+        assertEquals(1, empty.size());
+        assertNull(empty.get(0).getProductId());
+        assertEquals(0, empty.get(0).getStock());
+        StepVerifier.create(adapter.topProductByBranch("missing"))
+                .expectErrorMatches(e -> e.getMessage().equals("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void topProductByBranch_shouldBeEmpty_whenFranchiseHasNoBranches() {
+        Franchise franchise = adapter.createFranchise("Nequi").block();
+
+        StepVerifier.create(adapter.topProductByBranch(franchise.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateProductStock_shouldCheckVersion() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.updateProductStock(product.getId(), 7, 0L))
+                .assertNext(updated -> {
+                    assertEquals(7, updated.getStock());
+                    assertEquals(1, updated.getVersion());
+                })
+                .verifyComplete();
+        StepVerifier.create(adapter.updateProductStock(product.getId(), 8, 0L))
+                .expectErrorMatches(e -> e instanceof ConcurrentModificationException
+                        && e.getMessage().equals("Version does not match"))
+                .verify();
+        StepVerifier.create(adapter.updateProductStock(product.getId(), 8, null))
+                .assertNext(updated -> assertEquals(2, updated.getVersion()))
+                .verifyComplete();
+        StepVerifier.create(adapter.updateProductStock("missing", 8, null))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Product not found"))
+                .verify();
+    }
+
+    @Test
+    void adjustProductStock_shouldRejectInsufficientStock() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), -6))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Insufficient stock"))
+                .verify();
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), -5))
+                .assertNext(updated -> assertEquals(0, updated.getStock()))
+                .verifyComplete();
+    }
+
+    @Test
+    void adjustProductStock_shouldRejectResultAboveIntRange() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), Integer.MAX_VALUE - 4))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Stock limit exceeded"))
+                .verify();
+        StepVerifier.create(adapter.adjustProductStock(product.getId(), Integer.MAX_VALUE - 5))
+                .assertNext(updated -> assertEquals(Integer.MAX_VALUE, updated.getStock()))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateProductStocks_shouldBatchUpdates_andReportPerItemStatus() {
+        Branch branch = givenBranch();
+        Branch other = adapter.addBranch(branch.getFranchiseId(), "Norte").block();
+        List<Product> products = IntStream.range(0, 5)
+                .mapToObj(i -> adapter.addProduct(branch.getId(), "P" + i, 1).block())
+                .toList();
+        Product foreign = adapter.addProduct(other.getId(), "Cuenta", 5).block();
+        clearInvocations(events);
+
+        List<StockUpdateResult> results = adapter.updateProductStocks(branch.getId(), Flux.concat(
+                        Flux.fromIterable(products).map(p -> new StockUpdate(p.getId(), 10)),
+                        Flux.just(new StockUpdate(foreign.getId(), 1), new StockUpdate("", 1),
+                                new StockUpdate(products.get(0).getId(), -1))))
+                .collectList()
+                .block();
+
+        assertEquals(8, results.size());
+        assertTrue(results.subList(0, 5).stream().allMatch(r -> r.getStatus() == StockUpdateResult.Status.UPDATED));
+        assertEquals(StockUpdateResult.Status.NOT_FOUND, results.get(5).getStatus());
+        assertEquals("Product id must not be empty", results.get(6).getMessage());
+        assertEquals("Stock must be >= 0", results.get(7).getMessage());
+        assertEquals(10, adapter.findProduct(products.get(4).getId()).block().getStock());
+        assertEquals(5, adapter.findProduct(foreign.getId()).block().getStock());
+        assertEquals(5, publishedEvents().stream().filter(e -> e.getType() == StockEventType.STOCK_CHANGED).count());
+        StepVerifier.create(adapter.updateProductStocks("missing", Flux.empty()))
+                .expectErrorMatches(e -> e.getMessage().equals("Branch not found"))
+                .verify();
+    }
+
+    @Test
+    void updateProductStocks_shouldWriteTheLastUpdateOfARepeatedProductOnce() {
+        Branch branch = givenBranch();
+        Product product = adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+        clearInvocations(events);
+
+        List<StockUpdateResult> results = adapter.updateProductStocks(branch.getId(), Flux.just(
+                        new StockUpdate(product.getId(), 7),
+                        new StockUpdate(product.getId(), 9),
+                        new StockUpdate(product.getId(), -1)))
+                .collectList()
+                .block();
+
+        assertEquals(StockUpdateResult.Status.SUPERSEDED, results.get(0).getStatus());
+        assertEquals(StockUpdateResult.Status.UPDATED, results.get(1).getStatus());
+        assertEquals(StockUpdateResult.Status.INVALID, results.get(2).getStatus());
+        Product saved = adapter.findProduct(product.getId()).block();
+        assertEquals(9, saved.getStock());
+        assertEquals(product.getVersion() + 1, saved.getVersion());
+        assertEquals(1, publishedEvents().stream().filter(e -> e.getType() == StockEventType.STOCK_CHANGED).count());
+    }
+
+    @Test
+    void updateNames_shouldApplyVersionBeforeDuplicateCheck() {
+        Franchise franchise = adapter.createFranchise("Nequi").block();
+        adapter.createFranchise("Daviplata").block();
+
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Daviplata", 3L))
+                .expectError(ConcurrentModificationException.class)
+                .verify();
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Daviplata", 0L))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Franchise name already exists"))
+                .verify();
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Nequi", null))
+                .assertNext(same -> assertEquals(0, same.getVersion()))
+                .verifyComplete();
+        StepVerifier.create(adapter.updateFranchiseName(franchise.getId(), "Nequi Plus", 0L))
+                .assertNext(renamed -> assertEquals(1, renamed.getVersion()))
+                .verifyComplete();
+    }
+
+    @Test
+    void updateProductName_shouldPublishTopChange_whenTopProductRenamed() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+        clearInvocations(events);
+
+        StepVerifier.create(adapter.updateProductName(product.getId(), "Tarjeta Oro", null))
+                .assertNext(renamed -> assertEquals("Tarjeta Oro", renamed.getName()))
+                .verifyComplete();
+
+        List<StockEvent> published = publishedEvents();
+        assertEquals(1, published.size());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, published.get(0).getType());
+        assertEquals("Tarjeta Oro", published.get(0).getProductName());
+    }
+
+    @Test
+    void deleteFranchise_shouldReturnCounts() {
+        Branch branch = givenBranch();
+        adapter.addProduct(branch.getId(), "Tarjeta", 5).block();
+        adapter.addProduct(branch.getId(), "Cuenta", 5).block();
+
+        StepVerifier.create(adapter.deleteFranchise(branch.getFranchiseId()))
+                .assertNext(summary -> {
+                    assertEquals(1, summary.getFranchises());
+                    assertEquals(1, summary.getBranches());
+                    assertEquals(2, summary.getProducts());
+                })
+                .verifyComplete();
+        StepVerifier.create(adapter.deleteFranchise(branch.getFranchiseId()))
+                .expectErrorMatches(e -> e.getMessage().equals("Franchise not found"))
+                .verify();
+    }
+
+    @Test
+    void deleteBranch_shouldRollBack_whenBranchMissing() {
+        StepVerifier.create(adapter.deleteBranch("missing"))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Branch not found"))
+                .verify();
+    }
+
+    @Test
+    void deleteProduct_shouldPublishRemovalAndEmptyTop() {
+        Product product = adapter.addProduct(givenBranch().getId(), "Tarjeta", 5).block();
+        clearInvocations(events);
+
+        StepVerifier.create(adapter.deleteProduct(product.getId()))
+                .verifyComplete();
+
+        List<StockEvent> published = publishedEvents();
+        assertEquals(StockEventType.PRODUCT_REMOVED, published.get(0).getType());
+        assertEquals(0, published.get(0).getStock());
+        assertEquals(StockEventType.TOP_PRODUCT_CHANGED, published.get(1).getType());
+        assertNull(published.get(1).getProductId());
+    }
+
+    @Test
+    void listProducts_shouldPageByStockThenId() {
+        Branch branch = givenBranch();
+        IntStream.range(0, 5).forEach(i -> adapter.addProduct(branch.getId(), "P" + i, i % 2).block());
+
+        PageResult<Product> first = adapter.listProducts(branch.getId(), null, 3).block();
+        PageResult<Product> second = adapter.listProducts(branch.getId(), first.getNextCursor(), 3).block();
+
+        assertEquals(3, first.getItems().size());
+        assertEquals(List.of(1, 1, 0), first.getItems().stream().map(Product::getStock).toList());
+        assertEquals(List.of(0, 0), second.getItems().stream().map(Product::getStock).toList());
+        assertNull(second.getNextCursor());
+        StepVerifier.create(adapter.listProducts("missing", null, 3))
+                .expectErrorMatches(e -> e.getMessage().equals("Branch not found"))
+                .verify();
+    }
+
+    @Test
+    void listBranches_shouldPageById() {
+        Franchise franchise = adapter.createFranchise("Nequi").block();
+        IntStream.range(0, 3).forEach(i -> adapter.addBranch(franchise.getId(), "B" + i).block());
+
+        PageResult<Branch> first = adapter.listBranches(franchise.getId(), null, 2).block();
+        PageResult<Branch> second = adapter.listBranches(franchise.getId(), first.getNextCursor(), 2).block();
+
+        assertEquals(2, first.getItems().size());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+        StepVerifier.create(adapter.listFranchises("!!", 2))
+                .expectErrorMatches(e -> e instanceof IllegalArgumentException
+                        && e.getMessage().equals("Invalid cursor"))
+                .verify();
+    }
+
+    private Branch givenBranch() {
+        Franchise franchise = adapter.createFranchise("Nequi").block();
+        return adapter.addBranch(franchise.getId(), "Centro").block();
+    }
+
+    private static List<String> namesOf(List<TopProductByBranch> top, String branchId) {
+        return top.stream()
+                .filter(t -> t.getBranchId().equals(branchId))
+                .map(TopProductByBranch::getProductName)
+                .toList();
+    }
+
+    private List<StockEvent> publishedEvents() {
+        ArgumentCaptor<StockEvent> captor = ArgumentCaptor.forClass(StockEvent.class);
+        verify(events, atLeastOnce()).publish(captor.capture());
+        return captor.getAllValues();
+    }
+}
@@ -0,0 +1,107 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class R2dbcFranchiseImporterTest {
+
+    private ConnectionFactory connectionFactory;
+    private R2dbcFranchiseImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = H2ConnectionFactory.inMemory("import-" + UUID.randomUUID());
+        R2dbcSchemaConfig.schema().populate(connectionFactory).block();
+        importer = new R2dbcFranchiseImporter(connectionFactory);
+    }
+
+    @Test
+    void importFranchise_shouldInsertTreeInBatches_andReportLineErrors() {
+        Flux<ImportRecord> records = Flux.concat(
+                Flux.just(new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null),
+                        new ImportRecord(3, ImportRecord.Type.BRANCH, "Centro", null, null, null)),
+                Flux.range(0, R2dbcFranchiseImporter.IMPORT_BATCH_SIZE + 10)
+                        .map(i -> new ImportRecord(4L + i, ImportRecord.Type.PRODUCT, "P" + i, "Centro", i, null)),
+                Flux.just(new ImportRecord(5000, ImportRecord.Type.PRODUCT, "P0", "Centro", 1, null),
+                        new ImportRecord(5001, ImportRecord.Type.PRODUCT, "X", "Norte", 1, null),
+                        new ImportRecord(5002, ImportRecord.Type.PRODUCT, "Y", "Centro", -1, null)));
+
+        List<ImportResult> results = importer.importFranchise(records).collectList().block();
+
+        assertEquals(R2dbcFranchiseImporter.IMPORT_BATCH_SIZE + 16, results.size());
+        assertEquals(ImportResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals("Branch name already exists for this franchise", results.get(2).getMessage());
+        int last = results.size() - 1;
+        assertEquals("Product name already exists for this branch", results.get(last - 2).getMessage());
+        assertEquals("Branch not found", results.get(last - 1).getMessage());
+        assertEquals("Stock must be >= 0", results.get(last).getMessage());
+
+        R2dbcFranchiseAdapter adapter = new R2dbcFranchiseAdapter(connectionFactory, importer,
+                mock(StockEventGateway.class));
+        assertEquals(R2dbcFranchiseImporter.IMPORT_BATCH_SIZE + 9,
+                adapter.topProductByBranch(results.get(0).getId()).blockFirst().getStock());
+        assertEquals(R2dbcFranchiseImporter.IMPORT_BATCH_SIZE + 10,
+                adapter.listProducts(results.get(1).getId(), null, 5000).block().getItems().size());
+    }
+
+    @Test
+    void importFranchise_shouldKeepTheBatch_whenTheConstraintRejectsADuplicateProduct() {
+        List<ImportResult> results = importer.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Centro", null, null, null),
+                        new ImportRecord(3, ImportRecord.Type.PRODUCT, "Burger", "Centro", 4, null),
+                        new ImportRecord(4, ImportRecord.Type.PRODUCT, "Burger", "Centro", 2, null),
+                        new ImportRecord(5, ImportRecord.Type.PRODUCT, "Pizza", "Centro", 3, null)))
+                .collectList()
+                .block();
+
+        assertEquals(ImportResult.Status.CREATED, results.get(2).getStatus());
+        assertEquals("Product name already exists for this branch", results.get(3).getMessage());
+        assertEquals(ImportResult.Status.CREATED, results.get(4).getStatus());
+
+        R2dbcFranchiseAdapter adapter = new R2dbcFranchiseAdapter(connectionFactory, importer,
+                mock(StockEventGateway.class));
+        assertEquals(2, adapter.listProducts(results.get(1).getId(), null, 10).block().getItems().size());
+        assertEquals(4, adapter.topProductByBranch(results.get(0).getId()).blockFirst().getStock());
+    }
+
+    @Test
+    void importFranchise_shouldFailRemainingLines_whenFranchiseLineFails() {
+        List<ImportResult> results = importer.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.BRANCH, "Centro", null, null, null),
+                        new ImportRecord(2, ImportRecord.Type.BRANCH, "Norte", null, null, null)))
+                .collectList()
+                .block();
+
+        assertEquals("The first line must describe the franchise", results.get(0).getMessage());
+        assertEquals("Franchise was not imported", results.get(1).getMessage());
+    }
+
+    @Test
+    void importFranchise_shouldReportDuplicateFranchise() {
+        importer.importFranchise(Flux.just(new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null)))
+                .blockLast();
+
+        List<ImportResult> results = importer.importFranchise(Flux.just(
+                        new ImportRecord(1, ImportRecord.Type.FRANCHISE, "Nequi", null, null, null)))
+                .collectList()
+                .block();
+
+        assertEquals("Franchise name already exists", results.get(0).getMessage());
+        IntStream.range(0, results.size()).forEach(i -> assertNull(results.get(i).getId()));
+    }
+}
@@ -0,0 +1,72 @@
+package co.com.bancolombia.r2dbc;
+
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class R2dbcIdempotencyAdapterTest {
+
+    private ConnectionFactory connectionFactory;
+    private R2dbcIdempotencyAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = H2ConnectionFactory.inMemory("idempotency-" + UUID.randomUUID());
+        R2dbcSchemaConfig.schema().populate(connectionFactory).block();
+        adapter = new R2dbcIdempotencyAdapter(connectionFactory, Duration.ofHours(1));
+    }
+
+    @Test
+    void saveIfAbsent_shouldStoreResponse_withNullEtag() {
+        StepVerifier.create(adapter.saveIfAbsent("k-1", new IdempotentResponse(409, null, "{\"status\":409}")))
+                .assertNext(r -> assertEquals(409, r.getStatus()))
+                .verifyComplete();
+
+        StepVerifier.create(adapter.find("k-1"))
+                .assertNext(r -> {
+                    assertNull(r.getEtag());
+                    assertEquals("{\"status\":409}", r.getBody());
+                    assertNull(r.getRequestHash());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void saveIfAbsent_shouldStoreRequestHash() {
+        adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{}", "hash-1")).block();
+
+        StepVerifier.create(adapter.find("k-1"))
+                .assertNext(r -> assertEquals("hash-1", r.getRequestHash()))
+                .verifyComplete();
+    }
+
+    @Test
+    void saveIfAbsent_shouldReturnWinningResponse_whenKeyAlreadyStored() {
+        adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}")).block();
+
+        StepVerifier.create(adapter.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-2\"}")))
+                .assertNext(r -> assertEquals("{\"id\":\"f-1\"}", r.getBody()))
+                .verifyComplete();
+    }
+
+    @Test
+    void expiredKeys_shouldBeIgnored_andReplaced() {
+        R2dbcIdempotencyAdapter expiring = new R2dbcIdempotencyAdapter(connectionFactory, Duration.ofMillis(-1));
+        expiring.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-1\"}")).block();
+
+        StepVerifier.create(expiring.find("k-1"))
+                .verifyComplete();
+        StepVerifier.create(expiring.saveIfAbsent("k-1", new IdempotentResponse(200, "0", "{\"id\":\"f-2\"}")))
+                .assertNext(r -> assertEquals("{\"id\":\"f-2\"}", r.getBody()))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,49 @@
+package co.com.bancolombia.events;
+
+import co.com.bancolombia.model.event.StockEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The events of one franchise. Publishers enqueue and whichever thread finds the channel idle emits
+ * everything queued, so the sink only ever sees one emitter and no publisher waits for another.
+ */
+final class FranchiseChannel {
+
+    private final Sinks.Many<StockEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final Queue<StockEvent> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private int subscribers;
+
+    void emit(StockEvent event) {
+        queued.offer(event);
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            StockEvent next;
+            while ((next = queued.poll()) != null) {
+                sink.tryEmitNext(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    Flux<StockEvent> asFlux() {
+        return sink.asFlux();
+    }
+
+    FranchiseChannel join() {
+        subscribers++;
+        return this;
+    }
+
+    FranchiseChannel leave() {
+        return --subscribers == 0 ? null : this;
+    }
+}
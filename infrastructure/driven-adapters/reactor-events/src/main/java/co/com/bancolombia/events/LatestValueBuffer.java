@@ -0,0 +1,64 @@
+package co.com.bancolombia.events;
+
+import co.com.bancolombia.model.event.StockEvent;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class LatestValueBuffer {
+
+    private final FluxSink<StockEvent> downstream;
+    private final int capacity;
+    private final Map<String, StockEvent> pending = new LinkedHashMap<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    LatestValueBuffer(FluxSink<StockEvent> downstream, int capacity) {
+        this.downstream = downstream;
+        this.capacity = capacity;
+    }
+
+    void offer(StockEvent event) {
+        synchronized (pending) {
+            String key = event.conflationKey();
+            if (!pending.containsKey(key) && pending.size() >= capacity) {
+                Iterator<String> oldest = pending.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            pending.put(key, event);
+        }
+        drain();
+    }
+
+    void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (downstream.requestedFromDownstream() > 0 && !downstream.isCancelled()) {
+                StockEvent next = poll();
+                if (next == null) {
+                    break;
+                }
+                downstream.next(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private StockEvent poll() {
+        synchronized (pending) {
+            Iterator<StockEvent> first = pending.values().iterator();
+            if (!first.hasNext()) {
+                return null;
+            }
+            StockEvent next = first.next();
+            first.remove();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package co.com.bancolombia.events;
+
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.gateways.StockEventGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class ReactorStockEventHub implements StockEventGateway {
+
+    private final Map<String, FranchiseChannel> channels = new ConcurrentHashMap<>();
+    private final int subscriberBuffer;
+
+    public ReactorStockEventHub(@Value("${events.stock.subscriber-buffer:256}") int subscriberBuffer) {
+        this.subscriberBuffer = subscriberBuffer;
+    }
+
+    @Override
+    public void publish(StockEvent event) {
+        FranchiseChannel channel = event.getFranchiseId() == null ? null : channels.get(event.getFranchiseId());
+        if (channel != null) {
+            channel.emit(event);
+        }
+    }
+
+    @Override
+    public Flux<StockEvent> subscribe(String franchiseId) {
+        return Flux.create(emitter -> {
+            LatestValueBuffer buffer = new LatestValueBuffer(emitter, subscriberBuffer);
+            FranchiseChannel channel = channels.compute(franchiseId,
+                    (key, current) -> (current == null ? new FranchiseChannel() : current).join());
+            Disposable upstream = channel.asFlux()
+                    .subscribe(buffer::offer, emitter::error, emitter::complete);
+            emitter.onRequest(n -> buffer.drain());
+            emitter.onDispose(() -> {
+                upstream.dispose();
+                channels.computeIfPresent(franchiseId, (key, current) -> current == channel ? current.leave() : current);
+            });
+        });
+    }
+
+    int channels() {
+        return channels.size();
+    }
+}
@@ -0,0 +1,149 @@
+package co.com.bancolombia.events;
+
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactorStockEventHubTest {
+
+    @Test
+    void shouldOnlyDeliverEventsOfTheRequestedFranchise() {
+        ReactorStockEventHub hub = new ReactorStockEventHub(16);
+
+        StepVerifier.create(hub.subscribe("f-1"))
+                .then(() -> {
+                    hub.publish(stock("f-2", "p-9", 1));
+                    hub.publish(stock("f-1", "p-1", 5));
+                })
+                .assertNext(e -> assertEquals("p-1", e.getProductId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void shouldConflateToLatestValue_whileSubscriberHasNoDemand() {
+        ReactorStockEventHub hub = new ReactorStockEventHub(16);
+
+        StepVerifier.create(hub.subscribe("f-1"), 0)
+                .then(() -> {
+                    hub.publish(stock("f-1", "p-1", 1));
+                    hub.publish(stock("f-1", "p-2", 7));
+                    hub.publish(stock("f-1", "p-1", 2));
+                    hub.publish(stock("f-1", "p-1", 3));
+                })
+                .thenRequest(10)
+                .assertNext(e -> {
+                    assertEquals("p-1", e.getProductId());
+                    assertEquals(3, e.getStock());
+                })
+                .assertNext(e -> assertEquals("p-2", e.getProductId()))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void shouldKeepStockAndTopProductEventsApart() {
+        ReactorStockEventHub hub = new ReactorStockEventHub(16);
+
+        StepVerifier.create(hub.subscribe("f-1"), 0)
+                .then(() -> {
+                    hub.publish(stock("f-1", "p-1", 4));
+                    hub.publish(new StockEvent(StockEventType.TOP_PRODUCT_CHANGED, "f-1", "b-1", "p-1", "Burger", 4, Instant.now()));
+                })
+                .thenRequest(2)
+                .assertNext(e -> assertEquals(StockEventType.STOCK_CHANGED, e.getType()))
+                .assertNext(e -> assertEquals(StockEventType.TOP_PRODUCT_CHANGED, e.getType()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void shouldDropOldestKey_whenSubscriberBufferIsFull() {
+        ReactorStockEventHub hub = new ReactorStockEventHub(2);
+
+        StepVerifier.create(hub.subscribe("f-1"), 0)
+                .then(() -> {
+                    hub.publish(stock("f-1", "p-1", 1));
+                    hub.publish(stock("f-1", "p-2", 2));
+                    hub.publish(stock("f-1", "p-3", 3));
+                })
+                .thenRequest(10)
+                .assertNext(e -> assertEquals("p-2", e.getProductId()))
+                .assertNext(e -> assertEquals("p-3", e.getProductId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void shouldDropTheFranchiseChannel_whenItsLastSubscriberLeaves() {
+        ReactorStockEventHub hub = new ReactorStockEventHub(16);
+        Disposable first = hub.subscribe("f-1").subscribe();
+        Disposable second = hub.subscribe("f-1").subscribe();
+        Disposable other = hub.subscribe("f-2").subscribe();
+        assertEquals(2, hub.channels());
+
+        first.dispose();
+        assertEquals(2, hub.channels());
+        second.dispose();
+        assertEquals(1, hub.channels());
+        other.dispose();
+        assertEquals(0, hub.channels());
+
+        hub.publish(stock("f-1", "p-1", 1));
+        assertEquals(0, hub.channels());
+    }
+
+    @Test
+    void shouldDeliverEveryEvent_whenPublishersRace() throws InterruptedException {
+        ReactorStockEventHub hub = new ReactorStockEventHub(1024);
+        int publishers = 8;
+        int perPublisher = 100;
+        Map<String, StockEvent> received = new ConcurrentHashMap<>();
+        Disposable subscription = hub.subscribe("f-1").subscribe(e -> received.put(e.getProductId(), e));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(publishers);
+        for (int p = 0; p < publishers; p++) {
+            int publisher = p;
+            pool.execute(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < perPublisher; i++) {
+                    hub.publish(stock("f-1", "p-" + publisher + "-" + i, i));
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(publishers * perPublisher, received.size());
+        subscription.dispose();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static StockEvent stock(String franchiseId, String productId, int stock) {
+        return new StockEvent(StockEventType.STOCK_CHANGED, franchiseId, "b-1", productId, "Producto", stock, Instant.now());
+    }
+}
@@ -0,0 +1,210 @@
+package co.com.bancolombia.coalescer;
+
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.gateways.StockWriteGateway;
+import co.com.bancolombia.model.product.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class CoalescingStockWriter implements StockWriteGateway {
+
+    static final String REQUESTED_METRIC = "stock.writes.requested";
+    static final String FLUSHED_METRIC = "stock.writes.flushed";
+    static final String BATCH_METRIC = "stock.writes.coalesced";
+    static final String RATIO_METRIC = "stock.writes.coalescing.ratio";
+
+    private final FranchiseGateway gateway;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long maxLatencyMillis;
+    private final Scheduler scheduler;
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final Counter requested;
+    private final Counter flushed;
+    private final DistributionSummary batchSize;
+
+    @Autowired
+    public CoalescingStockWriter(FranchiseGateway gateway,
+                                 MeterRegistry registry,
+                                 @Value("${stock.coalescing.enabled:false}") boolean enabled,
+                                 @Value("${stock.coalescing.window:PT0.02S}") Duration window,
+                                 @Value("${stock.coalescing.max-latency:PT0.1S}") Duration maxLatency) {
+        this(gateway, registry, enabled, window, maxLatency, Schedulers.parallel());
+    }
+
+    CoalescingStockWriter(FranchiseGateway gateway,
+                          MeterRegistry registry,
+                          boolean enabled,
+                          Duration window,
+                          Duration maxLatency,
+                          Scheduler scheduler) {
+        this.gateway = gateway;
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.maxLatencyMillis = maxLatency.toMillis();
+        this.scheduler = scheduler;
+        this.requested = Counter.builder(REQUESTED_METRIC)
+                .description("Stock writes requested by callers while coalescing is enabled")
+                .register(registry);
+        this.flushed = Counter.builder(FLUSHED_METRIC)
+                .description("Coalesced stock writes sent to the database")
+                .register(registry);
+        this.batchSize = DistributionSummary.builder(BATCH_METRIC)
+                .description("Callers completed by a single coalesced write")
+                .register(registry);
+        Gauge.builder(RATIO_METRIC, this, CoalescingStockWriter::coalescingRatio)
+                .description("Requested stock writes per flushed write")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Product> setStock(String productId, int stock, Long expectedVersion) {
+        if (!enabled || productId == null || productId.isBlank() || stock < 0 || expectedVersion != null) {
+            return gateway.updateProductStock(productId, stock, expectedVersion);
+        }
+        return enqueue(productId, new Change(stock, 0));
+    }
+
+    @Override
+    public Mono<Product> adjustStock(String productId, int delta) {
+        if (!enabled || productId == null || productId.isBlank() || delta == 0) {
+            return gateway.adjustProductStock(productId, delta);
+        }
+        return enqueue(productId, new Change(null, delta));
+    }
+
+    private Mono<Product> enqueue(String productId, Change change) {
+        return Mono.create(waiter -> {
+            pending.compute(productId, (id, current) -> {
+                long now = scheduler.now(TimeUnit.MILLISECONDS);
+                PendingWrite write = current == null ? new PendingWrite(now) : current;
+                write.changes.add(change);
+                write.waiters.add(waiter);
+                write.reschedule(() -> flush(id, write),
+                        Math.min(now + windowMillis, write.openedAt + maxLatencyMillis) - now);
+                return write;
+            });
+            requested.increment();
+        });
+    }
+
+    private void flush(String productId, PendingWrite write) {
+        if (!pending.remove(productId, write)) {
+            return;
+        }
+        flushed.increment();
+        batchSize.record(write.waiters.size());
+
+        Mono.defer(() -> persistMerged(productId, write))
+                .subscribe(
+                        product -> write.waiters.forEach(waiter -> waiter.success(product)),
+                        error -> {
+                            if (write.changes.size() > 1 && isRejection(error)) {
+                                persistEach(productId, write);
+                            } else {
+                                write.waiters.forEach(waiter -> waiter.error(error));
+                            }
+                        },
+                        () -> write.waiters.forEach(MonoSink::success));
+    }
+
+    /**
+     * Applies the net effect of every queued change in one write: the last absolute value plus the
+     * deltas after it. Sums that leave the int range are rejected here, so the changes go one by one.
+     */
+    private Mono<Product> persistMerged(String productId, PendingWrite write) {
+        Long stock = null;
+        long delta = 0;
+        for (Change change : write.changes) {
+            if (change.stock() != null) {
+                stock = (long) change.stock();
+                delta = 0;
+            } else {
+                delta += change.delta();
+            }
+        }
+        if (stock != null) {
+            long merged = stock + delta;
+            return merged < 0 || merged > Integer.MAX_VALUE
+                    ? Mono.error(new IllegalStateException("Merged stock is out of range"))
+                    : gateway.updateProductStock(productId, (int) merged, null);
+        }
+        if (delta <= Integer.MIN_VALUE || delta > Integer.MAX_VALUE) {
+            return Mono.error(new IllegalStateException("Merged delta is out of range"));
+        }
+        return delta == 0
+                ? gateway.findProduct(productId)
+                : gateway.adjustProductStock(productId, (int) delta);
+    }
+
+    /**
+     * Used when the database rejects the merged write (insufficient stock, a negative or overflowing
+     * sum): replays each change in arrival order, so every caller gets the outcome its own change
+     * would have had without coalescing. Other failures may have been applied and are not replayed.
+     */
+    private void persistEach(String productId, PendingWrite write) {
+        Flux.range(0, write.changes.size())
+                .concatMap(i -> {
+                    Change change = write.changes.get(i);
+                    MonoSink<Product> waiter = write.waiters.get(i);
+                    Mono<Product> single = change.stock() != null
+                            ? gateway.updateProductStock(productId, change.stock(), null)
+                            : gateway.adjustProductStock(productId, change.delta());
+                    return single
+                            .doOnNext(waiter::success)
+                            .doOnError(waiter::error)
+                            .switchIfEmpty(Mono.fromRunnable(waiter::success))
+                            .onErrorResume(e -> Mono.empty());
+                })
+                .subscribe();
+    }
+
+    private static boolean isRejection(Throwable error) {
+        return error instanceof IllegalStateException || error instanceof IllegalArgumentException;
+    }
+
+    private double coalescingRatio() {
+        double writes = flushed.count();
+        return writes == 0 ? 0 : requested.count() / writes;
+    }
+
+    private record Change(Integer stock, int delta) {
+    }
+
+    private final class PendingWrite {
+        private final long openedAt;
+        private final List<Change> changes = new ArrayList<>();
+        private final List<MonoSink<Product>> waiters = new ArrayList<>();
+        private Disposable timer;
+
+        private PendingWrite(long openedAt) {
+            this.openedAt = openedAt;
+        }
+
+        private void reschedule(Runnable task, long delayMillis) {
+            if (timer != null) {
+                timer.dispose();
+            }
+            timer = scheduler.schedule(task, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package co.com.bancolombia.coalescer;
+
+import co.com.bancolombia.model.gateways.FranchiseGateway;
+import co.com.bancolombia.model.product.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CoalescingStockWriterTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(20);
+    private static final Duration MAX_LATENCY = Duration.ofMillis(100);
+
+    private FranchiseGateway gateway;
+    private SimpleMeterRegistry registry;
+    private VirtualTimeScheduler scheduler;
+    private CoalescingStockWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        gateway = mock(FranchiseGateway.class);
+        registry = new SimpleMeterRegistry();
+        scheduler = VirtualTimeScheduler.create();
+        writer = new CoalescingStockWriter(gateway, registry, true, WINDOW, MAX_LATENCY, scheduler);
+    }
+
+    @Test
+    void shouldWriteThrough_whenDisabled() {
+        CoalescingStockWriter direct = new CoalescingStockWriter(gateway, registry, false, WINDOW, MAX_LATENCY, scheduler);
+        when(gateway.updateProductStock("p-1", 5, null)).thenReturn(Mono.just(product(5)));
+
+        StepVerifier.create(direct.setStock("p-1", 5, null))
+                .expectNextMatches(p -> p.getStock() == 5)
+                .verifyComplete();
+
+        assertEquals(0, registry.get(CoalescingStockWriter.REQUESTED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldSumDeltas_andCompleteEveryCallerWithOneWrite() {
+        when(gateway.adjustProductStock("p-1", 4)).thenReturn(Mono.just(product(14)));
+
+        StepVerifier.create(Mono.zip(writer.adjustStock("p-1", 3),
+                        writer.adjustStock("p-1", -1),
+                        writer.adjustStock("p-1", 2)))
+                .then(() -> scheduler.advanceTimeBy(WINDOW))
+                .assertNext(results -> {
+                    assertEquals(14, results.getT1().getStock());
+                    assertEquals(14, results.getT2().getStock());
+                    assertEquals(14, results.getT3().getStock());
+                })
+                .verifyComplete();
+
+        verify(gateway, times(1)).adjustProductStock(anyString(), anyInt());
+        assertEquals(3, registry.get(CoalescingStockWriter.REQUESTED_METRIC).counter().count());
+        assertEquals(1, registry.get(CoalescingStockWriter.FLUSHED_METRIC).counter().count());
+        assertEquals(3.0, registry.get(CoalescingStockWriter.RATIO_METRIC).gauge().value());
+    }
+
+    @Test
+    void shouldApplyDeltasOnTopOfLastAbsoluteSet() {
+        when(gateway.updateProductStock("p-1", 12, null)).thenReturn(Mono.just(product(12)));
+
+        StepVerifier.create(Mono.zip(writer.setStock("p-1", 50, null),
+                        writer.setStock("p-1", 10, null),
+                        writer.adjustStock("p-1", 2)))
+                .then(() -> scheduler.advanceTimeBy(WINDOW))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(gateway).updateProductStock("p-1", 12, null);
+        verify(gateway, never()).adjustProductStock(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldReadCurrentValue_whenDeltasCancelOut() {
+        when(gateway.findProduct("p-1")).thenReturn(Mono.just(product(8)));
+
+        StepVerifier.create(Mono.zip(writer.adjustStock("p-1", 3), writer.adjustStock("p-1", -3)))
+                .then(() -> scheduler.advanceTimeBy(WINDOW))
+                .assertNext(results -> assertEquals(8, results.getT2().getStock()))
+                .verifyComplete();
+
+        verify(gateway, never()).adjustProductStock(anyString(), anyInt());
+    }
+
+    @Test
+    void shouldReplayEachChange_whenTheMergedWriteIsRejected() {
+        when(gateway.adjustProductStock("p-1", -10))
+                .thenReturn(Mono.error(new IllegalStateException("Insufficient stock")));
+        when(gateway.adjustProductStock("p-1", -5))
+                .thenReturn(Mono.just(product(2)))
+                .thenReturn(Mono.error(new IllegalStateException("Insufficient stock")));
+
+        StepVerifier first = StepVerifier.create(writer.adjustStock("p-1", -5))
+                .expectNextMatches(p -> p.getStock() == 2)
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(writer.adjustStock("p-1", -5))
+                .expectErrorMatches(e -> e instanceof IllegalStateException
+                        && e.getMessage().equals("Insufficient stock"))
+                .verifyLater();
+        scheduler.advanceTimeBy(WINDOW);
+
+        first.verify();
+        second.verify();
+        verify(gateway, times(2)).adjustProductStock("p-1", -5);
+    }
+
+    @Test
+    void shouldReplayEachChange_whenAnAbsoluteSetIsFollowedByAnOverdraw() {
+        when(gateway.updateProductStock("p-1", 3, null)).thenReturn(Mono.just(product(3)));
+        when(gateway.adjustProductStock("p-1", -5))
+                .thenReturn(Mono.error(new IllegalStateException("Insufficient stock")));
+
+        StepVerifier set = StepVerifier.create(writer.setStock("p-1", 3, null))
+                .expectNextMatches(p -> p.getStock() == 3)
+                .expectComplete()
+                .verifyLater();
+        StepVerifier overdraw = StepVerifier.create(writer.adjustStock("p-1", -5))
+                .expectError(IllegalStateException.class)
+                .verifyLater();
+        scheduler.advanceTimeBy(WINDOW);
+
+        set.verify();
+        overdraw.verify();
+        verify(gateway, never()).updateProductStock("p-1", -2, null);
+    }
+
+    @Test
+    void shouldReplayEachChange_whenTheSumOverflows() {
+        when(gateway.adjustProductStock("p-1", Integer.MAX_VALUE)).thenReturn(Mono.just(product(Integer.MAX_VALUE)));
+        when(gateway.adjustProductStock("p-1", 1))
+                .thenReturn(Mono.error(new IllegalStateException("Stock limit exceeded")));
+
+        StepVerifier first = StepVerifier.create(writer.adjustStock("p-1", Integer.MAX_VALUE))
+                .expectNextCount(1)
+                .expectComplete()
+                .verifyLater();
+        StepVerifier second = StepVerifier.create(writer.adjustStock("p-1", 1))
+                .expectErrorMatches(e -> e.getMessage().equals("Stock limit exceeded"))
+                .verifyLater();
+        scheduler.advanceTimeBy(WINDOW);
+
+        first.verify();
+        second.verify();
+    }
+
+    @Test
+    void shouldFailEveryCaller_whenTheWriteFailsForAnotherReason() {
+        when(gateway.adjustProductStock("p-1", -9))
+                .thenReturn(Mono.error(new RuntimeException("connection reset")));
+
+        StepVerifier.create(Mono.zip(writer.adjustStock("p-1", -4), writer.adjustStock("p-1", -5)))
+                .then(() -> scheduler.advanceTimeBy(WINDOW))
+                .expectErrorMessage("connection reset")
+                .verify();
+
+        verify(gateway, never()).adjustProductStock("p-1", -4);
+    }
+
+    @Test
+    void shouldFlushAtMaxLatency_whenUpdatesKeepArriving() {
+        when(gateway.adjustProductStock(eq("p-1"), anyInt())).thenReturn(Mono.just(product(1)));
+
+        for (int i = 0; i < 10; i++) {
+            writer.adjustStock("p-1", 1).subscribe();
+            scheduler.advanceTimeBy(Duration.ofMillis(15));
+        }
+
+        verify(gateway).adjustProductStock("p-1", 7);
+    }
+
+    @Test
+    void shouldWriteThrough_whenVersionIsExpected() {
+        when(gateway.updateProductStock("p-1", 5, 2L)).thenReturn(Mono.just(product(5)));
+
+        StepVerifier.create(writer.setStock("p-1", 5, 2L))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(0, registry.get(CoalescingStockWriter.REQUESTED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldNotCoalesceInvalidInput() {
+        when(gateway.adjustProductStock("p-1", 0))
+                .thenReturn(Mono.error(new IllegalArgumentException("Delta must not be zero")));
+
+        StepVerifier.create(writer.adjustStock("p-1", 0))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        assertEquals(0, registry.get(CoalescingStockWriter.REQUESTED_METRIC).counter().count());
+    }
+
+    private static Product product(int stock) {
+        return new Product("p-1", "br-1", "Burger", stock, Instant.now(), Instant.now());
+    }
+}
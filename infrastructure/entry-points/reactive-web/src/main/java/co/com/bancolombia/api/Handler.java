@@ -1,118 +1,205 @@
 package co.com.bancolombia.api;
 
+import co.com.bancolombia.api.dto.AdjustStockRequest;
 import co.com.bancolombia.api.dto.CreateBranchRequest;
 import co.com.bancolombia.api.dto.CreateFranchiseRequest;
 import co.com.bancolombia.api.dto.CreateProductRequest;
 import co.com.bancolombia.api.dto.ErrorResponse;
+import co.com.bancolombia.api.dto.StockUpdateItemRequest;
 import co.com.bancolombia.api.dto.UpdateNameRequest;
 import co.com.bancolombia.api.dto.UpdateStockRequest;
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.exception.IdempotencyKeyReusedException;
 import co.com.bancolombia.usecase.franchise.AddBranchUseCase;
 import co.com.bancolombia.usecase.franchise.AddProductUseCase;
+import co.com.bancolombia.usecase.franchise.AdjustProductStockUseCase;
+import co.com.bancolombia.usecase.franchise.BulkUpdateProductStockUseCase;
 import co.com.bancolombia.usecase.franchise.CreateFranchiseUseCase;
+import co.com.bancolombia.usecase.franchise.DeleteBranchUseCase;
+import co.com.bancolombia.usecase.franchise.DeleteFranchiseUseCase;
 import co.com.bancolombia.usecase.franchise.DeleteProductUseCase;
+import co.com.bancolombia.usecase.franchise.ImportFranchiseUseCase;
+import co.com.bancolombia.usecase.franchise.ListBranchesUseCase;
+import co.com.bancolombia.usecase.franchise.ListFranchisesUseCase;
+import co.com.bancolombia.usecase.franchise.ListProductsUseCase;
 import co.com.bancolombia.usecase.franchise.TopProductByBranchUseCase;
+import co.com.bancolombia.usecase.franchise.TopProductsByFranchiseUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateBranchNameUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateFranchiseNameUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateProductNameUseCase;
 import co.com.bancolombia.usecase.franchise.UpdateProductStockUseCase;
+import co.com.bancolombia.usecase.franchise.WatchStockEventsUseCase;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ConcurrentModificationException;
+
 @Component
 public class Handler {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
     private final CreateFranchiseUseCase createFranchiseUseCase;
     private final AddBranchUseCase addBranchUseCase;
     private final AddProductUseCase addProductUseCase;
     private final DeleteProductUseCase deleteProductUseCase;
     private final UpdateProductStockUseCase updateProductStockUseCase;
     private final TopProductByBranchUseCase topProductByBranchUseCase;
+    private final TopProductsByFranchiseUseCase topProductsByFranchiseUseCase;
 
     private final UpdateFranchiseNameUseCase updateFranchiseNameUseCase;
     private final UpdateBranchNameUseCase updateBranchNameUseCase;
     private final UpdateProductNameUseCase updateProductNameUseCase;
 
+    private final ListFranchisesUseCase listFranchisesUseCase;
+    private final ListBranchesUseCase listBranchesUseCase;
+    private final ListProductsUseCase listProductsUseCase;
+    private final WatchStockEventsUseCase watchStockEventsUseCase;
+    private final BulkUpdateProductStockUseCase bulkUpdateProductStockUseCase;
+    private final ImportFranchiseUseCase importFranchiseUseCase;
+    private final ImportLineReader importLineReader;
+    private final AdjustProductStockUseCase adjustProductStockUseCase;
+    private final DeleteBranchUseCase deleteBranchUseCase;
+    private final DeleteFranchiseUseCase deleteFranchiseUseCase;
+    private final IdempotentRequests idempotentRequests;
+
     public Handler(CreateFranchiseUseCase createFranchiseUseCase,
                    AddBranchUseCase addBranchUseCase,
                    AddProductUseCase addProductUseCase,
                    DeleteProductUseCase deleteProductUseCase,
                    UpdateProductStockUseCase updateProductStockUseCase,
                    TopProductByBranchUseCase topProductByBranchUseCase,
+                   TopProductsByFranchiseUseCase topProductsByFranchiseUseCase,
                    UpdateFranchiseNameUseCase updateFranchiseNameUseCase,
                    UpdateBranchNameUseCase updateBranchNameUseCase,
-                   UpdateProductNameUseCase updateProductNameUseCase) {
+                   UpdateProductNameUseCase updateProductNameUseCase,
+                   ListFranchisesUseCase listFranchisesUseCase,
+                   ListBranchesUseCase listBranchesUseCase,
+                   ListProductsUseCase listProductsUseCase,
+                   WatchStockEventsUseCase watchStockEventsUseCase,
+                   BulkUpdateProductStockUseCase bulkUpdateProductStockUseCase,
+                   ImportFranchiseUseCase importFranchiseUseCase,
+                   ImportLineReader importLineReader,
+                   AdjustProductStockUseCase adjustProductStockUseCase,
+                   DeleteBranchUseCase deleteBranchUseCase,
+                   DeleteFranchiseUseCase deleteFranchiseUseCase,
+                   IdempotentRequests idempotentRequests) {
         this.createFranchiseUseCase = createFranchiseUseCase;
         this.addBranchUseCase = addBranchUseCase;
         this.addProductUseCase = addProductUseCase;
         this.deleteProductUseCase = deleteProductUseCase;
         this.updateProductStockUseCase = updateProductStockUseCase;
         this.topProductByBranchUseCase = topProductByBranchUseCase;
+        this.topProductsByFranchiseUseCase = topProductsByFranchiseUseCase;
         this.updateFranchiseNameUseCase = updateFranchiseNameUseCase;
         this.updateBranchNameUseCase = updateBranchNameUseCase;
         this.updateProductNameUseCase = updateProductNameUseCase;
+        this.listFranchisesUseCase = listFranchisesUseCase;
+        this.listBranchesUseCase = listBranchesUseCase;
+        this.listProductsUseCase = listProductsUseCase;
+        this.watchStockEventsUseCase = watchStockEventsUseCase;
+        this.bulkUpdateProductStockUseCase = bulkUpdateProductStockUseCase;
+        this.importFranchiseUseCase = importFranchiseUseCase;
+        this.importLineReader = importLineReader;
+        this.adjustProductStockUseCase = adjustProductStockUseCase;
+        this.deleteBranchUseCase = deleteBranchUseCase;
+        this.deleteFranchiseUseCase = deleteFranchiseUseCase;
+        this.idempotentRequests = idempotentRequests;
     }
 
     public Mono<ServerResponse> createFranchise(ServerRequest request) {
-        return request.bodyToMono(CreateFranchiseRequest.class)
-                .flatMap(body -> createFranchiseUseCase.execute(body.getName()))
-                .flatMap(result -> ServerResponse.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(result))
+        return idempotentRequests.execute(request, CreateFranchiseRequest.class, body -> createFranchiseUseCase.execute(body.getName())
+                        .map(result -> idempotentRequests.ok(result, result.getVersion()))
+                        .onErrorResume(this::recordedError))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> importFranchise(ServerRequest request) {
+        Flux<ImportResult> results = importFranchiseUseCase.execute(
+                importLineReader.read(request.body(BodyExtractors.toDataBuffers())));
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(results, ImportResult.class)
                 .onErrorResume(this::mapError);
     }
 
     public Mono<ServerResponse> updateFranchiseName(ServerRequest request) {
         String franchiseId = request.pathVariable("franchiseId");
         return request.bodyToMono(UpdateNameRequest.class)
-                .flatMap(body -> updateFranchiseNameUseCase.execute(franchiseId, body.getName()))
-                .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result))
+                .flatMap(body -> updateFranchiseNameUseCase.execute(franchiseId, body.getName(), ifMatch(request)))
+                .flatMap(result -> written(result, result.getVersion()))
                 .onErrorResume(this::mapError);
     }
 
     public Mono<ServerResponse> addBranch(ServerRequest request) {
         String franchiseId = request.pathVariable("franchiseId");
-        return request.bodyToMono(CreateBranchRequest.class)
-                .flatMap(body -> addBranchUseCase.execute(franchiseId, body.getName()))
-                .flatMap(result -> ServerResponse.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(result))
+        return idempotentRequests.execute(request, CreateBranchRequest.class, body -> addBranchUseCase.execute(franchiseId, body.getName())
+                        .map(result -> idempotentRequests.ok(result, result.getVersion()))
+                        .onErrorResume(this::recordedError))
                 .onErrorResume(this::mapError);
     }
 
     public Mono<ServerResponse> updateBranchName(ServerRequest request) {
         String branchId = request.pathVariable("branchId");
         return request.bodyToMono(UpdateNameRequest.class)
-                .flatMap(body -> updateBranchNameUseCase.execute(branchId, body.getName()))
-                .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result))
+                .flatMap(body -> updateBranchNameUseCase.execute(branchId, body.getName(), ifMatch(request)))
+                .flatMap(result -> written(result, result.getVersion()))
                 .onErrorResume(this::mapError);
     }
 
     public Mono<ServerResponse> addProduct(ServerRequest request) {
         String branchId = request.pathVariable("branchId");
-        return request.bodyToMono(CreateProductRequest.class)
-                .flatMap(body -> addProductUseCase.execute(branchId, body.getName(), body.getStock()))
-                .flatMap(result -> ServerResponse.ok()
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .bodyValue(result))
+        return idempotentRequests.execute(request, CreateProductRequest.class, body -> addProductUseCase.execute(branchId, body.getName(), body.getStock())
+                        .map(result -> idempotentRequests.ok(result, result.getVersion()))
+                        .onErrorResume(this::recordedError))
                 .onErrorResume(this::mapError);
     }
 
     public Mono<ServerResponse> updateProductStock(ServerRequest request) {
         String productId = request.pathVariable("productId");
         return request.bodyToMono(UpdateStockRequest.class)
-                .flatMap(body -> updateProductStockUseCase.execute(productId, body.getStock()))
-                .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result))
+                .flatMap(body -> updateProductStockUseCase.execute(productId, body.getStock(), ifMatch(request)))
+                .flatMap(result -> written(result, result.getVersion()))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> adjustProductStock(ServerRequest request) {
+        String productId = request.pathVariable("productId");
+        return request.bodyToMono(AdjustStockRequest.class)
+                .flatMap(body -> adjustProductStockUseCase.execute(productId, body.checkedDelta()))
+                .flatMap(result -> written(result, result.getVersion()))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> updateProductStocks(ServerRequest request) {
+        String branchId = request.pathVariable("branchId");
+        Flux<StockUpdate> updates = request.bodyToFlux(StockUpdateItemRequest.class)
+                .map(item -> new StockUpdate(item.getProductId(), item.getStock()));
+        return bulkUpdateProductStockUseCase.execute(branchId, updates)
+                .collectList()
+                .flatMap(results -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(results))
                 .onErrorResume(this::mapError);
     }
 
     public Mono<ServerResponse> updateProductName(ServerRequest request) {
         String productId = request.pathVariable("productId");
         return request.bodyToMono(UpdateNameRequest.class)
-                .flatMap(body -> updateProductNameUseCase.execute(productId, body.getName()))
-                .flatMap(result -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(result))
+                .flatMap(body -> updateProductNameUseCase.execute(productId, body.getName(), ifMatch(request)))
+                .flatMap(result -> written(result, result.getVersion()))
                 .onErrorResume(this::mapError);
     }
 
@@ -123,23 +210,205 @@ public class Handler {
                 .onErrorResume(this::mapError);
     }
 
+    public Mono<ServerResponse> deleteBranch(ServerRequest request) {
+        String branchId = request.pathVariable("branchId");
+        return deleteBranchUseCase.execute(branchId)
+                .flatMap(summary -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(summary))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> deleteFranchise(ServerRequest request) {
+        String franchiseId = request.pathVariable("franchiseId");
+        return deleteFranchiseUseCase.execute(franchiseId)
+                .flatMap(summary -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(summary))
+                .onErrorResume(this::mapError);
+    }
+
     public Mono<ServerResponse> topProductsByBranch(ServerRequest request) {
         String franchiseId = request.pathVariable("franchiseId");
+        int k;
+        try {
+            k = queryInt(request, "k", 1);
+        } catch (IllegalArgumentException e) {
+            return mapError(e);
+        }
+        MediaType streamType = streamingType(request);
+
+        return topProductByBranchUseCase.execute(franchiseId, k)
+                .switchOnFirst((first, topProducts) -> first.isOnError()
+                        ? Mono.<ServerResponse>error(first.getThrowable())
+                        : topProductsResponse(topProducts, streamType), false)
+                .singleOrEmpty()
+                .onErrorResume(this::mapError);
+    }
+
+    /**
+     * Only called once the first row or the completion has arrived, so a missing franchise is still answered
+     * with its error status instead of a committed 200.
+     */
+    private Mono<ServerResponse> topProductsResponse(Flux<TopProductByBranch> topProducts, MediaType streamType) {
+        if (MediaType.TEXT_EVENT_STREAM.equals(streamType)) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(BodyInserters.fromServerSentEvents(topProducts.map(top -> ServerSentEvent.builder(top)
+                            .id(top.getBranchId())
+                            .event("top-product")
+                            .build())));
+        }
+
         return ServerResponse.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(topProductByBranchUseCase.execute(franchiseId), Object.class)
+                .contentType(streamType == null ? MediaType.APPLICATION_JSON : streamType)
+                .body(topProducts, TopProductByBranch.class);
+    }
+
+    public Mono<ServerResponse> topProductsByFranchise(ServerRequest request) {
+        String franchiseId = request.pathVariable("franchiseId");
+        int k;
+        try {
+            k = queryInt(request, "k", 10);
+        } catch (IllegalArgumentException e) {
+            return mapError(e);
+        }
+        return topProductsByFranchiseUseCase.execute(franchiseId, k)
+                .collectList()
+                .flatMap(ranking -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(ranking))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> listFranchises(ServerRequest request) {
+        String cursor = request.queryParam("cursor").orElse(null);
+        int limit;
+        try {
+            limit = queryInt(request, "limit", DEFAULT_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            return mapError(e);
+        }
+        return listFranchisesUseCase.execute(cursor, limit)
+                .flatMap(page -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(page))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> listBranches(ServerRequest request) {
+        String franchiseId = request.pathVariable("franchiseId");
+        String cursor = request.queryParam("cursor").orElse(null);
+        int limit;
+        try {
+            limit = queryInt(request, "limit", DEFAULT_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            return mapError(e);
+        }
+        return listBranchesUseCase.execute(franchiseId, cursor, limit)
+                .flatMap(page -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(page))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> listProducts(ServerRequest request) {
+        String branchId = request.pathVariable("branchId");
+        String cursor = request.queryParam("cursor").orElse(null);
+        int limit;
+        try {
+            limit = queryInt(request, "limit", DEFAULT_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            return mapError(e);
+        }
+        return listProductsUseCase.execute(branchId, cursor, limit)
+                .flatMap(page -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(page))
+                .onErrorResume(this::mapError);
+    }
+
+    public Mono<ServerResponse> stockEvents(ServerRequest request) {
+        String franchiseId = request.pathVariable("franchiseId");
+        Flux<ServerSentEvent<StockEvent>> events = watchStockEventsUseCase.execute(franchiseId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType().name())
+                        .build());
+        Flux<ServerSentEvent<StockEvent>> heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<StockEvent>builder().comment("keep-alive").build());
+
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(Flux.merge(events, heartbeats)))
                 .onErrorResume(this::mapError);
     }
 
+    private int queryInt(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name)
+                .map(value -> {
+                    try {
+                        return Integer.parseInt(value.trim());
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(name + " must be a number");
+                    }
+                })
+                .orElse(defaultValue);
+    }
+
+    private MediaType streamingType(ServerRequest request) {
+        for (MediaType accepted : request.headers().accept()) {
+            if (accepted.isWildcardType() || accepted.isWildcardSubtype()) {
+                continue;
+            }
+            if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(accepted)) {
+                return MediaType.APPLICATION_NDJSON;
+            }
+            if (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(accepted)) {
+                return MediaType.TEXT_EVENT_STREAM;
+            }
+            if (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(accepted)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Long ifMatch(ServerRequest request) {
+        String header = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        if (header == null || header.isBlank() || "*".equals(header.trim())) {
+            return null;
+        }
+        String tag = header.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match must be a single strong ETag");
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be a single strong ETag");
+        }
+    }
+
+    private Mono<ServerResponse> written(Object body, long version) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(String.valueOf(version))
+                .bodyValue(body);
+    }
+
+    private Mono<IdempotentResponse> recordedError(Throwable e) {
+        return Mono.just(idempotentRequests.error(statusOf(e), messageOf(e)));
+    }
+
     private Mono<ServerResponse> mapError(Throwable e) {
+        int status = statusOf(e);
+        ErrorResponse body = new ErrorResponse(status, messageOf(e));
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body);
+    }
+
+    private static int statusOf(Throwable e) {
         int status = 500;
 
         if (e instanceof IllegalArgumentException) status = 400;
         if (e instanceof IllegalStateException) status = 409;
+        if (e instanceof ConcurrentModificationException) status = 412;
+        if (e instanceof IdempotencyKeyReusedException) status = 422;
 
-        ErrorResponse body = new ErrorResponse(status, e.getMessage() == null ? "Unexpected error" : e.getMessage());
-        return ServerResponse.status(status)
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(body);
+        return status;
+    }
+
+    private static String messageOf(Throwable e) {
+        return e.getMessage() == null ? "Unexpected error" : e.getMessage();
     }
 }
\ No newline at end of file
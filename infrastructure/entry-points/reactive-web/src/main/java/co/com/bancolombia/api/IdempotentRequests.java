@@ -0,0 +1,70 @@
+package co.com.bancolombia.api;
+
+import co.com.bancolombia.api.dto.ErrorResponse;
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.usecase.idempotency.IdempotentRequestUseCase;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+@Component
+public class IdempotentRequests {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final IdempotentRequestUseCase idempotentRequestUseCase;
+    private final JsonMapper jsonMapper;
+
+    public IdempotentRequests(IdempotentRequestUseCase idempotentRequestUseCase, JsonMapper jsonMapper) {
+        this.idempotentRequestUseCase = idempotentRequestUseCase;
+        this.jsonMapper = jsonMapper;
+    }
+
+    public <T> Mono<ServerResponse> execute(ServerRequest request, Class<T> bodyType,
+                                            Function<T, Mono<IdempotentResponse>> action) {
+        String key = request.headers().firstHeader(IDEMPOTENCY_KEY);
+        String scope = request.method().name() + " " + request.path();
+        return request.bodyToMono(bodyType)
+                .flatMap(body -> idempotentRequestUseCase.execute(scope, key, requestHash(scope, body),
+                        Mono.defer(() -> action.apply(body))))
+                .flatMap(this::toServerResponse);
+    }
+
+    public IdempotentResponse ok(Object body, long version) {
+        return new IdempotentResponse(200, String.valueOf(version), jsonMapper.writeValueAsString(body));
+    }
+
+    public IdempotentResponse error(int status, String message) {
+        return new IdempotentResponse(status, null, jsonMapper.writeValueAsString(new ErrorResponse(status, message)));
+    }
+
+    private String requestHash(String scope, Object body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(jsonMapper.writeValueAsBytes(body));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Mono<ServerResponse> toServerResponse(IdempotentResponse response) {
+        ServerResponse.BodyBuilder builder = ServerResponse.status(response.getStatus())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (response.getEtag() != null) {
+            builder.eTag(response.getEtag());
+        }
+        return builder.bodyValue(response.getBody());
+    }
+}
@@ -0,0 +1,50 @@
+package co.com.bancolombia.api;
+
+import co.com.bancolombia.api.dto.ImportLineRequest;
+import co.com.bancolombia.model.dto.ImportRecord;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Locale;
+import java.util.Map;
+
+@Component
+public class ImportLineReader {
+
+    private final StringDecoder lines = StringDecoder.textPlainOnly();
+    private final JsonMapper jsonMapper;
+
+    public ImportLineReader(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    public Flux<ImportRecord> read(Flux<DataBuffer> body) {
+        return lines.decode(body, ResolvableType.forClass(String.class), null, Map.of())
+                .index()
+                .filter(line -> !line.getT2().isBlank())
+                .map(line -> toRecord(line.getT1() + 1, line.getT2()));
+    }
+
+    private ImportRecord toRecord(long number, String line) {
+        ImportLineRequest request;
+        try {
+            request = jsonMapper.readValue(line, ImportLineRequest.class);
+        } catch (JacksonException e) {
+            return ImportRecord.invalid(number, "Malformed JSON line");
+        }
+        if (request == null || request.getType() == null) {
+            return ImportRecord.invalid(number, "Line type must not be empty");
+        }
+        try {
+            ImportRecord.Type type = ImportRecord.Type.valueOf(request.getType().trim().toUpperCase(Locale.ROOT));
+            return new ImportRecord(number, type, request.getName(), request.getBranch(), request.getStock(), null);
+        } catch (IllegalArgumentException e) {
+            return ImportRecord.invalid(number, "Unknown line type " + request.getType());
+        }
+    }
+}
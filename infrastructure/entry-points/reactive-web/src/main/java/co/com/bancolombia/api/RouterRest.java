@@ -1,13 +1,17 @@
 package co.com.bancolombia.api;
 
+import co.com.bancolombia.api.dto.AdjustStockRequest;
 import co.com.bancolombia.api.dto.CreateBranchRequest;
 import co.com.bancolombia.api.dto.CreateFranchiseRequest;
 import co.com.bancolombia.api.dto.CreateProductRequest;
+import co.com.bancolombia.api.dto.ImportLineRequest;
+import co.com.bancolombia.api.dto.StockUpdateItemRequest;
 import co.com.bancolombia.api.dto.UpdateNameRequest;
 import co.com.bancolombia.api.dto.UpdateStockRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
@@ -38,6 +42,8 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "createFranchise",
                             summary = "Crear una franquicia",
+                            parameters = @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER,
+                                            description = "Clave para reintentos seguros; repetirla devuelve la primera respuesta"),
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = CreateFranchiseRequest.class))),
                             responses = {
@@ -47,6 +53,24 @@ public class RouterRest {
                             }
                     )
             ),
+            @RouterOperation(
+                    path = "/api/franchises/import",
+                    method = RequestMethod.POST,
+                    beanClass = Handler.class,
+                    beanMethod = "importFranchise",
+                    consumes = MediaType.APPLICATION_NDJSON_VALUE,
+                    produces = MediaType.APPLICATION_NDJSON_VALUE,
+                    operation = @Operation(
+                            operationId = "importFranchise",
+                            summary = "Importar una franquicia completa desde NDJSON (una línea por franquicia, sucursal o producto)",
+                            requestBody = @RequestBody(required = true,
+                                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                            schema = @Schema(implementation = ImportLineRequest.class))),
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Resultado por línea del archivo")
+                            }
+                    )
+            ),
             @RouterOperation(
                     path = "/api/franchises/{franchiseId}/name",
                     method = RequestMethod.PATCH,
@@ -55,13 +79,18 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "updateFranchiseName",
                             summary = "Actualizar nombre de franquicia",
-                            parameters = @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "If-Match", in = ParameterIn.HEADER,
+                                            description = "ETag (versión) esperado; si no coincide responde 412")
+                            },
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = UpdateNameRequest.class))),
                             responses = {
                                     @ApiResponse(responseCode = "200", description = "Franquicia actualizada"),
                                     @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
-                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                                    @ApiResponse(responseCode = "404", description = "No encontrado"),
+                                    @ApiResponse(responseCode = "412", description = "La versión no coincide con If-Match")
                             }
                     )
             ),
@@ -73,7 +102,11 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "addBranch",
                             summary = "Agregar sucursal a una franquicia",
-                            parameters = @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER,
+                                            description = "Clave para reintentos seguros; repetirla devuelve la primera respuesta")
+                            },
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = CreateBranchRequest.class))),
                             responses = {
@@ -92,13 +125,18 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "updateBranchName",
                             summary = "Actualizar nombre de sucursal",
-                            parameters = @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "If-Match", in = ParameterIn.HEADER,
+                                            description = "ETag (versión) esperado; si no coincide responde 412")
+                            },
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = UpdateNameRequest.class))),
                             responses = {
                                     @ApiResponse(responseCode = "200", description = "Sucursal actualizada"),
                                     @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
-                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                                    @ApiResponse(responseCode = "404", description = "No encontrado"),
+                                    @ApiResponse(responseCode = "412", description = "La versión no coincide con If-Match")
                             }
                     )
             ),
@@ -110,7 +148,11 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "addProduct",
                             summary = "Agregar producto a una sucursal",
-                            parameters = @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "Idempotency-Key", in = ParameterIn.HEADER,
+                                            description = "Clave para reintentos seguros; repetirla devuelve la primera respuesta")
+                            },
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = CreateProductRequest.class))),
                             responses = {
@@ -129,12 +171,54 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "updateProductStock",
                             summary = "Actualizar stock de un producto",
-                            parameters = @Parameter(name = "productId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "productId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "If-Match", in = ParameterIn.HEADER,
+                                            description = "ETag (versión) esperado; si no coincide responde 412")
+                            },
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = UpdateStockRequest.class))),
                             responses = {
                                     @ApiResponse(responseCode = "200", description = "Stock actualizado"),
                                     @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "404", description = "No encontrado"),
+                                    @ApiResponse(responseCode = "412", description = "La versión no coincide con If-Match")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/products/{productId}/stock/adjust",
+                    method = RequestMethod.POST,
+                    beanClass = Handler.class,
+                    beanMethod = "adjustProductStock",
+                    operation = @Operation(
+                            operationId = "adjustProductStock",
+                            summary = "Sumar o restar stock de un producto de forma atómica",
+                            parameters = @Parameter(name = "productId", in = ParameterIn.PATH, required = true),
+                            requestBody = @RequestBody(required = true,
+                                    content = @Content(schema = @Schema(implementation = AdjustStockRequest.class))),
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Stock ajustado, con el nuevo valor"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "409", description = "Stock insuficiente")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/branches/{branchId}/products/stock",
+                    method = RequestMethod.PATCH,
+                    beanClass = Handler.class,
+                    beanMethod = "updateProductStocks",
+                    operation = @Operation(
+                            operationId = "updateProductStocks",
+                            summary = "Actualizar stock de varios productos de una sucursal en una sola escritura",
+                            parameters = @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                            requestBody = @RequestBody(required = true,
+                                    content = @Content(array = @ArraySchema(
+                                            schema = @Schema(implementation = StockUpdateItemRequest.class)))),
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Resultado por producto (UPDATED, NOT_FOUND, INVALID)"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
                                     @ApiResponse(responseCode = "404", description = "No encontrado")
                             }
                     )
@@ -147,13 +231,18 @@ public class RouterRest {
                     operation = @Operation(
                             operationId = "updateProductName",
                             summary = "Actualizar nombre de un producto",
-                            parameters = @Parameter(name = "productId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "productId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "If-Match", in = ParameterIn.HEADER,
+                                            description = "ETag (versión) esperado; si no coincide responde 412")
+                            },
                             requestBody = @RequestBody(required = true,
                                     content = @Content(schema = @Schema(implementation = UpdateNameRequest.class))),
                             responses = {
                                     @ApiResponse(responseCode = "200", description = "Nombre actualizado"),
                                     @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
-                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                                    @ApiResponse(responseCode = "404", description = "No encontrado"),
+                                    @ApiResponse(responseCode = "412", description = "La versión no coincide con If-Match")
                             }
                     )
             ),
@@ -173,34 +262,186 @@ public class RouterRest {
                             }
                     )
             ),
+            @RouterOperation(
+                    path = "/api/branches/{branchId}",
+                    method = RequestMethod.DELETE,
+                    beanClass = Handler.class,
+                    beanMethod = "deleteBranch",
+                    operation = @Operation(
+                            operationId = "deleteBranch",
+                            summary = "Eliminar una sucursal y sus productos",
+                            parameters = @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Resumen de documentos eliminados"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/franchises/{franchiseId}",
+                    method = RequestMethod.DELETE,
+                    beanClass = Handler.class,
+                    beanMethod = "deleteFranchise",
+                    operation = @Operation(
+                            operationId = "deleteFranchise",
+                            summary = "Eliminar una franquicia con sus sucursales y productos",
+                            parameters = @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Resumen de documentos eliminados"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                            }
+                    )
+            ),
             @RouterOperation(
                     path = "/api/franchises/{franchiseId}/top-products",
                     method = RequestMethod.GET,
                     beanClass = Handler.class,
                     beanMethod = "topProductsByBranch",
+                    produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+                            MediaType.TEXT_EVENT_STREAM_VALUE},
                     operation = @Operation(
                             operationId = "topProductsByBranch",
                             summary = "Producto con mayor stock por sucursal de una franquicia",
-                            parameters = @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                            parameters = {
+                                    @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "k", in = ParameterIn.QUERY,
+                                            description = "Productos por sucursal (1-100, por defecto 1)")
+                            },
                             responses = {
                                     @ApiResponse(responseCode = "200", description = "Listado por sucursal"),
                                     @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
                                     @ApiResponse(responseCode = "404", description = "No encontrado")
                             }
                     )
+            ),
+            @RouterOperation(
+                    path = "/api/franchises/{franchiseId}/top-products/ranking",
+                    method = RequestMethod.GET,
+                    beanClass = Handler.class,
+                    beanMethod = "topProductsByFranchise",
+                    operation = @Operation(
+                            operationId = "topProductsByFranchise",
+                            summary = "Ranking de productos con mayor stock en toda la franquicia",
+                            parameters = {
+                                    @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "k", in = ParameterIn.QUERY,
+                                            description = "Tamaño del ranking (1-100, por defecto 10)")
+                            },
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Ranking de productos"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/franchises/{franchiseId}/stock-events",
+                    method = RequestMethod.GET,
+                    beanClass = Handler.class,
+                    beanMethod = "stockEvents",
+                    produces = MediaType.TEXT_EVENT_STREAM_VALUE,
+                    operation = @Operation(
+                            operationId = "stockEvents",
+                            summary = "Suscripción SSE a cambios de stock y de producto top de una franquicia",
+                            parameters = @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Flujo de eventos"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/franchises",
+                    method = RequestMethod.GET,
+                    beanClass = Handler.class,
+                    beanMethod = "listFranchises",
+                    operation = @Operation(
+                            operationId = "listFranchises",
+                            summary = "Listar franquicias (paginado por cursor)",
+                            parameters = {
+                                    @Parameter(name = "cursor", in = ParameterIn.QUERY,
+                                            description = "Cursor devuelto en nextCursor por la página anterior"),
+                                    @Parameter(name = "limit", in = ParameterIn.QUERY,
+                                            description = "Tamaño de página (1-100, por defecto 20)")
+                            },
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Página de franquicias"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/franchises/{franchiseId}/branches",
+                    method = RequestMethod.GET,
+                    beanClass = Handler.class,
+                    beanMethod = "listBranches",
+                    operation = @Operation(
+                            operationId = "listBranches",
+                            summary = "Listar sucursales de una franquicia (paginado por cursor)",
+                            parameters = {
+                                    @Parameter(name = "franchiseId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "cursor", in = ParameterIn.QUERY,
+                                            description = "Cursor devuelto en nextCursor por la página anterior"),
+                                    @Parameter(name = "limit", in = ParameterIn.QUERY,
+                                            description = "Tamaño de página (1-100, por defecto 20)")
+                            },
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Página de sucursales"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                            }
+                    )
+            ),
+            @RouterOperation(
+                    path = "/api/branches/{branchId}/products",
+                    method = RequestMethod.GET,
+                    beanClass = Handler.class,
+                    beanMethod = "listProducts",
+                    operation = @Operation(
+                            operationId = "listProducts",
+                            summary = "Listar productos de una sucursal por stock descendente (paginado por cursor)",
+                            parameters = {
+                                    @Parameter(name = "branchId", in = ParameterIn.PATH, required = true),
+                                    @Parameter(name = "cursor", in = ParameterIn.QUERY,
+                                            description = "Cursor devuelto en nextCursor por la página anterior"),
+                                    @Parameter(name = "limit", in = ParameterIn.QUERY,
+                                            description = "Tamaño de página (1-100, por defecto 20)")
+                            },
+                            responses = {
+                                    @ApiResponse(responseCode = "200", description = "Página de productos"),
+                                    @ApiResponse(responseCode = "400", description = "Solicitud inválida"),
+                                    @ApiResponse(responseCode = "404", description = "No encontrado")
+                            }
+                    )
             )
     })
     public RouterFunction<ServerResponse> routerFunction(Handler handler) {
-        return nest(path("/api").and(accept(MediaType.APPLICATION_JSON)),
+        return nest(path("/api"), nest(accept(MediaType.APPLICATION_JSON),
                 route(POST("/franchises"), handler::createFranchise)
                         .andRoute(PATCH("/franchises/{franchiseId}/name"), handler::updateFranchiseName)
                         .andRoute(POST("/franchises/{franchiseId}/branches"), handler::addBranch)
                         .andRoute(PATCH("/branches/{branchId}/name"), handler::updateBranchName)
                         .andRoute(POST("/branches/{branchId}/products"), handler::addProduct)
                         .andRoute(PATCH("/products/{productId}/stock"), handler::updateProductStock)
+                        .andRoute(POST("/products/{productId}/stock/adjust"), handler::adjustProductStock)
+                        .andRoute(PATCH("/branches/{branchId}/products/stock"), handler::updateProductStocks)
                         .andRoute(PATCH("/products/{productId}/name"), handler::updateProductName)
                         .andRoute(DELETE("/products/{productId}"), handler::deleteProduct)
+                        .andRoute(DELETE("/branches/{branchId}"), handler::deleteBranch)
+                        .andRoute(DELETE("/franchises/{franchiseId}"), handler::deleteFranchise)
                         .andRoute(GET("/franchises/{franchiseId}/top-products"), handler::topProductsByBranch)
+                        .andRoute(GET("/franchises/{franchiseId}/top-products/ranking"), handler::topProductsByFranchise)
+                        .andRoute(GET("/franchises"), handler::listFranchises)
+                        .andRoute(GET("/franchises/{franchiseId}/branches"), handler::listBranches)
+                        .andRoute(GET("/branches/{branchId}/products"), handler::listProducts))
+                .andRoute(GET("/franchises/{franchiseId}/top-products")
+                        .and(accept(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM)), handler::topProductsByBranch)
+                .andRoute(GET("/franchises/{franchiseId}/stock-events")
+                        .and(accept(MediaType.TEXT_EVENT_STREAM)), handler::stockEvents)
+                .andRoute(POST("/franchises/import")
+                        .and(contentType(MediaType.APPLICATION_NDJSON)), handler::importFranchise)
         );
     }
 }
\ No newline at end of file
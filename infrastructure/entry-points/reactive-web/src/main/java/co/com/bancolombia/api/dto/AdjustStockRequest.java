@@ -0,0 +1,19 @@
+package co.com.bancolombia.api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class AdjustStockRequest {
+    private long delta;
+
+    public int checkedDelta() {
+        if (delta <= Integer.MIN_VALUE || delta > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Delta is out of range");
+        }
+        return (int) delta;
+    }
+}
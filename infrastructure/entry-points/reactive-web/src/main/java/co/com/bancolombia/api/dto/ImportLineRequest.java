@@ -0,0 +1,15 @@
+package co.com.bancolombia.api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportLineRequest {
+    private String type;
+    private String name;
+    private String branch;
+    private Integer stock;
+}
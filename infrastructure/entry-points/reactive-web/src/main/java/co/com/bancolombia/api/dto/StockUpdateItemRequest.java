@@ -0,0 +1,13 @@
+package co.com.bancolombia.api.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockUpdateItemRequest {
+    private String productId;
+    private Integer stock;
+}
@@ -1,22 +1,43 @@
 package co.com.bancolombia.api;
 
 import co.com.bancolombia.model.branch.Branch;
+import co.com.bancolombia.model.dto.DeletionSummary;
+import co.com.bancolombia.model.dto.IdempotentResponse;
+import co.com.bancolombia.model.dto.ImportRecord;
+import co.com.bancolombia.model.dto.ImportResult;
+import co.com.bancolombia.model.dto.PageResult;
+import co.com.bancolombia.model.dto.StockUpdate;
+import co.com.bancolombia.model.dto.StockUpdateResult;
 import co.com.bancolombia.model.dto.TopProductByBranch;
+import co.com.bancolombia.model.event.StockEvent;
+import co.com.bancolombia.model.event.StockEventType;
 import co.com.bancolombia.model.franchise.Franchise;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
 import co.com.bancolombia.model.product.Product;
 import co.com.bancolombia.usecase.franchise.*;
+import co.com.bancolombia.usecase.idempotency.IdempotentRequestUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.time.Instant;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 
 class HandlerTest {
@@ -27,9 +48,20 @@ class HandlerTest {
     private DeleteProductUseCase deleteProductUseCase;
     private UpdateProductStockUseCase updateProductStockUseCase;
     private TopProductByBranchUseCase topProductByBranchUseCase;
+    private TopProductsByFranchiseUseCase topProductsByFranchiseUseCase;
     private UpdateFranchiseNameUseCase updateFranchiseNameUseCase;
     private UpdateBranchNameUseCase updateBranchNameUseCase;
     private UpdateProductNameUseCase updateProductNameUseCase;
+    private ListFranchisesUseCase listFranchisesUseCase;
+    private ListBranchesUseCase listBranchesUseCase;
+    private ListProductsUseCase listProductsUseCase;
+    private WatchStockEventsUseCase watchStockEventsUseCase;
+    private BulkUpdateProductStockUseCase bulkUpdateProductStockUseCase;
+    private ImportFranchiseUseCase importFranchiseUseCase;
+    private AdjustProductStockUseCase adjustProductStockUseCase;
+    private DeleteBranchUseCase deleteBranchUseCase;
+    private DeleteFranchiseUseCase deleteFranchiseUseCase;
+    private IdempotencyGateway idempotencyGateway;
 
     private WebTestClient client;
 
@@ -41,9 +73,20 @@ class HandlerTest {
         deleteProductUseCase = Mockito.mock(DeleteProductUseCase.class);
         updateProductStockUseCase = Mockito.mock(UpdateProductStockUseCase.class);
         topProductByBranchUseCase = Mockito.mock(TopProductByBranchUseCase.class);
+        topProductsByFranchiseUseCase = Mockito.mock(TopProductsByFranchiseUseCase.class);
         updateFranchiseNameUseCase = Mockito.mock(UpdateFranchiseNameUseCase.class);
         updateBranchNameUseCase = Mockito.mock(UpdateBranchNameUseCase.class);
         updateProductNameUseCase = Mockito.mock(UpdateProductNameUseCase.class);
+        listFranchisesUseCase = Mockito.mock(ListFranchisesUseCase.class);
+        listBranchesUseCase = Mockito.mock(ListBranchesUseCase.class);
+        listProductsUseCase = Mockito.mock(ListProductsUseCase.class);
+        watchStockEventsUseCase = Mockito.mock(WatchStockEventsUseCase.class);
+        bulkUpdateProductStockUseCase = Mockito.mock(BulkUpdateProductStockUseCase.class);
+        importFranchiseUseCase = Mockito.mock(ImportFranchiseUseCase.class);
+        adjustProductStockUseCase = Mockito.mock(AdjustProductStockUseCase.class);
+        deleteBranchUseCase = Mockito.mock(DeleteBranchUseCase.class);
+        deleteFranchiseUseCase = Mockito.mock(DeleteFranchiseUseCase.class);
+        idempotencyGateway = Mockito.mock(IdempotencyGateway.class);
 
         Handler handler = new Handler(
                 createFranchiseUseCase,
@@ -52,9 +95,21 @@ class HandlerTest {
                 deleteProductUseCase,
                 updateProductStockUseCase,
                 topProductByBranchUseCase,
+                topProductsByFranchiseUseCase,
                 updateFranchiseNameUseCase,
                 updateBranchNameUseCase,
-                updateProductNameUseCase
+                updateProductNameUseCase,
+                listFranchisesUseCase,
+                listBranchesUseCase,
+                listProductsUseCase,
+                watchStockEventsUseCase,
+                bulkUpdateProductStockUseCase,
+                importFranchiseUseCase,
+                new ImportLineReader(JsonMapper.builder().build()),
+                adjustProductStockUseCase,
+                deleteBranchUseCase,
+                deleteFranchiseUseCase,
+                new IdempotentRequests(new IdempotentRequestUseCase(idempotencyGateway), JsonMapper.builder().build())
         );
 
         RouterFunction<ServerResponse> router = new RouterRest().routerFunction(handler);
@@ -117,6 +172,102 @@ class HandlerTest {
                 .jsonPath("$.message").isEqualTo("duplicate");
     }
 
+    @Test
+    void createFranchise_withIdempotencyKey_storesFirstResponse() {
+        Instant now = Instant.now();
+        Mockito.when(createFranchiseUseCase.execute(eq("KFC")))
+                .thenReturn(Mono.just(new Franchise("fr-1", "KFC", now, now)));
+        Mockito.when(idempotencyGateway.find("POST /api/franchises|retry-1")).thenReturn(Mono.empty());
+        Mockito.when(idempotencyGateway.saveIfAbsent(eq("POST /api/franchises|retry-1"), any()))
+                .thenAnswer(inv -> Mono.just(inv.getArgument(1)));
+
+        client.post().uri("/franchises")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotentRequests.IDEMPOTENCY_KEY, "retry-1")
+                .bodyValue("{\"name\":\"KFC\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("fr-1");
+
+        Mockito.verify(idempotencyGateway).saveIfAbsent(eq("POST /api/franchises|retry-1"),
+                argThat(stored -> stored.getStatus() == 200 && stored.getBody().contains("fr-1")));
+    }
+
+    @Test
+    void createFranchise_withReplayedIdempotencyKey_returnsStoredResponse() {
+        Mockito.when(idempotencyGateway.find("POST /api/franchises|retry-1"))
+                .thenReturn(Mono.just(new IdempotentResponse(200, "0", "{\"id\":\"fr-1\",\"name\":\"KFC\"}")));
+
+        client.post().uri("/franchises")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotentRequests.IDEMPOTENCY_KEY, "retry-1")
+                .bodyValue("{\"name\":\"KFC\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo("fr-1");
+
+        Mockito.verifyNoInteractions(createFranchiseUseCase);
+    }
+
+    @Test
+    void createFranchise_withReusedIdempotencyKey_replaysSameBodyAndRejectsDifferentOne() {
+        Instant now = Instant.now();
+        AtomicReference<IdempotentResponse> stored = new AtomicReference<>();
+        Mockito.when(createFranchiseUseCase.execute(eq("KFC")))
+                .thenReturn(Mono.just(new Franchise("fr-1", "KFC", now, now)));
+        Mockito.when(idempotencyGateway.find("POST /api/franchises|retry-3"))
+                .thenAnswer(inv -> Mono.justOrEmpty(stored.get()));
+        Mockito.when(idempotencyGateway.saveIfAbsent(eq("POST /api/franchises|retry-3"), any()))
+                .thenAnswer(inv -> Mono.just(stored.updateAndGet(current -> current == null ? inv.getArgument(1) : current)));
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            client.post().uri("/franchises")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(IdempotentRequests.IDEMPOTENCY_KEY, "retry-3")
+                    .bodyValue("{\"name\":\"KFC\"}")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo("fr-1");
+        }
+
+        client.post().uri("/franchises")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotentRequests.IDEMPOTENCY_KEY, "retry-3")
+                .bodyValue("{\"name\":\"Subway\"}")
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(422)
+                .jsonPath("$.message").isEqualTo("Idempotency key was already used with a different request");
+
+        Mockito.verify(createFranchiseUseCase, Mockito.times(1)).execute(any());
+    }
+
+    @Test
+    void addProduct_withIdempotencyKey_storesConflict() {
+        Mockito.when(addProductUseCase.execute(eq("br-1"), eq("Burger"), eq(10)))
+                .thenReturn(Mono.error(new IllegalStateException("Product name already exists for this branch")));
+        Mockito.when(idempotencyGateway.find("POST /api/branches/br-1/products|retry-2")).thenReturn(Mono.empty());
+        Mockito.when(idempotencyGateway.saveIfAbsent(eq("POST /api/branches/br-1/products|retry-2"), any()))
+                .thenAnswer(inv -> Mono.just(inv.getArgument(1)));
+
+        client.post().uri("/branches/{id}/products", "br-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotentRequests.IDEMPOTENCY_KEY, "retry-2")
+                .bodyValue("{\"name\":\"Burger\",\"stock\":10}")
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(409)
+                .jsonPath("$.message").isEqualTo("Product name already exists for this branch");
+    }
+
     @Test
     void addBranch_success() {
         Instant now = Instant.now();
@@ -187,7 +338,7 @@ class HandlerTest {
         Instant now = Instant.now();
         Product updated = new Product("pr-1", "br-1", "Burger", 99, now, now);
 
-        Mockito.when(updateProductStockUseCase.execute(eq("pr-1"), eq(99)))
+        Mockito.when(updateProductStockUseCase.execute(eq("pr-1"), eq(99), isNull()))
                 .thenReturn(Mono.just(updated));
 
         client.patch().uri("/products/{id}/stock", "pr-1")
@@ -200,12 +351,57 @@ class HandlerTest {
                 .jsonPath("$.stock").isEqualTo(99);
     }
 
+    @Test
+    void updateProductStock_withIfMatch_passesExpectedVersion_andReturnsETag() {
+        Instant now = Instant.now();
+        Mockito.when(updateProductStockUseCase.execute(eq("pr-1"), eq(5), eq(3L)))
+                .thenReturn(Mono.just(new Product("pr-1", "br-1", "Burger", 5, now, now, 4)));
+
+        client.patch().uri("/products/{id}/stock", "pr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
+                .bodyValue("{\"stock\":5}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+    }
+
+    @Test
+    void updateFranchiseName_versionMismatch_mapsTo412() {
+        Mockito.when(updateFranchiseNameUseCase.execute(eq("fr-1"), eq("KFC"), eq(1L)))
+                .thenReturn(Mono.error(new ConcurrentModificationException("Version does not match")));
+
+        client.patch().uri("/franchises/{id}/name", "fr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .bodyValue("{\"name\":\"KFC\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Version does not match");
+    }
+
+    @Test
+    void updateProductName_malformedIfMatch_mapsTo400() {
+        client.patch().uri("/products/{id}/name", "pr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                .bodyValue("{\"name\":\"Burger\"}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        Mockito.verifyNoInteractions(updateProductNameUseCase);
+    }
+
     @Test
     void topProductsByBranch_success_returnsArray() {
         TopProductByBranch item1 = new TopProductByBranch("br-1", "S1", "pr-1", "Burger", 50);
         TopProductByBranch item2 = new TopProductByBranch("br-2", "S2", null, null, 0);
 
-        Mockito.when(topProductByBranchUseCase.execute(eq("fr-1")))
+        Mockito.when(topProductByBranchUseCase.execute(eq("fr-1"), eq(1)))
                 .thenReturn(Flux.just(item1, item2));
 
         client.get().uri("/franchises/{id}/top-products", "fr-1")
@@ -220,4 +416,341 @@ class HandlerTest {
                 .jsonPath("$[1].branchId").isEqualTo("br-2")
                 .jsonPath("$[1].productId").doesNotExist(); 
     }
+
+    @Test
+    void topProductsByBranch_ndjson_writesOneObjectPerLine() {
+        TopProductByBranch item1 = new TopProductByBranch("br-1", "S1", "pr-1", "Burger", 50);
+        TopProductByBranch item2 = new TopProductByBranch("br-2", "S2", null, null, 0);
+
+        Mockito.when(topProductByBranchUseCase.execute(eq("fr-1"), eq(1)))
+                .thenReturn(Flux.just(item1, item2));
+
+        client.get().uri("/franchises/{id}/top-products", "fr-1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> {
+                    String[] lines = body.trim().split("\n");
+                    assertEquals(2, lines.length);
+                    assertTrue(lines[0].contains("\"branchId\":\"br-1\""));
+                    assertTrue(lines[1].contains("\"branchId\":\"br-2\""));
+                });
+    }
+
+    @Test
+    void topProductsByBranch_eventStream_writesOneEventPerBranch() {
+        TopProductByBranch item1 = new TopProductByBranch("br-1", "S1", "pr-1", "Burger", 50);
+
+        Mockito.when(topProductByBranchUseCase.execute(eq("fr-1"), eq(1)))
+                .thenReturn(Flux.just(item1));
+
+        client.get().uri("/franchises/{id}/top-products", "fr-1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBody(String.class)
+                .value(body -> {
+                    assertTrue(body.contains("id:br-1"));
+                    assertTrue(body.contains("event:top-product"));
+                    assertTrue(body.contains("\"productName\":\"Burger\""));
+                });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE,
+            MediaType.APPLICATION_JSON_VALUE})
+    void topProductsByBranch_franchiseNotFound_returns400BeforeStreaming(String accept) {
+        Mockito.when(topProductByBranchUseCase.execute(eq("fr-404"), eq(1)))
+                .thenReturn(Flux.error(new IllegalArgumentException("Franchise not found")));
+
+        client.get().uri("/franchises/{id}/top-products", "fr-404")
+                .accept(MediaType.parseMediaType(accept))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Franchise not found");
+    }
+
+    @Test
+    void topProductsByBranch_ndjson_franchiseWithoutBranches_returnsEmptyStream() {
+        Mockito.when(topProductByBranchUseCase.execute(eq("fr-1"), eq(1))).thenReturn(Flux.empty());
+
+        client.get().uri("/franchises/{id}/top-products", "fr-1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void topProductsByBranch_withK_passesKToUseCase() {
+        TopProductByBranch item1 = new TopProductByBranch("br-1", "S1", "pr-1", "Burger", 50);
+        TopProductByBranch item2 = new TopProductByBranch("br-1", "S1", "pr-2", "Fries", 20);
+
+        Mockito.when(topProductByBranchUseCase.execute(eq("fr-1"), eq(2)))
+                .thenReturn(Flux.just(item1, item2));
+
+        client.get().uri("/franchises/{id}/top-products?k=2", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].productId").isEqualTo("pr-2");
+    }
+
+    @Test
+    void topProductsByBranch_invalidK_returns400() {
+        client.get().uri("/franchises/{id}/top-products?k=abc", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("k must be a number");
+
+        Mockito.verifyNoInteractions(topProductByBranchUseCase);
+    }
+
+    @Test
+    void topProductsByFranchise_success_returnsRanking() {
+        TopProductByBranch first = new TopProductByBranch("br-2", "S2", "pr-9", "Pizza", 80);
+        TopProductByBranch second = new TopProductByBranch("br-1", "S1", "pr-1", "Burger", 50);
+
+        Mockito.when(topProductsByFranchiseUseCase.execute(eq("fr-1"), eq(2)))
+                .thenReturn(Flux.just(first, second));
+
+        client.get().uri("/franchises/{id}/top-products/ranking?k=2", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].productId").isEqualTo("pr-9")
+                .jsonPath("$[0].branchId").isEqualTo("br-2")
+                .jsonPath("$[1].stock").isEqualTo(50);
+    }
+
+    @Test
+    void topProductsByFranchise_notFound_returns400() {
+        Mockito.when(topProductsByFranchiseUseCase.execute(eq("fr-404"), eq(10)))
+                .thenReturn(Flux.error(new IllegalArgumentException("Franchise not found")));
+
+        client.get().uri("/franchises/{id}/top-products/ranking", "fr-404")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Franchise not found");
+    }
+
+    @Test
+    void listFranchises_success_returnsPageWithCursor() {
+        Instant now = Instant.now();
+        Franchise franchise = new Franchise("fr-1", "Franquicia", now, now);
+
+        Mockito.when(listFranchisesUseCase.execute(isNull(), eq(20)))
+                .thenReturn(Mono.just(new PageResult<>(List.of(franchise), "next-1")));
+
+        client.get().uri("/franchises")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].id").isEqualTo("fr-1")
+                .jsonPath("$.nextCursor").isEqualTo("next-1");
+    }
+
+    @Test
+    void listBranches_passesCursorAndLimit() {
+        Instant now = Instant.now();
+        Branch branch = new Branch("br-2", "fr-1", "Norte", now, now);
+
+        Mockito.when(listBranchesUseCase.execute(eq("fr-1"), eq("c-1"), eq(5)))
+                .thenReturn(Mono.just(new PageResult<>(List.of(branch), null)));
+
+        client.get().uri("/franchises/{id}/branches?cursor=c-1&limit=5", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].id").isEqualTo("br-2");
+    }
+
+    @Test
+    void listProducts_invalidCursor_returns400() {
+        Mockito.when(listProductsUseCase.execute(eq("br-1"), eq("bad"), eq(20)))
+                .thenReturn(Mono.error(new IllegalArgumentException("Invalid cursor")));
+
+        client.get().uri("/branches/{id}/products?cursor=bad", "br-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Invalid cursor");
+    }
+
+    @Test
+    void stockEvents_streamsEventsAsServerSentEvents() {
+        StockEvent event = new StockEvent(StockEventType.STOCK_CHANGED, "fr-1", "br-1", "pr-1", "Burger", 42, Instant.now());
+
+        Mockito.when(watchStockEventsUseCase.execute(eq("fr-1")))
+                .thenReturn(Flux.concat(Flux.just(event), Flux.never()));
+
+        Flux<String> body = client.get().uri("/franchises/{id}/stock-events", "fr-1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(String.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .assertNext(data -> {
+                    assertTrue(data.contains("\"productId\":\"pr-1\""));
+                    assertTrue(data.contains("\"stock\":42"));
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void updateProductStocks_returnsResultPerItem() {
+        Mockito.when(bulkUpdateProductStockUseCase.execute(eq("br-1"), any()))
+                .thenAnswer(inv -> Flux.from(inv.<Flux<StockUpdate>>getArgument(1))
+                        .map(u -> new StockUpdateResult(u.getProductId(),
+                                u.getStock() == null ? StockUpdateResult.Status.INVALID : StockUpdateResult.Status.UPDATED,
+                                null)));
+
+        client.patch().uri("/branches/{id}/products/stock", "br-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"productId\":\"pr-1\",\"stock\":5},{\"productId\":\"pr-2\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].productId").isEqualTo("pr-1")
+                .jsonPath("$[0].status").isEqualTo("UPDATED")
+                .jsonPath("$[1].status").isEqualTo("INVALID");
+    }
+
+    @Test
+    void updateProductStocks_branchNotFound_returns400() {
+        Mockito.when(bulkUpdateProductStockUseCase.execute(eq("br-404"), any()))
+                .thenReturn(Flux.error(new IllegalArgumentException("Branch not found")));
+
+        client.patch().uri("/branches/{id}/products/stock", "br-404")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void importFranchise_streamsResultPerLine() {
+        Mockito.when(importFranchiseUseCase.execute(any()))
+                .thenAnswer(inv -> Flux.from(inv.<Flux<ImportRecord>>getArgument(0))
+                        .map(record -> record.getError() == null
+                                ? ImportResult.created(record, "id-" + record.getLine())
+                                : ImportResult.failed(record, record.getError())));
+
+        Flux<String> body = client.post().uri("/franchises/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"type\":\"franchise\",\"name\":\"Acme\"}\n"
+                        + "\n"
+                        + "{\"type\":\"branch\",\"name\":\"Centro\"}\n"
+                        + "not json\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(String.class)
+                .getResponseBody();
+
+        StepVerifier.create(body)
+                .assertNext(line -> {
+                    assertTrue(line.contains("\"line\":1"));
+                    assertTrue(line.contains("\"status\":\"CREATED\""));
+                })
+                .assertNext(line -> assertTrue(line.contains("\"line\":3") && line.contains("\"type\":\"BRANCH\"")))
+                .assertNext(line -> {
+                    assertTrue(line.contains("\"line\":4"));
+                    assertTrue(line.contains("Malformed JSON line"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void adjustProductStock_returnsNewStock() {
+        Instant now = Instant.now();
+        Mockito.when(adjustProductStockUseCase.execute(eq("pr-1"), eq(-2)))
+                .thenReturn(Mono.just(new Product("pr-1", "br-1", "Burger", 8, now, now)));
+
+        client.post().uri("/products/{id}/stock/adjust", "pr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"delta\":-2}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.stock").isEqualTo(8);
+    }
+
+    @Test
+    void adjustProductStock_insufficientStock_returns409() {
+        Mockito.when(adjustProductStockUseCase.execute(eq("pr-1"), eq(-20)))
+                .thenReturn(Mono.error(new IllegalStateException("Insufficient stock")));
+
+        client.post().uri("/products/{id}/stock/adjust", "pr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"delta\":-20}")
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Insufficient stock");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-2147483648", "2147483648", "-9999999999"})
+    void adjustProductStock_deltaOutOfRange_returns400(String delta) {
+        client.post().uri("/products/{id}/stock/adjust", "pr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"delta\":" + delta + "}")
+                .exchange()
+                .expectStatus().isEqualTo(400)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Delta is out of range");
+
+        Mockito.verifyNoInteractions(adjustProductStockUseCase);
+    }
+
+    @Test
+    void deleteBranch_returnsDeletionSummary() {
+        Mockito.when(deleteBranchUseCase.execute(eq("br-1")))
+                .thenReturn(Mono.just(new DeletionSummary(0, 1, 42)));
+
+        client.delete().uri("/branches/{id}", "br-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.branches").isEqualTo(1)
+                .jsonPath("$.products").isEqualTo(42);
+    }
+
+    @Test
+    void deleteFranchise_notFound_mapsTo400() {
+        Mockito.when(deleteFranchiseUseCase.execute(eq("fr-404")))
+                .thenReturn(Mono.error(new IllegalArgumentException("Franchise not found")));
+
+        client.delete().uri("/franchises/{id}", "fr-404")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
 }
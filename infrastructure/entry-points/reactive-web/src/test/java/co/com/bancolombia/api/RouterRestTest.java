@@ -33,9 +33,30 @@ class RouterRestTest {
                 .thenReturn(ServerResponse.ok().build());
         Mockito.when(handler.deleteProduct(Mockito.any()))
                 .thenReturn(ServerResponse.noContent().build());
+        Mockito.when(handler.deleteBranch(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.deleteFranchise(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
         Mockito.when(handler.topProductsByBranch(Mockito.any()))
                 .thenReturn(ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
                         .bodyValue("[]"));
+        Mockito.when(handler.topProductsByFranchise(Mockito.any()))
+                .thenReturn(ServerResponse.ok().contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue("[]"));
+        Mockito.when(handler.listFranchises(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.listBranches(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.listProducts(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.updateProductStocks(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.stockEvents(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.importFranchise(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
+        Mockito.when(handler.adjustProductStock(Mockito.any()))
+                .thenReturn(ServerResponse.ok().build());
 
         RouterFunction<ServerResponse> router = new RouterRest().routerFunction(handler);
 
@@ -105,6 +126,16 @@ class RouterRestTest {
                 .expectStatus().isOk();
     }
 
+    @Test
+    void shouldRouteBulkUpdateProductStock() {
+        client.patch().uri("/branches/{id}/products/stock", "br-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"productId\":\"pr-1\",\"stock\":5}]")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
     @Test
     void shouldRouteUpdateProductName() {
         client.patch().uri("/products/{id}/name", "pr-1")
@@ -123,6 +154,22 @@ class RouterRestTest {
                 .expectStatus().isNoContent();
     }
 
+    @Test
+    void shouldRouteDeleteBranch() {
+        client.delete().uri("/branches/{id}", "br-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteDeleteFranchise() {
+        client.delete().uri("/franchises/{id}", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
     @Test
     void shouldRouteTopProductsByBranch() {
         client.get().uri("/franchises/{id}/top-products", "fr-1")
@@ -131,6 +178,101 @@ class RouterRestTest {
                 .expectStatus().isOk();
     }
 
+    @Test
+    void shouldRouteTopProductsByFranchise() {
+        client.get().uri("/franchises/{id}/top-products/ranking?k=5", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteListFranchises() {
+        client.get().uri("/franchises?limit=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteListBranches() {
+        client.get().uri("/franchises/{id}/branches", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteListProducts() {
+        client.get().uri("/branches/{id}/products", "br-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteTopProductsByBranch_whenStreamingIsRequested() {
+        client.get().uri("/franchises/{id}/top-products", "fr-1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri("/franchises/{id}/top-products", "fr-1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteStockEvents_onlyForEventStream() {
+        client.get().uri("/franchises/{id}/stock-events", "fr-1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk();
+
+        client.get().uri("/franchises/{id}/stock-events", "fr-1")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldRouteAdjustProductStock() {
+        client.post().uri("/products/{id}/stock/adjust", "pr-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"delta\":-2}")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRouteImportFranchise_onlyForNdjsonBody() {
+        client.post().uri("/franchises/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"type\":\"franchise\",\"name\":\"Acme\"}\n")
+                .exchange()
+                .expectStatus().isOk();
+
+        client.post().uri("/franchises/import")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"type\":\"franchise\",\"name\":\"Acme\"}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldNotRouteWriteEndpoints_forStreamingAccept() {
+        client.post().uri("/franchises")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"name\":\"Franquicia\"}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     void shouldReturn404ForUnknownRoute() {
         client.get().uri("/unknown")
@@ -1,13 +1,18 @@
 package co.com.bancolombia.api.config;
 
 import co.com.bancolombia.api.Handler;
+import co.com.bancolombia.api.IdempotentRequests;
+import co.com.bancolombia.api.ImportLineReader;
 import co.com.bancolombia.api.RouterRest;
 import co.com.bancolombia.api.dto.CreateFranchiseRequest;
+import co.com.bancolombia.model.gateways.IdempotencyGateway;
 import co.com.bancolombia.usecase.franchise.*;
+import co.com.bancolombia.usecase.idempotency.IdempotentRequestUseCase;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -36,9 +41,22 @@ class ConfigTest {
                 deleteProductUseCase,
                 updateProductStockUseCase,
                 topProductByBranchUseCase,
+                mock(TopProductsByFranchiseUseCase.class),
                 updateFranchiseNameUseCase,
                 updateBranchNameUseCase,
-                updateProductNameUseCase
+                updateProductNameUseCase,
+                mock(ListFranchisesUseCase.class),
+                mock(ListBranchesUseCase.class),
+                mock(ListProductsUseCase.class),
+                mock(WatchStockEventsUseCase.class),
+                mock(BulkUpdateProductStockUseCase.class),
+                mock(ImportFranchiseUseCase.class),
+                mock(ImportLineReader.class),
+                mock(AdjustProductStockUseCase.class),
+                mock(DeleteBranchUseCase.class),
+                mock(DeleteFranchiseUseCase.class),
+                new IdempotentRequests(new IdempotentRequestUseCase(mock(IdempotencyGateway.class)),
+                        JsonMapper.builder().build())
         );
 
         RouterRest routerRest = new RouterRest();